@@ -0,0 +1,36 @@
+package com.legacykeep.legacy.actuator;
+
+import com.legacykeep.legacy.dto.response.InheritanceProcessingRunResponse;
+import com.legacykeep.legacy.service.impl.InheritanceProcessingRunStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint exposing inheritance processing runs and their progress.
+ *
+ * {@code GET /actuator/inheritanceruns} lists the most recent runs with their counts and
+ * throughput; {@code GET /actuator/inheritanceruns/{runId}} adds the checkpoint of each
+ * shard. An unknown run ID returns 404.
+ */
+@Component
+@Endpoint(id = "inheritanceruns")
+@RequiredArgsConstructor
+public class InheritanceRunsEndpoint {
+
+    private final InheritanceProcessingRunStore runStore;
+
+    @ReadOperation
+    public List<InheritanceProcessingRunResponse> runs() {
+        return runStore.findRecentRuns();
+    }
+
+    @ReadOperation
+    public InheritanceProcessingRunResponse run(@Selector long runId) {
+        return runStore.findRun(runId);
+    }
+}
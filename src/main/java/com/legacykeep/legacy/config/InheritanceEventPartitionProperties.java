@@ -0,0 +1,50 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for inheritance_events partition maintenance and archiving.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.events.partitions")
+@Data
+public class InheritanceEventPartitionProperties {
+
+    /**
+     * Whether this instance creates, detaches and archives partitions.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of future monthly partitions kept ahead of the current month.
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * Number of months, including the current one, kept attached. Older partitions are
+     * detached and archived.
+     */
+    private int retentionMonths = 24;
+
+    /**
+     * Directory holding compressed archives of detached partitions.
+     */
+    private String archivePath = "/tmp/legacy-service/archive/inheritance-events";
+
+    /**
+     * Delay in milliseconds between maintenance runs.
+     */
+    private long maintenanceIntervalMillis = 3600000;
+
+    /**
+     * How long detaching a partition may wait for its lock before the run gives up.
+     */
+    private long lockTimeoutMillis = 5000;
+
+    /**
+     * Rows fetched per round trip while exporting a partition.
+     */
+    private int exportFetchSize = 1000;
+}
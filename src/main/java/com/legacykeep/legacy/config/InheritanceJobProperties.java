@@ -0,0 +1,55 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for asynchronous inheritance jobs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.jobs")
+@Data
+public class InheritanceJobProperties {
+
+    /**
+     * Number of threads running jobs on this instance.
+     */
+    private int threads = 4;
+
+    /**
+     * Jobs waiting for a thread on this instance before submissions are rejected.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Maximum number of queued or running jobs per creator across the cluster.
+     */
+    private int maxActivePerCreator = 3;
+
+    /**
+     * Delay in milliseconds between heartbeats of running jobs, which also persist their
+     * progress and pick up cancellation requests.
+     */
+    private long heartbeatIntervalMillis = 2000;
+
+    /**
+     * How long an unfinished job may go without a heartbeat before it is marked failed.
+     */
+    private long staleAfterMillis = 60000;
+
+    /**
+     * How long finished jobs are kept.
+     */
+    private int retentionHours = 24;
+
+    /**
+     * Delay in milliseconds between progress checks of a streamed job.
+     */
+    private long streamPollIntervalMillis = 1000;
+
+    /**
+     * How long a progress stream stays open before the client has to reconnect.
+     */
+    private long streamTimeoutMillis = 600000;
+}
@@ -0,0 +1,47 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the write-behind inheritance event journal.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.journal")
+@Data
+public class InheritanceJournalProperties {
+
+    /**
+     * Maximum number of events buffered in memory before producers are throttled.
+     */
+    private int capacity = 10000;
+
+    /**
+     * Maximum number of events written per multi-row insert.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Delay in milliseconds between flushes of the buffer to the database.
+     */
+    private long flushIntervalMillis = 200;
+
+    /**
+     * How long a producer waits for buffer space before writing its event synchronously.
+     */
+    private long offerTimeoutMillis = 50;
+
+    /**
+     * Local spill file holding events that have not been flushed yet.
+     * Replayed on startup so a crash does not lose buffered events.
+     */
+    private String spillPath = "/tmp/legacy-service/inheritance-events.journal";
+
+    /**
+     * Whether spilled events are forced to the storage device before they are acknowledged.
+     * Without it they reach the OS page cache, which survives a process crash but not a
+     * host crash.
+     */
+    private boolean spillForce = true;
+}
@@ -0,0 +1,60 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the inheritance event outbox relay.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.outbox")
+@Data
+public class InheritanceOutboxProperties {
+
+    /**
+     * Whether this instance relays outbox rows to Kafka.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of relay partitions the outbox is split into by message key. Each partition
+     * is relayed by at most one instance at a time; must be the same on every instance.
+     */
+    private int relayPartitions = 8;
+
+    /**
+     * Number of threads relaying partitions on this instance.
+     */
+    private int relayThreads = 2;
+
+    /**
+     * Maximum number of rows published per relay batch.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Delay in milliseconds between polls of an idle relay partition.
+     */
+    private long pollIntervalMillis = 200;
+
+    /**
+     * How long a batch may wait for Kafka acknowledgements before it is retried.
+     */
+    private long sendTimeoutMillis = 30000;
+
+    /**
+     * How long published rows are kept before they are purged.
+     */
+    private int retentionHours = 24;
+
+    /**
+     * Delay in milliseconds between purges of published rows.
+     */
+    private long purgeIntervalMillis = 600000;
+
+    /**
+     * Maximum number of published rows deleted per purge statement.
+     */
+    private int purgeBatchSize = 10000;
+}
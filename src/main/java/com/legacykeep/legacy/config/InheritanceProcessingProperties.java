@@ -0,0 +1,49 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the inheritance processing engine.
+ *
+ * Controls how active inheritance rules are partitioned and how many rules
+ * are processed concurrently during a sweep.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.processing")
+@Data
+public class InheritanceProcessingProperties {
+
+    /**
+     * Maximum number of rules processed concurrently.
+     */
+    private int maxConcurrency = 16;
+
+    /**
+     * Number of rule IDs loaded per work unit (keyset page).
+     */
+    private int partitionSize = 500;
+
+    /**
+     * Use virtual threads for rule workers when the JVM supports them.
+     * Falls back to a fixed platform thread pool otherwise.
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * Timeout in seconds for the transaction wrapping a single rule.
+     */
+    private int ruleTransactionTimeoutSeconds = 30;
+
+    /**
+     * Maximum number of recipients written per set-based delivery statement.
+     */
+    private int deliveryBatchSize = 1000;
+
+    /**
+     * Number of rules validated and inserted per statement by the bulk creation API.
+     * Each chunk commits in its own transaction.
+     */
+    private int bulkChunkSize = 500;
+}
@@ -0,0 +1,37 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for checkpointed inheritance processing runs.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.runs")
+@Data
+public class InheritanceProcessingRunProperties {
+
+    /**
+     * Number of rules queued between checkpoints of a shard's cursor. A resumed shard
+     * queues at most this many rules again.
+     */
+    private int checkpointInterval = 5000;
+
+    /**
+     * How long a shard may go without a checkpoint before another instance takes it over.
+     * Only applies when sharding is disabled; with sharding the shard lease decides.
+     */
+    private long staleAfterMillis = 120000;
+
+    /**
+     * How long finished runs are kept. Running runs without a heartbeat for this long
+     * are marked abandoned.
+     */
+    private int retentionHours = 24;
+
+    /**
+     * Number of most recent runs listed by the actuator endpoint.
+     */
+    private int recentRunsLimit = 20;
+}
@@ -0,0 +1,54 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the TIME_BASED inheritance trigger scheduler.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.scheduler")
+@Data
+public class InheritanceSchedulerProperties {
+
+    /**
+     * Enable firing of TIME_BASED inheritance rules.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Resolution of the timing wheel in milliseconds.
+     */
+    private long tickMillis = 1000;
+
+    /**
+     * Slots per timing wheel level.
+     */
+    private int wheelSize = 64;
+
+    /**
+     * Number of timing wheel levels. With the defaults the wheel spans 64^4 seconds (about 194 days).
+     */
+    private int wheelLevels = 4;
+
+    /**
+     * How far ahead, in minutes, due rules are loaded from the database into the wheel.
+     */
+    private long horizonMinutes = 1440;
+
+    /**
+     * Interval in seconds between loads of the next horizon window.
+     */
+    private long refreshIntervalSeconds = 600;
+
+    /**
+     * Number of rules read per page when loading a horizon window.
+     */
+    private int loadPageSize = 1000;
+
+    /**
+     * Maximum number of due rules dispatched to the processing engine at once.
+     */
+    private int dispatchBatchSize = 500;
+}
@@ -0,0 +1,41 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for sharded ownership of inheritance processing across instances.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.sharding")
+@Data
+public class InheritanceShardingProperties {
+
+    /**
+     * Whether sweeps are split into shards owned by individual instances. When disabled,
+     * each run is swept by a single instance as one shard.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Number of hash shards the active rules are split into by content ID.
+     * Must be the same on every instance.
+     */
+    private int shardCount = 64;
+
+    /**
+     * How long a shard lease or node heartbeat stays valid without renewal.
+     */
+    private long leaseTtlMillis = 30000;
+
+    /**
+     * Delay in milliseconds between heartbeats, which renew leases and rebalance shards.
+     */
+    private long heartbeatIntervalMillis = 10000;
+
+    /**
+     * Delay in milliseconds between checks for processing runs pending on owned shards.
+     */
+    private long sweepPollIntervalMillis = 5000;
+}
@@ -0,0 +1,44 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the approximate inheritance statistics sketches.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.sketches")
+@Data
+public class InheritanceSketchProperties {
+
+    /**
+     * Whether sketches are maintained and persisted.
+     */
+    private boolean enabled = true;
+
+    /**
+     * HyperLogLog precision; relative standard error is 1.04 / sqrt(2^precision).
+     */
+    private int hllPrecision = 11;
+
+    /**
+     * Count-min sketch counters per row; overestimates stay below e / width of the total.
+     */
+    private int countMinWidth = 1024;
+
+    /**
+     * Count-min sketch rows; the error bound holds with probability 1 - e^-depth.
+     */
+    private int countMinDepth = 4;
+
+    /**
+     * Number of items tracked by each space-saving top-k summary.
+     */
+    private int topKCapacity = 64;
+
+    /**
+     * Delay in milliseconds between persisting in-memory sketch deltas.
+     */
+    private long flushIntervalMillis = 60000;
+}
@@ -0,0 +1,55 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the durable inheritance work queue.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.inheritance.queue")
+@Data
+public class InheritanceWorkQueueProperties {
+
+    /**
+     * Whether this instance runs queue workers. Rules can be queued either way.
+     */
+    private boolean workersEnabled = true;
+
+    /**
+     * Number of worker threads claiming batches on this instance. Each batch is processed
+     * on the processing engine's bounded pool.
+     */
+    private int workers = 2;
+
+    /**
+     * Maximum number of rows claimed per batch.
+     */
+    private int batchSize = 100;
+
+    /**
+     * Delay in milliseconds between polls of an empty queue.
+     */
+    private long pollIntervalMillis = 250;
+
+    /**
+     * How long a claim is held before the row becomes available to other workers.
+     */
+    private long claimTimeoutMillis = 300000;
+
+    /**
+     * Processing attempts before a row is moved to the dead-letter table.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Delay before the first retry of a failed row; doubled on every further attempt.
+     */
+    private long backoffInitialMillis = 5000;
+
+    /**
+     * Upper bound of the retry delay.
+     */
+    private long backoffMaxMillis = 3600000;
+}
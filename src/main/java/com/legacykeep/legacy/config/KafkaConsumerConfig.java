@@ -0,0 +1,43 @@
+package com.legacykeep.legacy.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+import java.util.Map;
+
+/**
+ * Kafka consumer configuration for listeners that need more than the Boot defaults.
+ */
+@Configuration
+public class KafkaConsumerConfig {
+
+    /**
+     * Batch listener container for relationship change events.
+     * Values are read as raw JSON strings and mapped by the listener, so events from
+     * other services do not depend on type headers or trusted packages.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> relationshipEventListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            @Value("${legacy.kafka.relationship-events.concurrency:3}") int concurrency,
+            @Value("${legacy.kafka.relationship-events.max-poll-records:500}") int maxPollRecords) {
+
+        Map<String, Object> consumerProperties = kafkaProperties.buildConsumerProperties(null);
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(
+                consumerProperties, new StringDeserializer(), new StringDeserializer()));
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
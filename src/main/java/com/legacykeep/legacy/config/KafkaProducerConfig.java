@@ -0,0 +1,43 @@
+package com.legacykeep.legacy.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+
+/**
+ * Kafka producer configuration for producers that need more than the Boot defaults.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    /**
+     * Producer for inheritance events relayed from the outbox.
+     * Values are already serialized JSON, so they are sent as strings. The producer is
+     * idempotent with acks=all, which keeps per-partition order across retries, and
+     * trades a short linger for larger compressed batches.
+     */
+    @Bean
+    public KafkaTemplate<String, String> inheritanceEventKafkaTemplate(
+            KafkaProperties kafkaProperties,
+            @Value("${legacy.kafka.inheritance-events.compression-type:lz4}") String compressionType,
+            @Value("${legacy.kafka.inheritance-events.linger-ms:20}") int lingerMs,
+            @Value("${legacy.kafka.inheritance-events.batch-size:65536}") int batchSize) {
+
+        Map<String, Object> producerProperties = kafkaProperties.buildProducerProperties(null);
+        producerProperties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        producerProperties.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        producerProperties.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        producerProperties.put(ProducerConfig.ACKS_CONFIG, "all");
+        producerProperties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                producerProperties, new StringSerializer(), new StringSerializer()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties identifying this instance within the cluster.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.node")
+@Data
+public class NodeProperties {
+
+    /**
+     * Identifier of this instance, used for shard leases, work queue claims, job ownership
+     * and sketch rows. Must be unique per running instance; defaults to the host name plus
+     * a random suffix. A stable value keeps sketch rows from accumulating across restarts.
+     */
+    private String id;
+}
@@ -0,0 +1,73 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the two-tier cache in front of the Relationship Service:
+ * a bounded in-process near cache backed by Redis.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.services.relationship.cache")
+@Data
+public class RelationshipCacheProperties {
+
+    /**
+     * Whether relationship lookups are cached at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Cache a user's active relationships; the by-type, by-category and related-user
+     * lookups are then answered by filtering the cached relationships.
+     */
+    private boolean activeRelationships = true;
+
+    /**
+     * Answer active relationship checks from the cached active relationships of the first
+     * user instead of calling the check endpoint. Requires {@code active-relationships}.
+     */
+    private boolean activeRelationshipChecks = true;
+
+    /**
+     * Cache relationship types by name and by category.
+     */
+    private boolean relationshipTypes = true;
+
+    /**
+     * Maximum number of entries of each in-process cache.
+     */
+    private int nearMaxSize = 20000;
+
+    /**
+     * Time-to-live of in-process entries in seconds. Bounds how long an instance that
+     * missed an invalidation can serve a stale entry.
+     */
+    private long nearTtlSeconds = 30;
+
+    /**
+     * Whether Redis is used as the second tier.
+     */
+    private boolean redisEnabled = true;
+
+    /**
+     * Time-to-live of Redis entries in seconds.
+     */
+    private long redisTtlSeconds = 600;
+
+    /**
+     * How long Redis is bypassed after a Redis error, in milliseconds.
+     */
+    private long redisRetryAfterMillis = 30000;
+
+    /**
+     * Prefix of the Redis keys.
+     */
+    private String redisKeyPrefix = "legacy:relationship:";
+
+    /**
+     * Redis channel on which invalidations are broadcast to all instances.
+     */
+    private String invalidationChannel = "legacy:relationship:invalidations";
+}
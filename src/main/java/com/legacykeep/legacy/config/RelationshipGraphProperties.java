@@ -0,0 +1,49 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for the in-process replica of the relationship graph.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.services.relationship.graph")
+@Data
+public class RelationshipGraphProperties {
+
+    /**
+     * Whether related-user lookups and active relationship checks are answered from the
+     * replica.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Seconds after which a user's replicated relationships are reloaded on next use.
+     * Bounds staleness when an invalidation is missed.
+     */
+    private long refreshSeconds = 600;
+
+    /**
+     * Number of users after which the replica is cleared and rebuilt on demand.
+     */
+    private int maxUsers = 2_000_000;
+
+    /**
+     * Maximum depth of descendant, ancestor, generation and connected-user queries.
+     */
+    private int maxDepth = 16;
+
+    /**
+     * Relationship types naming the related user as the user's child, case-insensitive.
+     */
+    private List<String> childTypes = new ArrayList<>(List.of("Son", "Daughter", "Child"));
+
+    /**
+     * Relationship types naming the related user as the user's parent, case-insensitive.
+     */
+    private List<String> parentTypes = new ArrayList<>(List.of("Father", "Mother", "Parent"));
+}
@@ -0,0 +1,104 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for the resilience of calls to the Relationship Service:
+ * per-endpoint circuit breakers, a bulkhead, request deadlines and hedged requests.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.services.relationship.resilience")
+@Data
+public class RelationshipResilienceProperties {
+
+    /**
+     * Fail lookups with a 503 when the Relationship Service is unavailable (server error,
+     * timeout, open circuit, full bulkhead, exceeded deadline) instead of answering them
+     * with empty results.
+     */
+    private boolean failOnUnavailable = true;
+
+    /**
+     * Whether each endpoint has a circuit breaker.
+     */
+    private boolean circuitBreakerEnabled = true;
+
+    /**
+     * Number of most recent calls of an endpoint the failure rate is computed over.
+     */
+    private int circuitWindowSize = 50;
+
+    /**
+     * Minimum number of calls in the window before the circuit can open.
+     */
+    private int circuitMinimumCalls = 20;
+
+    /**
+     * Failure rate in percent at which the circuit opens.
+     */
+    private double circuitFailureRateThreshold = 50;
+
+    /**
+     * How long an open circuit rejects calls before letting trial calls through.
+     */
+    private long circuitOpenMillis = 10000;
+
+    /**
+     * Number of trial calls of a half-open circuit; the circuit closes when all succeed
+     * and opens again on the first failure.
+     */
+    private int circuitHalfOpenCalls = 5;
+
+    /**
+     * Maximum number of calls to the Relationship Service in flight at once, hedges
+     * included. Calls beyond it are rejected rather than queued.
+     */
+    private int bulkheadMaxConcurrentCalls = 64;
+
+    /**
+     * Inbound header carrying the caller's deadline as epoch milliseconds. It is also
+     * sent on outbound calls so the Relationship Service can stop early.
+     */
+    private String deadlineHeader = "X-Request-Deadline";
+
+    /**
+     * Inbound header carrying the caller's remaining time budget in milliseconds, used when
+     * no deadline header is present.
+     */
+    private String timeoutHeader = "X-Request-Timeout";
+
+    /**
+     * Deadline in milliseconds given to inbound requests that carry neither header, or 0
+     * for none.
+     */
+    private long defaultRequestBudgetMillis = 0;
+
+    /**
+     * Whether idempotent GETs are hedged: a second identical request is sent when the
+     * first has not answered within the endpoint's recent latency percentile.
+     */
+    private boolean hedgingEnabled = false;
+
+    /**
+     * Latency percentile after which a hedge is sent.
+     */
+    private double hedgePercentile = 0.95;
+
+    /**
+     * Minimum hedge delay in milliseconds.
+     */
+    private long hedgeMinDelayMillis = 20;
+
+    /**
+     * Number of recent latencies an endpoint needs before it is hedged.
+     */
+    private int hedgeMinSamples = 100;
+
+    /**
+     * Maximum hedges as a percentage of calls, so hedging cannot double the load on a
+     * struggling service.
+     */
+    private double hedgeBudgetPercent = 10;
+}
@@ -2,9 +2,18 @@ package com.legacykeep.legacy.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 /**
  * Configuration for Relationship Service integration.
@@ -13,8 +22,40 @@ import org.springframework.web.client.RestTemplate;
 public class RelationshipServiceConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, RelationshipServiceProperties properties) {
+        return builder
+                .setConnectTimeout(Duration.ofMillis(properties.getConnectTimeoutMillis()))
+                .setReadTimeout(Duration.ofMillis(properties.getTimeout()))
+                .build();
+    }
+
+    /**
+     * Pooled, non-blocking client for the Relationship Service.
+     */
+    @Bean
+    public WebClient relationshipWebClient(WebClient.Builder builder,
+                                           RelationshipServiceProperties properties,
+                                           @Value("${relationship.service.base-url:http://localhost:8083/relationship}") String baseUrl) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("relationship-service")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(properties.getPendingAcquireTimeoutMillis()))
+                .maxIdleTime(Duration.ofMillis(properties.getMaxIdleTimeMillis()))
+                .maxLifeTime(Duration.ofMillis(properties.getMaxLifeTimeMillis()))
+                .evictInBackground(Duration.ofSeconds(30))
+                .metrics(true)
+                .build();
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeoutMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(properties.getTimeout()))
+                .compress(true);
+
+        return builder
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(properties.getMaxResponseBytes()))
+                .build();
     }
 
     @Bean
@@ -0,0 +1,85 @@
+package com.legacykeep.legacy.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration properties for outbound calls to the Relationship Service.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "legacy.services.relationship")
+@Data
+public class RelationshipServiceProperties {
+
+    /**
+     * Client implementation: {@code webclient} (pooled, non-blocking) or {@code rest}
+     * (RestTemplate, one blocked thread per call).
+     */
+    private String client = "webclient";
+
+    /**
+     * Timeout in milliseconds of a single call, from request to decoded response.
+     */
+    private long timeout = 5000;
+
+    /**
+     * Deadline in milliseconds for a batch of concurrent lookups; users not answered by
+     * then resolve to no relationships.
+     */
+    private long batchTimeout = 15000;
+
+    /**
+     * Maximum number of lookups of one batch in flight at once.
+     */
+    private int maxConcurrentLookups = 32;
+
+    /**
+     * Window in milliseconds during which concurrent single-user lookups are collected
+     * into one batch call, or 0 to call per user.
+     */
+    private long batchWindowMillis = 2;
+
+    /**
+     * Maximum number of users per batch call; a full batch is sent without waiting for
+     * the window to close.
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * Whether to use the Relationship Service's batch endpoints. When they are absent,
+     * batches fall back to concurrent single-user calls.
+     */
+    private boolean batchEndpoints = true;
+
+    /**
+     * Connection establishment timeout in milliseconds.
+     */
+    private int connectTimeoutMillis = 2000;
+
+    /**
+     * Maximum number of pooled connections to the Relationship Service.
+     */
+    private int maxConnections = 100;
+
+    /**
+     * How long a call may wait for a pooled connection before failing.
+     */
+    private long pendingAcquireTimeoutMillis = 2000;
+
+    /**
+     * How long an idle pooled connection is kept alive.
+     */
+    private long maxIdleTimeMillis = 30000;
+
+    /**
+     * Maximum lifetime of a pooled connection, so connections are spread over
+     * Relationship Service instances as they scale.
+     */
+    private long maxLifeTimeMillis = 300000;
+
+    /**
+     * Maximum size of a response body held in memory while decoding.
+     */
+    private int maxResponseBytes = 4 * 1024 * 1024;
+}
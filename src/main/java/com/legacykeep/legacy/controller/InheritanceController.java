@@ -1,14 +1,20 @@
 package com.legacykeep.legacy.controller;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
 import com.legacykeep.legacy.dto.request.UpdateInheritanceRuleRequest;
 import com.legacykeep.legacy.dto.response.ApiResponse;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
+import com.legacykeep.legacy.dto.response.InheritanceJobResponse;
 import com.legacykeep.legacy.dto.response.InheritanceRuleResponse;
 import com.legacykeep.legacy.dto.response.InheritanceStatusResponse;
 import com.legacykeep.legacy.entity.InheritanceStatus;
 import com.legacykeep.legacy.enums.InheritanceTrigger;
 import com.legacykeep.legacy.enums.TargetType;
+import com.legacykeep.legacy.service.InheritanceJobService;
 import com.legacykeep.legacy.service.InheritanceService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -16,10 +22,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -35,6 +44,8 @@ import java.util.UUID;
 public class InheritanceController {
 
     private final InheritanceService inheritanceService;
+    private final InheritanceJobService inheritanceJobService;
+    private final ObjectMapper objectMapper;
 
     // Inheritance Rule Management
     /**
@@ -58,6 +69,35 @@ public class InheritanceController {
                 .body(ApiResponse.success(response, "Inheritance rule created successfully"));
     }
 
+    /**
+     * Create inheritance rules in bulk from a JSON array of rule requests.
+     * The body is read as a stream; each item is validated and reported on individually.
+     */
+    @PostMapping(value = "/rules/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BulkInheritanceRuleResponse>> createInheritanceRules(
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+
+        BulkInheritanceRuleResponse response;
+        try (MappingIterator<CreateInheritanceRuleRequest> requests = objectMapper
+                .readerFor(CreateInheritanceRuleRequest.class)
+                .readValues(request.getInputStream())) {
+            response = inheritanceService.createInheritanceRules(requests, creatorId);
+        }
+
+        log.info("Bulk inheritance rule creation: {} created, {} rejected", response.getCreated(), response.getRejected());
+
+        HttpStatus status = response.getRejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status)
+                .body(ApiResponse.success(response, String.format("%d of %d inheritance rules created",
+                        response.getCreated(), response.getReceived())));
+    }
+
     /**
      * Update an existing inheritance rule
      */
@@ -291,41 +331,135 @@ public class InheritanceController {
      * Process inheritance for a specific rule
      */
     @PostMapping("/rules/{ruleId}/process")
-    public ResponseEntity<ApiResponse<Void>> processInheritance(
-            @PathVariable UUID ruleId) {
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> processInheritance(
+            @PathVariable UUID ruleId,
+            Authentication authentication) {
         
         log.info("Processing inheritance for rule: {}", ruleId);
         
-        inheritanceService.processInheritance(ruleId);
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.submitProcessInheritance(ruleId, creatorId);
         
-        return ResponseEntity.ok(ApiResponse.success(null, "Inheritance processing initiated successfully"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Inheritance processing job submitted successfully"));
     }
 
     /**
      * Process inheritance for all active rules
      */
     @PostMapping("/process/all")
-    public ResponseEntity<ApiResponse<Void>> processAllActiveInheritance() {
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> processAllActiveInheritance(
+            Authentication authentication) {
         
         log.info("Processing all active inheritance rules");
         
-        inheritanceService.processAllActiveInheritance();
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.submitProcessAllActiveInheritance(creatorId);
         
-        return ResponseEntity.ok(ApiResponse.success(null, "All active inheritance processing initiated successfully"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "All active inheritance processing job submitted successfully"));
     }
 
     /**
      * Process inheritance for a specific relationship type
      */
     @PostMapping("/process/relationship-type/{relationshipType}")
-    public ResponseEntity<ApiResponse<Void>> processInheritanceForRelationshipType(
-            @PathVariable String relationshipType) {
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> processInheritanceForRelationshipType(
+            @PathVariable String relationshipType,
+            Authentication authentication) {
         
         log.info("Processing inheritance for relationship type: {}", relationshipType);
         
-        inheritanceService.processInheritanceForRelationshipType(relationshipType);
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.submitProcessInheritanceForRelationshipType(
+                relationshipType, creatorId);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Inheritance processing job submitted successfully"));
+    }
+
+    // Job Management
+    /**
+     * Get the caller's most recent inheritance jobs
+     */
+    @GetMapping("/jobs")
+    public ResponseEntity<ApiResponse<List<InheritanceJobResponse>>> getInheritanceJobs(
+            Authentication authentication) {
+        
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        List<InheritanceJobResponse> response = inheritanceJobService.getJobs(creatorId);
+        
+        return ResponseEntity.ok(ApiResponse.success(response, "Inheritance jobs retrieved successfully"));
+    }
+
+    /**
+     * Get an inheritance job with its progress and result
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> getInheritanceJob(
+            @PathVariable UUID jobId,
+            Authentication authentication) {
+        
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.getJob(jobId, creatorId);
+        
+        return ResponseEntity.ok(ApiResponse.success(response, "Inheritance job retrieved successfully"));
+    }
+
+    /**
+     * Stream an inheritance job's progress as server-sent events until it finishes
+     */
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamInheritanceJob(
+            @PathVariable UUID jobId,
+            Authentication authentication) {
+        
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
         
-        return ResponseEntity.ok(ApiResponse.success(null, "Inheritance processing initiated successfully"));
+        return inheritanceJobService.streamJob(jobId, creatorId);
+    }
+
+    /**
+     * Cancel an inheritance job
+     */
+    @DeleteMapping("/jobs/{jobId}")
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> cancelInheritanceJob(
+            @PathVariable UUID jobId,
+            Authentication authentication) {
+        
+        log.info("Cancelling inheritance job: {}", jobId);
+        
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.cancelJob(jobId, creatorId);
+        
+        return ResponseEntity.ok(ApiResponse.success(response, "Inheritance job cancellation requested successfully"));
     }
 
     // Utility Methods
@@ -472,32 +606,48 @@ public class InheritanceController {
      * Process inheritance for relationship type
      */
     @PostMapping("/content/{contentId}/process/relationship-type/{relationshipTypeName}")
-    public ResponseEntity<ApiResponse<Void>> processInheritanceForRelationshipType(
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> processInheritanceForRelationshipType(
             @PathVariable UUID contentId,
-            @PathVariable String relationshipTypeName) {
+            @PathVariable String relationshipTypeName,
+            Authentication authentication) {
         
         log.info("Processing inheritance for relationship type '{}' for content: {}", 
                 relationshipTypeName, contentId);
         
-        inheritanceService.processInheritanceForRelationshipType(contentId, relationshipTypeName);
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
         
-        return ResponseEntity.ok(ApiResponse.success(null, "Inheritance processing initiated successfully"));
+        InheritanceJobResponse response = inheritanceJobService.submitProcessInheritanceForRelationshipType(
+                contentId, relationshipTypeName, creatorId);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Inheritance processing job submitted successfully"));
     }
 
     /**
      * Process inheritance for relationship category
      */
     @PostMapping("/content/{contentId}/process/relationship-category/{relationshipCategory}")
-    public ResponseEntity<ApiResponse<Void>> processInheritanceForRelationshipCategory(
+    public ResponseEntity<ApiResponse<InheritanceJobResponse>> processInheritanceForRelationshipCategory(
             @PathVariable UUID contentId,
-            @PathVariable String relationshipCategory) {
+            @PathVariable String relationshipCategory,
+            Authentication authentication) {
         
         log.info("Processing inheritance for relationship category '{}' for content: {}", 
                 relationshipCategory, contentId);
         
-        inheritanceService.processInheritanceForRelationshipCategory(contentId, relationshipCategory);
+        // Use a default creator ID for testing when authentication is not available
+        UUID creatorId = authentication != null ? 
+            UUID.fromString(authentication.getName()) : 
+            UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+        
+        InheritanceJobResponse response = inheritanceJobService.submitProcessInheritanceForRelationshipCategory(
+                contentId, relationshipCategory, creatorId);
         
-        return ResponseEntity.ok(ApiResponse.success(null, "Inheritance processing initiated successfully"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Inheritance processing job submitted successfully"));
     }
 
     /**
@@ -0,0 +1,41 @@
+package com.legacykeep.legacy.dto.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Relationship change published by the Relationship Service.
+ *
+ * The relationship is directed: {@code relatedUserId} has the given relationship
+ * type and category towards {@code userId} (e.g. relatedUserId is userId's "Son").
+ * For UPDATED changes the previous type and category are carried alongside the new ones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RelationshipChangeEvent {
+
+    private String eventId;
+    private ChangeType changeType;
+    private UUID userId;
+    private UUID relatedUserId;
+    private String relationshipTypeName;
+    private String relationshipCategory;
+    private String previousRelationshipTypeName;
+    private String previousRelationshipCategory;
+    private LocalDateTime occurredAt;
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        UPDATED
+    }
+}
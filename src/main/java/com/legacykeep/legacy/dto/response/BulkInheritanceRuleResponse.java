@@ -0,0 +1,45 @@
+package com.legacykeep.legacy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response DTO for bulk inheritance rule creation, with one result per request item.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInheritanceRuleResponse {
+
+    private int received;
+    private int created;
+    private int rejected;
+    private long durationMillis;
+    private List<ItemResult> results;
+
+    /**
+     * Outcome of a single item, identified by its position in the request array.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ItemResult {
+
+        public enum Status {
+            CREATED, REJECTED
+        }
+
+        private int index;
+        private Status status;
+        private UUID ruleId;
+        private UUID contentId;
+        private List<String> errors;
+    }
+}
@@ -7,7 +7,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -22,7 +21,7 @@ public class InheritanceEventResponse {
     private UUID id;
     private UUID inheritanceRuleId;
     private InheritanceEvent.EventType eventType;
-    private Map<String, Object> eventData;
+    private JsonPayload eventData;
     private LocalDateTime createdAt;
     private UUID createdBy;
 }
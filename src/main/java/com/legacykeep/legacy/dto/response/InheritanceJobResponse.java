@@ -0,0 +1,38 @@
+package com.legacykeep.legacy.dto.response;
+
+import com.legacykeep.legacy.enums.InheritanceJobStatus;
+import com.legacykeep.legacy.enums.InheritanceJobType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Response DTO for an asynchronous inheritance job, its progress and result.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InheritanceJobResponse {
+
+    private UUID jobId;
+    private InheritanceJobType jobType;
+    private InheritanceJobStatus status;
+    private UUID creatorId;
+    private Map<String, Object> parameters;
+    private long total;
+    private long processed;
+    private long delivered;
+    private Map<String, Object> result;
+    private String error;
+    private boolean cancelRequested;
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime completedAt;
+}
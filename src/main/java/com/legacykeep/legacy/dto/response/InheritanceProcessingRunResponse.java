@@ -0,0 +1,56 @@
+package com.legacykeep.legacy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response DTO for an inheritance processing run and its progress.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InheritanceProcessingRunResponse {
+
+    private long runId;
+    private String runType;
+    private String targetType;
+    private String targetValue;
+    private String status;
+    private String requestedBy;
+    private LocalDateTime requestedAt;
+    private LocalDateTime heartbeatAt;
+    private LocalDateTime completedAt;
+    private int shardCount;
+    private int shardsCompleted;
+    private long queued;
+    private long succeeded;
+    private long failed;
+    private long pending;
+    private double rulesPerSecond;
+    private List<ShardProgress> shards;
+
+    /**
+     * Checkpointed progress of one shard of the run.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ShardProgress {
+
+        private int shardId;
+        private String nodeId;
+        private UUID cursorRuleId;
+        private long queued;
+        private LocalDateTime startedAt;
+        private LocalDateTime checkpointedAt;
+        private LocalDateTime completedAt;
+    }
+}
@@ -0,0 +1,27 @@
+package com.legacykeep.legacy.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO summarising a single inheritance processing run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InheritanceProcessingSummary {
+
+    private String runType;
+    private long totalRules;
+    private long succeeded;
+    private long failed;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long durationMillis;
+    private double rulesPerSecond;
+}
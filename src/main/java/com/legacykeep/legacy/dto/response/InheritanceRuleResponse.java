@@ -9,7 +9,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -26,11 +25,12 @@ public class InheritanceRuleResponse {
     private UUID creatorId;
     private TargetType targetType;
     private String targetValue;
-    private Map<String, Object> targetMetadata;
+    private JsonPayload targetMetadata;
     private InheritanceTrigger inheritanceTrigger;
-    private Map<String, Object> triggerMetadata;
+    private JsonPayload triggerMetadata;
     private InheritanceStatus status;
     private Integer priority;
+    private LocalDateTime nextFireAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private UUID createdBy;
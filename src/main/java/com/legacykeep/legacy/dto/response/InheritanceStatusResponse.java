@@ -7,7 +7,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -28,8 +27,8 @@ public class InheritanceStatusResponse {
     private LocalDateTime accessedAt;
     private LocalDateTime declinedAt;
     private Long relationshipTypeId;
-    private Map<String, Object> relationshipContext;
-    private Map<String, Object> metadata;
+    private JsonPayload relationshipContext;
+    private JsonPayload metadata;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -0,0 +1,144 @@
+package com.legacykeep.legacy.dto.response;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A JSON object carried as its raw text.
+ *
+ * Response metadata columns are JSONB, so their text is already valid JSON when it is
+ * read. A payload writes that text into the response unchanged instead of parsing it
+ * into a map for Jackson to serialize straight back out. The text is parsed lazily,
+ * once, only when server code reads a field through {@link #asMap()} or {@link #get}.
+ */
+@Slf4j
+@Schema(type = "object")
+@JsonSerialize(using = JsonPayload.Serializer.class)
+@JsonDeserialize(using = JsonPayload.Deserializer.class)
+public final class JsonPayload {
+
+    private static final JsonPayload EMPTY = new JsonPayload("{}");
+    private static final ObjectMapper PARSER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final String json;
+    private volatile Map<String, Object> parsed;
+
+    private JsonPayload(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Wrap JSON text read from a JSONB column. Null, blank and non-object values become
+     * an empty object, matching what the responses returned when they held maps.
+     *
+     * @param json Valid JSON text, or null
+     */
+    public static JsonPayload ofObject(String json) {
+        if (json == null) {
+            return EMPTY;
+        }
+
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '{' ? new JsonPayload(json) : EMPTY;
+            }
+        }
+        return EMPTY;
+    }
+
+    public static JsonPayload empty() {
+        return EMPTY;
+    }
+
+    /**
+     * The raw JSON text.
+     */
+    public String toJson() {
+        return json;
+    }
+
+    /**
+     * The payload as an unmodifiable map, parsed on first use.
+     */
+    public Map<String, Object> asMap() {
+        Map<String, Object> map = parsed;
+        if (map == null) {
+            try {
+                map = Collections.unmodifiableMap(PARSER.readValue(json, MAP_TYPE));
+            } catch (JsonProcessingException e) {
+                log.error("Error converting JSON to Map", e);
+                map = Collections.emptyMap();
+            }
+            parsed = map;
+        }
+        return map;
+    }
+
+    /**
+     * Read a top-level field.
+     */
+    public Object get(String field) {
+        return asMap().get(field);
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY || asMap().isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof JsonPayload payload && json.equals(payload.json));
+    }
+
+    @Override
+    public int hashCode() {
+        return json.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    /**
+     * Writes the payload's text as a raw value.
+     */
+    public static class Serializer extends JsonSerializer<JsonPayload> {
+        @Override
+        public void serialize(JsonPayload value, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeRawValue(value.json);
+        }
+    }
+
+    /**
+     * Reads any JSON value and keeps its text.
+     */
+    public static class Deserializer extends JsonDeserializer<JsonPayload> {
+        @Override
+        public JsonPayload deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return ofObject(parser.readValueAsTree().toString());
+        }
+
+        @Override
+        public JsonPayload getNullValue(DeserializationContext context) {
+            return EMPTY;
+        }
+    }
+}
@@ -70,6 +70,10 @@ public class InheritanceRule {
     @Builder.Default
     private Integer priority = 0;
 
+    // Scheduling (TIME_BASED rules only)
+    @Column(name = "next_fire_at")
+    private LocalDateTime nextFireAt;
+
     // Audit Fields
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
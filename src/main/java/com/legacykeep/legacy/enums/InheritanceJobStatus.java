@@ -0,0 +1,49 @@
+package com.legacykeep.legacy.enums;
+
+/**
+ * Enum representing the lifecycle of an asynchronous inheritance job.
+ */
+public enum InheritanceJobStatus {
+
+    /**
+     * Submitted and waiting for an executor thread
+     */
+    QUEUED("Queued"),
+
+    /**
+     * Running on an executor thread
+     */
+    RUNNING("Running"),
+
+    /**
+     * Finished successfully
+     */
+    SUCCEEDED("Succeeded"),
+
+    /**
+     * Finished with an error, or abandoned by its instance
+     */
+    FAILED("Failed"),
+
+    /**
+     * Cancelled before or while running
+     */
+    CANCELLED("Cancelled");
+
+    private final String displayName;
+
+    InheritanceJobStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Whether the job has finished and will not change any more
+     */
+    public boolean isTerminal() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
@@ -0,0 +1,42 @@
+package com.legacykeep.legacy.enums;
+
+/**
+ * Enum representing the kinds of asynchronous inheritance jobs.
+ */
+public enum InheritanceJobType {
+
+    /**
+     * Deliver one rule's content to all of its recipients
+     */
+    PROCESS_RULE("Process Rule"),
+
+    /**
+     * Start a processing run over every active rule
+     */
+    PROCESS_ALL_ACTIVE("Process All Active Rules"),
+
+    /**
+     * Start a processing run over the rules targeting a relationship type
+     */
+    PROCESS_RELATIONSHIP_TYPE("Process Relationship Type"),
+
+    /**
+     * Deliver a content's relationship type rules to their recipients
+     */
+    PROCESS_CONTENT_RELATIONSHIP_TYPE("Process Content Relationship Type"),
+
+    /**
+     * Deliver a content's relationship category rules to their recipients
+     */
+    PROCESS_CONTENT_RELATIONSHIP_CATEGORY("Process Content Relationship Category");
+
+    private final String displayName;
+
+    InheritanceJobType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
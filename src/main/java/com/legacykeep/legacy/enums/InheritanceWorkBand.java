@@ -0,0 +1,52 @@
+package com.legacykeep.legacy.enums;
+
+/**
+ * Enum representing the urgency bands of the inheritance work queue.
+ * Lower codes are claimed first; within a band, higher rule priority goes first.
+ */
+public enum InheritanceWorkBand {
+
+    /**
+     * Work triggered by a user action that someone is waiting on
+     */
+    URGENT(0, "Urgent"),
+
+    /**
+     * Triggered work submitted in bulk, e.g. IMMEDIATE rules from a bulk import
+     */
+    NORMAL(1, "Normal"),
+
+    /**
+     * Re-evaluation sweeps over existing rules
+     */
+    BULK(2, "Bulk");
+
+    private final int code;
+    private final String displayName;
+
+    InheritanceWorkBand(int code, String displayName) {
+        this.code = code;
+        this.displayName = displayName;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Get work band by its stored code
+     */
+    public static InheritanceWorkBand fromCode(int code) {
+        for (InheritanceWorkBand band : values()) {
+            if (band.code == code) {
+                return band;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown inheritance work band: " + code);
+    }
+}
@@ -272,10 +272,13 @@ public class GlobalExceptionHandler {
     private HttpStatus determineHttpStatus(LegacyException ex) {
         return switch (ex.getErrorCode()) {
             case "LEGACY_CONTENT_NOT_FOUND", "LEGACY_BUCKET_NOT_FOUND", 
-                 "LEGACY_CATEGORY_NOT_FOUND", "LEGACY_RECIPIENT_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+                 "LEGACY_CATEGORY_NOT_FOUND", "LEGACY_RECIPIENT_NOT_FOUND",
+                 "INHERITANCE_JOB_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+            case "INHERITANCE_JOB_LIMIT_EXCEEDED" -> HttpStatus.TOO_MANY_REQUESTS;
             case "LEGACY_VALIDATION_ERROR", "LEGACY_INVALID_ARGUMENT" -> HttpStatus.BAD_REQUEST;
             case "LEGACY_PERMISSION_DENIED" -> HttpStatus.FORBIDDEN;
             case "LEGACY_ILLEGAL_STATE" -> HttpStatus.CONFLICT;
+            case "RELATIONSHIP_SERVICE_UNAVAILABLE" -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.INTERNAL_SERVER_ERROR;
         };
     }
@@ -0,0 +1,20 @@
+package com.legacykeep.legacy.exception;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when an inheritance job cannot be accepted, either because its creator
+ * already has the maximum number of active jobs or because the job executor is full.
+ */
+public class InheritanceJobLimitExceededException extends LegacyException {
+    
+    public InheritanceJobLimitExceededException(UUID creatorId, int maxActiveJobs) {
+        super("INHERITANCE_JOB_LIMIT_EXCEEDED",
+              "Creator " + creatorId + " already has " + maxActiveJobs + " active inheritance jobs",
+              creatorId, maxActiveJobs);
+    }
+    
+    public InheritanceJobLimitExceededException(String message) {
+        super("INHERITANCE_JOB_LIMIT_EXCEEDED", message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.legacykeep.legacy.exception;
+
+import java.util.UUID;
+
+/**
+ * Exception thrown when an inheritance job is not found, or belongs to another creator.
+ */
+public class InheritanceJobNotFoundException extends LegacyException {
+    
+    public InheritanceJobNotFoundException(UUID jobId) {
+        super("INHERITANCE_JOB_NOT_FOUND", "Inheritance job not found with ID: " + jobId, jobId);
+    }
+}
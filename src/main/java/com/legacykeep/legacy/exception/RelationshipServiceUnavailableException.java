@@ -0,0 +1,21 @@
+package com.legacykeep.legacy.exception;
+
+/**
+ * Exception thrown when a Relationship Service lookup cannot be answered: the service
+ * failed or timed out, its circuit is open, the bulkhead is full, or the request's
+ * deadline has passed.
+ */
+public class RelationshipServiceUnavailableException extends LegacyException {
+
+    public RelationshipServiceUnavailableException(String endpoint, String reason) {
+        super("RELATIONSHIP_SERVICE_UNAVAILABLE",
+              "Relationship Service unavailable for " + endpoint + ": " + reason,
+              endpoint, reason);
+    }
+
+    public RelationshipServiceUnavailableException(String endpoint, Throwable cause) {
+        super("RELATIONSHIP_SERVICE_UNAVAILABLE",
+              "Relationship Service unavailable for " + endpoint + ": " + cause.getMessage(),
+              cause);
+    }
+}
@@ -0,0 +1,90 @@
+package com.legacykeep.legacy.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.dto.event.RelationshipChangeEvent;
+import com.legacykeep.legacy.service.impl.RelationshipCache;
+import com.legacykeep.legacy.service.impl.RelationshipChangeProcessor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Consumes relationship change events and re-evaluates the affected EVENT_BASED
+ * inheritance rules incrementally.
+ *
+ * The cached and replicated relationships of the users named by the events are
+ * invalidated before the events are applied.
+ *
+ * A batch is applied in one transaction. If that fails, the events are applied one by
+ * one so that the failing record can be reported to the container's error handler,
+ * which commits the records before it and retries from it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RelationshipEventListener {
+
+    private final RelationshipChangeProcessor relationshipChangeProcessor;
+    private final RelationshipCache relationshipCache;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = "${legacy.kafka.topics.relationship-events}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "relationshipEventListenerContainerFactory")
+    public void onRelationshipEvents(List<ConsumerRecord<String, String>> records) {
+        List<RelationshipChangeEvent> events = new ArrayList<>(records.size());
+        List<Integer> recordIndexes = new ArrayList<>(records.size());
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            try {
+                RelationshipChangeEvent event = objectMapper.readValue(record.value(), RelationshipChangeEvent.class);
+                if (event.getChangeType() == null || event.getUserId() == null || event.getRelatedUserId() == null) {
+                    log.warn("Skipping incomplete relationship event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                    continue;
+                }
+                events.add(event);
+                recordIndexes.add(i);
+            } catch (Exception e) {
+                log.warn("Skipping unreadable relationship event at {}-{}@{}: {}",
+                        record.topic(), record.partition(), record.offset(), e.getMessage());
+            }
+        }
+
+        if (events.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> changedUsers = new LinkedHashSet<>();
+        for (RelationshipChangeEvent event : events) {
+            changedUsers.add(event.getUserId());
+            changedUsers.add(event.getRelatedUserId());
+        }
+        relationshipCache.invalidateUsers(changedUsers);
+
+        try {
+            relationshipChangeProcessor.process(events);
+        } catch (Exception batchFailure) {
+            log.warn("Error applying batch of {} relationship events, applying individually: {}",
+                    events.size(), batchFailure.getMessage());
+
+            for (int i = 0; i < events.size(); i++) {
+                try {
+                    relationshipChangeProcessor.process(List.of(events.get(i)));
+                } catch (Exception e) {
+                    throw new BatchListenerFailedException("Error applying relationship event", e, recordIndexes.get(i));
+                }
+            }
+        }
+    }
+}
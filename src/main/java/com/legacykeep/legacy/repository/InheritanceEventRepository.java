@@ -29,6 +29,17 @@ public interface InheritanceEventRepository extends JpaRepository<InheritanceEve
      */
     Page<InheritanceEvent> findByInheritanceRuleId(UUID inheritanceRuleId, Pageable pageable);
 
+    /**
+     * Find inheritance events by inheritance rule ID created at or after a point in time.
+     * The lower bound lets PostgreSQL prune monthly partitions older than it.
+     */
+    List<InheritanceEvent> findByInheritanceRuleIdAndCreatedAtGreaterThanEqual(UUID inheritanceRuleId, LocalDateTime since);
+
+    /**
+     * Find inheritance events by inheritance rule ID created at or after a point in time with pagination
+     */
+    Page<InheritanceEvent> findByInheritanceRuleIdAndCreatedAtGreaterThanEqual(UUID inheritanceRuleId, LocalDateTime since, Pageable pageable);
+
     /**
      * Find inheritance events by event type
      */
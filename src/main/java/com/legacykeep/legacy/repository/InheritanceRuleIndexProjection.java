@@ -0,0 +1,27 @@
+package com.legacykeep.legacy.repository;
+
+import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.TargetType;
+
+import java.util.UUID;
+
+/**
+ * Projection of the inheritance rule columns held by the in-memory rule index.
+ * Avoids loading metadata JSON and lazy associations when the index is built.
+ */
+public interface InheritanceRuleIndexProjection {
+
+    UUID getId();
+
+    UUID getContentId();
+
+    UUID getCreatorId();
+
+    TargetType getTargetType();
+
+    String getTargetValue();
+
+    InheritanceTrigger getInheritanceTrigger();
+
+    Integer getPriority();
+}
@@ -7,11 +7,14 @@ import com.legacykeep.legacy.enums.TargetType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -72,6 +75,79 @@ public interface InheritanceRuleRepository extends JpaRepository<InheritanceRule
     @Query("SELECT ir FROM InheritanceRule ir WHERE ir.targetType = :targetType AND ir.targetValue = :targetValue AND ir.status = 'ACTIVE'")
     List<InheritanceRule> findActiveByTargetTypeAndValue(@Param("targetType") TargetType targetType, @Param("targetValue") String targetValue);
 
+    /**
+     * Find the first page of active inheritance rule IDs in ID order (keyset pagination)
+     */
+    @Query("SELECT ir.id FROM InheritanceRule ir WHERE ir.status = 'ACTIVE' ORDER BY ir.id")
+    List<UUID> findActiveRuleIds(Pageable pageable);
+
+    /**
+     * Find the next page of active inheritance rule IDs after the given ID (keyset pagination)
+     */
+    @Query("SELECT ir.id FROM InheritanceRule ir WHERE ir.status = 'ACTIVE' AND ir.id > :afterId ORDER BY ir.id")
+    List<UUID> findActiveRuleIdsAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Find the first page of active inheritance rules for the rule index (keyset pagination)
+     */
+    @Query("SELECT ir.id AS id, ir.contentId AS contentId, ir.creatorId AS creatorId, ir.targetType AS targetType, " +
+           "ir.targetValue AS targetValue, ir.inheritanceTrigger AS inheritanceTrigger, ir.priority AS priority " +
+           "FROM InheritanceRule ir WHERE ir.status = 'ACTIVE' ORDER BY ir.id")
+    List<InheritanceRuleIndexProjection> findActiveIndexEntries(Pageable pageable);
+
+    /**
+     * Find the next page of active inheritance rules for the rule index after the given ID (keyset pagination)
+     */
+    @Query("SELECT ir.id AS id, ir.contentId AS contentId, ir.creatorId AS creatorId, ir.targetType AS targetType, " +
+           "ir.targetValue AS targetValue, ir.inheritanceTrigger AS inheritanceTrigger, ir.priority AS priority " +
+           "FROM InheritanceRule ir WHERE ir.status = 'ACTIVE' AND ir.id > :afterId ORDER BY ir.id")
+    List<InheritanceRuleIndexProjection> findActiveIndexEntriesAfter(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Find the rule index columns of an inheritance rule, whatever its status
+     */
+    @Query("SELECT ir.id AS id, ir.contentId AS contentId, ir.creatorId AS creatorId, ir.targetType AS targetType, " +
+           "ir.targetValue AS targetValue, ir.inheritanceTrigger AS inheritanceTrigger, ir.priority AS priority " +
+           "FROM InheritanceRule ir WHERE ir.id = :id")
+    Optional<InheritanceRuleIndexProjection> findIndexEntryById(@Param("id") UUID id);
+
+    /**
+     * Find active TIME_BASED rules due within a window, ordered by due time (keyset pagination)
+     */
+    @Query("SELECT ir.id AS id, ir.nextFireAt AS nextFireAt FROM InheritanceRule ir " +
+           "WHERE ir.status = 'ACTIVE' AND ir.inheritanceTrigger = 'TIME_BASED' " +
+           "AND ir.nextFireAt > :from AND ir.nextFireAt <= :to " +
+           "AND (ir.nextFireAt > :afterFireAt OR (ir.nextFireAt = :afterFireAt AND ir.id > :afterId)) " +
+           "ORDER BY ir.nextFireAt, ir.id")
+    List<InheritanceRuleScheduleProjection> findDueTimeBasedRules(@Param("from") LocalDateTime from,
+                                                                  @Param("to") LocalDateTime to,
+                                                                  @Param("afterFireAt") LocalDateTime afterFireAt,
+                                                                  @Param("afterId") UUID afterId,
+                                                                  Pageable pageable);
+
+    /**
+     * Find active TIME_BASED rules that have no due time computed yet (keyset pagination)
+     */
+    @Query("SELECT ir FROM InheritanceRule ir WHERE ir.status = 'ACTIVE' AND ir.inheritanceTrigger = 'TIME_BASED' " +
+           "AND ir.nextFireAt IS NULL AND ir.id > :afterId ORDER BY ir.id")
+    List<InheritanceRule> findUnscheduledTimeBasedRules(@Param("afterId") UUID afterId, Pageable pageable);
+
+    /**
+     * Set the next due time of a TIME_BASED rule
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InheritanceRule ir SET ir.nextFireAt = :nextFireAt WHERE ir.id = :id")
+    int updateNextFireAt(@Param("id") UUID id, @Param("nextFireAt") LocalDateTime nextFireAt);
+
+    /**
+     * Claim a due firing by moving the rule from the due time it was loaded with to its next
+     * due time. Returns 0 when another instance has already claimed that firing.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE InheritanceRule ir SET ir.nextFireAt = :nextFireAt WHERE ir.id = :id AND ir.nextFireAt = :firedAt")
+    int claimFiring(@Param("id") UUID id, @Param("firedAt") LocalDateTime firedAt,
+                    @Param("nextFireAt") LocalDateTime nextFireAt);
+
     /**
      * Find inheritance rules by content ID and status
      */
@@ -0,0 +1,14 @@
+package com.legacykeep.legacy.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Projection of a scheduled TIME_BASED inheritance rule: its ID and next due time.
+ */
+public interface InheritanceRuleScheduleProjection {
+
+    UUID getId();
+
+    LocalDateTime getNextFireAt();
+}
@@ -4,6 +4,7 @@ import com.legacykeep.legacy.entity.InheritanceStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -253,4 +254,17 @@ public interface InheritanceStatusRepository extends JpaRepository<InheritanceSt
      * Find inheritance status by inheritance rule ID and relationship type ID and status
      */
     List<InheritanceStatus> findByInheritanceRuleIdAndRelationshipTypeIdAndStatus(UUID inheritanceRuleId, Long relationshipTypeId, InheritanceStatus.Status status);
+
+    /**
+     * Find the distinct recipients of an inheritance rule
+     */
+    @Query("SELECT DISTINCT s.recipientId FROM InheritanceStatus s WHERE s.inheritanceRuleId = :ruleId")
+    List<UUID> findDistinctRecipientIdsByRuleId(@Param("ruleId") UUID ruleId);
+
+    /**
+     * Delete all inheritance statuses of an inheritance rule
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM InheritanceStatus s WHERE s.inheritanceRuleId = :ruleId")
+    int deleteByRuleId(@Param("ruleId") UUID ruleId);
 }
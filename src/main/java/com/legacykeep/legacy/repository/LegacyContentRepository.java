@@ -20,6 +20,12 @@ import java.util.UUID;
 @Repository
 public interface LegacyContentRepository extends JpaRepository<LegacyContent, UUID> {
 
+    /**
+     * Find the creator of non-deleted content without loading the entity
+     */
+    @Query("SELECT c.creatorId FROM LegacyContent c WHERE c.id = :id AND c.status != 'DELETED'")
+    Optional<UUID> findCreatorIdById(@Param("id") UUID id);
+
     /**
      * Find content by bucket
      */
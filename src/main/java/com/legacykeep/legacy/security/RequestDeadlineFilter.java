@@ -0,0 +1,70 @@
+package com.legacykeep.legacy.security;
+
+import com.legacykeep.legacy.config.RelationshipResilienceProperties;
+import com.legacykeep.legacy.util.RequestDeadline;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the inbound request's deadline to the serving thread, so outbound calls made for
+ * the request give up once the caller has.
+ *
+ * The deadline is taken from the deadline header (epoch milliseconds), else from the
+ * timeout header (remaining milliseconds), else from the configured default budget.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final RelationshipResilienceProperties properties;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        Long deadline = resolveDeadline(request);
+        if (deadline == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RequestDeadline.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    private Long resolveDeadline(HttpServletRequest request) {
+        long now = System.currentTimeMillis();
+        try {
+            String deadline = request.getHeader(properties.getDeadlineHeader());
+            if (deadline != null && !deadline.isBlank()) {
+                return Long.parseLong(deadline.trim());
+            }
+            String timeout = request.getHeader(properties.getTimeoutHeader());
+            if (timeout != null && !timeout.isBlank()) {
+                return now + Long.parseLong(timeout.trim());
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed request deadline header: {}", e.getMessage());
+        }
+        return properties.getDefaultRequestBudgetMillis() > 0 ? now + properties.getDefaultRequestBudgetMillis() : null;
+    }
+}
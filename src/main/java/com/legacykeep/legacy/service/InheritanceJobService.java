@@ -0,0 +1,65 @@
+package com.legacykeep.legacy.service;
+
+import com.legacykeep.legacy.dto.response.InheritanceJobResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service interface for asynchronous inheritance jobs.
+ * Long-running inheritance operations are submitted as jobs that run on a dedicated
+ * executor; submission returns immediately and progress is polled or streamed.
+ */
+public interface InheritanceJobService {
+
+    // Job Submission
+    /**
+     * Submit delivery of a rule's content to all of its recipients
+     */
+    InheritanceJobResponse submitProcessInheritance(UUID ruleId, UUID creatorId);
+
+    /**
+     * Submit a processing run over every active rule
+     */
+    InheritanceJobResponse submitProcessAllActiveInheritance(UUID creatorId);
+
+    /**
+     * Submit a processing run over the rules targeting a relationship type
+     */
+    InheritanceJobResponse submitProcessInheritanceForRelationshipType(String relationshipType, UUID creatorId);
+
+    /**
+     * Submit delivery of a content's relationship type rules
+     */
+    InheritanceJobResponse submitProcessInheritanceForRelationshipType(UUID contentId, String relationshipTypeName,
+                                                                       UUID creatorId);
+
+    /**
+     * Submit delivery of a content's relationship category rules
+     */
+    InheritanceJobResponse submitProcessInheritanceForRelationshipCategory(UUID contentId, String relationshipCategory,
+                                                                           UUID creatorId);
+
+    // Job Tracking
+    /**
+     * Get a job of the creator
+     */
+    InheritanceJobResponse getJob(UUID jobId, UUID creatorId);
+
+    /**
+     * Get the creator's most recent jobs
+     */
+    List<InheritanceJobResponse> getJobs(UUID creatorId);
+
+    /**
+     * Request cancellation of a job of the creator. A queued job is cancelled at once;
+     * a running job stops at its next cancellation check.
+     */
+    InheritanceJobResponse cancelJob(UUID jobId, UUID creatorId);
+
+    /**
+     * Stream a job's progress as server-sent events until it finishes
+     */
+    SseEmitter streamJob(UUID jobId, UUID creatorId);
+}
@@ -2,6 +2,7 @@ package com.legacykeep.legacy.service;
 
 import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
 import com.legacykeep.legacy.dto.request.UpdateInheritanceRuleRequest;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
 import com.legacykeep.legacy.dto.response.InheritanceEventResponse;
 import com.legacykeep.legacy.dto.response.InheritanceRuleResponse;
 import com.legacykeep.legacy.dto.response.InheritanceStatusResponse;
@@ -12,6 +13,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -28,6 +30,11 @@ public interface InheritanceService {
      */
     InheritanceRuleResponse createInheritanceRule(CreateInheritanceRuleRequest request, UUID creatorId);
 
+    /**
+     * Create inheritance rules in bulk from a stream of requests, with a result per item
+     */
+    BulkInheritanceRuleResponse createInheritanceRules(Iterator<CreateInheritanceRuleRequest> requests, UUID creatorId);
+
     /**
      * Update an existing inheritance rule
      */
@@ -167,18 +174,24 @@ public interface InheritanceService {
 
     /**
      * Process inheritance for all active rules
+     *
+     * @return ID of the processing run
      */
-    void processAllActiveInheritance();
+    long processAllActiveInheritance();
 
     /**
      * Process inheritance for a specific relationship type
+     *
+     * @return ID of the processing run
      */
-    void processInheritanceForRelationshipType(String relationshipType);
+    long processInheritanceForRelationshipType(String relationshipType);
 
     /**
      * Process inheritance for a specific relationship type and value
+     *
+     * @return ID of the processing run
      */
-    void processInheritanceForTarget(TargetType targetType, String targetValue);
+    long processInheritanceForTarget(TargetType targetType, String targetValue);
 
     // Event Management
     /**
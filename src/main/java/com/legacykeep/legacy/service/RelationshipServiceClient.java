@@ -1,8 +1,16 @@
 package com.legacykeep.legacy.service;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Client interface for communicating with the Relationship Service.
@@ -54,6 +62,53 @@ public interface RelationshipServiceClient {
      */
     List<UUID> getUsersByRelationshipCategory(UUID userId, String category);
 
+    /**
+     * Get all active relationships for many users. Implementations may look the users up
+     * concurrently; the default looks them up one at a time.
+     * 
+     * @param userIds The user IDs
+     * @return Active relationships by user ID, with an entry for every distinct user
+     */
+    default Map<UUID, List<RelationshipInfo>> getActiveUserRelationships(Collection<UUID> userIds) {
+        Map<UUID, List<RelationshipInfo>> relationships = new LinkedHashMap<>();
+        for (UUID userId : new LinkedHashSet<>(userIds)) {
+            relationships.put(userId, getActiveUserRelationships(userId));
+        }
+        return relationships;
+    }
+
+    /**
+     * Get the users who have a specific relationship type with each of the given users.
+     * 
+     * @param userIds The user IDs
+     * @param relationshipTypeName The relationship type name
+     * @return Related user IDs by user ID
+     */
+    default Map<UUID, List<UUID>> getUsersByRelationshipType(Collection<UUID> userIds, String relationshipTypeName) {
+        Map<UUID, List<UUID>> users = new LinkedHashMap<>();
+        getActiveUserRelationships(userIds).forEach((userId, relationships) -> users.put(userId, relationships.stream()
+                .filter(rel -> relationshipTypeName.equalsIgnoreCase(rel.getRelationshipTypeName()))
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList())));
+        return users;
+    }
+
+    /**
+     * Get the users in a specific relationship category with each of the given users.
+     * 
+     * @param userIds The user IDs
+     * @param category The relationship category
+     * @return Related user IDs by user ID
+     */
+    default Map<UUID, List<UUID>> getUsersByRelationshipCategory(Collection<UUID> userIds, String category) {
+        Map<UUID, List<UUID>> users = new LinkedHashMap<>();
+        getActiveUserRelationships(userIds).forEach((userId, relationships) -> users.put(userId, relationships.stream()
+                .filter(rel -> category.equalsIgnoreCase(rel.getRelationshipCategory()))
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList())));
+        return users;
+    }
+
     /**
      * Check if a relationship exists between two users.
      * 
@@ -104,9 +159,25 @@ public interface RelationshipServiceClient {
      */
     Map<String, Object> getUserInfo(UUID userId);
 
+    /**
+     * Get user information for many users. Implementations may fetch the users in one call;
+     * the default fetches them one at a time.
+     *
+     * @param userIds The user IDs
+     * @return User information by user ID, with an entry for every distinct user
+     */
+    default Map<UUID, Map<String, Object>> getUserInfo(Collection<UUID> userIds) {
+        Map<UUID, Map<String, Object>> users = new LinkedHashMap<>();
+        for (UUID userId : new LinkedHashSet<>(userIds)) {
+            users.put(userId, getUserInfo(userId));
+        }
+        return users;
+    }
+
     /**
      * Data class for relationship information.
      */
+    @JsonIgnoreProperties(ignoreUnknown = true)
     class RelationshipInfo {
         private final UUID relationshipId;
         private final UUID user1Id;
@@ -128,6 +199,22 @@ public interface RelationshipServiceClient {
             this.metadata = metadata;
         }
 
+        /**
+         * Create from the Relationship Service representation, which nests the relationship type.
+         */
+        @JsonCreator
+        public static RelationshipInfo fromJson(@JsonProperty("id") UUID relationshipId,
+                                                @JsonProperty("user1Id") UUID user1Id,
+                                                @JsonProperty("user2Id") UUID user2Id,
+                                                @JsonProperty("relationshipType") RelationshipTypeInfo relationshipType,
+                                                @JsonProperty("status") String status,
+                                                @JsonProperty("metadata") String metadata) {
+            return new RelationshipInfo(relationshipId, user1Id, user2Id,
+                    relationshipType != null ? relationshipType.getName() : null,
+                    relationshipType != null ? relationshipType.getCategory() : null,
+                    status, metadata);
+        }
+
         // Getters
         public UUID getRelationshipId() { return relationshipId; }
         public UUID getUser1Id() { return user1Id; }
@@ -160,6 +247,7 @@ public interface RelationshipServiceClient {
     /**
      * Data class for relationship type information.
      */
+    @JsonIgnoreProperties(ignoreUnknown = true)
     class RelationshipTypeInfo {
         private final Long id;
         private final String name;
@@ -167,8 +255,11 @@ public interface RelationshipServiceClient {
         private final Boolean bidirectional;
         private final String metadata;
 
-        public RelationshipTypeInfo(Long id, String name, String category, 
-                                  Boolean bidirectional, String metadata) {
+        @JsonCreator
+        public RelationshipTypeInfo(@JsonProperty("id") Long id, @JsonProperty("name") String name,
+                                  @JsonProperty("category") String category,
+                                  @JsonProperty("bidirectional") Boolean bidirectional,
+                                  @JsonProperty("metadata") String metadata) {
             this.id = id;
             this.name = name;
             this.category = category;
@@ -0,0 +1,164 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipServiceProperties;
+import com.legacykeep.legacy.exception.RelationshipServiceUnavailableException;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import com.legacykeep.legacy.util.MicroBatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Batching decorator of the Relationship Service transport client, between the
+ * {@link CachingRelationshipServiceClient} and the transport.
+ *
+ * Single-user lookups of active relationships and user info made concurrently (cache
+ * misses of different users, permission and eligibility checks of parallel requests) are
+ * collected for {@code legacy.services.relationship.batch-window-millis} by a
+ * {@link MicroBatcher} and sent as one batch call. Batch lookups pass straight through.
+ * The other lookups are not batched. A caller whose request deadline passes while it
+ * waits for its batch is answered like a transport call that missed the deadline.
+ */
+@Service
+@Qualifier("relationshipLoader")
+@Slf4j
+public class BatchingRelationshipServiceClient implements RelationshipServiceClient {
+
+    private final RelationshipServiceClient delegate;
+    private final RelationshipServiceResilience resilience;
+    private final boolean batching;
+    private final MicroBatcher<UUID, List<RelationshipInfo>> activeRelationships;
+    private final MicroBatcher<UUID, Map<String, Object>> userInfo;
+
+    public BatchingRelationshipServiceClient(@Qualifier("relationshipTransport") RelationshipServiceClient delegate,
+                                             RelationshipServiceResilience resilience,
+                                             RelationshipServiceProperties properties,
+                                             MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.resilience = resilience;
+        this.batching = properties.getBatchWindowMillis() > 0;
+        this.activeRelationships = new MicroBatcher<>(properties.getBatchWindowMillis(), properties.getMaxBatchSize(),
+                delegate::getActiveUserRelationships);
+        this.userInfo = new MicroBatcher<>(properties.getBatchWindowMillis(), properties.getMaxBatchSize(),
+                delegate::getUserInfo);
+
+        registerMetrics(meterRegistry, "active-relationships", activeRelationships);
+        registerMetrics(meterRegistry, "user-info", userInfo);
+    }
+
+    @Override
+    public List<RelationshipInfo> getActiveUserRelationships(UUID userId) {
+        if (!batching) {
+            return delegate.getActiveUserRelationships(userId);
+        }
+        List<RelationshipInfo> relationships = load(activeRelationships, "active-relationships", userId);
+        return relationships != null ? relationships : Collections.emptyList();
+    }
+
+    @Override
+    public Map<UUID, List<RelationshipInfo>> getActiveUserRelationships(Collection<UUID> userIds) {
+        return delegate.getActiveUserRelationships(userIds);
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByType(UUID userId, String relationshipTypeName) {
+        return delegate.getRelationshipsByType(userId, relationshipTypeName);
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByCategory(UUID userId, String category) {
+        return delegate.getRelationshipsByCategory(userId, category);
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipType(UUID userId, String relationshipTypeName) {
+        return delegate.getUsersByRelationshipType(userId, relationshipTypeName);
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipCategory(UUID userId, String category) {
+        return delegate.getUsersByRelationshipCategory(userId, category);
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> getUsersByRelationshipType(Collection<UUID> userIds, String relationshipTypeName) {
+        return delegate.getUsersByRelationshipType(userIds, relationshipTypeName);
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> getUsersByRelationshipCategory(Collection<UUID> userIds, String category) {
+        return delegate.getUsersByRelationshipCategory(userIds, category);
+    }
+
+    @Override
+    public boolean relationshipExists(UUID user1Id, UUID user2Id) {
+        return delegate.relationshipExists(user1Id, user2Id);
+    }
+
+    @Override
+    public boolean activeRelationshipExists(UUID user1Id, UUID user2Id) {
+        return delegate.activeRelationshipExists(user1Id, user2Id);
+    }
+
+    @Override
+    public RelationshipTypeInfo getRelationshipTypeByName(String relationshipTypeName) {
+        return delegate.getRelationshipTypeByName(relationshipTypeName);
+    }
+
+    @Override
+    public List<RelationshipTypeInfo> getRelationshipTypesByCategory(String category) {
+        return delegate.getRelationshipTypesByCategory(category);
+    }
+
+    @Override
+    public List<Map<String, Object>> getFamilyMembers(UUID familyId) {
+        return delegate.getFamilyMembers(familyId);
+    }
+
+    @Override
+    public Map<String, Object> getUserInfo(UUID userId) {
+        if (!batching) {
+            return delegate.getUserInfo(userId);
+        }
+        Map<String, Object> info = load(userInfo, "user-info", userId);
+        return info != null ? info : Collections.emptyMap();
+    }
+
+    @Override
+    public Map<UUID, Map<String, Object>> getUserInfo(Collection<UUID> userIds) {
+        return delegate.getUserInfo(userIds);
+    }
+
+    private <V> V load(MicroBatcher<UUID, V> batcher, String endpoint, UUID userId) {
+        try {
+            return batcher.load(userId);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                return resilience.fallback(endpoint,
+                        new RelationshipServiceUnavailableException(endpoint, "request deadline exceeded"), null);
+            }
+            throw e;
+        }
+    }
+
+    private static void registerMetrics(MeterRegistry meterRegistry, String lookup, MicroBatcher<UUID, ?> batcher) {
+        FunctionCounter.builder("legacy.relationship.batch.calls", batcher, MicroBatcher::getBatches)
+                .description("Batch calls made for collected single-user relationship lookups")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+        FunctionCounter.builder("legacy.relationship.batch.keys", batcher, MicroBatcher::getKeys)
+                .description("Users looked up through collected batch calls")
+                .tag("lookup", lookup)
+                .register(meterRegistry);
+    }
+}
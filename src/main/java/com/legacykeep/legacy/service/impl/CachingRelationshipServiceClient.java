@@ -0,0 +1,194 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipCacheProperties;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Caching decorator of the Relationship Service client, injected wherever a
+ * {@link RelationshipServiceClient} is required.
+ *
+ * A user's active relationships are fetched once into the {@link RelationshipCache}, and
+ * the by-type, by-category and related-user lookups as well as active relationship checks
+ * are answered by filtering them, so an access check costs no round trip once the user is
+ * cached. Each group of lookups can be switched off under
+ * {@code legacy.services.relationship.cache.*}; relationship existence checks, family
+ * members and user info are never cached. When the {@link RelationshipGraphReplica} is
+ * enabled, related-user lookups and active relationship checks are answered from it
+ * instead; it loads its users through the same cache. Misses and uncached lookups go to
+ * the {@link BatchingRelationshipServiceClient}, which collects concurrent single-user
+ * calls into batch calls to the transport client.
+ */
+@Service
+@Primary
+@Slf4j
+public class CachingRelationshipServiceClient implements RelationshipServiceClient {
+
+    private final RelationshipServiceClient delegate;
+    private final RelationshipCache cache;
+    private final RelationshipCacheProperties properties;
+    private final RelationshipGraphReplica graph;
+
+    public CachingRelationshipServiceClient(@Qualifier("relationshipLoader") RelationshipServiceClient delegate,
+                                            RelationshipCache cache,
+                                            RelationshipCacheProperties properties,
+                                            RelationshipGraphReplica graph) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.properties = properties;
+        this.graph = graph;
+    }
+
+    @Override
+    public List<RelationshipInfo> getActiveUserRelationships(UUID userId) {
+        if (!cachesActiveRelationships()) {
+            return delegate.getActiveUserRelationships(userId);
+        }
+        return cache.getActiveRelationships(userId, delegate::getActiveUserRelationships);
+    }
+
+    @Override
+    public Map<UUID, List<RelationshipInfo>> getActiveUserRelationships(Collection<UUID> userIds) {
+        if (!cachesActiveRelationships()) {
+            return delegate.getActiveUserRelationships(userIds);
+        }
+
+        Map<UUID, List<RelationshipInfo>> cached = cache.getActiveRelationships(userIds,
+                missing -> delegate.getActiveUserRelationships(missing));
+        Map<UUID, List<RelationshipInfo>> relationships = new LinkedHashMap<>();
+        for (UUID userId : new LinkedHashSet<>(userIds)) {
+            relationships.put(userId, cached.getOrDefault(userId, Collections.emptyList()));
+        }
+        return relationships;
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByType(UUID userId, String relationshipTypeName) {
+        if (!cachesActiveRelationships()) {
+            return delegate.getRelationshipsByType(userId, relationshipTypeName);
+        }
+        return getActiveUserRelationships(userId).stream()
+                .filter(rel -> relationshipTypeName.equalsIgnoreCase(rel.getRelationshipTypeName()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByCategory(UUID userId, String category) {
+        if (!cachesActiveRelationships()) {
+            return delegate.getRelationshipsByCategory(userId, category);
+        }
+        return getActiveUserRelationships(userId).stream()
+                .filter(rel -> category.equalsIgnoreCase(rel.getRelationshipCategory()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipType(UUID userId, String relationshipTypeName) {
+        if (graph.isEnabled()) {
+            return graph.getUsersByRelationshipType(userId, relationshipTypeName);
+        }
+        if (!cachesActiveRelationships()) {
+            return delegate.getUsersByRelationshipType(userId, relationshipTypeName);
+        }
+        return getRelationshipsByType(userId, relationshipTypeName).stream()
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipCategory(UUID userId, String category) {
+        if (graph.isEnabled()) {
+            return graph.getUsersByRelationshipCategory(userId, category);
+        }
+        if (!cachesActiveRelationships()) {
+            return delegate.getUsersByRelationshipCategory(userId, category);
+        }
+        return getRelationshipsByCategory(userId, category).stream()
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> getUsersByRelationshipType(Collection<UUID> userIds, String relationshipTypeName) {
+        if (graph.isEnabled()) {
+            return graph.getUsersByRelationshipType(userIds, relationshipTypeName);
+        }
+        return RelationshipServiceClient.super.getUsersByRelationshipType(userIds, relationshipTypeName);
+    }
+
+    @Override
+    public Map<UUID, List<UUID>> getUsersByRelationshipCategory(Collection<UUID> userIds, String category) {
+        if (graph.isEnabled()) {
+            return graph.getUsersByRelationshipCategory(userIds, category);
+        }
+        return RelationshipServiceClient.super.getUsersByRelationshipCategory(userIds, category);
+    }
+
+    @Override
+    public boolean relationshipExists(UUID user1Id, UUID user2Id) {
+        return delegate.relationshipExists(user1Id, user2Id);
+    }
+
+    @Override
+    public boolean activeRelationshipExists(UUID user1Id, UUID user2Id) {
+        if (graph.isEnabled() && properties.isActiveRelationshipChecks()) {
+            return graph.activeRelationshipExists(user1Id, user2Id);
+        }
+        if (!cachesActiveRelationships() || !properties.isActiveRelationshipChecks()) {
+            return delegate.activeRelationshipExists(user1Id, user2Id);
+        }
+        return getActiveUserRelationships(user1Id).stream()
+                .anyMatch(rel -> rel.isActive() && user2Id.equals(rel.getOtherUserId(user1Id)));
+    }
+
+    @Override
+    public RelationshipTypeInfo getRelationshipTypeByName(String relationshipTypeName) {
+        if (!cachesRelationshipTypes()) {
+            return delegate.getRelationshipTypeByName(relationshipTypeName);
+        }
+        return cache.getRelationshipType(relationshipTypeName, delegate::getRelationshipTypeByName);
+    }
+
+    @Override
+    public List<RelationshipTypeInfo> getRelationshipTypesByCategory(String category) {
+        if (!cachesRelationshipTypes()) {
+            return delegate.getRelationshipTypesByCategory(category);
+        }
+        return cache.getRelationshipTypes(category, delegate::getRelationshipTypesByCategory);
+    }
+
+    @Override
+    public List<Map<String, Object>> getFamilyMembers(UUID familyId) {
+        return delegate.getFamilyMembers(familyId);
+    }
+
+    @Override
+    public Map<String, Object> getUserInfo(UUID userId) {
+        return delegate.getUserInfo(userId);
+    }
+
+    @Override
+    public Map<UUID, Map<String, Object>> getUserInfo(Collection<UUID> userIds) {
+        return delegate.getUserInfo(userIds);
+    }
+
+    private boolean cachesActiveRelationships() {
+        return properties.isEnabled() && properties.isActiveRelationships();
+    }
+
+    private boolean cachesRelationshipTypes() {
+        return properties.isEnabled() && properties.isRelationshipTypes();
+    }
+}
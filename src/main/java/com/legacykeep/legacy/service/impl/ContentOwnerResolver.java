@@ -0,0 +1,70 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.repository.LegacyContentRepository;
+import com.legacykeep.legacy.util.BoundedLruCache;
+import com.legacykeep.legacy.util.TransactionUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Resolves the creator of a piece of legacy content.
+ *
+ * Backed by a single-column projection query and a bounded LRU cache, so inheritance
+ * eligibility and access checks cost a hash lookup. Entries are invalidated when
+ * content is updated or deleted.
+ */
+@Component
+@Slf4j
+public class ContentOwnerResolver {
+
+    private final LegacyContentRepository contentRepository;
+    private final BoundedLruCache<UUID, UUID> owners;
+
+    public ContentOwnerResolver(LegacyContentRepository contentRepository,
+                                @Value("${legacy.content.owner-cache.max-size:100000}") int maxSize,
+                                @Value("${legacy.content.owner-cache.ttl-seconds:3600}") long ttlSeconds,
+                                MeterRegistry meterRegistry) {
+        this.contentRepository = contentRepository;
+        this.owners = new BoundedLruCache<>(maxSize, ttlSeconds * 1000);
+
+        FunctionCounter.builder("legacy.content.owner.cache.requests", owners, BoundedLruCache::getHits)
+                .description("Content owner cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("legacy.content.owner.cache.requests", owners, BoundedLruCache::getMisses)
+                .description("Content owner cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("legacy.content.owner.cache.size", owners, BoundedLruCache::size)
+                .description("Content owners held in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolve the creator of content.
+     *
+     * @param contentId The content ID
+     * @return The creator's user ID, or empty if the content does not exist or is deleted
+     */
+    public Optional<UUID> resolveOwner(UUID contentId) {
+        return Optional.ofNullable(owners.get(contentId,
+                id -> contentRepository.findCreatorIdById(id).orElse(null)));
+    }
+
+    /**
+     * Invalidate the cached owner of content, now and again once the current
+     * transaction commits, so a concurrent reader cannot re-cache the old value.
+     */
+    public void invalidate(UUID contentId) {
+        owners.invalidate(contentId);
+        TransactionUtils.afterCommit(() -> owners.invalidate(contentId));
+        log.debug("Invalidated cached owner for content: {}", contentId);
+    }
+}
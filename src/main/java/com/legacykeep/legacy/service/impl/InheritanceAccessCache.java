@@ -0,0 +1,186 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.util.BoundedLruCache;
+import com.legacykeep.legacy.util.TransactionUtils;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Read path for inheritance access checks.
+ *
+ * Access is read from {@code inheritance_access}, which the database keeps in step with
+ * {@code inheritance_status} (one row per recipient and content, holding the effective
+ * status across all rules). Each recipient's accessible content IDs are loaded with one
+ * primary-key range scan and cached, so an access check is a hash lookup.
+ *
+ * When a recipient's statuses change, the entry is invalidated in this instance and, after
+ * commit, the invalidation is broadcast on a Redis channel for every other instance to
+ * evict its entry, so a revocation or decline on any instance denies access everywhere.
+ * The TTL bounds staleness if a broadcast is missed and for changes made outside this
+ * service.
+ */
+@Component
+@Slf4j
+public class InheritanceAccessCache {
+
+    private static final String ACCESSIBLE_CONTENT_SQL =
+            "SELECT content_id FROM inheritance_access " +
+            "WHERE recipient_id = ? AND effective_status <> 'DECLINED'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final String invalidationChannel;
+    private final BoundedLruCache<UUID, Set<UUID>> accessByRecipient;
+
+    private RedisMessageListenerContainer invalidationListener;
+
+    public InheritanceAccessCache(JdbcTemplate jdbcTemplate,
+                                  StringRedisTemplate redisTemplate,
+                                  RedisConnectionFactory connectionFactory,
+                                  @Value("${legacy.inheritance.access-cache.max-size:50000}") int maxSize,
+                                  @Value("${legacy.inheritance.access-cache.ttl-seconds:60}") long ttlSeconds,
+                                  @Value("${legacy.inheritance.access-cache.invalidation-channel:legacy:inheritance:access:invalidations}")
+                                  String invalidationChannel,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.invalidationChannel = invalidationChannel;
+        this.accessByRecipient = new BoundedLruCache<>(maxSize, ttlSeconds * 1000);
+
+        FunctionCounter.builder("legacy.inheritance.access.cache.requests", accessByRecipient, BoundedLruCache::getHits)
+                .description("Inheritance access cache lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("legacy.inheritance.access.cache.requests", accessByRecipient, BoundedLruCache::getMisses)
+                .description("Inheritance access cache lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("legacy.inheritance.access.cache.size", accessByRecipient, BoundedLruCache::size)
+                .description("Recipients whose inheritance access is held in the cache")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            invalidationListener = new RedisMessageListenerContainer();
+            invalidationListener.setConnectionFactory(connectionFactory);
+            invalidationListener.addMessageListener((message, pattern) -> onInvalidation(message),
+                    new ChannelTopic(invalidationChannel));
+            invalidationListener.afterPropertiesSet();
+            invalidationListener.start();
+        } catch (Exception e) {
+            log.warn("Could not subscribe to inheritance access invalidations, relying on cache TTL: {}",
+                    e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (invalidationListener != null) {
+            try {
+                invalidationListener.destroy();
+            } catch (Exception e) {
+                log.debug("Error stopping inheritance access invalidation listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Check whether a user has inherited access to content (any non-declined status).
+     */
+    public boolean hasAccess(UUID userId, UUID contentId) {
+        return getAccessibleContentIds(userId).contains(contentId);
+    }
+
+    /**
+     * Get the content a user has inherited access to.
+     *
+     * @return Unmodifiable set of content IDs
+     */
+    public Set<UUID> getAccessibleContentIds(UUID userId) {
+        return accessByRecipient.get(userId, this::load);
+    }
+
+    /**
+     * Invalidate the cached access of recipients, now and again once the current
+     * transaction commits, so a concurrent reader cannot re-cache the old value. The
+     * after-commit invalidation is broadcast to the other instances.
+     */
+    public void invalidate(Collection<UUID> recipientIds) {
+        if (recipientIds == null || recipientIds.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> distinct = new LinkedHashSet<>(recipientIds);
+        distinct.forEach(accessByRecipient::invalidate);
+        TransactionUtils.afterCommit(() -> {
+            distinct.forEach(accessByRecipient::invalidate);
+            broadcast(distinct);
+        });
+        log.debug("Invalidated cached inheritance access for {} recipients", distinct.size());
+    }
+
+    public void invalidate(UUID recipientId) {
+        invalidate(Collections.singleton(recipientId));
+    }
+
+    /**
+     * Evict the recipients named by an invalidation broadcast, including this instance's
+     * own, which it has already evicted.
+     */
+    void onInvalidation(Message message) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            List<UUID> recipientIds = new ArrayList<>();
+            for (String recipientId : body.split(",")) {
+                if (!recipientId.isBlank()) {
+                    recipientIds.add(UUID.fromString(recipientId.trim()));
+                }
+            }
+            recipientIds.forEach(accessByRecipient::invalidate);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable inheritance access invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void broadcast(Set<UUID> recipientIds) {
+        try {
+            redisTemplate.convertAndSend(invalidationChannel,
+                    recipientIds.stream().map(UUID::toString).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            log.warn("Could not broadcast inheritance access invalidation of {} recipients, "
+                    + "other instances rely on cache TTL: {}", recipientIds.size(), e.getMessage());
+        }
+    }
+
+    private Set<UUID> load(UUID userId) {
+        return Collections.unmodifiableSet(new HashSet<>(jdbcTemplate.queryForList(
+                ACCESSIBLE_CONTENT_SQL, UUID.class, userId)));
+    }
+}
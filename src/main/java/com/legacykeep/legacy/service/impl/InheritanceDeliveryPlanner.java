@@ -0,0 +1,120 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.enums.TargetType;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Plans and writes the deliveries of one piece of content to a relationship target.
+ *
+ * The matching rules are read once from the {@link InheritanceRuleIndex} and the
+ * recipients of all rule creators are resolved in one batch. The rule × recipient cross-product is
+ * built in memory, pairs that already have a status are removed with one bulk query,
+ * and the remainder is written by {@link InheritanceDeliveryWriter#deliverPairs}. The
+ * statement count is constant per content instead of growing with recipients × rules.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InheritanceDeliveryPlanner {
+
+    private static final String EXISTING_PAIRS_SQL =
+            "SELECT inheritance_rule_id, recipient_id FROM inheritance_status " +
+            "WHERE content_id = ? AND inheritance_rule_id = ANY(?::uuid[]) AND recipient_id = ANY(?::uuid[])";
+
+    private final InheritanceRuleIndex ruleIndex;
+    private final InheritanceDeliveryWriter deliveryWriter;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Deliver content to every recipient of the content's active rules for a target.
+     * Runs in the caller's transaction.
+     *
+     * @param contentId The content being inherited
+     * @param targetType The rule target type
+     * @param targetValue The rule target value
+     * @param recipientResolver Resolves the recipients of many rule creators at once
+     * @return Number of status rows created
+     */
+    public int deliver(UUID contentId, TargetType targetType, String targetValue,
+                       Function<Collection<UUID>, Map<UUID, List<UUID>>> recipientResolver) {
+        List<InheritanceRuleIndex.RuleEntry> rules = ruleIndex.findActiveRulesByContent(contentId)
+                .stream()
+                .filter(rule -> rule.getTargetType() == targetType && targetValue.equals(rule.getTargetValue()))
+                .collect(Collectors.toList());
+        if (rules.isEmpty()) {
+            return 0;
+        }
+
+        // Recipients are resolved once per creator, not once per rule, and all creators in one batch
+        Set<UUID> creatorIds = rules.stream()
+                .map(InheritanceRuleIndex.RuleEntry::getCreatorId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<UUID, List<UUID>> resolved = recipientResolver.apply(creatorIds);
+        Map<UUID, List<UUID>> recipientsByCreator = new HashMap<>();
+        for (UUID creatorId : creatorIds) {
+            recipientsByCreator.put(creatorId,
+                    new ArrayList<>(new LinkedHashSet<>(resolved.getOrDefault(creatorId, List.of()))));
+        }
+
+        Set<UUID> allRecipients = recipientsByCreator.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        if (allRecipients.isEmpty()) {
+            return 0;
+        }
+
+        Set<Pair> existing = findExistingPairs(contentId,
+                rules.stream().map(InheritanceRuleIndex.RuleEntry::getId).collect(Collectors.toList()),
+                allRecipients);
+
+        List<UUID> ruleIds = new ArrayList<>();
+        List<UUID> recipientIds = new ArrayList<>();
+        for (InheritanceRuleIndex.RuleEntry rule : rules) {
+            for (UUID recipientId : recipientsByCreator.get(rule.getCreatorId())) {
+                if (!existing.contains(new Pair(rule.getId(), recipientId))) {
+                    ruleIds.add(rule.getId());
+                    recipientIds.add(recipientId);
+                }
+            }
+        }
+
+        int created = ruleIds.isEmpty() ? 0 : deliveryWriter.deliverPairs(contentId, ruleIds, recipientIds);
+
+        log.info("Delivery plan for content: {} target: {} - {} - {} rules x {} recipients, {} already present, {} created",
+                contentId, targetType, targetValue, rules.size(), allRecipients.size(), existing.size(), created);
+        return created;
+    }
+
+    private Set<Pair> findExistingPairs(UUID contentId, List<UUID> ruleIds, Set<UUID> recipientIds) {
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXISTING_PAIRS_SQL);
+            statement.setObject(1, contentId);
+            statement.setArray(2, connection.createArrayOf("uuid", ruleIds.toArray()));
+            statement.setArray(3, connection.createArrayOf("uuid", recipientIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> new Pair(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class))));
+    }
+
+    @Value
+    private static class Pair {
+        UUID ruleId;
+        UUID recipientId;
+    }
+}
@@ -0,0 +1,232 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Set-based writer for inheritance deliveries.
+ *
+ * Writes the inheritance status rows for a rule and its recipients with a single
+ * {@code INSERT ... ON CONFLICT DO NOTHING} per chunk, relying on the
+ * {@code UNIQUE(content_id, recipient_id, inheritance_rule_id)} constraint instead of
+ * a lookup per recipient. The matching INHERITANCE_TRIGGERED events are written in
+ * one statement per chunk for the newly created rows only.
+ *
+ * Each chunk is reported to the {@link InheritanceJobProgress} of the calling thread,
+ * and a cancelled job stops before its next chunk.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InheritanceDeliveryWriter {
+
+    private static final String INSERT_STATUS_SQL =
+            "INSERT INTO inheritance_status (id, content_id, recipient_id, inheritance_rule_id, status, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), ?, r.recipient_id, ?, 'PENDING', now(), now() " +
+            "FROM unnest(?::uuid[]) AS r(recipient_id) " +
+            "ON CONFLICT (content_id, recipient_id, inheritance_rule_id) DO NOTHING " +
+            "RETURNING recipient_id";
+
+    private static final String INSERT_TRIGGERED_EVENTS_SQL =
+            "INSERT INTO inheritance_events (id, inheritance_rule_id, event_type, event_data, created_at) " +
+            "SELECT gen_random_uuid(), ?, 'INHERITANCE_TRIGGERED', " +
+            "jsonb_build_object('recipientId', r.recipient_id, 'contentId', ?::uuid, 'triggeredAt', now()), now() " +
+            "FROM unnest(?::uuid[]) AS r(recipient_id)";
+
+    private static final String INSERT_PAIRS_SQL =
+            "WITH created AS (" +
+            "INSERT INTO inheritance_status (id, content_id, recipient_id, inheritance_rule_id, status, created_at, updated_at) " +
+            "SELECT gen_random_uuid(), ?, p.recipient_id, p.rule_id, 'PENDING', now(), now() " +
+            "FROM unnest(?::uuid[], ?::uuid[]) AS p(rule_id, recipient_id) " +
+            "ON CONFLICT (content_id, recipient_id, inheritance_rule_id) DO NOTHING " +
+            "RETURNING inheritance_rule_id, recipient_id, content_id) " +
+            "INSERT INTO inheritance_events (id, inheritance_rule_id, event_type, event_data, created_at) " +
+            "SELECT gen_random_uuid(), c.inheritance_rule_id, 'INHERITANCE_TRIGGERED', " +
+            "jsonb_build_object('recipientId', c.recipient_id, 'contentId', c.content_id, 'triggeredAt', now()), now() " +
+            "FROM created c " +
+            "RETURNING inheritance_rule_id, (event_data->>'recipientId')::uuid";
+
+    private static final String REVOKE_STATUS_SQL =
+            "DELETE FROM inheritance_status " +
+            "WHERE recipient_id = ? AND inheritance_rule_id = ANY(?::uuid[]) AND status IN ('PENDING', 'INHERITED') " +
+            "RETURNING inheritance_rule_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InheritanceProcessingProperties properties;
+    private final InheritanceAccessCache accessCache;
+    private final InheritanceSketchStore sketchStore;
+
+    /**
+     * Deliver content to recipients for a rule.
+     * Runs in the caller's transaction.
+     *
+     * @param ruleId The inheritance rule
+     * @param contentId The content being inherited
+     * @param recipientIds The recipients (duplicates are ignored)
+     * @return How many status rows were created and how many already existed
+     */
+    public DeliveryResult deliver(UUID ruleId, UUID contentId, Collection<UUID> recipientIds) {
+        if (recipientIds == null || recipientIds.isEmpty()) {
+            return DeliveryResult.empty();
+        }
+
+        List<UUID> distinctRecipients = new ArrayList<>(new LinkedHashSet<>(recipientIds));
+        List<UUID> created = new ArrayList<>();
+        InheritanceJobProgress progress = InheritanceJobProgress.current();
+        progress.addTotal(distinctRecipients.size());
+
+        int batchSize = properties.getDeliveryBatchSize();
+        for (int from = 0; from < distinctRecipients.size(); from += batchSize) {
+            progress.checkCancelled();
+            List<UUID> chunk = distinctRecipients.subList(from, Math.min(from + batchSize, distinctRecipients.size()));
+
+            List<UUID> createdInChunk = insertStatuses(ruleId, contentId, chunk);
+            if (!createdInChunk.isEmpty()) {
+                insertTriggeredEvents(ruleId, contentId, createdInChunk);
+                created.addAll(createdInChunk);
+            }
+            progress.recordProcessed(chunk.size(), createdInChunk.size());
+        }
+
+        accessCache.invalidate(created);
+        sketchStore.recordDeliveries(ruleId, created);
+        log.debug("Delivered rule: {} for content: {} - {} created, {} already present",
+                ruleId, contentId, created.size(), distinctRecipients.size() - created.size());
+
+        return new DeliveryResult(created, distinctRecipients.size() - created.size());
+    }
+
+    /**
+     * Deliver content for many (rule, recipient) pairs at once.
+     * Status rows and their INHERITANCE_TRIGGERED events are written by a single
+     * statement per chunk. Runs in the caller's transaction.
+     *
+     * @param contentId The content being inherited
+     * @param ruleIds Rule of each pair
+     * @param recipientIds Recipient of each pair (same length as ruleIds)
+     * @return Number of status rows created
+     */
+    public int deliverPairs(UUID contentId, List<UUID> ruleIds, List<UUID> recipientIds) {
+        if (ruleIds.size() != recipientIds.size()) {
+            throw new IllegalArgumentException("Rule and recipient lists must have the same length");
+        }
+
+        Map<UUID, List<UUID>> createdByRule = new HashMap<>();
+        int created = 0;
+        InheritanceJobProgress progress = InheritanceJobProgress.current();
+        progress.addTotal(ruleIds.size());
+
+        int batchSize = properties.getDeliveryBatchSize();
+        for (int from = 0; from < ruleIds.size(); from += batchSize) {
+            progress.checkCancelled();
+            int to = Math.min(from + batchSize, ruleIds.size());
+            Object[] ruleChunk = ruleIds.subList(from, to).toArray();
+            Object[] recipientChunk = recipientIds.subList(from, to).toArray();
+
+            List<UUID[]> createdPairs = jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_PAIRS_SQL);
+                statement.setObject(1, contentId);
+                statement.setArray(2, connection.createArrayOf("uuid", ruleChunk));
+                statement.setArray(3, connection.createArrayOf("uuid", recipientChunk));
+                return statement;
+            }, (rs, rowNum) -> new UUID[] {rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)});
+
+            for (UUID[] pair : createdPairs) {
+                createdByRule.computeIfAbsent(pair[0], ruleId -> new ArrayList<>()).add(pair[1]);
+            }
+            created += createdPairs.size();
+            progress.recordProcessed(to - from, createdPairs.size());
+        }
+
+        if (created > 0) {
+            createdByRule.values().forEach(accessCache::invalidate);
+            createdByRule.forEach(sketchStore::recordDeliveries);
+        }
+
+        log.debug("Delivered {} of {} rule/recipient pairs for content: {}", created, ruleIds.size(), contentId);
+        return created;
+    }
+
+    /**
+     * Revoke a recipient's deliveries for a set of rules.
+     * Only PENDING and INHERITED rows are removed; ACCESSED and DECLINED rows are kept as history.
+     * Runs in the caller's transaction.
+     *
+     * @param ruleIds The inheritance rules
+     * @param recipientId The recipient
+     * @return The rules whose delivery was revoked
+     */
+    public List<UUID> revoke(Collection<UUID> ruleIds, UUID recipientId) {
+        if (ruleIds == null || ruleIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<UUID> revoked = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(REVOKE_STATUS_SQL);
+            statement.setObject(1, recipientId);
+            statement.setArray(2, connection.createArrayOf("uuid", ruleIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+
+        if (!revoked.isEmpty()) {
+            accessCache.invalidate(recipientId);
+        }
+        log.debug("Revoked {} deliveries for recipient: {}", revoked.size(), recipientId);
+        return revoked;
+    }
+
+    private List<UUID> insertStatuses(UUID ruleId, UUID contentId, List<UUID> recipientIds) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_STATUS_SQL);
+            statement.setObject(1, contentId);
+            statement.setObject(2, ruleId);
+            statement.setArray(3, connection.createArrayOf("uuid", recipientIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class));
+    }
+
+    private void insertTriggeredEvents(UUID ruleId, UUID contentId, List<UUID> recipientIds) {
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_TRIGGERED_EVENTS_SQL);
+            statement.setObject(1, ruleId);
+            statement.setObject(2, contentId);
+            statement.setArray(3, connection.createArrayOf("uuid", recipientIds.toArray()));
+            return statement;
+        });
+    }
+
+    /**
+     * Outcome of a delivery.
+     */
+    public static class DeliveryResult {
+        private final List<UUID> createdRecipientIds;
+        private final int alreadyPresent;
+
+        public DeliveryResult(List<UUID> createdRecipientIds, int alreadyPresent) {
+            this.createdRecipientIds = createdRecipientIds;
+            this.alreadyPresent = alreadyPresent;
+        }
+
+        public static DeliveryResult empty() {
+            return new DeliveryResult(Collections.emptyList(), 0);
+        }
+
+        // Getters
+        public List<UUID> getCreatedRecipientIds() { return createdRecipientIds; }
+        public int getCreated() { return createdRecipientIds.size(); }
+        public int getAlreadyPresent() { return alreadyPresent; }
+    }
+}
@@ -0,0 +1,405 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceJournalProperties;
+import com.legacykeep.legacy.entity.InheritanceEvent;
+import com.legacykeep.legacy.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind journal for inheritance audit events.
+ *
+ * Events are appended to a local spill file and placed in a bounded in-memory
+ * buffer; a background flusher writes them to {@code inheritance_events} in
+ * multi-row inserts. Rule-mutation requests therefore no longer pay for the
+ * audit insert. Events raised inside a transaction are only journaled once that
+ * transaction commits.
+ *
+ * An event is durable in the spill file before {@link #append} returns (after commit,
+ * inside a transaction), so a crash loses no journaled event. Durability is a group
+ * commit: a producer that finds its event not yet synced flushes the spill writer and
+ * forces the file ({@code spill-force}) for every event written so far, and producers
+ * that wrote meanwhile find theirs already synced. The spill file is truncated whenever
+ * every journaled event has been flushed to the database and is replayed on startup.
+ * Replays are idempotent because event IDs are assigned here and inserts ignore IDs that
+ * already exist.
+ */
+@Component
+@Slf4j
+public class InheritanceEventJournal {
+
+    private static final String INSERT_EVENTS_SQL =
+            "INSERT INTO inheritance_events (id, inheritance_rule_id, event_type, event_data, created_at, created_by) " +
+            "SELECT e.id, e.rule_id, e.event_type, e.event_data::jsonb, e.created_at, e.created_by " +
+            "FROM unnest(?::uuid[], ?::uuid[], ?::varchar[], ?::text[], ?::timestamp[], ?::uuid[]) " +
+            "AS e(id, rule_id, event_type, event_data, created_at, created_by) " +
+            // Events for rules deleted before the flush would violate the foreign key; they were
+            // removed by the ON DELETE CASCADE before this journal existed, so they are skipped.
+            "WHERE EXISTS (SELECT 1 FROM inheritance_rules r WHERE r.id = e.rule_id) " +
+            "ON CONFLICT (id, created_at) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final InheritanceJournalProperties properties;
+    private final InheritanceSketchStore sketchStore;
+    private final Counter flushedCounter;
+    private final Counter synchronousWriteCounter;
+    private final Counter spillSyncCounter;
+
+    private final BlockingQueue<Entry> buffer;
+    private final List<Entry> retryBatch = new ArrayList<>();
+    private final Queue<Entry> failedWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicLong unflushed = new AtomicLong();
+    private final Object spillLock = new Object();
+    private final Object syncLock = new Object();
+
+    private ScheduledExecutorService flusher;
+    private Path spillPath;
+
+    // Guarded by spillLock
+    private FileChannel spillChannel;
+    private BufferedWriter spillWriter;
+    private long spilledCount;
+
+    // Guarded by syncLock
+    private long syncedCount;
+
+    public InheritanceEventJournal(JdbcTemplate jdbcTemplate,
+                                   ObjectMapper objectMapper,
+                                   InheritanceJournalProperties properties,
+                                   InheritanceSketchStore sketchStore,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.sketchStore = sketchStore;
+        this.buffer = new ArrayBlockingQueue<>(properties.getCapacity());
+
+        this.flushedCounter = Counter.builder("legacy.inheritance.journal.flushed")
+                .description("Inheritance events flushed by the journal")
+                .register(meterRegistry);
+        this.synchronousWriteCounter = Counter.builder("legacy.inheritance.journal.synchronous.writes")
+                .description("Inheritance events written synchronously because the journal buffer was full")
+                .register(meterRegistry);
+        this.spillSyncCounter = Counter.builder("legacy.inheritance.journal.spill.syncs")
+                .description("Group commits of the inheritance journal spill file")
+                .register(meterRegistry);
+        Gauge.builder("legacy.inheritance.journal.buffered", buffer, BlockingQueue::size)
+                .description("Inheritance events waiting to be flushed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        spillPath = Paths.get(properties.getSpillPath());
+        if (spillPath.getParent() != null) {
+            Files.createDirectories(spillPath.getParent());
+        }
+
+        replaySpillFile();
+
+        synchronized (spillLock) {
+            openSpillFile(StandardOpenOption.APPEND);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-journal-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        synchronized (spillLock) {
+            try {
+                spillWriter.close();
+            } catch (IOException e) {
+                log.warn("Error closing inheritance journal spill file: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Journal an inheritance event.
+     * Inside a transaction the event is journaled after commit, otherwise immediately.
+     *
+     * @param ruleId The inheritance rule the event belongs to
+     * @param eventType The event type
+     * @param eventData Event-specific data, stored as JSON
+     * @param createdBy The user who triggered the event (may be null)
+     */
+    public void append(UUID ruleId, InheritanceEvent.EventType eventType, Map<String, Object> eventData, UUID createdBy) {
+        Entry entry;
+        try {
+            entry = Entry.builder()
+                    .id(UUID.randomUUID())
+                    .ruleId(ruleId)
+                    .eventType(eventType)
+                    .eventData(eventData != null ? objectMapper.writeValueAsString(eventData) : null)
+                    .createdAt(LocalDateTime.now())
+                    .createdBy(createdBy)
+                    .build();
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing inheritance event: {} for rule: {}", eventType, ruleId, e);
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> enqueue(entry));
+        sketchStore.recordEvent(ruleId, eventType, eventData);
+    }
+
+    private void enqueue(Entry entry) {
+        boolean buffered;
+        long spilled;
+        synchronized (spillLock) {
+            spill(entry);
+            spilled = ++spilledCount;
+            unflushed.incrementAndGet();
+            buffered = buffer.offer(entry);
+        }
+        syncSpillFile(spilled);
+
+        if (!buffered) {
+            try {
+                buffered = buffer.offer(entry, properties.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (!buffered) {
+            // Backpressure: the buffer is still full, so the producer pays for its own write
+            try {
+                write(List.of(entry));
+                unflushed.decrementAndGet();
+                synchronousWriteCounter.increment();
+            } catch (Exception e) {
+                // Retried by the flusher like a failed batch, so the spill file can still be truncated
+                log.error("Error writing inheritance event: {} for rule: {}; will retry",
+                        entry.getEventType(), entry.getRuleId(), e);
+                failedWrites.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Flush buffered events to the database. Runs on the flusher thread.
+     */
+    void flush() {
+        try {
+            Entry failed;
+            while ((failed = failedWrites.poll()) != null) {
+                retryBatch.add(failed);
+            }
+            if (!retryBatch.isEmpty()) {
+                write(retryBatch);
+                unflushed.addAndGet(-retryBatch.size());
+                retryBatch.clear();
+            }
+
+            List<Entry> batch = new ArrayList<>(properties.getBatchSize());
+            while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+                try {
+                    write(batch);
+                    unflushed.addAndGet(-batch.size());
+                    batch.clear();
+                } catch (Exception e) {
+                    retryBatch.addAll(batch);
+                    throw e;
+                }
+            }
+
+            truncateSpillFileIfFlushed();
+        } catch (Exception e) {
+            log.error("Error flushing inheritance event journal, will retry: {}", e.getMessage());
+        }
+    }
+
+    private void write(List<Entry> entries) {
+        int size = entries.size();
+        Object[] ids = new Object[size];
+        Object[] ruleIds = new Object[size];
+        Object[] eventTypes = new Object[size];
+        Object[] eventData = new Object[size];
+        Object[] createdAt = new Object[size];
+        Object[] createdBy = new Object[size];
+
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(i);
+            ids[i] = entry.getId();
+            ruleIds[i] = entry.getRuleId();
+            eventTypes[i] = entry.getEventType().name();
+            eventData[i] = entry.getEventData();
+            createdAt[i] = Timestamp.valueOf(entry.getCreatedAt());
+            createdBy[i] = entry.getCreatedBy();
+        }
+
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_EVENTS_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", ids));
+            statement.setArray(2, connection.createArrayOf("uuid", ruleIds));
+            statement.setArray(3, connection.createArrayOf("varchar", eventTypes));
+            statement.setArray(4, connection.createArrayOf("text", eventData));
+            statement.setArray(5, connection.createArrayOf("timestamp", createdAt));
+            statement.setArray(6, connection.createArrayOf("uuid", createdBy));
+            return statement;
+        });
+
+        flushedCounter.increment(size);
+    }
+
+    private void spill(Entry entry) {
+        try {
+            spillWriter.write(objectMapper.writeValueAsString(entry));
+            spillWriter.newLine();
+        } catch (IOException e) {
+            log.error("Error spilling inheritance event: {} for rule: {}", entry.getEventType(), entry.getRuleId(), e);
+        }
+    }
+
+    /**
+     * Make the first {@code count} spilled events durable, together with every event
+     * spilled so far. Producers queue on the sync lock while one of them syncs; those whose
+     * event that sync covered return without syncing again.
+     */
+    private void syncSpillFile(long count) {
+        synchronized (syncLock) {
+            if (syncedCount >= count) {
+                return;
+            }
+
+            long target;
+            FileChannel channel;
+            synchronized (spillLock) {
+                try {
+                    spillWriter.flush();
+                } catch (IOException e) {
+                    log.error("Error flushing inheritance journal spill file: {}", e.getMessage());
+                    return;
+                }
+                target = spilledCount;
+                channel = spillChannel;
+            }
+
+            try {
+                // Outside the spill lock, so producers keep appending during the force
+                if (properties.isSpillForce()) {
+                    channel.force(false);
+                }
+            } catch (ClosedChannelException e) {
+                // Truncated meanwhile, which happens only once every spilled event is in the database
+            } catch (IOException e) {
+                log.error("Error syncing inheritance journal spill file: {}", e.getMessage());
+                return;
+            }
+            syncedCount = target;
+            spillSyncCounter.increment();
+        }
+    }
+
+    private void truncateSpillFileIfFlushed() throws IOException {
+        synchronized (spillLock) {
+            if (unflushed.get() == 0 && Files.size(spillPath) > 0) {
+                spillWriter.close();
+                openSpillFile(StandardOpenOption.TRUNCATE_EXISTING);
+            }
+        }
+    }
+
+    private void openSpillFile(OpenOption mode) throws IOException {
+        spillChannel = FileChannel.open(spillPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+        spillWriter = new BufferedWriter(Channels.newWriter(spillChannel, StandardCharsets.UTF_8));
+    }
+
+    private void replaySpillFile() throws IOException {
+        if (!Files.exists(spillPath) || Files.size(spillPath) == 0) {
+            return;
+        }
+
+        List<Entry> pending = new ArrayList<>();
+        for (String line : Files.readAllLines(spillPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                pending.add(objectMapper.readValue(line, Entry.class));
+            } catch (JsonProcessingException e) {
+                log.warn("Skipping unreadable inheritance journal entry: {}", e.getMessage());
+            }
+        }
+
+        for (int from = 0; from < pending.size(); from += properties.getBatchSize()) {
+            write(pending.subList(from, Math.min(from + properties.getBatchSize(), pending.size())));
+        }
+
+        Files.write(spillPath, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+        log.info("Replayed {} inheritance events from the journal spill file", pending.size());
+    }
+
+    /**
+     * A journaled inheritance event.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Entry {
+        private UUID id;
+        private UUID ruleId;
+        private InheritanceEvent.EventType eventType;
+        private String eventData;
+        private LocalDateTime createdAt;
+        private UUID createdBy;
+    }
+}
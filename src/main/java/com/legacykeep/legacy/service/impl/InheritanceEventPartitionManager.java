@@ -0,0 +1,413 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceEventPartitionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Maintains the monthly partitions of {@code inheritance_events}.
+ *
+ * Each run creates the partitions for the coming months, detaches partitions that have
+ * fallen out of the retention window, and archives detached partitions: their rows are
+ * exported to a gzip-compressed JSON-lines file on local storage, the archive is recorded
+ * in {@code inheritance_event_archives} and the table is dropped. A run interrupted after
+ * detaching resumes the archive on the next run.
+ *
+ * PostgreSQL refuses to create a partition while the default partition holds rows in its
+ * range. Such rows are moved: the default partition is detached, the monthly partition is
+ * created, the rows are copied into it and removed from the default partition, and the
+ * default partition is attached again, all in one transaction.
+ *
+ * Runs are serialized across instances with a PostgreSQL advisory lock.
+ */
+@Component
+@Slf4j
+public class InheritanceEventPartitionManager {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("inheritance_events_(\\d{4})_(\\d{2})");
+
+    private static final String TRY_LOCK_SQL =
+            "SELECT pg_try_advisory_lock(hashtext('inheritance_events_partition_maintenance'))";
+
+    private static final String UNLOCK_SQL =
+            "SELECT pg_advisory_unlock(hashtext('inheritance_events_partition_maintenance'))";
+
+    private static final String CREATE_PARTITION_SQL =
+            "SELECT create_inheritance_events_partition(?)";
+
+    private static final String DEFAULT_PARTITION = "inheritance_events_default";
+
+    private static final String PARTITION_EXISTS_SQL =
+            "SELECT to_regclass(?) IS NOT NULL";
+
+    private static final String DEFAULT_HAS_ROWS_SQL =
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ?)";
+
+    // Inserting into the partition itself keeps the parent's rollup trigger from counting the rows twice
+    private static final String MOVE_DEFAULT_ROWS_SQL =
+            "WITH moved AS (DELETE FROM " + DEFAULT_PARTITION + " WHERE created_at >= ? AND created_at < ? " +
+            "RETURNING id, inheritance_rule_id, event_type, event_data, created_at, created_by) " +
+            "INSERT INTO \"%s\" (id, inheritance_rule_id, event_type, event_data, created_at, created_by) " +
+            "SELECT id, inheritance_rule_id, event_type, event_data, created_at, created_by FROM moved";
+
+    private static final String ATTACHED_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = 'inheritance_events'::regclass";
+
+    private static final String DETACHED_PARTITIONS_SQL =
+            "SELECT c.relname FROM pg_class c " +
+            "WHERE c.relkind = 'r' AND c.relnamespace = current_schema()::regnamespace " +
+            "AND c.relname ~ '^inheritance_events_[0-9]{4}_[0-9]{2}$' " +
+            "AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)";
+
+    private static final String RECORD_ARCHIVE_SQL =
+            "INSERT INTO inheritance_event_archives (partition_name, range_start, file_path, row_count, file_size, sha256, archived_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (partition_name) DO UPDATE SET file_path = EXCLUDED.file_path, row_count = EXCLUDED.row_count, " +
+            "file_size = EXCLUDED.file_size, sha256 = EXCLUDED.sha256, archived_at = EXCLUDED.archived_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final InheritanceEventPartitionProperties properties;
+    private final Counter partitionsCreatedCounter;
+    private final Counter partitionFailuresCounter;
+    private final Counter relocatedRowsCounter;
+
+    private ScheduledExecutorService maintainer;
+
+    public InheritanceEventPartitionManager(JdbcTemplate jdbcTemplate,
+                                            ObjectMapper objectMapper,
+                                            InheritanceEventPartitionProperties properties,
+                                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+
+        this.partitionsCreatedCounter = Counter.builder("legacy.inheritance.events.partitions.created")
+                .description("Monthly inheritance_events partitions created")
+                .register(meterRegistry);
+        this.partitionFailuresCounter = Counter.builder("legacy.inheritance.events.partitions.failures")
+                .description("Attempts to create a monthly inheritance_events partition that failed")
+                .register(meterRegistry);
+        this.relocatedRowsCounter = Counter.builder("legacy.inheritance.events.partitions.relocated.rows")
+                .description("Rows moved out of the default inheritance_events partition into a monthly partition")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            log.info("Inheritance event partition maintenance is disabled");
+            return;
+        }
+
+        maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-event-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(this::maintain, 0,
+                properties.getMaintenanceIntervalMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+        }
+    }
+
+    /**
+     * Run one maintenance pass. Runs on the maintenance thread.
+     */
+    void maintain() {
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    log.debug("Inheritance event partition maintenance is running elsewhere");
+                    return null;
+                }
+
+                try {
+                    createUpcomingPartitions(connection);
+                    detachExpiredPartitions(connection);
+                    archiveDetachedPartitions(connection);
+                } finally {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute(UNLOCK_SQL);
+                    }
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Error maintaining inheritance_events partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(TRY_LOCK_SQL)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private void createUpcomingPartitions(Connection connection) {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                createPartition(connection, month);
+            } catch (SQLException e) {
+                partitionFailuresCounter.increment();
+                log.error("Could not create inheritance_events partition for {}, will retry: {}", month, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        String name = String.format("inheritance_events_%04d_%02d", month.getYear(), month.getMonthValue());
+        if (queryBoolean(connection, PARTITION_EXISTS_SQL, statement -> statement.setString(1, name))) {
+            return;
+        }
+
+        Date start = Date.valueOf(month.atDay(1));
+        Date end = Date.valueOf(month.plusMonths(1).atDay(1));
+        boolean hasDefaultRows = queryBoolean(connection, DEFAULT_HAS_ROWS_SQL, statement -> {
+            statement.setDate(1, start);
+            statement.setDate(2, end);
+        });
+
+        if (!hasDefaultRows) {
+            try (PreparedStatement statement = connection.prepareStatement(CREATE_PARTITION_SQL)) {
+                statement.setDate(1, start);
+                statement.execute();
+            }
+            partitionsCreatedCounter.increment();
+            log.info("Created inheritance_events partition: {}", name);
+            return;
+        }
+
+        int[] moved = new int[1];
+        inTransaction(connection, () -> {
+            try (Statement statement = connection.createStatement()) {
+                // Detaching locks the parent table; give up rather than queue behind long transactions
+                statement.execute("SET LOCAL lock_timeout = " + properties.getLockTimeoutMillis());
+                statement.execute("ALTER TABLE inheritance_events DETACH PARTITION " + DEFAULT_PARTITION);
+            }
+            try (PreparedStatement create = connection.prepareStatement(CREATE_PARTITION_SQL);
+                 PreparedStatement move = connection.prepareStatement(String.format(MOVE_DEFAULT_ROWS_SQL, name))) {
+                create.setDate(1, start);
+                create.execute();
+                move.setDate(1, start);
+                move.setDate(2, end);
+                moved[0] = move.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE inheritance_events ATTACH PARTITION " + DEFAULT_PARTITION + " DEFAULT");
+            }
+        }, "moving default partition rows into partition " + name);
+
+        partitionsCreatedCounter.increment();
+        relocatedRowsCounter.increment(moved[0]);
+        log.warn("Created inheritance_events partition: {} - moved {} rows out of the default partition", name, moved[0]);
+    }
+
+    private void detachExpiredPartitions(Connection connection) throws SQLException {
+        YearMonth oldestRetained = YearMonth.now().minusMonths(properties.getRetentionMonths() - 1L);
+
+        List<String> expired = new ArrayList<>();
+        for (String name : queryNames(connection, ATTACHED_PARTITIONS_SQL)) {
+            YearMonth month = monthOf(name);
+            if (month != null && month.isBefore(oldestRetained)) {
+                expired.add(name);
+            }
+        }
+
+        for (String name : expired) {
+            try {
+                inTransaction(connection, () -> {
+                    try (Statement statement = connection.createStatement()) {
+                        // Detaching locks the parent table; give up rather than queue behind long transactions
+                        statement.execute("SET LOCAL lock_timeout = " + properties.getLockTimeoutMillis());
+                        statement.execute("ALTER TABLE inheritance_events DETACH PARTITION \"" + name + "\"");
+                    }
+                }, "detaching partition " + name);
+                log.info("Detached inheritance_events partition: {}", name);
+            } catch (SQLException e) {
+                log.warn("Could not detach inheritance_events partition: {}, will retry: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private void archiveDetachedPartitions(Connection connection) throws SQLException {
+        for (String name : queryNames(connection, DETACHED_PARTITIONS_SQL)) {
+            YearMonth month = monthOf(name);
+            if (month == null) {
+                continue;
+            }
+
+            try {
+                archive(connection, name, month);
+            } catch (IOException | SQLException e) {
+                log.error("Error archiving inheritance_events partition: {}, will retry: {}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    private void archive(Connection connection, String name, YearMonth month) throws IOException, SQLException {
+        Path directory = Paths.get(properties.getArchivePath());
+        Files.createDirectories(directory);
+        Path target = directory.resolve(name + ".jsonl.gz");
+        Path temp = directory.resolve(name + ".jsonl.gz.tmp");
+
+        MessageDigest digest = sha256();
+        long[] rows = new long[1];
+
+        // Cursor-based fetching needs a transaction
+        inTransaction(connection, () -> {
+            try (OutputStream file = new DigestOutputStream(Files.newOutputStream(temp), digest);
+                 GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(file, 1 << 16));
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(gzip);
+                 PreparedStatement statement = connection.prepareStatement(
+                         "SELECT id::text, inheritance_rule_id::text, event_type, event_data::text, created_at, created_by::text " +
+                         "FROM \"" + name + "\" ORDER BY created_at, id")) {
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                statement.setFetchSize(properties.getExportFetchSize());
+
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        generator.writeStartObject();
+                        generator.writeStringField("id", rs.getString(1));
+                        generator.writeStringField("inheritanceRuleId", rs.getString(2));
+                        generator.writeStringField("eventType", rs.getString(3));
+                        generator.writeFieldName("eventData");
+                        generator.writeRawValue(rs.getString(4));
+                        generator.writeStringField("createdAt", rs.getTimestamp(5).toLocalDateTime().toString());
+                        generator.writeStringField("createdBy", rs.getString(6));
+                        generator.writeEndObject();
+                        rows[0]++;
+                    }
+                }
+            }
+        }, "exporting partition " + name);
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        long fileSize = Files.size(target);
+        String checksum = HexFormat.of().formatHex(digest.digest());
+
+        inTransaction(connection, () -> {
+            try (PreparedStatement record = connection.prepareStatement(RECORD_ARCHIVE_SQL);
+                 Statement drop = connection.createStatement()) {
+                record.setString(1, name);
+                record.setDate(2, Date.valueOf(month.atDay(1)));
+                record.setString(3, target.toAbsolutePath().toString());
+                record.setLong(4, rows[0]);
+                record.setLong(5, fileSize);
+                record.setString(6, checksum);
+                record.executeUpdate();
+                drop.execute("DROP TABLE \"" + name + "\"");
+            }
+        }, "recording archive of partition " + name);
+
+        log.info("Archived inheritance_events partition: {} - {} rows, {} bytes to {}", name, rows[0], fileSize, target);
+    }
+
+    private void inTransaction(Connection connection, SqlWork work, String description) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            work.run();
+            connection.commit();
+        } catch (SQLException | IOException | RuntimeException e) {
+            connection.rollback();
+            throw new SQLException("Failed " + description, e);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private boolean queryBoolean(Connection connection, String sql, StatementBinder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private List<String> queryNames(Connection connection, String sql) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Month covered by a monthly partition, or null for other tables such as the default partition.
+     */
+    private YearMonth monthOf(String name) {
+        Matcher matcher = PARTITION_NAME.matcher(name);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run() throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
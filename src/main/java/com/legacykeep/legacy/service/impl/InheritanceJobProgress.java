@@ -0,0 +1,99 @@
+package com.legacykeep.legacy.service.impl;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the asynchronous inheritance job running on the current thread.
+ *
+ * The job executor binds a progress to its thread while the job runs; processing code
+ * reports what it discovers and handles through {@link #current()} and calls
+ * {@link #checkCancelled()} between chunks of work. Outside a job, {@link #current()}
+ * returns an inert progress, so the same code paths serve queue workers and requests.
+ */
+public final class InheritanceJobProgress {
+
+    private static final ThreadLocal<InheritanceJobProgress> CURRENT = new ThreadLocal<>();
+    private static final InheritanceJobProgress NONE = new InheritanceJobProgress(false);
+
+    private final boolean tracked;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+    private volatile boolean cancelRequested;
+
+    InheritanceJobProgress() {
+        this(true);
+    }
+
+    private InheritanceJobProgress(boolean tracked) {
+        this.tracked = tracked;
+    }
+
+    /**
+     * The progress of the job running on this thread, or an inert one.
+     */
+    public static InheritanceJobProgress current() {
+        InheritanceJobProgress progress = CURRENT.get();
+        return progress != null ? progress : NONE;
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Record newly discovered items, e.g. the recipients of a rule.
+     */
+    public void addTotal(long items) {
+        if (tracked) {
+            total.addAndGet(items);
+        }
+    }
+
+    /**
+     * Record handled items and the deliveries they created.
+     */
+    public void recordProcessed(long items, long deliveries) {
+        if (tracked) {
+            processed.addAndGet(items);
+            delivered.addAndGet(deliveries);
+        }
+    }
+
+    /**
+     * Stop the job if cancellation was requested. The exception rolls back the
+     * transaction in flight.
+     *
+     * @throws CancellationException If the job was cancelled
+     */
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Inheritance job cancelled");
+        }
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    long getTotal() {
+        return total.get();
+    }
+
+    long getProcessed() {
+        return processed.get();
+    }
+
+    long getDelivered() {
+        return delivered.get();
+    }
+}
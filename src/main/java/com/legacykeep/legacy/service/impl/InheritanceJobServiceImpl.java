@@ -0,0 +1,528 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceJobProperties;
+import com.legacykeep.legacy.dto.response.InheritanceJobResponse;
+import com.legacykeep.legacy.enums.InheritanceJobStatus;
+import com.legacykeep.legacy.enums.InheritanceJobType;
+import com.legacykeep.legacy.exception.InheritanceJobLimitExceededException;
+import com.legacykeep.legacy.exception.InheritanceJobNotFoundException;
+import com.legacykeep.legacy.service.InheritanceJobService;
+import com.legacykeep.legacy.service.InheritanceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Service implementation for asynchronous inheritance jobs.
+ *
+ * Jobs are recorded in {@code inheritance_jobs} and run on a bounded executor of this
+ * instance, never on the request thread. Each creator may have at most
+ * {@code maxActivePerCreator} queued or running jobs across the cluster, checked under an
+ * advisory lock on the creator. While a job runs, its {@link InheritanceJobProgress} is
+ * bound to the executor thread; a heartbeat persists the progress counts and picks up
+ * cancellation requests made through any instance. Jobs of an instance that stops
+ * heartbeating are marked failed by the others.
+ */
+@Service
+@Slf4j
+public class InheritanceJobServiceImpl implements InheritanceJobService {
+
+    private static final String LOCK_CREATOR_SQL =
+            "SELECT pg_advisory_xact_lock(hashtext('inheritance_jobs'), hashtext(?))";
+
+    private static final String COUNT_ACTIVE_SQL =
+            "SELECT count(*) FROM inheritance_jobs WHERE creator_id = ? AND status IN ('QUEUED', 'RUNNING')";
+
+    private static final String INSERT_JOB_SQL =
+            "INSERT INTO inheritance_jobs (id, job_type, status, creator_id, parameters, node_id, submitted_at, heartbeat_at) " +
+            "VALUES (?, ?, 'QUEUED', ?, ?::jsonb, ?, now(), now())";
+
+    private static final String START_JOB_SQL =
+            "UPDATE inheritance_jobs SET status = 'RUNNING', started_at = now(), heartbeat_at = now() " +
+            "WHERE id = ? AND status = 'QUEUED' AND NOT cancel_requested";
+
+    private static final String FINISH_JOB_SQL =
+            "UPDATE inheritance_jobs SET status = ?, total = ?, processed = ?, delivered = ?, result = ?::jsonb, " +
+            "error = ?, heartbeat_at = now(), completed_at = now() " +
+            "WHERE id = ? AND status IN ('QUEUED', 'RUNNING')";
+
+    private static final String HEARTBEAT_SQL =
+            "UPDATE inheritance_jobs j SET total = u.total, processed = u.processed, delivered = u.delivered, " +
+            "heartbeat_at = now() " +
+            "FROM unnest(?::uuid[], ?::bigint[], ?::bigint[], ?::bigint[]) AS u(id, total, processed, delivered) " +
+            "WHERE j.id = u.id AND j.status IN ('QUEUED', 'RUNNING') " +
+            "RETURNING j.id, j.cancel_requested";
+
+    private static final String CANCEL_JOB_SQL =
+            "UPDATE inheritance_jobs SET cancel_requested = true, " +
+            "status = CASE WHEN status = 'QUEUED' THEN 'CANCELLED' ELSE status END, " +
+            "completed_at = CASE WHEN status = 'QUEUED' THEN now() ELSE completed_at END " +
+            "WHERE id = ? AND creator_id = ? AND status IN ('QUEUED', 'RUNNING')";
+
+    private static final String ABANDON_STALE_JOBS_SQL =
+            "UPDATE inheritance_jobs SET status = 'FAILED', " +
+            "error = 'Job abandoned: the instance running it stopped heartbeating', completed_at = now() " +
+            "WHERE status IN ('QUEUED', 'RUNNING') AND heartbeat_at < now() - (? * interval '1 millisecond')";
+
+    private static final String ABANDON_LOCAL_JOBS_SQL =
+            "UPDATE inheritance_jobs SET status = 'FAILED', " +
+            "error = 'Job interrupted: the instance running it shut down', completed_at = now() " +
+            "WHERE id = ANY(?::uuid[]) AND status IN ('QUEUED', 'RUNNING')";
+
+    private static final String PURGE_JOBS_SQL =
+            "DELETE FROM inheritance_jobs WHERE completed_at < ?";
+
+    private static final String JOB_COLUMNS =
+            "SELECT id, job_type, status, creator_id, parameters, total, processed, delivered, result, error, " +
+            "cancel_requested, submitted_at, started_at, heartbeat_at, completed_at FROM inheritance_jobs ";
+
+    private static final String FIND_JOB_SQL = JOB_COLUMNS + "WHERE id = ? AND creator_id = ?";
+
+    private static final String RECENT_JOBS_SQL = JOB_COLUMNS + "WHERE creator_id = ? ORDER BY submitted_at DESC LIMIT ?";
+
+    private static final int RECENT_JOBS_LIMIT = 50;
+    private static final int MAX_ERROR_LENGTH = 2000;
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final InheritanceService inheritanceService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final InheritanceJobProperties properties;
+    private final String nodeId;
+    private final Map<UUID, InheritanceJobProgress> localJobs = new ConcurrentHashMap<>();
+    private final Map<InheritanceJobStatus, Counter> outcomeCounters = new EnumMap<>(InheritanceJobStatus.class);
+    private final Counter rejectedCounter;
+
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService heartbeat;
+    private ScheduledExecutorService streamPoller;
+
+    public InheritanceJobServiceImpl(InheritanceService inheritanceService,
+                                     JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     InheritanceJobProperties properties,
+                                     NodeIdentity nodeIdentity,
+                                     MeterRegistry meterRegistry) {
+        this.inheritanceService = inheritanceService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.nodeId = nodeIdentity.getId();
+
+        for (InheritanceJobStatus status : List.of(InheritanceJobStatus.SUCCEEDED, InheritanceJobStatus.FAILED,
+                InheritanceJobStatus.CANCELLED)) {
+            outcomeCounters.put(status, Counter.builder("legacy.inheritance.jobs")
+                    .tag("outcome", status.name().toLowerCase())
+                    .description("Asynchronous inheritance jobs finished or rejected")
+                    .register(meterRegistry));
+        }
+        this.rejectedCounter = Counter.builder("legacy.inheritance.jobs")
+                .tag("outcome", "rejected")
+                .description("Asynchronous inheritance jobs finished or rejected")
+                .register(meterRegistry);
+        Gauge.builder("legacy.inheritance.jobs.active", localJobs, Map::size)
+                .description("Inheritance jobs queued or running on this instance")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int threads = Math.max(1, properties.getThreads());
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "inheritance-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-job-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, properties.getHeartbeatIntervalMillis(),
+                properties.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        AtomicInteger streamThreadNumber = new AtomicInteger();
+        streamPoller = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-job-stream-" + streamThreadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        streamPoller.shutdownNow();
+        heartbeat.shutdownNow();
+
+        // Let running jobs stop at their next cancellation check
+        localJobs.values().forEach(InheritanceJobProgress::requestCancel);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!localJobs.isEmpty()) {
+            Object[] jobIds = localJobs.keySet().toArray();
+            try {
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(ABANDON_LOCAL_JOBS_SQL);
+                    statement.setArray(1, connection.createArrayOf("uuid", jobIds));
+                    return statement;
+                });
+            } catch (Exception e) {
+                log.warn("Error marking {} interrupted inheritance jobs as failed: {}", jobIds.length, e.getMessage());
+            }
+        }
+    }
+
+    // Job Submission
+    @Override
+    public InheritanceJobResponse submitProcessInheritance(UUID ruleId, UUID creatorId) {
+        return submit(InheritanceJobType.PROCESS_RULE, creatorId, Map.of("ruleId", ruleId), () -> {
+            inheritanceService.processInheritance(ruleId);
+            return Collections.emptyMap();
+        });
+    }
+
+    @Override
+    public InheritanceJobResponse submitProcessAllActiveInheritance(UUID creatorId) {
+        return submit(InheritanceJobType.PROCESS_ALL_ACTIVE, creatorId, Collections.emptyMap(),
+                () -> Map.of("runId", inheritanceService.processAllActiveInheritance()));
+    }
+
+    @Override
+    public InheritanceJobResponse submitProcessInheritanceForRelationshipType(String relationshipType, UUID creatorId) {
+        return submit(InheritanceJobType.PROCESS_RELATIONSHIP_TYPE, creatorId,
+                Map.of("relationshipType", relationshipType),
+                () -> Map.of("runId", inheritanceService.processInheritanceForRelationshipType(relationshipType)));
+    }
+
+    @Override
+    public InheritanceJobResponse submitProcessInheritanceForRelationshipType(UUID contentId, String relationshipTypeName,
+                                                                              UUID creatorId) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("contentId", contentId);
+        parameters.put("relationshipTypeName", relationshipTypeName);
+        return submit(InheritanceJobType.PROCESS_CONTENT_RELATIONSHIP_TYPE, creatorId, parameters, () -> {
+            inheritanceService.processInheritanceForRelationshipType(contentId, relationshipTypeName);
+            return Collections.emptyMap();
+        });
+    }
+
+    @Override
+    public InheritanceJobResponse submitProcessInheritanceForRelationshipCategory(UUID contentId, String relationshipCategory,
+                                                                                  UUID creatorId) {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("contentId", contentId);
+        parameters.put("relationshipCategory", relationshipCategory);
+        return submit(InheritanceJobType.PROCESS_CONTENT_RELATIONSHIP_CATEGORY, creatorId, parameters, () -> {
+            inheritanceService.processInheritanceForRelationshipCategory(contentId, relationshipCategory);
+            return Collections.emptyMap();
+        });
+    }
+
+    // Job Tracking
+    @Override
+    public InheritanceJobResponse getJob(UUID jobId, UUID creatorId) {
+        InheritanceJobResponse job = findJob(jobId, creatorId);
+        if (job == null) {
+            throw new InheritanceJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    @Override
+    public List<InheritanceJobResponse> getJobs(UUID creatorId) {
+        return jdbcTemplate.query(RECENT_JOBS_SQL, jobMapper(), creatorId, RECENT_JOBS_LIMIT);
+    }
+
+    @Override
+    public InheritanceJobResponse cancelJob(UUID jobId, UUID creatorId) {
+        log.info("Cancelling inheritance job: {}", jobId);
+
+        int updated = jdbcTemplate.update(CANCEL_JOB_SQL, jobId, creatorId);
+        InheritanceJobProgress progress = localJobs.get(jobId);
+        if (updated > 0 && progress != null) {
+            progress.requestCancel();
+        }
+        // Jobs running elsewhere pick the request up on their next heartbeat
+        return getJob(jobId, creatorId);
+    }
+
+    @Override
+    public SseEmitter streamJob(UUID jobId, UUID creatorId) {
+        getJob(jobId, creatorId);
+
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeoutMillis());
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> lastSent = new AtomicReference<>();
+        AtomicReference<ScheduledFuture<?>> poll = new AtomicReference<>();
+
+        Runnable stop = () -> {
+            done.set(true);
+            ScheduledFuture<?> future = poll.get();
+            if (future != null) {
+                future.cancel(false);
+            }
+        };
+
+        Runnable check = () -> {
+            if (done.get()) {
+                return;
+            }
+            try {
+                InheritanceJobResponse job = findJob(jobId, creatorId);
+                if (job == null) {
+                    stop.run();
+                    emitter.complete();
+                    return;
+                }
+
+                String state = job.getStatus() + ":" + job.getTotal() + ":" + job.getProcessed() + ":"
+                        + job.getDelivered() + ":" + job.isCancelRequested();
+                if (!state.equals(lastSent.getAndSet(state))) {
+                    emitter.send(SseEmitter.event()
+                            .name(job.getStatus().isTerminal() ? "completed" : "progress")
+                            .data(job, MediaType.APPLICATION_JSON));
+                }
+                if (job.getStatus().isTerminal()) {
+                    stop.run();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                stop.run();
+            } catch (Exception e) {
+                log.warn("Error streaming progress of inheritance job {}: {}", jobId, e.getMessage());
+            }
+        };
+
+        emitter.onCompletion(stop);
+        emitter.onTimeout(stop);
+        emitter.onError(error -> stop.run());
+
+        poll.set(streamPoller.scheduleWithFixedDelay(check, 0, properties.getStreamPollIntervalMillis(),
+                TimeUnit.MILLISECONDS));
+        if (done.get()) {
+            poll.get().cancel(false);
+        }
+        return emitter;
+    }
+
+    private InheritanceJobResponse submit(InheritanceJobType jobType, UUID creatorId, Map<String, Object> parameters,
+                                          Supplier<Map<String, Object>> work) {
+        UUID jobId = UUID.randomUUID();
+        String parametersJson = toJson(parameters);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList(LOCK_CREATOR_SQL, creatorId.toString());
+            Long active = jdbcTemplate.queryForObject(COUNT_ACTIVE_SQL, Long.class, creatorId);
+            if (active != null && active >= properties.getMaxActivePerCreator()) {
+                rejectedCounter.increment();
+                throw new InheritanceJobLimitExceededException(creatorId, properties.getMaxActivePerCreator());
+            }
+            jdbcTemplate.update(INSERT_JOB_SQL, jobId, jobType.name(), creatorId, parametersJson, nodeId);
+        });
+
+        InheritanceJobProgress progress = new InheritanceJobProgress();
+        localJobs.put(jobId, progress);
+        try {
+            executor.execute(() -> run(jobId, jobType, progress, work));
+        } catch (RejectedExecutionException e) {
+            localJobs.remove(jobId);
+            finish(jobId, InheritanceJobStatus.FAILED, progress, null, "Rejected: the job executor is full");
+            rejectedCounter.increment();
+            throw new InheritanceJobLimitExceededException("The inheritance job executor is full; retry later");
+        }
+
+        log.info("Submitted inheritance job {} ({}) for creator: {}", jobId, jobType, creatorId);
+        return getJob(jobId, creatorId);
+    }
+
+    private void run(UUID jobId, InheritanceJobType jobType, InheritanceJobProgress progress,
+                     Supplier<Map<String, Object>> work) {
+        try {
+            if (progress.isCancelRequested() || jdbcTemplate.update(START_JOB_SQL, jobId) == 0) {
+                finish(jobId, InheritanceJobStatus.CANCELLED, progress, null, null);
+                return;
+            }
+
+            progress.bind();
+            long startedAt = System.currentTimeMillis();
+            Map<String, Object> result = work.get();
+            finish(jobId, InheritanceJobStatus.SUCCEEDED, progress, result, null);
+            log.info("Inheritance job {} ({}) succeeded in {}ms: {} processed, {} delivered",
+                    jobId, jobType, System.currentTimeMillis() - startedAt, progress.getProcessed(), progress.getDelivered());
+        } catch (CancellationException e) {
+            finish(jobId, InheritanceJobStatus.CANCELLED, progress, null, null);
+            log.info("Inheritance job {} ({}) cancelled after {} processed", jobId, jobType, progress.getProcessed());
+        } catch (Exception e) {
+            log.error("Inheritance job {} ({}) failed", jobId, jobType, e);
+            finish(jobId, InheritanceJobStatus.FAILED, progress, null, describe(e));
+        } finally {
+            progress.unbind();
+            localJobs.remove(jobId);
+        }
+    }
+
+    private void finish(UUID jobId, InheritanceJobStatus status, InheritanceJobProgress progress,
+                        Map<String, Object> result, String error) {
+        try {
+            int updated = jdbcTemplate.update(FINISH_JOB_SQL, status.name(), progress.getTotal(), progress.getProcessed(),
+                    progress.getDelivered(), result != null ? toJson(result) : null, error, jobId);
+            if (updated > 0) {
+                outcomeCounters.get(status).increment();
+            }
+        } catch (Exception e) {
+            log.error("Error recording {} for inheritance job {}: {}", status, jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Persist the progress of local jobs, pick up cancellation requests, and fail jobs
+     * abandoned by other instances.
+     */
+    private void heartbeat() {
+        try {
+            if (!localJobs.isEmpty()) {
+                List<UUID> jobIds = new ArrayList<>(localJobs.keySet());
+                List<Object> totals = new ArrayList<>();
+                List<Object> processed = new ArrayList<>();
+                List<Object> delivered = new ArrayList<>();
+                for (UUID jobId : jobIds) {
+                    InheritanceJobProgress progress = localJobs.getOrDefault(jobId, new InheritanceJobProgress());
+                    totals.add(progress.getTotal());
+                    processed.add(progress.getProcessed());
+                    delivered.add(progress.getDelivered());
+                }
+
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(HEARTBEAT_SQL);
+                    statement.setArray(1, connection.createArrayOf("uuid", jobIds.toArray()));
+                    statement.setArray(2, connection.createArrayOf("bigint", totals.toArray()));
+                    statement.setArray(3, connection.createArrayOf("bigint", processed.toArray()));
+                    statement.setArray(4, connection.createArrayOf("bigint", delivered.toArray()));
+                    return statement;
+                }, rs -> {
+                    InheritanceJobProgress progress = localJobs.get(rs.getObject(1, UUID.class));
+                    if (progress != null && rs.getBoolean(2)) {
+                        progress.requestCancel();
+                    }
+                });
+            }
+
+            int abandoned = jdbcTemplate.update(ABANDON_STALE_JOBS_SQL, properties.getStaleAfterMillis());
+            if (abandoned > 0) {
+                log.warn("Marked {} abandoned inheritance jobs as failed", abandoned);
+            }
+            jdbcTemplate.update(PURGE_JOBS_SQL,
+                    Timestamp.valueOf(LocalDateTime.now().minusHours(properties.getRetentionHours())));
+        } catch (Exception e) {
+            log.error("Inheritance job heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private InheritanceJobResponse findJob(UUID jobId, UUID creatorId) {
+        List<InheritanceJobResponse> jobs = jdbcTemplate.query(FIND_JOB_SQL, jobMapper(), jobId, creatorId);
+        return jobs.isEmpty() ? null : jobs.get(0);
+    }
+
+    private RowMapper<InheritanceJobResponse> jobMapper() {
+        return (rs, rowNum) -> InheritanceJobResponse.builder()
+                .jobId(rs.getObject(1, UUID.class))
+                .jobType(InheritanceJobType.valueOf(rs.getString(2)))
+                .status(InheritanceJobStatus.valueOf(rs.getString(3)))
+                .creatorId(rs.getObject(4, UUID.class))
+                .parameters(fromJson(rs.getString(5)))
+                .total(rs.getLong(6))
+                .processed(rs.getLong(7))
+                .delivered(rs.getLong(8))
+                .result(fromJson(rs.getString(9)))
+                .error(rs.getString(10))
+                .cancelRequested(rs.getBoolean(11))
+                .submittedAt(toLocalDateTime(rs.getTimestamp(12)))
+                .startedAt(toLocalDateTime(rs.getTimestamp(13)))
+                .heartbeatAt(toLocalDateTime(rs.getTimestamp(14)))
+                .completedAt(toLocalDateTime(rs.getTimestamp(15)))
+                .build();
+    }
+
+    private String toJson(Map<String, Object> value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable inheritance job data", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Unreadable inheritance job data: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static String describe(Exception e) {
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
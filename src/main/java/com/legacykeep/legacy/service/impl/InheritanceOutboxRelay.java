@@ -0,0 +1,256 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceOutboxProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Relays the inheritance event outbox to the inheritance-events Kafka topic.
+ *
+ * The outbox is split into relay partitions by message key hash. Each partition is
+ * drained in id order, one batch per transaction: the transaction takes a
+ * per-partition advisory lock, reads the next unpublished rows, publishes them and waits
+ * for every acknowledgement, then marks them published. A failed send rolls the batch
+ * back so it is retried, which makes delivery at-least-once; consumers deduplicate on
+ * the {@code eventId} header. Because a partition has a single relay at a time and the
+ * producer is idempotent, events for one recipient are published in outbox order.
+ *
+ * Running more instances spreads the partitions across them; published rows are
+ * purged once past their retention.
+ */
+@Component
+@Slf4j
+public class InheritanceOutboxRelay {
+
+    private static final String LOCK_PARTITION_SQL =
+            "SELECT pg_try_advisory_xact_lock(hashtext('inheritance_outbox_relay'), ?)";
+
+    private static final String FETCH_BATCH_SQL =
+            "SELECT id, event_id, event_type, message_key, payload::text FROM inheritance_outbox " +
+            "WHERE published_at IS NULL AND key_hash % ? = ? " +
+            "ORDER BY id LIMIT ?";
+
+    private static final String MARK_PUBLISHED_SQL =
+            "UPDATE inheritance_outbox SET published_at = now() WHERE id = ANY(?::bigint[])";
+
+    private static final String PURGE_SQL =
+            "DELETE FROM inheritance_outbox WHERE id IN (" +
+            "SELECT id FROM inheritance_outbox WHERE published_at < ? ORDER BY published_at LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final InheritanceOutboxProperties properties;
+    private final String topic;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter publishedCounter;
+    private final Counter failedBatchCounter;
+
+    private ScheduledExecutorService relay;
+    private volatile boolean running;
+
+    public InheritanceOutboxRelay(JdbcTemplate jdbcTemplate,
+                                  @Qualifier("inheritanceEventKafkaTemplate") KafkaTemplate<String, String> kafkaTemplate,
+                                  InheritanceOutboxProperties properties,
+                                  @Value("${legacy.kafka.topics.inheritance-events}") String topic,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.topic = topic;
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setTimeout((int) TimeUnit.MILLISECONDS.toSeconds(properties.getSendTimeoutMillis()) + 30);
+
+        this.publishedCounter = Counter.builder("legacy.inheritance.outbox.published")
+                .description("Inheritance outbox rows published to Kafka")
+                .register(meterRegistry);
+        this.failedBatchCounter = Counter.builder("legacy.inheritance.outbox.failed.batches")
+                .description("Inheritance outbox batches rolled back for retry after a failed publish")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            log.info("Inheritance outbox relay is disabled");
+            return;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        relay = Executors.newScheduledThreadPool(Math.max(1, properties.getRelayThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-outbox-relay-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+
+        for (int partition = 0; partition < properties.getRelayPartitions(); partition++) {
+            int relayPartition = partition;
+            relay.scheduleWithFixedDelay(() -> drain(relayPartition), properties.getPollIntervalMillis(),
+                    properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+        relay.scheduleWithFixedDelay(this::purge, properties.getPurgeIntervalMillis(),
+                properties.getPurgeIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        log.info("Inheritance outbox relay started for {} partitions on {} threads, publishing to {}",
+                properties.getRelayPartitions(), properties.getRelayThreads(), topic);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (relay == null) {
+            return;
+        }
+
+        running = false;
+        relay.shutdown();
+        try {
+            if (!relay.awaitTermination(properties.getSendTimeoutMillis() + 5000, TimeUnit.MILLISECONDS)) {
+                relay.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            relay.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Relay one partition until it has no full batch left.
+     */
+    void drain(int partition) {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch(partition);
+            } while (running && relayed >= properties.getBatchSize());
+        } catch (Exception e) {
+            failedBatchCounter.increment();
+            log.error("Error relaying inheritance outbox partition {}, will retry: {}", partition, e.getMessage());
+        }
+    }
+
+    /**
+     * Publish and mark one batch of a partition.
+     *
+     * @return Number of rows published, 0 if the partition is idle or relayed elsewhere
+     */
+    int relayBatch(int partition) {
+        Integer relayed = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject(LOCK_PARTITION_SQL, Boolean.class, partition);
+            if (!Boolean.TRUE.equals(locked)) {
+                return 0;
+            }
+
+            List<OutboxRow> rows = jdbcTemplate.query(FETCH_BATCH_SQL,
+                    (rs, rowNum) -> new OutboxRow(rs.getLong(1), rs.getString(2), rs.getString(3),
+                            rs.getString(4), rs.getString(5)),
+                    properties.getRelayPartitions(), partition, properties.getBatchSize());
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            publish(rows);
+
+            Long[] ids = rows.stream().map(OutboxRow::getId).toArray(Long[]::new);
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(MARK_PUBLISHED_SQL);
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                return statement;
+            });
+            return rows.size();
+        });
+
+        int count = relayed != null ? relayed : 0;
+        if (count > 0) {
+            publishedCounter.increment(count);
+            log.debug("Relayed {} inheritance outbox rows from partition {}", count, partition);
+        }
+        return count;
+    }
+
+    private void publish(List<OutboxRow> rows) {
+        CompletableFuture<?>[] sends = new CompletableFuture<?>[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            OutboxRow row = rows.get(i);
+            ProducerRecord<String, String> record = new ProducerRecord<>(topic, row.getMessageKey(), row.getPayload());
+            record.headers().add("eventId", row.getEventId().getBytes(StandardCharsets.UTF_8));
+            record.headers().add("eventType", row.getEventType().getBytes(StandardCharsets.UTF_8));
+            sends[i] = kafkaTemplate.send(record);
+        }
+
+        try {
+            CompletableFuture.allOf(sends).get(properties.getSendTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing inheritance outbox batch", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Failed to publish inheritance outbox batch of " + rows.size() + " rows", e);
+        }
+    }
+
+    private void purge() {
+        try {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(properties.getRetentionHours()));
+            int purged;
+            int total = 0;
+            do {
+                purged = jdbcTemplate.update(PURGE_SQL, cutoff, properties.getPurgeBatchSize());
+                total += purged;
+            } while (running && purged >= properties.getPurgeBatchSize());
+
+            if (total > 0) {
+                log.info("Purged {} published inheritance outbox rows", total);
+            }
+        } catch (Exception e) {
+            log.error("Error purging published inheritance outbox rows", e);
+        }
+    }
+
+    private static final class OutboxRow {
+        private final long id;
+        private final String eventId;
+        private final String eventType;
+        private final String messageKey;
+        private final String payload;
+
+        private OutboxRow(long id, String eventId, String eventType, String messageKey, String payload) {
+            this.id = id;
+            this.eventId = eventId;
+            this.eventType = eventType;
+            this.messageKey = messageKey;
+            this.payload = payload;
+        }
+
+        // Getters
+        public long getId() { return id; }
+        public String getEventId() { return eventId; }
+        public String getEventType() { return eventType; }
+        public String getMessageKey() { return messageKey; }
+        public String getPayload() { return payload; }
+    }
+}
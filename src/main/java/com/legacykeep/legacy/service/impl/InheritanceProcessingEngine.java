@@ -0,0 +1,252 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.dto.response.InheritanceProcessingSummary;
+import com.legacykeep.legacy.repository.InheritanceRuleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded-concurrency engine for inheritance rule processing.
+ *
+ * Active rules are read as keyset pages of rule IDs (work units). The rules of a
+ * work unit are processed on a bounded worker pool, each in its own short
+ * transaction, so one slow rule no longer stalls the sweep or grows a single
+ * transaction without bound.
+ */
+@Component
+@Slf4j
+public class InheritanceProcessingEngine {
+
+    private final InheritanceRuleRepository inheritanceRuleRepository;
+    private final InheritanceProcessingProperties properties;
+    private final TransactionTemplate ruleTransactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter succeededCounter;
+    private final Counter failedCounter;
+
+    private ExecutorService workerPool;
+    private Semaphore concurrencyLimit;
+
+    public InheritanceProcessingEngine(InheritanceRuleRepository inheritanceRuleRepository,
+                                       InheritanceProcessingProperties properties,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.inheritanceRuleRepository = inheritanceRuleRepository;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        this.ruleTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.ruleTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ruleTransactionTemplate.setTimeout(properties.getRuleTransactionTimeoutSeconds());
+
+        this.succeededCounter = Counter.builder("legacy.inheritance.processing.rules")
+                .tag("outcome", "succeeded")
+                .description("Inheritance rules processed successfully")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("legacy.inheritance.processing.rules")
+                .tag("outcome", "failed")
+                .description("Inheritance rules that failed processing")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        this.concurrencyLimit = new Semaphore(properties.getMaxConcurrency());
+        this.workerPool = createWorkerPool();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workerPool.shutdown();
+        try {
+            if (!workerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+                workerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Process every active inheritance rule, one keyset page at a time.
+     *
+     * @param ruleProcessor Processing logic for a single rule, run inside its own transaction
+     * @return Summary of the run
+     */
+    public InheritanceProcessingSummary processActiveRules(Consumer<UUID> ruleProcessor) {
+        RunTracker tracker = new RunTracker("ALL_ACTIVE");
+
+        UUID cursor = null;
+        while (true) {
+            PageRequest page = PageRequest.of(0, properties.getPartitionSize());
+            List<UUID> partition = cursor == null
+                    ? inheritanceRuleRepository.findActiveRuleIds(page)
+                    : inheritanceRuleRepository.findActiveRuleIdsAfter(cursor, page);
+
+            if (partition.isEmpty()) {
+                break;
+            }
+
+            processPartition(partition, ruleProcessor, tracker);
+            cursor = partition.get(partition.size() - 1);
+        }
+
+        return tracker.complete();
+    }
+
+    /**
+     * Process an explicit set of rules.
+     *
+     * @param runType Label used in logs and metrics
+     * @param ruleIds Rules to process
+     * @param ruleProcessor Processing logic for a single rule, run inside its own transaction
+     * @return Summary of the run
+     */
+    public InheritanceProcessingSummary processRules(String runType, List<UUID> ruleIds, Consumer<UUID> ruleProcessor) {
+        return run(runType, ruleIds, ruleProcessor).complete();
+    }
+
+    /**
+     * Process an explicit set of rules and report which of them failed.
+     *
+     * @param runType Label used in logs and metrics
+     * @param ruleIds Rules to process
+     * @param ruleProcessor Processing logic for a single rule, run inside its own transaction
+     * @return The failure of each rule that failed; rules absent from the map succeeded
+     */
+    public Map<UUID, Exception> processRulesReportingFailures(String runType, List<UUID> ruleIds,
+                                                              Consumer<UUID> ruleProcessor) {
+        RunTracker tracker = run(runType, ruleIds, ruleProcessor);
+        tracker.complete();
+        return tracker.failures;
+    }
+
+    private RunTracker run(String runType, List<UUID> ruleIds, Consumer<UUID> ruleProcessor) {
+        RunTracker tracker = new RunTracker(runType);
+
+        int partitionSize = properties.getPartitionSize();
+        for (int from = 0; from < ruleIds.size(); from += partitionSize) {
+            List<UUID> partition = ruleIds.subList(from, Math.min(from + partitionSize, ruleIds.size()));
+            processPartition(partition, ruleProcessor, tracker);
+        }
+        return tracker;
+    }
+
+    private void processPartition(List<UUID> partition, Consumer<UUID> ruleProcessor, RunTracker tracker) {
+        List<CompletableFuture<Void>> inFlight = new ArrayList<>(partition.size());
+
+        for (UUID ruleId : partition) {
+            try {
+                concurrencyLimit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Inheritance processing run {} interrupted", tracker.runType);
+                break;
+            }
+
+            inFlight.add(CompletableFuture.runAsync(() -> {
+                try {
+                    ruleTransactionTemplate.executeWithoutResult(status -> ruleProcessor.accept(ruleId));
+                    tracker.succeeded.incrementAndGet();
+                    succeededCounter.increment();
+                } catch (Exception e) {
+                    tracker.failures.put(ruleId, e);
+                    tracker.failed.incrementAndGet();
+                    failedCounter.increment();
+                    log.error("Error processing inheritance for rule: {}", ruleId, e);
+                } finally {
+                    concurrencyLimit.release();
+                }
+            }, workerPool));
+        }
+
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+    }
+
+    private ExecutorService createWorkerPool() {
+        if (properties.isVirtualThreads()) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                log.info("Inheritance processing engine using virtual threads");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.info("Virtual threads not available, using a fixed pool of {} workers", properties.getMaxConcurrency());
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getMaxConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Mutable counters for a single run.
+     */
+    private class RunTracker {
+        private final String runType;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong succeeded = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Map<UUID, Exception> failures = new ConcurrentHashMap<>();
+
+        private RunTracker(String runType) {
+            this.runType = runType;
+        }
+
+        private InheritanceProcessingSummary complete() {
+            long durationNanos = System.nanoTime() - startNanos;
+            long total = succeeded.get() + failed.get();
+            long durationMillis = Duration.ofNanos(durationNanos).toMillis();
+            double rulesPerSecond = durationNanos > 0 ? total / (durationNanos / 1_000_000_000.0) : 0.0;
+
+            Timer.builder("legacy.inheritance.processing.run")
+                    .tag("type", runType)
+                    .description("Duration of inheritance processing runs")
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(durationNanos));
+
+            return InheritanceProcessingSummary.builder()
+                    .runType(runType)
+                    .totalRules(total)
+                    .succeeded(succeeded.get())
+                    .failed(failed.get())
+                    .startedAt(startedAt)
+                    .completedAt(LocalDateTime.now())
+                    .durationMillis(durationMillis)
+                    .rulesPerSecond(rulesPerSecond)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceProcessingRunProperties;
+import com.legacykeep.legacy.dto.response.InheritanceProcessingRunResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistence of inheritance processing runs and their per-shard checkpoints.
+ *
+ * A run is created when a sweep is requested and split into {@code shard_count} shards.
+ * The instance sweeping a shard claims its progress row, queues rules in keyset order and
+ * checkpoints the last queued rule ID every {@code checkpointInterval} rules; a shard
+ * claimed again resumes after its checkpointed cursor. Checkpoints only succeed for the
+ * instance holding the claim, so an instance that lost a shard stops at its next one.
+ *
+ * Queue workers add processed rules to the run's succeeded and failed counts. A run is
+ * complete once every shard is complete and none of its rules are left in the queue.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InheritanceProcessingRunStore {
+
+    private static final String INSERT_RUN_SQL =
+            "INSERT INTO inheritance_processing_runs " +
+            "(run_type, target_type, target_value, requested_by, requested_at, shard_count, status, heartbeat_at) " +
+            "VALUES (?, ?, ?, ?, now(), ?, 'RUNNING', now()) RETURNING id";
+
+    private static final String CLAIM_SHARD_SQL =
+            "INSERT INTO inheritance_run_shards AS s (run_id, shard_id, node_id, queued, started_at, checkpointed_at) " +
+            "VALUES (?, ?, ?, 0, now(), now()) " +
+            "ON CONFLICT (run_id, shard_id) DO UPDATE SET node_id = EXCLUDED.node_id, checkpointed_at = now() " +
+            "WHERE s.completed_at IS NULL AND (CAST(? AS boolean) OR s.node_id = EXCLUDED.node_id " +
+            "OR s.checkpointed_at < now() - (? * interval '1 millisecond')) " +
+            "RETURNING COALESCE(s.cursor_rule_id, '00000000-0000-0000-0000-000000000000'::uuid)";
+
+    private static final String CHECKPOINT_SQL =
+            "WITH shard AS (" +
+            "UPDATE inheritance_run_shards SET cursor_rule_id = COALESCE(CAST(? AS uuid), cursor_rule_id), " +
+            "queued = queued + ?, checkpointed_at = now(), " +
+            "completed_at = CASE WHEN CAST(? AS boolean) THEN now() END " +
+            "WHERE run_id = ? AND shard_id = ? AND node_id = ? AND completed_at IS NULL " +
+            "RETURNING run_id) " +
+            "UPDATE inheritance_processing_runs r SET queued = r.queued + ?, heartbeat_at = now() " +
+            "FROM shard WHERE r.id = shard.run_id";
+
+    private static final String COMPLETE_FINISHED_RUNS_SQL =
+            "UPDATE inheritance_processing_runs r SET status = 'COMPLETED', completed_at = now() " +
+            "WHERE r.status = 'RUNNING' " +
+            "AND (SELECT count(*) FROM inheritance_run_shards s " +
+            "WHERE s.run_id = r.id AND s.completed_at IS NOT NULL) >= r.shard_count " +
+            "AND NOT EXISTS (SELECT 1 FROM inheritance_work_queue q WHERE q.run_id = r.id) " +
+            "RETURNING r.id, r.run_type, r.queued, r.succeeded, r.failed, " +
+            "EXTRACT(EPOCH FROM (now() - r.requested_at))";
+
+    private static final String ABANDON_STALE_RUNS_SQL =
+            "UPDATE inheritance_processing_runs SET status = 'ABANDONED', completed_at = now() " +
+            "WHERE status = 'RUNNING' AND heartbeat_at < ?";
+
+    private static final String PURGE_RUNS_SQL =
+            "DELETE FROM inheritance_processing_runs WHERE status <> 'RUNNING' AND completed_at < ?";
+
+    private static final String RUN_COLUMNS =
+            "SELECT r.id, r.run_type, r.target_type, r.target_value, r.status, r.requested_by, r.requested_at, " +
+            "r.heartbeat_at, r.completed_at, r.shard_count, r.queued, r.succeeded, r.failed, " +
+            "(SELECT count(*) FROM inheritance_run_shards s WHERE s.run_id = r.id AND s.completed_at IS NOT NULL), " +
+            "(SELECT count(*) FROM inheritance_work_queue q WHERE q.run_id = r.id), " +
+            "EXTRACT(EPOCH FROM (COALESCE(r.completed_at, now()) - r.requested_at)) " +
+            "FROM inheritance_processing_runs r ";
+
+    private static final String RECENT_RUNS_SQL = RUN_COLUMNS + "ORDER BY r.id DESC LIMIT ?";
+
+    private static final String RUN_SQL = RUN_COLUMNS + "WHERE r.id = ?";
+
+    private static final String RUN_SHARDS_SQL =
+            "SELECT shard_id, node_id, cursor_rule_id, queued, started_at, checkpointed_at, completed_at " +
+            "FROM inheritance_run_shards WHERE run_id = ? ORDER BY shard_id";
+
+    static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InheritanceProcessingRunProperties properties;
+
+    /**
+     * Record a new run.
+     *
+     * @return The run ID
+     */
+    public long createRun(String runType, String targetType, String targetValue, int shardCount, String requestedBy) {
+        Long runId = jdbcTemplate.queryForObject(INSERT_RUN_SQL, Long.class,
+                runType, targetType, targetValue, requestedBy, shardCount);
+        return runId != null ? runId : 0L;
+    }
+
+    /**
+     * Claim a shard of a run for this instance, resuming any earlier progress.
+     *
+     * @param takeover Whether to take the shard over from another instance regardless of
+     *                 its last checkpoint, e.g. because this instance holds the shard lease
+     * @return The cursor to resume after ({@link #MIN_UUID} for a fresh shard), or null if
+     *         the shard is complete or being swept by another instance
+     */
+    public UUID claimShard(long runId, int shardId, String nodeId, boolean takeover) {
+        List<UUID> cursor = jdbcTemplate.queryForList(CLAIM_SHARD_SQL, UUID.class,
+                runId, shardId, nodeId, takeover, properties.getStaleAfterMillis());
+        return cursor.isEmpty() ? null : cursor.get(0);
+    }
+
+    /**
+     * Record the progress of a claimed shard.
+     *
+     * @param cursor Last rule ID queued, or null if unchanged
+     * @param queued Rules queued since the previous checkpoint
+     * @param complete Whether the shard has been fully queued
+     * @return False if the claim was lost to another instance
+     */
+    public boolean checkpoint(long runId, int shardId, String nodeId, UUID cursor, long queued, boolean complete) {
+        return jdbcTemplate.update(CHECKPOINT_SQL, cursor, queued, complete, runId, shardId, nodeId, queued) > 0;
+    }
+
+    /**
+     * Mark runs whose shards are complete and whose queued rules are all processed as
+     * completed, and expire old runs.
+     */
+    public void completeFinishedRuns() {
+        jdbcTemplate.query(COMPLETE_FINISHED_RUNS_SQL, rs -> {
+            long processed = rs.getLong(4) + rs.getLong(5);
+            double seconds = rs.getDouble(6);
+            log.info("Inheritance processing run {} ({}) completed: {} queued, {} succeeded, {} failed in {}s ({} rules/s)",
+                    rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                    Math.round(seconds), Math.round(rate(processed, seconds)));
+        });
+
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(properties.getRetentionHours()));
+        int abandoned = jdbcTemplate.update(ABANDON_STALE_RUNS_SQL, cutoff);
+        if (abandoned > 0) {
+            log.warn("Marked {} inheritance processing runs without progress for {}h as abandoned",
+                    abandoned, properties.getRetentionHours());
+        }
+        jdbcTemplate.update(PURGE_RUNS_SQL, cutoff);
+    }
+
+    /**
+     * Most recent runs, newest first, without shard detail.
+     */
+    public List<InheritanceProcessingRunResponse> findRecentRuns() {
+        return jdbcTemplate.query(RECENT_RUNS_SQL, runMapper(), properties.getRecentRunsLimit());
+    }
+
+    /**
+     * A run with the progress of each of its shards.
+     *
+     * @return The run, or null if it does not exist
+     */
+    public InheritanceProcessingRunResponse findRun(long runId) {
+        List<InheritanceProcessingRunResponse> runs = jdbcTemplate.query(RUN_SQL, runMapper(), runId);
+        if (runs.isEmpty()) {
+            return null;
+        }
+
+        InheritanceProcessingRunResponse run = runs.get(0);
+        run.setShards(jdbcTemplate.query(RUN_SHARDS_SQL,
+                (rs, rowNum) -> InheritanceProcessingRunResponse.ShardProgress.builder()
+                        .shardId(rs.getInt(1))
+                        .nodeId(rs.getString(2))
+                        .cursorRuleId(rs.getObject(3, UUID.class))
+                        .queued(rs.getLong(4))
+                        .startedAt(toLocalDateTime(rs.getTimestamp(5)))
+                        .checkpointedAt(toLocalDateTime(rs.getTimestamp(6)))
+                        .completedAt(toLocalDateTime(rs.getTimestamp(7)))
+                        .build(),
+                runId));
+        return run;
+    }
+
+    private static RowMapper<InheritanceProcessingRunResponse> runMapper() {
+        return (rs, rowNum) -> {
+            long succeeded = rs.getLong(12);
+            long failed = rs.getLong(13);
+            return InheritanceProcessingRunResponse.builder()
+                    .runId(rs.getLong(1))
+                    .runType(rs.getString(2))
+                    .targetType(rs.getString(3))
+                    .targetValue(rs.getString(4))
+                    .status(rs.getString(5))
+                    .requestedBy(rs.getString(6))
+                    .requestedAt(toLocalDateTime(rs.getTimestamp(7)))
+                    .heartbeatAt(toLocalDateTime(rs.getTimestamp(8)))
+                    .completedAt(toLocalDateTime(rs.getTimestamp(9)))
+                    .shardCount(rs.getInt(10))
+                    .queued(rs.getLong(11))
+                    .succeeded(succeeded)
+                    .failed(failed)
+                    .shardsCompleted(rs.getInt(14))
+                    .pending(rs.getLong(15))
+                    .rulesPerSecond(rate(succeeded + failed, rs.getDouble(16)))
+                    .build();
+        };
+    }
+
+    private static double rate(long processed, double seconds) {
+        return seconds > 0 ? processed / seconds : 0.0;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -0,0 +1,114 @@
+package com.legacykeep.legacy.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the pre-aggregated inheritance rollups.
+ *
+ * The rollup tables (see V13) are maintained incrementally by triggers on
+ * {@code inheritance_events} and {@code inheritance_status}, so every query here is an
+ * index range scan over at most one row per day, type and stripe for a single dimension
+ * key, independent of the number of underlying events or statuses.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InheritanceRollupReader {
+
+    public static final String GLOBAL = "GLOBAL";
+    public static final String CONTENT = "CONTENT";
+    public static final String CREATOR = "CREATOR";
+    public static final String RECIPIENT = "RECIPIENT";
+    public static final String RELATIONSHIP_TYPE = "RELATIONSHIP_TYPE";
+
+    private static final LocalDate MIN_DATE = LocalDate.of(1970, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private static final String EVENT_COUNTS_BY_DAY_SQL =
+            "SELECT bucket_date, event_type, SUM(event_count) FROM inheritance_event_rollup " +
+            "WHERE dimension = ? AND dimension_key = ? AND bucket_date BETWEEN ? AND ? " +
+            "GROUP BY bucket_date, event_type";
+
+    private static final String TRANSITION_COUNTS_SQL =
+            "SELECT from_status, to_status, SUM(transition_count) FROM inheritance_status_transition_rollup " +
+            "WHERE dimension = ? AND dimension_key = ? AND bucket_date BETWEEN ? AND ? " +
+            "GROUP BY from_status, to_status";
+
+    private static final String STATUS_TOTALS_SQL =
+            "SELECT status, SUM(status_count) FROM inheritance_status_totals " +
+            "WHERE dimension = ? AND dimension_key = ? " +
+            "GROUP BY status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Event counts per day and event type.
+     *
+     * @param dimension The rollup dimension
+     * @param key The dimension key ("" for GLOBAL)
+     * @param from First day, inclusive (null for unbounded)
+     * @param to Last day, inclusive (null for unbounded)
+     * @return Counts keyed by day, then event type, in day order
+     */
+    public Map<LocalDate, Map<String, Long>> getEventCountsByDay(String dimension, String key,
+                                                                 LocalDate from, LocalDate to) {
+        Map<LocalDate, Map<String, Long>> counts = new TreeMap<>();
+        jdbcTemplate.query(EVENT_COUNTS_BY_DAY_SQL, rs -> {
+            counts.computeIfAbsent(rs.getDate(1).toLocalDate(), day -> new TreeMap<>())
+                    .put(rs.getString(2), rs.getLong(3));
+        }, dimension, key, lowerBound(from), upperBound(to));
+        return counts;
+    }
+
+    /**
+     * Event counts per event type over a period.
+     */
+    public Map<String, Long> getEventCounts(String dimension, String key, LocalDate from, LocalDate to) {
+        Map<String, Long> totals = new TreeMap<>();
+        getEventCountsByDay(dimension, key, from, to).values()
+                .forEach(day -> day.forEach((type, count) -> totals.merge(type, count, Long::sum)));
+        return totals;
+    }
+
+    /**
+     * Status transition counts over a period, keyed {@code FROM->TO}. Newly delivered
+     * statuses transition from NONE, revoked ones to REVOKED.
+     */
+    public Map<String, Long> getTransitionCounts(String dimension, String key, LocalDate from, LocalDate to) {
+        Map<String, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(TRANSITION_COUNTS_SQL, rs -> {
+            counts.put(rs.getString(1) + "->" + rs.getString(2), rs.getLong(3));
+        }, dimension, key, lowerBound(from), upperBound(to));
+        return counts;
+    }
+
+    /**
+     * Current number of statuses per status.
+     */
+    public Map<String, Long> getStatusTotals(String dimension, String key) {
+        Map<String, Long> totals = new TreeMap<>();
+        jdbcTemplate.query(STATUS_TOTALS_SQL, rs -> {
+            long count = rs.getLong(2);
+            if (count != 0) {
+                totals.put(rs.getString(1), count);
+            }
+        }, dimension, key);
+        return totals;
+    }
+
+    private Date lowerBound(LocalDate from) {
+        return Date.valueOf(from != null ? from : MIN_DATE);
+    }
+
+    private Date upperBound(LocalDate to) {
+        return Date.valueOf(to != null ? to : MAX_DATE);
+    }
+}
@@ -0,0 +1,371 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse.ItemResult;
+import com.legacykeep.legacy.entity.InheritanceRule;
+import com.legacykeep.legacy.enums.InheritanceWorkBand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Creates inheritance rules in bulk from a stream of requests.
+ *
+ * Requests are consumed one at a time and handled in chunks: each chunk is validated in
+ * one pass (bean validation plus a single content-existence query), then its rules and
+ * their {@code RULE_CREATED} events are written by one multi-row statement in a
+ * transaction of their own. A failing item is rejected without affecting the others, and
+ * a failing chunk does not roll back chunks already committed.
+ *
+ * IMMEDIATE rules are queued in the {@link InheritanceWorkQueue} normal band in the same
+ * transaction as their chunk, so the request does not wait for delivery and bulk
+ * onboarding does not delay individually triggered work.
+ */
+@Component
+@Slf4j
+public class InheritanceRuleBulkImporter {
+
+    private static final String ACTIVE_CONTENT_SQL =
+            "SELECT id FROM legacy_content WHERE id = ANY(?::uuid[]) AND status IS DISTINCT FROM 'DELETED'";
+
+    private static final String INSERT_RULES_SQL =
+            "WITH inserted AS (" +
+            "INSERT INTO inheritance_rules (id, content_id, creator_id, target_type, target_value, target_metadata, " +
+            "inheritance_trigger, trigger_metadata, status, priority, next_fire_at, created_at, updated_at, created_by, updated_by) " +
+            "SELECT r.id, r.content_id, ?, r.target_type, r.target_value, r.target_metadata::jsonb, " +
+            "r.inheritance_trigger, r.trigger_metadata::jsonb, 'ACTIVE', r.priority, r.next_fire_at, ?, ?, ?, ? " +
+            "FROM unnest(?::uuid[], ?::uuid[], ?::varchar[], ?::varchar[], ?::text[], ?::varchar[], ?::text[], " +
+            "?::int[], ?::timestamp[]) " +
+            "AS r(id, content_id, target_type, target_value, target_metadata, inheritance_trigger, trigger_metadata, " +
+            "priority, next_fire_at) " +
+            "RETURNING id, content_id, created_at, created_by) " +
+            "INSERT INTO inheritance_events (id, inheritance_rule_id, event_type, event_data, created_at, created_by) " +
+            "SELECT gen_random_uuid(), i.id, 'RULE_CREATED', " +
+            "jsonb_build_object('ruleId', i.id, 'contentId', i.content_id), i.created_at, i.created_by " +
+            "FROM inserted i";
+
+    private static final String IMMEDIATE_QUEUE_REASON = "BULK_IMMEDIATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final InheritanceRuleIndex ruleIndex;
+    private final InheritanceTriggerScheduler triggerScheduler;
+    private final InheritanceWorkQueue workQueue;
+    private final InheritanceProcessingProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter createdCounter;
+    private final Counter rejectedCounter;
+
+    public InheritanceRuleBulkImporter(JdbcTemplate jdbcTemplate,
+                                       ObjectMapper objectMapper,
+                                       Validator validator,
+                                       InheritanceRuleIndex ruleIndex,
+                                       InheritanceTriggerScheduler triggerScheduler,
+                                       InheritanceWorkQueue workQueue,
+                                       InheritanceProcessingProperties properties,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.ruleIndex = ruleIndex;
+        this.triggerScheduler = triggerScheduler;
+        this.workQueue = workQueue;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.createdCounter = Counter.builder("legacy.inheritance.rules.bulk")
+                .tag("outcome", "created")
+                .description("Inheritance rules submitted through the bulk creation API")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("legacy.inheritance.rules.bulk")
+                .tag("outcome", "rejected")
+                .description("Inheritance rules submitted through the bulk creation API")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Create inheritance rules from a stream of requests.
+     * Must be called outside a transaction; every chunk commits on its own.
+     *
+     * @param requests The requests, consumed once; {@code null} elements are rejected
+     * @param creatorId The user creating the rules
+     * @return Per-item results, in request order
+     */
+    public BulkInheritanceRuleResponse importRules(Iterator<CreateInheritanceRuleRequest> requests, UUID creatorId) {
+        long startNanos = System.nanoTime();
+        int chunkSize = Math.max(1, properties.getBulkChunkSize());
+        List<ItemResult> results = new ArrayList<>();
+        List<Item> chunk = new ArrayList<>(chunkSize);
+
+        int index = 0;
+        while (true) {
+            try {
+                if (!requests.hasNext()) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                // Malformed JSON cannot be resynchronised; the rest of the stream is lost
+                log.warn("Bulk inheritance rule stream is unreadable at item {}: {}", index, e.getMessage());
+                results.add(rejected(index++, null, List.of("Malformed request: " + e.getMessage())));
+                break;
+            }
+
+            CreateInheritanceRuleRequest request;
+            try {
+                request = requests.next();
+            } catch (RuntimeJsonMappingException e) {
+                // Well-formed JSON that does not bind; the iterator skips to the next item
+                results.add(rejected(index++, null, List.of("Invalid request: " + e.getMessage())));
+                continue;
+            } catch (RuntimeException e) {
+                log.warn("Bulk inheritance rule stream is unreadable at item {}: {}", index, e.getMessage());
+                results.add(rejected(index++, null, List.of("Malformed request: " + e.getMessage())));
+                break;
+            }
+
+            chunk.add(new Item(index++, request));
+            if (chunk.size() >= chunkSize) {
+                results.addAll(importChunk(chunk, creatorId));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, creatorId));
+        }
+
+        results.sort(Comparator.comparingInt(ItemResult::getIndex));
+        int created = (int) results.stream().filter(result -> result.getStatus() == ItemResult.Status.CREATED).count();
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        createdCounter.increment(created);
+        rejectedCounter.increment(results.size() - created);
+
+        log.info("Bulk inheritance rule creation by {}: {} received, {} created, {} rejected in {} ms",
+                creatorId, index, created, results.size() - created, durationMillis);
+
+        return BulkInheritanceRuleResponse.builder()
+                .received(index)
+                .created(created)
+                .rejected(results.size() - created)
+                .durationMillis(durationMillis)
+                .results(results)
+                .build();
+    }
+
+    private List<ItemResult> importChunk(List<Item> chunk, UUID creatorId) {
+        List<ItemResult> results = new ArrayList<>(chunk.size());
+
+        // Bean validation first, so the content query only sees well-formed items
+        List<Item> valid = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            List<String> errors = validate(item.request);
+            if (errors.isEmpty()) {
+                valid.add(item);
+            } else {
+                results.add(rejected(item.index, item.request, errors));
+            }
+        }
+
+        Set<UUID> activeContent = findActiveContent(valid.stream()
+                .map(item -> item.request.getContentId())
+                .collect(Collectors.toSet()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Item> accepted = new ArrayList<>(valid.size());
+        List<InheritanceRule> rules = new ArrayList<>(valid.size());
+        for (Item item : valid) {
+            if (!activeContent.contains(item.request.getContentId())) {
+                results.add(rejected(item.index, item.request,
+                        List.of("Content not found: " + item.request.getContentId())));
+                continue;
+            }
+
+            try {
+                rules.add(toRule(item.request, creatorId, now));
+                accepted.add(item);
+            } catch (JsonProcessingException e) {
+                results.add(rejected(item.index, item.request, List.of("Invalid metadata: " + e.getOriginalMessage())));
+            }
+        }
+
+        if (rules.isEmpty()) {
+            return results;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                insertRules(rules, creatorId, now);
+                enqueueImmediate(rules);
+                ruleIndex.onRulesSaved(rules);
+                rules.forEach(triggerScheduler::onRuleSaved);
+            });
+        } catch (RuntimeException e) {
+            log.error("Failed to insert chunk of {} bulk inheritance rules", rules.size(), e);
+            for (Item item : accepted) {
+                results.add(rejected(item.index, item.request, List.of("Rule could not be saved")));
+            }
+            return results;
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            InheritanceRule rule = rules.get(i);
+            results.add(ItemResult.builder()
+                    .index(accepted.get(i).index)
+                    .status(ItemResult.Status.CREATED)
+                    .ruleId(rule.getId())
+                    .contentId(rule.getContentId())
+                    .build());
+        }
+
+        return results;
+    }
+
+    private List<String> validate(CreateInheritanceRuleRequest request) {
+        if (request == null) {
+            return List.of("Request is required");
+        }
+        return validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Set<UUID> findActiveContent(Set<UUID> contentIds) {
+        if (contentIds.isEmpty()) {
+            return Set.of();
+        }
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ACTIVE_CONTENT_SQL);
+            statement.setArray(1, connection.createArrayOf("uuid", contentIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getObject(1, UUID.class)));
+    }
+
+    private InheritanceRule toRule(CreateInheritanceRuleRequest request, UUID creatorId, LocalDateTime now)
+            throws JsonProcessingException {
+        InheritanceRule rule = InheritanceRule.builder()
+                .id(UUID.randomUUID())
+                .contentId(request.getContentId())
+                .creatorId(creatorId)
+                .targetType(request.getTargetType())
+                .targetValue(request.getTargetValue())
+                .targetMetadata(toJson(request.getTargetMetadata()))
+                .inheritanceTrigger(request.getInheritanceTrigger())
+                .triggerMetadata(toJson(request.getTriggerMetadata()))
+                .status(com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE)
+                .priority(request.getPriority() != null ? request.getPriority() : 0)
+                .createdAt(now)
+                .updatedAt(now)
+                .createdBy(creatorId)
+                .updatedBy(creatorId)
+                .build();
+        rule.setNextFireAt(triggerScheduler.computeNextFireAt(rule));
+        return rule;
+    }
+
+    private String toJson(Object value) throws JsonProcessingException {
+        return value == null ? null : objectMapper.writeValueAsString(value);
+    }
+
+    private void insertRules(List<InheritanceRule> rules, UUID creatorId, LocalDateTime now) {
+        int size = rules.size();
+        Object[] ids = new Object[size];
+        Object[] contentIds = new Object[size];
+        Object[] targetTypes = new Object[size];
+        Object[] targetValues = new Object[size];
+        Object[] targetMetadata = new Object[size];
+        Object[] triggers = new Object[size];
+        Object[] triggerMetadata = new Object[size];
+        Object[] priorities = new Object[size];
+        Object[] nextFireAts = new Object[size];
+        for (int i = 0; i < size; i++) {
+            InheritanceRule rule = rules.get(i);
+            ids[i] = rule.getId();
+            contentIds[i] = rule.getContentId();
+            targetTypes[i] = rule.getTargetType().name();
+            targetValues[i] = rule.getTargetValue();
+            targetMetadata[i] = rule.getTargetMetadata();
+            triggers[i] = rule.getInheritanceTrigger().name();
+            triggerMetadata[i] = rule.getTriggerMetadata();
+            priorities[i] = rule.getPriority();
+            nextFireAts[i] = rule.getNextFireAt() != null ? Timestamp.valueOf(rule.getNextFireAt()) : null;
+        }
+
+        Timestamp timestamp = Timestamp.valueOf(now);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_RULES_SQL);
+            statement.setObject(1, creatorId);
+            statement.setTimestamp(2, timestamp);
+            statement.setTimestamp(3, timestamp);
+            statement.setObject(4, creatorId);
+            statement.setObject(5, creatorId);
+            statement.setArray(6, connection.createArrayOf("uuid", ids));
+            statement.setArray(7, connection.createArrayOf("uuid", contentIds));
+            statement.setArray(8, connection.createArrayOf("varchar", targetTypes));
+            statement.setArray(9, connection.createArrayOf("varchar", targetValues));
+            statement.setArray(10, connection.createArrayOf("text", targetMetadata));
+            statement.setArray(11, connection.createArrayOf("varchar", triggers));
+            statement.setArray(12, connection.createArrayOf("text", triggerMetadata));
+            statement.setArray(13, connection.createArrayOf("int4", priorities));
+            statement.setArray(14, connection.createArrayOf("timestamp", nextFireAts));
+            return statement;
+        });
+    }
+
+    private void enqueueImmediate(List<InheritanceRule> rules) {
+        Map<UUID, Integer> priorities = new LinkedHashMap<>();
+        for (InheritanceRule rule : rules) {
+            if (rule.isImmediateInheritance()) {
+                priorities.put(rule.getId(), rule.getPriority());
+            }
+        }
+        workQueue.enqueue(priorities, InheritanceWorkBand.NORMAL, IMMEDIATE_QUEUE_REASON);
+    }
+
+    private static ItemResult rejected(int index, CreateInheritanceRuleRequest request, List<String> errors) {
+        return ItemResult.builder()
+                .index(index)
+                .status(ItemResult.Status.REJECTED)
+                .contentId(request != null ? request.getContentId() : null)
+                .errors(errors)
+                .build();
+    }
+
+    private static final class Item {
+        private final int index;
+        private final CreateInheritanceRuleRequest request;
+
+        private Item(int index, CreateInheritanceRuleRequest request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,466 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.entity.InheritanceRule;
+import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.TargetType;
+import com.legacykeep.legacy.repository.InheritanceRuleIndexProjection;
+import com.legacykeep.legacy.repository.InheritanceRuleRepository;
+import com.legacykeep.legacy.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index of active inheritance rules.
+ *
+ * Maps {@code (targetType, targetValue)}, {@code contentId} and {@code creatorId} to
+ * the active rules targeting them, so relationship events resolve their rules without a database
+ * query. The index is loaded once the application is ready; until then lookups
+ * fall back to the repository and are counted as misses.
+ *
+ * Rule mutations are applied after their transaction commits, so the index never
+ * exposes uncommitted rules. Only ACTIVE rules are held; a rule leaving the
+ * ACTIVE status is removed.
+ *
+ * Committed mutations are also published, as the rule IDs and whether they were saved or
+ * deleted, on a Redis channel. The other instances remove deleted rules and re-read saved
+ * ones from the database, so they apply the latest committed state whatever order the
+ * messages arrive in.
+ */
+@Component
+@Slf4j
+public class InheritanceRuleIndex {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+    private static final String SAVED = "SAVED";
+    private static final String DELETED = "DELETED";
+
+    private final InheritanceRuleRepository inheritanceRuleRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final NodeIdentity nodeIdentity;
+    private final String changeChannel;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    private final Map<UUID, RuleEntry> rulesById = new ConcurrentHashMap<>();
+    private final Map<TargetKey, Set<UUID>> rulesByTarget = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> rulesByContent = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<UUID>> rulesByCreator = new ConcurrentHashMap<>();
+
+    // Rules removed while the initial load is running; the loader must not re-add them
+    private final Set<UUID> removedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean ready;
+    private RedisMessageListenerContainer changeListener;
+
+    public InheritanceRuleIndex(InheritanceRuleRepository inheritanceRuleRepository,
+                                StringRedisTemplate redisTemplate,
+                                RedisConnectionFactory connectionFactory,
+                                NodeIdentity nodeIdentity,
+                                @org.springframework.beans.factory.annotation.Value(
+                                        "${legacy.inheritance.rule-index.change-channel:legacy:inheritance:rule-index:changes}")
+                                String changeChannel,
+                                MeterRegistry meterRegistry) {
+        this.inheritanceRuleRepository = inheritanceRuleRepository;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.nodeIdentity = nodeIdentity;
+        this.changeChannel = changeChannel;
+
+        this.hitCounter = Counter.builder("legacy.inheritance.rule.index.lookups")
+                .description("Inheritance rule lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("legacy.inheritance.rule.index.lookups")
+                .description("Inheritance rule lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("legacy.inheritance.rule.index.size", rulesById, Map::size)
+                .description("Active inheritance rules held in the rule index")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            changeListener = new RedisMessageListenerContainer();
+            changeListener.setConnectionFactory(connectionFactory);
+            changeListener.addMessageListener((message, pattern) -> onChange(message),
+                    new ChannelTopic(changeChannel));
+            changeListener.afterPropertiesSet();
+            changeListener.start();
+        } catch (Exception e) {
+            log.warn("Could not subscribe to inheritance rule changes of other instances: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (changeListener != null) {
+            try {
+                changeListener.destroy();
+            } catch (Exception e) {
+                log.debug("Error stopping inheritance rule change listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Load all active rules into the index.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        loading = true;
+        removedDuringLoad.clear();
+
+        try {
+            List<InheritanceRuleIndexProjection> page =
+                    inheritanceRuleRepository.findActiveIndexEntries(PageRequest.of(0, LOAD_PAGE_SIZE));
+            while (!page.isEmpty()) {
+                for (InheritanceRuleIndexProjection projection : page) {
+                    addLoaded(RuleEntry.from(projection));
+                }
+
+                UUID lastId = page.get(page.size() - 1).getId();
+                page = inheritanceRuleRepository.findActiveIndexEntriesAfter(lastId, PageRequest.of(0, LOAD_PAGE_SIZE));
+            }
+
+            ready = true;
+            log.info("Loaded {} active inheritance rules into the rule index in {} ms",
+                    rulesById.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Error loading inheritance rule index; lookups will use the database", e);
+        } finally {
+            loading = false;
+            removedDuringLoad.clear();
+        }
+    }
+
+    /**
+     * Whether the index has been loaded and is serving lookups.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Find the active rules targeting a target type and value.
+     */
+    public List<RuleEntry> findActiveRules(TargetType targetType, String targetValue) {
+        if (!ready) {
+            missCounter.increment();
+            return inheritanceRuleRepository.findActiveByTargetTypeAndValue(targetType, targetValue)
+                    .stream()
+                    .map(RuleEntry::from)
+                    .collect(Collectors.toList());
+        }
+
+        hitCounter.increment();
+        return resolve(rulesByTarget.get(new TargetKey(targetType, targetValue)));
+    }
+
+    /**
+     * Find the IDs of the active rules targeting a target type and value.
+     */
+    public List<UUID> findActiveRuleIds(TargetType targetType, String targetValue) {
+        return findActiveRules(targetType, targetValue)
+                .stream()
+                .map(RuleEntry::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find the active rules for a piece of content.
+     */
+    public List<RuleEntry> findActiveRulesByContent(UUID contentId) {
+        if (!ready) {
+            missCounter.increment();
+            return inheritanceRuleRepository
+                    .findByContentIdAndStatus(contentId, com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE)
+                    .stream()
+                    .map(RuleEntry::from)
+                    .collect(Collectors.toList());
+        }
+
+        hitCounter.increment();
+        return resolve(rulesByContent.get(contentId));
+    }
+
+    /**
+     * Find the active rules created by a user.
+     */
+    public List<RuleEntry> findActiveRulesByCreator(UUID creatorId) {
+        if (!ready) {
+            missCounter.increment();
+            return inheritanceRuleRepository
+                    .findByCreatorIdAndStatus(creatorId, com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE)
+                    .stream()
+                    .map(RuleEntry::from)
+                    .collect(Collectors.toList());
+        }
+
+        hitCounter.increment();
+        return resolve(rulesByCreator.get(creatorId));
+    }
+
+    /**
+     * Get an active rule by ID.
+     */
+    public Optional<RuleEntry> get(UUID ruleId) {
+        if (!ready) {
+            missCounter.increment();
+            return inheritanceRuleRepository.findById(ruleId)
+                    .filter(InheritanceRule::isActive)
+                    .map(RuleEntry::from);
+        }
+
+        hitCounter.increment();
+        return Optional.ofNullable(rulesById.get(ruleId));
+    }
+
+    /**
+     * Number of active rules held in the index.
+     */
+    public int size() {
+        return rulesById.size();
+    }
+
+    /**
+     * Apply a saved rule to the index once the current transaction commits, and publish
+     * the change to the other instances.
+     */
+    public void onRuleSaved(InheritanceRule rule) {
+        onRulesSaved(Collections.singletonList(rule));
+    }
+
+    /**
+     * Apply saved rules to the index once the current transaction commits, and publish
+     * the change to the other instances in one message.
+     */
+    public void onRulesSaved(Collection<InheritanceRule> rules) {
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        List<UUID> ruleIds = new ArrayList<>(rules.size());
+        List<RuleEntry> entries = new ArrayList<>(rules.size());
+        for (InheritanceRule rule : rules) {
+            ruleIds.add(rule.getId());
+            entries.add(rule.isActive() ? RuleEntry.from(rule) : null);
+        }
+        TransactionUtils.afterCommit(() -> {
+            for (int i = 0; i < ruleIds.size(); i++) {
+                if (entries.get(i) != null) {
+                    put(entries.get(i));
+                } else {
+                    remove(ruleIds.get(i));
+                }
+            }
+            publish(SAVED, ruleIds);
+        });
+    }
+
+    /**
+     * Remove a deleted rule from the index once the current transaction commits, and
+     * publish the change to the other instances.
+     */
+    public void onRuleDeleted(UUID ruleId) {
+        TransactionUtils.afterCommit(() -> {
+            remove(ruleId);
+            publish(DELETED, List.of(ruleId));
+        });
+    }
+
+    /**
+     * Apply a change published by another instance: remove deleted rules, and re-read
+     * saved ones so the index holds their committed state.
+     */
+    void onChange(Message message) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring unreadable inheritance rule change");
+            return;
+        }
+        if (parts[0].equals(nodeIdentity.getId())) {
+            return;
+        }
+
+        try {
+            List<UUID> ruleIds = new ArrayList<>();
+            for (String ruleId : parts[2].split(",")) {
+                if (!ruleId.isBlank()) {
+                    ruleIds.add(UUID.fromString(ruleId.trim()));
+                }
+            }
+            if (DELETED.equals(parts[1])) {
+                ruleIds.forEach(this::remove);
+            } else if (SAVED.equals(parts[1])) {
+                refresh(ruleIds);
+            }
+        } catch (Exception e) {
+            log.warn("Could not apply inheritance rule change from {}: {}", parts[0], e.getMessage());
+        }
+    }
+
+    private void refresh(List<UUID> ruleIds) {
+        Map<UUID, InheritanceRule> current = inheritanceRuleRepository.findAllById(ruleIds).stream()
+                .collect(Collectors.toMap(InheritanceRule::getId, rule -> rule));
+        for (UUID ruleId : ruleIds) {
+            InheritanceRule rule = current.get(ruleId);
+            if (rule != null && rule.isActive()) {
+                put(RuleEntry.from(rule));
+            } else {
+                remove(ruleId);
+            }
+        }
+    }
+
+    private void publish(String operation, List<UUID> ruleIds) {
+        try {
+            redisTemplate.convertAndSend(changeChannel, nodeIdentity.getId() + "|" + operation + "|"
+                    + ruleIds.stream().map(UUID::toString).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            log.warn("Could not publish change of {} inheritance rules to other instances: {}",
+                    ruleIds.size(), e.getMessage());
+        }
+    }
+
+    private synchronized void put(RuleEntry entry) {
+        removeEntry(entry.getId());
+        add(entry);
+        removedDuringLoad.remove(entry.getId());
+    }
+
+    private synchronized void remove(UUID ruleId) {
+        removeEntry(ruleId);
+        if (loading) {
+            removedDuringLoad.add(ruleId);
+        }
+    }
+
+    private synchronized void addLoaded(RuleEntry entry) {
+        // Entries written or removed by a committed mutation during the load are newer
+        if (!removedDuringLoad.contains(entry.getId()) && !rulesById.containsKey(entry.getId())) {
+            add(entry);
+        }
+    }
+
+    private synchronized void add(RuleEntry entry) {
+        rulesById.put(entry.getId(), entry);
+        rulesByTarget.computeIfAbsent(entry.getTargetKey(), key -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+        rulesByContent.computeIfAbsent(entry.getContentId(), key -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+        rulesByCreator.computeIfAbsent(entry.getCreatorId(), key -> ConcurrentHashMap.newKeySet()).add(entry.getId());
+    }
+
+    private void removeEntry(UUID ruleId) {
+        RuleEntry existing = rulesById.remove(ruleId);
+        if (existing == null) {
+            return;
+        }
+
+        rulesByTarget.computeIfPresent(existing.getTargetKey(), (key, ids) -> {
+            ids.remove(ruleId);
+            return ids.isEmpty() ? null : ids;
+        });
+        rulesByContent.computeIfPresent(existing.getContentId(), (key, ids) -> {
+            ids.remove(ruleId);
+            return ids.isEmpty() ? null : ids;
+        });
+        rulesByCreator.computeIfPresent(existing.getCreatorId(), (key, ids) -> {
+            ids.remove(ruleId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private List<RuleEntry> resolve(Set<UUID> ruleIds) {
+        if (ruleIds == null || ruleIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return ruleIds.stream()
+                .map(rulesById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Immutable snapshot of an active inheritance rule held by the index.
+     */
+    public static class RuleEntry {
+        private final UUID id;
+        private final UUID contentId;
+        private final UUID creatorId;
+        private final TargetType targetType;
+        private final String targetValue;
+        private final InheritanceTrigger inheritanceTrigger;
+        private final int priority;
+
+        public RuleEntry(UUID id, UUID contentId, UUID creatorId, TargetType targetType, String targetValue,
+                         InheritanceTrigger inheritanceTrigger, Integer priority) {
+            this.id = id;
+            this.contentId = contentId;
+            this.creatorId = creatorId;
+            this.targetType = targetType;
+            this.targetValue = targetValue;
+            this.inheritanceTrigger = inheritanceTrigger;
+            this.priority = priority != null ? priority : 0;
+        }
+
+        static RuleEntry from(InheritanceRule rule) {
+            return new RuleEntry(rule.getId(), rule.getContentId(), rule.getCreatorId(), rule.getTargetType(),
+                    rule.getTargetValue(), rule.getInheritanceTrigger(), rule.getPriority());
+        }
+
+        static RuleEntry from(InheritanceRuleIndexProjection projection) {
+            return new RuleEntry(projection.getId(), projection.getContentId(), projection.getCreatorId(),
+                    projection.getTargetType(), projection.getTargetValue(), projection.getInheritanceTrigger(),
+                    projection.getPriority());
+        }
+
+        TargetKey getTargetKey() {
+            return new TargetKey(targetType, targetValue);
+        }
+
+        // Getters
+        public UUID getId() { return id; }
+        public UUID getContentId() { return contentId; }
+        public UUID getCreatorId() { return creatorId; }
+        public TargetType getTargetType() { return targetType; }
+        public String getTargetValue() { return targetValue; }
+        public InheritanceTrigger getInheritanceTrigger() { return inheritanceTrigger; }
+        public int getPriority() { return priority; }
+    }
+
+    @Value
+    private static class TargetKey {
+        TargetType targetType;
+        String targetValue;
+    }
+}
@@ -4,13 +4,16 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
 import com.legacykeep.legacy.dto.request.UpdateInheritanceRuleRequest;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
 import com.legacykeep.legacy.dto.response.InheritanceEventResponse;
 import com.legacykeep.legacy.dto.response.InheritanceRuleResponse;
 import com.legacykeep.legacy.dto.response.InheritanceStatusResponse;
+import com.legacykeep.legacy.dto.response.JsonPayload;
 import com.legacykeep.legacy.entity.InheritanceEvent;
 import com.legacykeep.legacy.entity.InheritanceRule;
 import com.legacykeep.legacy.entity.InheritanceStatus;
 import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.InheritanceWorkBand;
 import com.legacykeep.legacy.enums.TargetType;
 import com.legacykeep.legacy.exception.InheritanceRuleNotFoundException;
 import com.legacykeep.legacy.exception.InheritanceStatusNotFoundException;
@@ -19,13 +22,16 @@ import com.legacykeep.legacy.repository.InheritanceRuleRepository;
 import com.legacykeep.legacy.repository.InheritanceStatusRepository;
 import com.legacykeep.legacy.service.InheritanceService;
 import com.legacykeep.legacy.service.RelationshipServiceClient;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -40,11 +46,30 @@ import java.util.stream.Collectors;
 @Transactional
 public class InheritanceServiceImpl implements InheritanceService {
 
+    private static final int TOP_CONTENTS_LIMIT = 10;
+
     private final InheritanceRuleRepository inheritanceRuleRepository;
     private final InheritanceStatusRepository inheritanceStatusRepository;
     private final InheritanceEventRepository inheritanceEventRepository;
     private final ObjectMapper objectMapper;
     private final RelationshipServiceClient relationshipServiceClient;
+    private final InheritanceDeliveryWriter deliveryWriter;
+    private final InheritanceEventJournal eventJournal;
+    private final InheritanceRuleIndex ruleIndex;
+    private final InheritanceTriggerScheduler triggerScheduler;
+    private final InheritanceDeliveryPlanner deliveryPlanner;
+    private final ContentOwnerResolver contentOwnerResolver;
+    private final InheritanceAccessCache accessCache;
+    private final InheritanceRollupReader rollupReader;
+    private final InheritanceSketchStore sketchStore;
+    private final InheritanceRuleBulkImporter bulkImporter;
+    private final InheritanceShardCoordinator shardCoordinator;
+    private final InheritanceWorkQueue workQueue;
+
+    @PostConstruct
+    void registerQueueProcessor() {
+        workQueue.setRuleProcessor(this::processInheritance);
+    }
 
     // Inheritance Rule Management
     @Override
@@ -70,23 +95,36 @@ public class InheritanceServiceImpl implements InheritanceService {
                 .createdBy(creatorId)
                 .updatedBy(creatorId)
                 .build();
+        inheritanceRule.setNextFireAt(triggerScheduler.computeNextFireAt(inheritanceRule));
 
         // Save inheritance rule
         InheritanceRule savedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(savedRule);
+        triggerScheduler.onRuleSaved(savedRule);
         log.info("Created inheritance rule with ID: {}", savedRule.getId());
 
         // Create event
         createInheritanceEvent(savedRule.getId(), InheritanceEvent.EventType.RULE_CREATED, 
                 Map.of("ruleId", savedRule.getId(), "contentId", request.getContentId()), creatorId);
 
-        // Process immediate inheritance if applicable
+        // Queue immediate inheritance if applicable; it commits with the rule
         if (savedRule.isImmediateInheritance()) {
-            processInheritance(savedRule.getId());
+            workQueue.enqueue(Collections.singletonMap(savedRule.getId(), savedRule.getPriority()),
+                    InheritanceWorkBand.URGENT, "IMMEDIATE");
         }
 
         return convertToInheritanceRuleResponse(savedRule);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkInheritanceRuleResponse createInheritanceRules(Iterator<CreateInheritanceRuleRequest> requests, UUID creatorId) {
+        log.info("Creating inheritance rules in bulk for creator: {}", creatorId);
+
+        // IMMEDIATE rules are queued with their chunk and processed by the queue workers
+        return bulkImporter.importRules(requests, creatorId);
+    }
+
     @Override
     public InheritanceRuleResponse updateInheritanceRule(UUID ruleId, UpdateInheritanceRuleRequest request, UUID updatedBy) {
         log.info("Updating inheritance rule: {}", ruleId);
@@ -117,10 +155,16 @@ public class InheritanceServiceImpl implements InheritanceService {
             inheritanceRule.setPriority(request.getPriority());
         }
 
+        if (request.getInheritanceTrigger() != null || request.getTriggerMetadata() != null) {
+            inheritanceRule.setNextFireAt(triggerScheduler.computeNextFireAt(inheritanceRule));
+        }
+
         inheritanceRule.setUpdatedBy(updatedBy);
 
         // Save updated rule
         InheritanceRule updatedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(updatedRule);
+        triggerScheduler.onRuleSaved(updatedRule);
         log.info("Updated inheritance rule: {}", ruleId);
 
         // Create event
@@ -234,8 +278,17 @@ public class InheritanceServiceImpl implements InheritanceService {
         createInheritanceEvent(ruleId, InheritanceEvent.EventType.RULE_DELETED, 
                 Map.of("ruleId", ruleId, "deletedBy", deletedBy), deletedBy);
 
+        // Recipients lose access through the cascade; capture them before it runs
+        List<UUID> recipientIds = inheritanceStatusRepository.findDistinctRecipientIdsByRuleId(ruleId);
+
+        // Remove statuses while the rule still exists, so the rollups can attribute them
+        inheritanceStatusRepository.deleteByRuleId(ruleId);
+
         // Delete inheritance rule (cascade will handle related records)
         inheritanceRuleRepository.delete(inheritanceRule);
+        accessCache.invalidate(recipientIds);
+        ruleIndex.onRuleDeleted(ruleId);
+        triggerScheduler.onRuleDeleted(ruleId);
         log.info("Deleted inheritance rule: {}", ruleId);
     }
 
@@ -247,9 +300,14 @@ public class InheritanceServiceImpl implements InheritanceService {
                 .orElseThrow(() -> new InheritanceRuleNotFoundException(ruleId));
 
         inheritanceRule.setStatus(com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE);
+        if (inheritanceRule.getNextFireAt() == null) {
+            inheritanceRule.setNextFireAt(triggerScheduler.computeNextFireAt(inheritanceRule));
+        }
         inheritanceRule.setUpdatedBy(activatedBy);
 
         InheritanceRule updatedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(updatedRule);
+        triggerScheduler.onRuleSaved(updatedRule);
         log.info("Activated inheritance rule: {}", ruleId);
 
         // Create event
@@ -270,6 +328,8 @@ public class InheritanceServiceImpl implements InheritanceService {
         inheritanceRule.setUpdatedBy(pausedBy);
 
         InheritanceRule updatedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(updatedRule);
+        triggerScheduler.onRuleSaved(updatedRule);
         log.info("Paused inheritance rule: {}", ruleId);
 
         // Create event
@@ -290,6 +350,8 @@ public class InheritanceServiceImpl implements InheritanceService {
         inheritanceRule.setUpdatedBy(completedBy);
 
         InheritanceRule updatedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(updatedRule);
+        triggerScheduler.onRuleSaved(updatedRule);
         log.info("Completed inheritance rule: {}", ruleId);
 
         // Create event
@@ -310,6 +372,8 @@ public class InheritanceServiceImpl implements InheritanceService {
         inheritanceRule.setUpdatedBy(cancelledBy);
 
         InheritanceRule updatedRule = inheritanceRuleRepository.save(inheritanceRule);
+        ruleIndex.onRuleSaved(updatedRule);
+        triggerScheduler.onRuleSaved(updatedRule);
         log.info("Cancelled inheritance rule: {}", ruleId);
 
         // Create event
@@ -413,6 +477,7 @@ public class InheritanceServiceImpl implements InheritanceService {
 
         inheritanceStatus.markAsAccessed();
         InheritanceStatus updatedStatus = inheritanceStatusRepository.save(inheritanceStatus);
+        accessCache.invalidate(recipientId);
         log.info("Marked content as accessed by recipient: {} for content: {}", recipientId, contentId);
 
         // Create event
@@ -435,6 +500,7 @@ public class InheritanceServiceImpl implements InheritanceService {
 
         inheritanceStatus.markAsDeclined();
         InheritanceStatus updatedStatus = inheritanceStatusRepository.save(inheritanceStatus);
+        accessCache.invalidate(recipientId);
         log.info("Declined inheritance by recipient: {} for content: {}", recipientId, contentId);
 
         // Create event
@@ -457,9 +523,12 @@ public class InheritanceServiceImpl implements InheritanceService {
             return;
         }
 
-        // TODO: Implement relationship service integration
-        // This will be implemented in the next step when we integrate with the relationship service
-        log.info("Inheritance processing for rule: {} - TODO: Implement relationship service integration", ruleId);
+        List<UUID> recipientIds = resolveRecipients(inheritanceRule);
+        InheritanceDeliveryWriter.DeliveryResult result = deliveryWriter.deliver(
+                ruleId, inheritanceRule.getContentId(), recipientIds);
+
+        log.info("Processed inheritance for rule: {} - {} new recipients, {} already present",
+                ruleId, result.getCreated(), result.getAlreadyPresent());
     }
 
     @Override
@@ -474,62 +543,41 @@ public class InheritanceServiceImpl implements InheritanceService {
             return;
         }
 
-        // TODO: Implement relationship service integration
-        // This will be implemented in the next step when we integrate with the relationship service
-        log.info("Inheritance processing for rule: {} and recipient: {} - TODO: Implement relationship service integration", ruleId, recipientId);
+        InheritanceDeliveryWriter.DeliveryResult result = deliveryWriter.deliver(
+                ruleId, inheritanceRule.getContentId(), List.of(recipientId));
+
+        log.info("Processed inheritance for rule: {} and recipient: {} - {}", ruleId, recipientId,
+                result.getCreated() > 0 ? "created" : "already present");
     }
 
     @Override
-    public void processAllActiveInheritance() {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long processAllActiveInheritance() {
         log.info("Processing all active inheritance rules");
 
-        List<InheritanceRule> activeRules = inheritanceRuleRepository.findByStatus(com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE);
-        
-        for (InheritanceRule rule : activeRules) {
-            try {
-                processInheritance(rule.getId());
-            } catch (Exception e) {
-                log.error("Error processing inheritance for rule: {}", rule.getId(), e);
-            }
-        }
-
-        log.info("Completed processing all active inheritance rules");
+        long runId = shardCoordinator.requestSweep("ALL_ACTIVE", null, null);
+        log.info("Started processing run {} for all active inheritance rules", runId);
+        return runId;
     }
 
     @Override
-    public void processInheritanceForRelationshipType(String relationshipType) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long processInheritanceForRelationshipType(String relationshipType) {
         log.info("Processing inheritance for relationship type: {}", relationshipType);
 
-        List<InheritanceRule> rules = inheritanceRuleRepository
-                .findActiveByTargetTypeAndValue(TargetType.RELATIONSHIP_TYPE, relationshipType);
-
-        for (InheritanceRule rule : rules) {
-            try {
-                processInheritance(rule.getId());
-            } catch (Exception e) {
-                log.error("Error processing inheritance for rule: {}", rule.getId(), e);
-            }
-        }
-
-        log.info("Completed processing inheritance for relationship type: {}", relationshipType);
+        long runId = shardCoordinator.requestSweep("RELATIONSHIP_TYPE", TargetType.RELATIONSHIP_TYPE, relationshipType);
+        log.info("Started processing run {} for relationship type: {}", runId, relationshipType);
+        return runId;
     }
 
     @Override
-    public void processInheritanceForTarget(TargetType targetType, String targetValue) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long processInheritanceForTarget(TargetType targetType, String targetValue) {
         log.info("Processing inheritance for target: {} - {}", targetType, targetValue);
 
-        List<InheritanceRule> rules = inheritanceRuleRepository
-                .findActiveByTargetTypeAndValue(targetType, targetValue);
-
-        for (InheritanceRule rule : rules) {
-            try {
-                processInheritance(rule.getId());
-            } catch (Exception e) {
-                log.error("Error processing inheritance for rule: {}", rule.getId(), e);
-            }
-        }
-
-        log.info("Completed processing inheritance for target: {} - {}", targetType, targetValue);
+        long runId = shardCoordinator.requestSweep("TARGET", targetType, targetValue);
+        log.info("Started processing run {} for target: {} - {}", runId, targetType, targetValue);
+        return runId;
     }
 
     // Event Management
@@ -538,7 +586,12 @@ public class InheritanceServiceImpl implements InheritanceService {
     public List<InheritanceEventResponse> getInheritanceEventsByRuleId(UUID ruleId) {
         log.debug("Getting inheritance events for rule: {}", ruleId);
 
-        return inheritanceEventRepository.findByInheritanceRuleId(ruleId)
+        Optional<LocalDateTime> since = findEventsLowerBound(ruleId);
+        if (since.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        return inheritanceEventRepository.findByInheritanceRuleIdAndCreatedAtGreaterThanEqual(ruleId, since.get())
                 .stream()
                 .map(this::convertToInheritanceEventResponse)
                 .collect(Collectors.toList());
@@ -549,10 +602,25 @@ public class InheritanceServiceImpl implements InheritanceService {
     public Page<InheritanceEventResponse> getInheritanceEventsByRuleId(UUID ruleId, Pageable pageable) {
         log.debug("Getting inheritance events for rule: {} with pagination", ruleId);
 
-        return inheritanceEventRepository.findByInheritanceRuleId(ruleId, pageable)
+        Optional<LocalDateTime> since = findEventsLowerBound(ruleId);
+        if (since.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        return inheritanceEventRepository.findByInheritanceRuleIdAndCreatedAtGreaterThanEqual(ruleId, since.get(), pageable)
                 .map(this::convertToInheritanceEventResponse);
     }
 
+    /**
+     * A rule's events cannot predate the rule, so its creation time bounds the partitions
+     * to search. One day of slack covers clock differences between application and database.
+     * Empty when the rule no longer exists; its events were removed with it.
+     */
+    private Optional<LocalDateTime> findEventsLowerBound(UUID ruleId) {
+        return inheritanceRuleRepository.findById(ruleId)
+                .map(rule -> rule.getCreatedAt().minusDays(1));
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<InheritanceEventResponse> getInheritanceEventsByEventType(InheritanceEvent.EventType eventType) {
@@ -579,12 +647,28 @@ public class InheritanceServiceImpl implements InheritanceService {
     public Map<String, Object> getInheritanceAnalytics(UUID userId, LocalDateTime fromDate, LocalDateTime toDate) {
         log.debug("Getting inheritance analytics for user: {} from {} to {}", userId, fromDate, toDate);
 
-        // TODO: Implement comprehensive analytics
+        // Without a user the analytics cover all inheritance activity
+        String dimension = userId != null ? InheritanceRollupReader.CREATOR : InheritanceRollupReader.GLOBAL;
+        String key = userId != null ? userId.toString() : "";
+        LocalDate from = fromDate != null ? fromDate.toLocalDate() : null;
+        LocalDate to = toDate != null ? toDate.toLocalDate() : null;
+
+        Map<LocalDate, Map<String, Long>> eventsByDay = rollupReader.getEventCountsByDay(dimension, key, from, to);
+        Map<String, Long> eventsByType = new TreeMap<>();
+        eventsByDay.values().forEach(day -> day.forEach((type, count) -> eventsByType.merge(type, count, Long::sum)));
+
         Map<String, Object> analytics = new HashMap<>();
         analytics.put("userId", userId);
         analytics.put("fromDate", fromDate);
         analytics.put("toDate", toDate);
-        analytics.put("message", "Analytics implementation pending");
+        analytics.put("eventsByType", eventsByType);
+        analytics.put("eventsByDay", eventsByDay);
+        analytics.put("totalEvents", eventsByType.values().stream().mapToLong(Long::longValue).sum());
+        analytics.put("statusTransitions", rollupReader.getTransitionCounts(dimension, key, from, to));
+        if (userId != null) {
+            analytics.put("receivedStatusTransitions",
+                    rollupReader.getTransitionCounts(InheritanceRollupReader.RECIPIENT, key, from, to));
+        }
 
         return analytics;
     }
@@ -594,10 +678,13 @@ public class InheritanceServiceImpl implements InheritanceService {
     public Map<String, Object> getInheritanceStatisticsForContent(UUID contentId) {
         log.debug("Getting inheritance statistics for content: {}", contentId);
 
-        // TODO: Implement content statistics
+        String key = contentId.toString();
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("contentId", contentId);
-        statistics.put("message", "Statistics implementation pending");
+        statistics.put("activeRules", ruleIndex.findActiveRulesByContent(contentId).size());
+        putStatusStatistics(statistics, rollupReader.getStatusTotals(InheritanceRollupReader.CONTENT, key));
+        statistics.putAll(sketchStore.getStatistics(InheritanceRollupReader.CONTENT, key, TOP_CONTENTS_LIMIT));
+        statistics.put("eventsByType", rollupReader.getEventCounts(InheritanceRollupReader.CONTENT, key, null, null));
 
         return statistics;
     }
@@ -607,10 +694,20 @@ public class InheritanceServiceImpl implements InheritanceService {
     public Map<String, Object> getInheritanceStatisticsForUser(UUID userId) {
         log.debug("Getting inheritance statistics for user: {}", userId);
 
-        // TODO: Implement user statistics
+        String key = userId.toString();
+        Map<String, Object> asCreator = new HashMap<>();
+        asCreator.put("activeRules", ruleIndex.findActiveRulesByCreator(userId).size());
+        putStatusStatistics(asCreator, rollupReader.getStatusTotals(InheritanceRollupReader.CREATOR, key));
+        asCreator.putAll(sketchStore.getStatistics(InheritanceRollupReader.CREATOR, key, TOP_CONTENTS_LIMIT));
+        asCreator.put("eventsByType", rollupReader.getEventCounts(InheritanceRollupReader.CREATOR, key, null, null));
+
+        Map<String, Object> asRecipient = new HashMap<>();
+        putStatusStatistics(asRecipient, rollupReader.getStatusTotals(InheritanceRollupReader.RECIPIENT, key));
+
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("userId", userId);
-        statistics.put("message", "Statistics implementation pending");
+        statistics.put("asCreator", asCreator);
+        statistics.put("asRecipient", asRecipient);
 
         return statistics;
     }
@@ -620,21 +717,37 @@ public class InheritanceServiceImpl implements InheritanceService {
     public Map<String, Object> getInheritanceStatisticsForRelationshipType(String relationshipType) {
         log.debug("Getting inheritance statistics for relationship type: {}", relationshipType);
 
-        // TODO: Implement relationship type statistics
+        // Rollups key relationship types case-insensitively, as rule matching does
+        String key = relationshipType.toLowerCase(Locale.ROOT);
         Map<String, Object> statistics = new HashMap<>();
         statistics.put("relationshipType", relationshipType);
-        statistics.put("message", "Statistics implementation pending");
+        statistics.put("activeRules", ruleIndex.findActiveRuleIds(TargetType.RELATIONSHIP_TYPE, relationshipType).size());
+        putStatusStatistics(statistics, rollupReader.getStatusTotals(InheritanceRollupReader.RELATIONSHIP_TYPE, key));
+        statistics.putAll(sketchStore.getStatistics(InheritanceRollupReader.RELATIONSHIP_TYPE, key, TOP_CONTENTS_LIMIT));
+        statistics.put("eventsByType",
+                rollupReader.getEventCounts(InheritanceRollupReader.RELATIONSHIP_TYPE, key, null, null));
 
         return statistics;
     }
 
+    private void putStatusStatistics(Map<String, Object> statistics, Map<String, Long> statusTotals) {
+        long total = statusTotals.values().stream().mapToLong(Long::longValue).sum();
+        long accessed = statusTotals.getOrDefault(InheritanceStatus.Status.ACCESSED.name(), 0L);
+        long declined = statusTotals.getOrDefault(InheritanceStatus.Status.DECLINED.name(), 0L);
+
+        statistics.put("statusCounts", statusTotals);
+        statistics.put("totalDeliveries", total);
+        statistics.put("accessRate", total > 0 ? (double) accessed / total : 0.0);
+        statistics.put("declineRate", total > 0 ? (double) declined / total : 0.0);
+    }
+
     // Utility Methods
     @Override
     @Transactional(readOnly = true)
     public boolean hasInheritanceAccess(UUID userId, UUID contentId) {
         log.debug("Checking inheritance access for user: {} to content: {}", userId, contentId);
 
-        return inheritanceStatusRepository.existsByRecipientIdAndContentIdAndInheritanceRuleId(userId, contentId, null);
+        return accessCache.hasAccess(userId, contentId);
     }
 
     @Override
@@ -642,11 +755,7 @@ public class InheritanceServiceImpl implements InheritanceService {
     public List<UUID> getInheritedContentIds(UUID userId) {
         log.debug("Getting inherited content IDs for user: {}", userId);
 
-        return inheritanceStatusRepository.findByRecipientId(userId)
-                .stream()
-                .map(InheritanceStatus::getContentId)
-                .distinct()
-                .collect(Collectors.toList());
+        return new ArrayList<>(accessCache.getAccessibleContentIds(userId));
     }
 
     @Override
@@ -689,15 +798,8 @@ public class InheritanceServiceImpl implements InheritanceService {
     // Helper Methods
     private void createInheritanceEvent(UUID ruleId, InheritanceEvent.EventType eventType, Map<String, Object> eventData, UUID createdBy) {
         try {
-            InheritanceEvent event = InheritanceEvent.builder()
-                    .inheritanceRuleId(ruleId)
-                    .eventType(eventType)
-                    .eventData(convertToJson(eventData))
-                    .createdBy(createdBy)
-                    .build();
-
-            inheritanceEventRepository.save(event);
-            log.debug("Created inheritance event: {} for rule: {}", eventType, ruleId);
+            eventJournal.append(ruleId, eventType, eventData, createdBy);
+            log.debug("Journaled inheritance event: {} for rule: {}", eventType, ruleId);
         } catch (Exception e) {
             log.error("Error creating inheritance event: {} for rule: {}", eventType, ruleId, e);
         }
@@ -715,18 +817,6 @@ public class InheritanceServiceImpl implements InheritanceService {
         }
     }
 
-    private Map<String, Object> convertFromJson(String json) {
-        if (json == null || json.trim().isEmpty()) {
-            return new HashMap<>();
-        }
-        try {
-            return objectMapper.readValue(json, Map.class);
-        } catch (JsonProcessingException e) {
-            log.error("Error converting JSON to Map", e);
-            return new HashMap<>();
-        }
-    }
-
     private InheritanceRuleResponse convertToInheritanceRuleResponse(InheritanceRule inheritanceRule) {
         return InheritanceRuleResponse.builder()
                 .id(inheritanceRule.getId())
@@ -734,11 +824,12 @@ public class InheritanceServiceImpl implements InheritanceService {
                 .creatorId(inheritanceRule.getCreatorId())
                 .targetType(inheritanceRule.getTargetType())
                 .targetValue(inheritanceRule.getTargetValue())
-                .targetMetadata(convertFromJson(inheritanceRule.getTargetMetadata()))
+                .targetMetadata(JsonPayload.ofObject(inheritanceRule.getTargetMetadata()))
                 .inheritanceTrigger(inheritanceRule.getInheritanceTrigger())
-                .triggerMetadata(convertFromJson(inheritanceRule.getTriggerMetadata()))
+                .triggerMetadata(JsonPayload.ofObject(inheritanceRule.getTriggerMetadata()))
                 .status(inheritanceRule.getStatus())
                 .priority(inheritanceRule.getPriority())
+                .nextFireAt(inheritanceRule.getNextFireAt())
                 .createdAt(inheritanceRule.getCreatedAt())
                 .updatedAt(inheritanceRule.getUpdatedAt())
                 .createdBy(inheritanceRule.getCreatedBy())
@@ -757,8 +848,8 @@ public class InheritanceServiceImpl implements InheritanceService {
                 .accessedAt(inheritanceStatus.getAccessedAt())
                 .declinedAt(inheritanceStatus.getDeclinedAt())
                 .relationshipTypeId(inheritanceStatus.getRelationshipTypeId())
-                .relationshipContext(convertFromJson(inheritanceStatus.getRelationshipContext()))
-                .metadata(convertFromJson(inheritanceStatus.getMetadata()))
+                .relationshipContext(JsonPayload.ofObject(inheritanceStatus.getRelationshipContext()))
+                .metadata(JsonPayload.ofObject(inheritanceStatus.getMetadata()))
                 .createdAt(inheritanceStatus.getCreatedAt())
                 .updatedAt(inheritanceStatus.getUpdatedAt())
                 .build();
@@ -769,7 +860,7 @@ public class InheritanceServiceImpl implements InheritanceService {
                 .id(inheritanceEvent.getId())
                 .inheritanceRuleId(inheritanceEvent.getInheritanceRuleId())
                 .eventType(inheritanceEvent.getEventType())
-                .eventData(convertFromJson(inheritanceEvent.getEventData()))
+                .eventData(JsonPayload.ofObject(inheritanceEvent.getEventData()))
                 .createdAt(inheritanceEvent.getCreatedAt())
                 .createdBy(inheritanceEvent.getCreatedBy())
                 .build();
@@ -834,15 +925,13 @@ public class InheritanceServiceImpl implements InheritanceService {
         log.debug("Getting eligible recipients by relationship type '{}' for content: {}", 
                  relationshipTypeName, contentId);
 
-        // Get the content creator (assuming we have access to content service)
-        // For now, we'll get it from the inheritance rules
-        List<InheritanceRule> rules = inheritanceRuleRepository.findByContentId(contentId);
-        if (rules.isEmpty()) {
+        Optional<UUID> owner = contentOwnerResolver.resolveOwner(contentId);
+        if (owner.isEmpty()) {
             return Collections.emptyList();
         }
 
-        UUID creatorId = rules.get(0).getCreatedBy();
-        
+        UUID creatorId = owner.get();
+
         // Get users with the specified relationship type to the creator
         return relationshipServiceClient.getUsersByRelationshipType(creatorId, relationshipTypeName);
     }
@@ -852,15 +941,13 @@ public class InheritanceServiceImpl implements InheritanceService {
         log.debug("Getting eligible recipients by relationship category '{}' for content: {}", 
                  relationshipCategory, contentId);
 
-        // Get the content creator (assuming we have access to content service)
-        // For now, we'll get it from the inheritance rules
-        List<InheritanceRule> rules = inheritanceRuleRepository.findByContentId(contentId);
-        if (rules.isEmpty()) {
+        Optional<UUID> owner = contentOwnerResolver.resolveOwner(contentId);
+        if (owner.isEmpty()) {
             return Collections.emptyList();
         }
 
-        UUID creatorId = rules.get(0).getCreatedBy();
-        
+        UUID creatorId = owner.get();
+
         // Get users in the specified relationship category to the creator
         return relationshipServiceClient.getUsersByRelationshipCategory(creatorId, relationshipCategory);
     }
@@ -870,19 +957,11 @@ public class InheritanceServiceImpl implements InheritanceService {
         log.info("Processing inheritance for relationship type '{}' for content: {}", 
                 relationshipTypeName, contentId);
 
-        List<UUID> eligibleRecipients = getEligibleRecipientsByRelationshipType(contentId, relationshipTypeName);
-        
-        for (UUID recipientId : eligibleRecipients) {
-            // Find the inheritance rule for this relationship type
-            List<InheritanceRule> rules = inheritanceRuleRepository.findByContentIdAndTargetTypeAndTargetValue(
-                    contentId, TargetType.RELATIONSHIP_TYPE, relationshipTypeName);
-            
-            for (InheritanceRule rule : rules) {
-                if (rule.getStatus() == com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE) {
-                    processInheritanceForRecipient(recipientId, contentId, rule.getId());
-                }
-            }
-        }
+        int created = deliveryPlanner.deliver(contentId, TargetType.RELATIONSHIP_TYPE, relationshipTypeName,
+                creatorIds -> relationshipServiceClient.getUsersByRelationshipType(creatorIds, relationshipTypeName));
+
+        log.info("Processed inheritance for relationship type '{}' for content: {} - {} new deliveries",
+                relationshipTypeName, contentId, created);
     }
 
     @Override
@@ -890,19 +969,11 @@ public class InheritanceServiceImpl implements InheritanceService {
         log.info("Processing inheritance for relationship category '{}' for content: {}", 
                 relationshipCategory, contentId);
 
-        List<UUID> eligibleRecipients = getEligibleRecipientsByRelationshipCategory(contentId, relationshipCategory);
-        
-        for (UUID recipientId : eligibleRecipients) {
-            // Find the inheritance rule for this relationship category
-            List<InheritanceRule> rules = inheritanceRuleRepository.findByContentIdAndTargetTypeAndTargetValue(
-                    contentId, TargetType.RELATIONSHIP_CATEGORY, relationshipCategory);
-            
-            for (InheritanceRule rule : rules) {
-                if (rule.getStatus() == com.legacykeep.legacy.enums.InheritanceStatus.ACTIVE) {
-                    processInheritanceForRecipient(recipientId, contentId, rule.getId());
-                }
-            }
-        }
+        int created = deliveryPlanner.deliver(contentId, TargetType.RELATIONSHIP_CATEGORY, relationshipCategory,
+                creatorIds -> relationshipServiceClient.getUsersByRelationshipCategory(creatorIds, relationshipCategory));
+
+        log.info("Processed inheritance for relationship category '{}' for content: {} - {} new deliveries",
+                relationshipCategory, contentId, created);
     }
 
     @Override
@@ -911,13 +982,13 @@ public class InheritanceServiceImpl implements InheritanceService {
                  relationshipTypeName, userId, contentId);
 
         // Get the content creator
-        List<InheritanceRule> rules = inheritanceRuleRepository.findByContentId(contentId);
-        if (rules.isEmpty()) {
+        Optional<UUID> owner = contentOwnerResolver.resolveOwner(contentId);
+        if (owner.isEmpty()) {
             return false;
         }
 
-        UUID creatorId = rules.get(0).getCreatedBy();
-        
+        UUID creatorId = owner.get();
+
         // Check if user has the specified relationship type with the creator
         List<RelationshipServiceClient.RelationshipInfo> relationships = 
                 relationshipServiceClient.getRelationshipsByType(creatorId, relationshipTypeName);
@@ -932,13 +1003,13 @@ public class InheritanceServiceImpl implements InheritanceService {
                  relationshipCategory, userId, contentId);
 
         // Get the content creator
-        List<InheritanceRule> rules = inheritanceRuleRepository.findByContentId(contentId);
-        if (rules.isEmpty()) {
+        Optional<UUID> owner = contentOwnerResolver.resolveOwner(contentId);
+        if (owner.isEmpty()) {
             return false;
         }
 
-        UUID creatorId = rules.get(0).getCreatedBy();
-        
+        UUID creatorId = owner.get();
+
         // Check if user is in the specified relationship category with the creator
         List<RelationshipServiceClient.RelationshipInfo> relationships = 
                 relationshipServiceClient.getRelationshipsByCategory(creatorId, relationshipCategory);
@@ -967,46 +1038,18 @@ public class InheritanceServiceImpl implements InheritanceService {
     }
 
     /**
-     * Helper method to process inheritance for a specific recipient
+     * Helper method to resolve the recipients targeted by a rule
      */
-    private void processInheritanceForRecipient(UUID recipientId, UUID contentId, UUID ruleId) {
-        try {
-            // Check if inheritance status already exists
-            InheritanceStatus existingStatus = inheritanceStatusRepository
-                    .findByRecipientIdAndContentIdAndInheritanceRuleId(recipientId, contentId, ruleId);
-            
-            if (existingStatus == null) {
-                // Create new inheritance status
-                InheritanceStatus status = InheritanceStatus.builder()
-                        .recipientId(recipientId)
-                        .contentId(contentId)
-                        .inheritanceRuleId(ruleId)
-                        .status(com.legacykeep.legacy.entity.InheritanceStatus.Status.PENDING)
-                        .createdAt(LocalDateTime.now())
-                        .build();
-                
-                inheritanceStatusRepository.save(status);
-                
-                // Create inheritance event
-                InheritanceEvent event = InheritanceEvent.builder()
-                        .inheritanceRuleId(ruleId)
-                        .eventType(com.legacykeep.legacy.entity.InheritanceEvent.EventType.INHERITANCE_TRIGGERED)
-                        .eventData(convertToJson(Map.of(
-                                "recipientId", recipientId,
-                                "contentId", contentId,
-                                "triggeredAt", LocalDateTime.now()
-                        )))
-                        .createdAt(LocalDateTime.now())
-                        .build();
-                
-                inheritanceEventRepository.save(event);
-                
-                log.info("Inheritance processed for recipient: {} for content: {} with rule: {}", 
-                        recipientId, contentId, ruleId);
-            }
-        } catch (Exception e) {
-            log.error("Error processing inheritance for recipient: {} for content: {} with rule: {}: {}", 
-                     recipientId, contentId, ruleId, e.getMessage());
+    private List<UUID> resolveRecipients(InheritanceRule rule) {
+        switch (rule.getTargetType()) {
+            case RELATIONSHIP_TYPE:
+                return relationshipServiceClient.getUsersByRelationshipType(rule.getCreatorId(), rule.getTargetValue());
+            case RELATIONSHIP_CATEGORY:
+                return relationshipServiceClient.getUsersByRelationshipCategory(rule.getCreatorId(), rule.getTargetValue());
+            default:
+                log.debug("Recipient resolution not supported for target type: {} (rule: {})", 
+                         rule.getTargetType(), rule.getId());
+                return Collections.emptyList();
         }
     }
 }
@@ -0,0 +1,436 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.config.InheritanceProcessingRunProperties;
+import com.legacykeep.legacy.config.InheritanceShardingProperties;
+import com.legacykeep.legacy.enums.InheritanceWorkBand;
+import com.legacykeep.legacy.enums.TargetType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide ownership of inheritance processing by hash shard.
+ *
+ * Active rules are split into {@code shardCount} shards by a hash of their content ID.
+ * Every instance registers a heartbeat and holds leases on a fair share of the shards
+ * (shard count divided by live instances, rounded up). Heartbeats renew the leases,
+ * release shards above the fair share and claim unowned or expired ones, so shards move
+ * to new instances as they join and away from instances that stop heartbeating.
+ *
+ * Sweeps are recorded as processing runs by the {@link InheritanceProcessingRunStore}.
+ * The requesting instance queues the rules of its own shards straight away; every other
+ * instance picks up the run for its shards on its next poll. Rules are queued in the
+ * {@link InheritanceWorkQueue} bulk band, which holds one row per rule, so a rule queued
+ * twice is still processed once. Each shard checkpoints its keyset cursor as it goes; a
+ * shard whose lease is lost mid-sweep, or whose instance dies, is resumed from its last
+ * checkpoint by its next owner.
+ *
+ * With sharding disabled a run has a single shard covering every rule, swept by the
+ * requesting instance and resumed by any instance once its checkpoints go stale.
+ */
+@Component
+@Slf4j
+public class InheritanceShardCoordinator {
+
+    private static final String ENSURE_SHARDS_SQL =
+            "INSERT INTO inheritance_shard_leases (shard_id) SELECT generate_series(0, ? - 1) " +
+            "ON CONFLICT (shard_id) DO NOTHING";
+
+    private static final String HEARTBEAT_SQL =
+            "INSERT INTO inheritance_shard_nodes (node_id, heartbeat_at, started_at) VALUES (?, now(), now()) " +
+            "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = now()";
+
+    private static final String EXPIRE_NODES_SQL =
+            "DELETE FROM inheritance_shard_nodes WHERE heartbeat_at < now() - (? * interval '1 millisecond')";
+
+    private static final String COUNT_LIVE_NODES_SQL =
+            "SELECT count(*) FROM inheritance_shard_nodes WHERE heartbeat_at >= now() - (? * interval '1 millisecond')";
+
+    private static final String RENEW_LEASES_SQL =
+            "UPDATE inheritance_shard_leases SET lease_expires_at = now() + (? * interval '1 millisecond'), updated_at = now() " +
+            "WHERE owner_id = ? AND shard_id < ? " +
+            "RETURNING shard_id";
+
+    private static final String CLAIM_LEASES_SQL =
+            "UPDATE inheritance_shard_leases SET owner_id = ?, lease_expires_at = now() + (? * interval '1 millisecond'), " +
+            "updated_at = now() " +
+            "WHERE shard_id IN (" +
+            "SELECT shard_id FROM inheritance_shard_leases " +
+            "WHERE shard_id < ? AND (owner_id IS NULL OR lease_expires_at < now()) " +
+            "ORDER BY shard_id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING shard_id";
+
+    private static final String RELEASE_LEASES_SQL =
+            "UPDATE inheritance_shard_leases SET owner_id = NULL, lease_expires_at = NULL, updated_at = now() " +
+            "WHERE owner_id = ? AND shard_id = ANY(?::int[])";
+
+    private static final String RELEASE_ALL_LEASES_SQL =
+            "UPDATE inheritance_shard_leases SET owner_id = NULL, lease_expires_at = NULL, updated_at = now() " +
+            "WHERE owner_id = ?";
+
+    private static final String REMOVE_NODE_SQL =
+            "DELETE FROM inheritance_shard_nodes WHERE node_id = ?";
+
+    private static final String PENDING_SHARDS_SQL =
+            "SELECT r.id, r.run_type, r.target_type, r.target_value, l.shard_id " +
+            "FROM inheritance_processing_runs r " +
+            "JOIN inheritance_shard_leases l ON l.owner_id = ? AND l.shard_id < r.shard_count AND l.lease_expires_at > now() " +
+            "WHERE r.status = 'RUNNING' AND r.shard_count = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM inheritance_run_shards s " +
+            "WHERE s.run_id = r.id AND s.shard_id = l.shard_id AND s.completed_at IS NOT NULL) " +
+            "ORDER BY r.id, l.shard_id";
+
+    // Without sharding every instance may sweep a run, so skip runs another instance is actively checkpointing
+    private static final String PENDING_LOCAL_SQL =
+            "SELECT r.id, r.run_type, r.target_type, r.target_value, 0 " +
+            "FROM inheritance_processing_runs r " +
+            "WHERE r.status = 'RUNNING' AND r.shard_count = 1 " +
+            "AND NOT EXISTS (SELECT 1 FROM inheritance_run_shards s WHERE s.run_id = r.id " +
+            "AND (s.completed_at IS NOT NULL " +
+            "OR (s.node_id <> ? AND s.checkpointed_at >= now() - (? * interval '1 millisecond')))) " +
+            "ORDER BY r.id";
+
+    private static final String SHARD_RULES_SQL =
+            "SELECT id FROM inheritance_rules " +
+            "WHERE status = 'ACTIVE' AND (hashtext(content_id::text) & 2147483647) % ? = ? " +
+            "AND id > ? ORDER BY id LIMIT ?";
+
+    private static final String SHARD_TARGET_RULES_SQL =
+            "SELECT id FROM inheritance_rules " +
+            "WHERE status = 'ACTIVE' AND (hashtext(content_id::text) & 2147483647) % ? = ? " +
+            "AND target_type = ? AND target_value = ? " +
+            "AND id > ? ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InheritanceWorkQueue workQueue;
+    private final InheritanceProcessingRunStore runStore;
+    private final InheritanceShardingProperties properties;
+    private final InheritanceProcessingProperties processingProperties;
+    private final InheritanceProcessingRunProperties runProperties;
+    private final String nodeId;
+
+    private volatile Set<Integer> ownedShards = Collections.emptySet();
+    private volatile Integer sweepingShard;
+    private final Object sweepLock = new Object();
+
+    private ScheduledExecutorService heartbeat;
+    private ScheduledExecutorService sweeper;
+
+    public InheritanceShardCoordinator(JdbcTemplate jdbcTemplate,
+                                       InheritanceWorkQueue workQueue,
+                                       InheritanceProcessingRunStore runStore,
+                                       InheritanceShardingProperties properties,
+                                       InheritanceProcessingProperties processingProperties,
+                                       InheritanceProcessingRunProperties runProperties,
+                                       NodeIdentity nodeIdentity,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.workQueue = workQueue;
+        this.runStore = runStore;
+        this.properties = properties;
+        this.processingProperties = processingProperties;
+        this.runProperties = runProperties;
+        this.nodeId = nodeIdentity.getId();
+
+        Gauge.builder("legacy.inheritance.sharding.owned.shards", this, coordinator -> coordinator.ownedShards.size())
+                .description("Inheritance processing shards leased by this instance")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-shard-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Resumes interrupted runs and completes finished ones, with or without sharding
+        sweeper.scheduleWithFixedDelay(this::pollSweeps, properties.getSweepPollIntervalMillis(),
+                properties.getSweepPollIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        if (!properties.isEnabled()) {
+            log.info("Sharded inheritance processing is disabled; runs are swept as a single shard");
+            return;
+        }
+
+        jdbcTemplate.update(ENSURE_SHARDS_SQL, properties.getShardCount());
+
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-shard-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, 0, properties.getHeartbeatIntervalMillis(), TimeUnit.MILLISECONDS);
+
+        log.info("Inheritance shard coordinator started as node {} for {} shards", nodeId, properties.getShardCount());
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweeper == null) {
+            return;
+        }
+
+        sweeper.shutdownNow();
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+        }
+        try {
+            sweeper.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (heartbeat == null) {
+            return;
+        }
+
+        // Hand shards over immediately instead of waiting for the leases to expire
+        try {
+            jdbcTemplate.update(RELEASE_ALL_LEASES_SQL, nodeId);
+            jdbcTemplate.update(REMOVE_NODE_SQL, nodeId);
+            ownedShards = Collections.emptySet();
+        } catch (Exception e) {
+            log.warn("Error releasing inheritance shard leases for node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Shards currently leased by this instance.
+     */
+    public Set<Integer> getOwnedShards() {
+        return ownedShards;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Start a cluster-wide processing run and queue this instance's shards of it.
+     * Other instances queue their shards on their next poll.
+     *
+     * @param runType Label used in logs and as the queue reason
+     * @param targetType Target type to sweep, or null for every active rule
+     * @param targetValue Target value to sweep, or null for every active rule
+     * @return The run ID
+     */
+    public long requestSweep(String runType, TargetType targetType, String targetValue) {
+        long runId = runStore.createRun(runType, targetType != null ? targetType.name() : null, targetValue,
+                shardCount(), nodeId);
+        log.info("Started inheritance processing run {} ({}) across {} shards", runId, runType, shardCount());
+
+        long queued = sweepOwnedShards();
+        log.info("Queued {} inheritance rules of run {} from shards owned by node {}", queued, runId, nodeId);
+        return runId;
+    }
+
+    private void pollSweeps() {
+        try {
+            long queued = sweepOwnedShards();
+            if (queued > 0) {
+                log.info("Queued {} inheritance rules from owned shards", queued);
+            }
+            runStore.completeFinishedRuns();
+        } catch (Exception e) {
+            log.error("Error sweeping owned inheritance shards", e);
+        }
+    }
+
+    /**
+     * Queue the rules of every running run for the shards this instance owns.
+     */
+    private long sweepOwnedShards() {
+        synchronized (sweepLock) {
+            RowMapper<PendingSweep> mapper = (rs, rowNum) -> new PendingSweep(rs.getLong(1), rs.getString(2),
+                    rs.getString(3), rs.getString(4), rs.getInt(5));
+            List<PendingSweep> pending = properties.isEnabled()
+                    ? jdbcTemplate.query(PENDING_SHARDS_SQL, mapper, nodeId, properties.getShardCount())
+                    : jdbcTemplate.query(PENDING_LOCAL_SQL, mapper, nodeId, runProperties.getStaleAfterMillis());
+
+            long queued = 0;
+            for (PendingSweep sweep : pending) {
+                queued += Math.max(0L, sweepShard(sweep));
+            }
+            return queued;
+        }
+    }
+
+    /**
+     * Queue the rules of one shard of a run, a keyset page at a time, resuming after the
+     * shard's last checkpoint. Sweeps are bulk work, so triggered work queued meanwhile is
+     * still processed first.
+     *
+     * @return Number of rules queued, or -1 if the shard was taken by another instance
+     */
+    private long sweepShard(PendingSweep sweep) {
+        UUID cursor = runStore.claimShard(sweep.getRunId(), sweep.getShardId(), nodeId, properties.isEnabled());
+        if (cursor == null) {
+            return -1;
+        }
+        if (!InheritanceProcessingRunStore.MIN_UUID.equals(cursor)) {
+            log.info("Resuming shard {} of inheritance processing run {} after rule {}",
+                    sweep.getShardId(), sweep.getRunId(), cursor);
+        }
+
+        long queued = 0;
+        long uncheckpointed = 0;
+        long checkpointedAt = System.currentTimeMillis();
+        sweepingShard = sweep.getShardId();
+        try {
+            while (true) {
+                if (properties.isEnabled() && !ownedShards.contains(sweep.getShardId())) {
+                    log.info("Lost lease on inheritance shard {} during run {}; its new owner will resume it",
+                            sweep.getShardId(), sweep.getRunId());
+                    return -1;
+                }
+
+                List<UUID> ruleIds = findShardRuleIds(sweep, cursor);
+                if (ruleIds.isEmpty()) {
+                    UUID lastQueued = InheritanceProcessingRunStore.MIN_UUID.equals(cursor) ? null : cursor;
+                    return runStore.checkpoint(sweep.getRunId(), sweep.getShardId(), nodeId, lastQueued, uncheckpointed, true)
+                            ? queued : -1;
+                }
+
+                int pageQueued = workQueue.enqueue(ruleIds, InheritanceWorkBand.BULK, sweep.getRunType(), sweep.getRunId());
+                InheritanceJobProgress.current().recordProcessed(pageQueued, 0);
+                queued += pageQueued;
+                uncheckpointed += pageQueued;
+                cursor = ruleIds.get(ruleIds.size() - 1);
+
+                // Checkpoint often enough that a live sweep never looks stale to other instances
+                long now = System.currentTimeMillis();
+                if (uncheckpointed >= runProperties.getCheckpointInterval()
+                        || now - checkpointedAt >= runProperties.getStaleAfterMillis() / 4) {
+                    if (!runStore.checkpoint(sweep.getRunId(), sweep.getShardId(), nodeId, cursor, uncheckpointed, false)) {
+                        log.info("Shard {} of inheritance processing run {} was taken over by another node",
+                                sweep.getShardId(), sweep.getRunId());
+                        return -1;
+                    }
+                    uncheckpointed = 0;
+                    checkpointedAt = now;
+                }
+            }
+        } finally {
+            sweepingShard = null;
+        }
+    }
+
+    private List<UUID> findShardRuleIds(PendingSweep sweep, UUID afterId) {
+        int pageSize = processingProperties.getPartitionSize();
+        if (sweep.getTargetType() == null) {
+            return jdbcTemplate.queryForList(SHARD_RULES_SQL, UUID.class,
+                    shardCount(), sweep.getShardId(), afterId, pageSize);
+        }
+        return jdbcTemplate.queryForList(SHARD_TARGET_RULES_SQL, UUID.class,
+                shardCount(), sweep.getShardId(), sweep.getTargetType(), sweep.getTargetValue(),
+                afterId, pageSize);
+    }
+
+    /**
+     * Renew this instance's leases and move it towards its fair share of shards.
+     */
+    private void heartbeat() {
+        try {
+            long ttl = properties.getLeaseTtlMillis();
+            jdbcTemplate.update(HEARTBEAT_SQL, nodeId);
+            jdbcTemplate.update(EXPIRE_NODES_SQL, ttl);
+
+            Long liveNodes = jdbcTemplate.queryForObject(COUNT_LIVE_NODES_SQL, Long.class, ttl);
+            int shardCount = properties.getShardCount();
+            int fairShare = (int) Math.ceil(shardCount / (double) Math.max(1L, liveNodes != null ? liveNodes : 1L));
+
+            TreeSet<Integer> owned = new TreeSet<>(jdbcTemplate.queryForList(RENEW_LEASES_SQL, Integer.class,
+                    ttl, nodeId, shardCount));
+
+            if (owned.size() > fairShare) {
+                List<Integer> excess = new ArrayList<>();
+                Integer busy = sweepingShard;
+                for (Integer shardId : owned.descendingSet()) {
+                    if (owned.size() - excess.size() <= fairShare) {
+                        break;
+                    }
+                    if (!shardId.equals(busy)) {
+                        excess.add(shardId);
+                    }
+                }
+                release(excess);
+                excess.forEach(owned::remove);
+                log.info("Released inheritance shards {} to rebalance across {} nodes", excess, liveNodes);
+            } else if (owned.size() < fairShare) {
+                List<Integer> claimed = jdbcTemplate.queryForList(CLAIM_LEASES_SQL, Integer.class,
+                        nodeId, ttl, shardCount, fairShare - owned.size());
+                if (!claimed.isEmpty()) {
+                    owned.addAll(claimed);
+                    log.info("Claimed inheritance shards {} ({} of fair share {})", claimed, owned.size(), fairShare);
+                }
+            }
+
+            ownedShards = Collections.unmodifiableSet(owned);
+        } catch (Exception e) {
+            // Leases simply expire if heartbeats keep failing; stop trusting them before they do
+            log.error("Inheritance shard heartbeat failed for node {}: {}", nodeId, e.getMessage());
+            ownedShards = Collections.emptySet();
+        }
+    }
+
+    private int shardCount() {
+        return properties.isEnabled() ? properties.getShardCount() : 1;
+    }
+
+    private void release(List<Integer> shardIds) {
+        if (shardIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RELEASE_LEASES_SQL);
+            statement.setString(1, nodeId);
+            statement.setArray(2, connection.createArrayOf("int4", shardIds.toArray()));
+            return statement;
+        });
+    }
+
+    private static final class PendingSweep {
+        private final long runId;
+        private final String runType;
+        private final String targetType;
+        private final String targetValue;
+        private final int shardId;
+
+        private PendingSweep(long runId, String runType, String targetType, String targetValue, int shardId) {
+            this.runId = runId;
+            this.runType = runType;
+            this.targetType = targetType;
+            this.targetValue = targetValue;
+            this.shardId = shardId;
+        }
+
+        // Getters
+        public long getRunId() { return runId; }
+        public String getRunType() { return runType; }
+        public String getTargetType() { return targetType; }
+        public String getTargetValue() { return targetValue; }
+        public int getShardId() { return shardId; }
+    }
+}
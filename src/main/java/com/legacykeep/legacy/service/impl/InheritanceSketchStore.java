@@ -0,0 +1,493 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceSketchProperties;
+import com.legacykeep.legacy.entity.InheritanceEvent;
+import com.legacykeep.legacy.enums.TargetType;
+import com.legacykeep.legacy.repository.InheritanceRuleRepository;
+import com.legacykeep.legacy.util.TransactionUtils;
+import com.legacykeep.legacy.util.sketch.CountMinSketch;
+import com.legacykeep.legacy.util.sketch.HyperLogLog;
+import com.legacykeep.legacy.util.sketch.SketchHashing;
+import com.legacykeep.legacy.util.sketch.SpaceSavingTopK;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Approximate inheritance statistics backed by mergeable sketches.
+ *
+ * Per month and per dimension key (GLOBAL, CONTENT, CREATOR, RELATIONSHIP_TYPE) this
+ * node maintains a HyperLogLog of distinct recipients reached and, except per content,
+ * a space-saving summary of the most accessed contents; GLOBAL and RELATIONSHIP_TYPE
+ * also keep a count-min sketch to tighten the access counts. Sketches are updated after
+ * commit as inheritance events are journaled or delivered.
+ *
+ * In-memory deltas are periodically merged into this node's rows of
+ * {@code inheritance_sketches}; each node only writes its own rows, so flushes never
+ * contend. Queries merge every node's rows for the requested key with the local
+ * unflushed delta, and report error bounds alongside the estimates.
+ */
+@Component
+@Slf4j
+public class InheritanceSketchStore {
+
+    private static final String RECIPIENTS_HLL = "RECIPIENTS_HLL";
+    private static final String ACCESSES_CMS = "ACCESSES_CMS";
+    private static final String ACCESSES_TOPK = "ACCESSES_TOPK";
+
+    private static final int FLUSH_CHUNK_SIZE = 500;
+
+    private static final String LOAD_NODE_SKETCHES_SQL =
+            "SELECT s.dimension, s.dimension_key, s.bucket_month, s.sketch_type, s.sketch FROM inheritance_sketches s " +
+            "JOIN unnest(?::varchar[], ?::varchar[], ?::date[]) AS k(dimension, dimension_key, bucket_month) " +
+            "ON s.dimension = k.dimension AND s.dimension_key = k.dimension_key AND s.bucket_month = k.bucket_month " +
+            "WHERE s.node_id = ?";
+
+    private static final String UPSERT_SKETCH_SQL =
+            "INSERT INTO inheritance_sketches (dimension, dimension_key, bucket_month, sketch_type, node_id, sketch, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, now()) " +
+            "ON CONFLICT (dimension, dimension_key, sketch_type, bucket_month, node_id) " +
+            "DO UPDATE SET sketch = EXCLUDED.sketch, updated_at = EXCLUDED.updated_at";
+
+    private static final String LOAD_KEY_SKETCHES_SQL =
+            "SELECT sketch_type, sketch FROM inheritance_sketches WHERE dimension = ? AND dimension_key = ?";
+
+    private final InheritanceRuleIndex ruleIndex;
+    private final InheritanceRuleRepository ruleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InheritanceSketchProperties properties;
+    private final String nodeId;
+    private final Counter flushedCounter;
+
+    private final ConcurrentHashMap<SketchKey, SketchSet> pending = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    public InheritanceSketchStore(InheritanceRuleIndex ruleIndex,
+                                  InheritanceRuleRepository ruleRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  InheritanceSketchProperties properties,
+                                  NodeIdentity nodeIdentity,
+                                  MeterRegistry meterRegistry) {
+        this.ruleIndex = ruleIndex;
+        this.ruleRepository = ruleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.nodeId = nodeIdentity.getId();
+
+        this.flushedCounter = Counter.builder("legacy.inheritance.sketches.flushed")
+                .description("Inheritance sketch deltas persisted")
+                .register(meterRegistry);
+        Gauge.builder("legacy.inheritance.sketches.pending", pending, Map::size)
+                .description("Inheritance sketch deltas waiting to be persisted")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isEnabled()) {
+            log.info("Inheritance sketches are disabled");
+            return;
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-sketch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, properties.getFlushIntervalMillis(),
+                properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("Inheritance sketches enabled for node: {}", nodeId);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher == null) {
+            return;
+        }
+
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+    }
+
+    /**
+     * Record a journaled inheritance event. Deliveries and content accesses are
+     * sketched once the current transaction commits; other events are ignored.
+     */
+    public void recordEvent(UUID ruleId, InheritanceEvent.EventType eventType, Map<String, Object> eventData) {
+        if (eventData == null) {
+            return;
+        }
+
+        if (eventType == InheritanceEvent.EventType.INHERITANCE_TRIGGERED) {
+            UUID recipientId = toUuid(eventData.get("recipientId"));
+            if (recipientId != null) {
+                recordDeliveries(ruleId, List.of(recipientId));
+            }
+        } else if (eventType == InheritanceEvent.EventType.CONTENT_ACCESSED) {
+            UUID contentId = toUuid(eventData.get("contentId"));
+            if (contentId != null) {
+                recordAccess(ruleId, contentId);
+            }
+        }
+    }
+
+    /**
+     * Record recipients reached by a rule, once the current transaction commits.
+     */
+    public void recordDeliveries(UUID ruleId, Collection<UUID> recipientIds) {
+        if (!properties.isEnabled() || recipientIds == null || recipientIds.isEmpty()) {
+            return;
+        }
+
+        List<SketchKey> keys = keysFor(ruleId, true);
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        List<UUID> recipients = new ArrayList<>(recipientIds);
+        TransactionUtils.afterCommit(() -> {
+            for (SketchKey key : keys) {
+                pending.compute(key, (k, sketches) -> {
+                    SketchSet set = sketches != null ? sketches : new SketchSet();
+                    HyperLogLog hll = set.recipients();
+                    recipients.forEach(recipientId -> hll.add(SketchHashing.hash(recipientId)));
+                    return set;
+                });
+            }
+        });
+    }
+
+    /**
+     * Record an access to content inherited through a rule, once the current transaction commits.
+     */
+    public void recordAccess(UUID ruleId, UUID contentId) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<SketchKey> keys = keysFor(ruleId, false);
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> {
+            for (SketchKey key : keys) {
+                pending.compute(key, (k, sketches) -> {
+                    SketchSet set = sketches != null ? sketches : new SketchSet();
+                    if (!InheritanceRollupReader.CREATOR.equals(k.getDimension())) {
+                        set.accesses().add(SketchHashing.hash(contentId), 1);
+                    }
+                    set.topContents().add(contentId.toString(), 1);
+                    return set;
+                });
+            }
+        });
+    }
+
+    /**
+     * Approximate statistics for a dimension key, merged across all nodes and months.
+     *
+     * @param dimension The dimension (see {@link InheritanceRollupReader})
+     * @param key The dimension key
+     * @param topLimit Maximum number of top contents to report
+     * @return distinctRecipients and, where tracked, topContentsByAccesses, each with error bounds
+     */
+    public Map<String, Object> getStatistics(String dimension, String key, int topLimit) {
+        SketchSet merged = new SketchSet();
+
+        jdbcTemplate.query(LOAD_KEY_SKETCHES_SQL, rs -> {
+            try {
+                merged.merge(rs.getString(1), rs.getBytes(2));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping incompatible {} sketch for {} {}: {}", rs.getString(1), dimension, key, e.getMessage());
+            }
+        }, dimension, key);
+
+        // Include this node's deltas that have not been persisted yet
+        for (SketchKey pendingKey : pending.keySet()) {
+            if (pendingKey.getDimension().equals(dimension) && pendingKey.getDimensionKey().equals(key)) {
+                pending.computeIfPresent(pendingKey, (k, delta) -> {
+                    merged.merge(delta);
+                    return delta;
+                });
+            }
+        }
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("distinctRecipients", distinctRecipients(merged.recipients));
+        if (merged.topContents != null) {
+            statistics.put("topContentsByAccesses", topContents(merged, topLimit));
+        }
+        return statistics;
+    }
+
+    /**
+     * Persist in-memory deltas. Runs on the flusher thread.
+     */
+    void flush() {
+        List<SketchKey> keys = new ArrayList<>(pending.keySet());
+        for (int from = 0; from < keys.size(); from += FLUSH_CHUNK_SIZE) {
+            Map<SketchKey, SketchSet> deltas = new HashMap<>();
+            for (SketchKey key : keys.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, keys.size()))) {
+                SketchSet delta = pending.remove(key);
+                if (delta != null) {
+                    deltas.put(key, delta);
+                }
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(deltas));
+                flushedCounter.increment(deltas.size());
+            } catch (Exception e) {
+                // Put the deltas back so the next flush retries them
+                deltas.forEach((key, delta) -> pending.merge(key, delta, (current, restored) -> {
+                    current.merge(restored);
+                    return current;
+                }));
+                log.error("Error persisting inheritance sketches, will retry: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void persist(Map<SketchKey, SketchSet> deltas) {
+        List<SketchKey> keys = new ArrayList<>(deltas.keySet());
+        Object[] dimensions = keys.stream().map(SketchKey::getDimension).toArray();
+        Object[] dimensionKeys = keys.stream().map(SketchKey::getDimensionKey).toArray();
+        Object[] months = keys.stream().map(key -> Date.valueOf(key.getBucketMonth())).toArray();
+
+        // Fold this node's stored sketches into the deltas, then write the results back
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOAD_NODE_SKETCHES_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", dimensions));
+            statement.setArray(2, connection.createArrayOf("varchar", dimensionKeys));
+            statement.setArray(3, connection.createArrayOf("date", months));
+            statement.setString(4, nodeId);
+            return statement;
+        }, rs -> {
+            SketchKey key = new SketchKey(rs.getString(1), rs.getString(2), rs.getDate(3).toLocalDate());
+            try {
+                deltas.get(key).merge(rs.getString(4), rs.getBytes(5));
+            } catch (IllegalArgumentException e) {
+                log.warn("Replacing incompatible {} sketch for {}: {}", rs.getString(4), key, e.getMessage());
+            }
+        });
+
+        List<Object[]> rows = new ArrayList<>();
+        deltas.forEach((key, delta) -> delta.serialize().forEach((type, bytes) -> rows.add(new Object[] {
+                key.getDimension(), key.getDimensionKey(), Date.valueOf(key.getBucketMonth()), type, nodeId, bytes})));
+        jdbcTemplate.batchUpdate(UPSERT_SKETCH_SQL, rows);
+
+        log.debug("Persisted {} inheritance sketches for {} keys", rows.size(), deltas.size());
+    }
+
+    /**
+     * Sketch keys of a rule, resolved when the event is recorded. Rules that are no longer
+     * active (paused, completed, cancelled) are not in the index and are read from the
+     * database, so their later deliveries and accesses are still counted.
+     */
+    private List<SketchKey> keysFor(UUID ruleId, boolean includeContent) {
+        return ruleIndex.get(ruleId)
+                .or(() -> ruleRepository.findIndexEntryById(ruleId).map(InheritanceRuleIndex.RuleEntry::from))
+                .map(rule -> keysFor(rule, includeContent))
+                .orElse(List.of());
+    }
+
+    private List<SketchKey> keysFor(InheritanceRuleIndex.RuleEntry rule, boolean includeContent) {
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        List<SketchKey> keys = new ArrayList<>(4);
+        keys.add(new SketchKey(InheritanceRollupReader.GLOBAL, "", month));
+        if (includeContent) {
+            keys.add(new SketchKey(InheritanceRollupReader.CONTENT, rule.getContentId().toString(), month));
+        }
+        keys.add(new SketchKey(InheritanceRollupReader.CREATOR, rule.getCreatorId().toString(), month));
+        if (rule.getTargetType() == TargetType.RELATIONSHIP_TYPE) {
+            keys.add(new SketchKey(InheritanceRollupReader.RELATIONSHIP_TYPE,
+                    rule.getTargetValue().toLowerCase(Locale.ROOT), month));
+        }
+        return keys;
+    }
+
+    private Map<String, Object> distinctRecipients(HyperLogLog recipients) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (recipients == null) {
+            result.put("estimate", 0L);
+            result.put("relativeStandardError", 0.0);
+            result.put("lowerBound", 0L);
+            result.put("upperBound", 0L);
+            return result;
+        }
+
+        long estimate = recipients.estimate();
+        double error = recipients.relativeStandardError();
+        // Two standard errors: roughly a 95% interval
+        result.put("estimate", estimate);
+        result.put("relativeStandardError", error);
+        result.put("lowerBound", Math.max(0L, Math.round(estimate * (1 - 2 * error))));
+        result.put("upperBound", Math.round(estimate * (1 + 2 * error)));
+        return result;
+    }
+
+    private List<Map<String, Object>> topContents(SketchSet sketches, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SpaceSavingTopK.Item item : sketches.topContents.top(limit)) {
+            long upper = item.getCount();
+            if (sketches.accesses != null) {
+                upper = Math.min(upper, sketches.accesses.estimate(SketchHashing.hash(UUID.fromString(item.getItem()))));
+            }
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("contentId", item.getItem());
+            entry.put("estimatedAccesses", upper);
+            entry.put("lowerBound", Math.max(0L, Math.min(upper, item.getCount() - item.getError())));
+            entry.put("upperBound", upper);
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static UUID toUuid(Object value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        if (value instanceof String text) {
+            try {
+                return UUID.fromString(text);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Value
+    private static class SketchKey {
+        String dimension;
+        String dimensionKey;
+        LocalDate bucketMonth;
+    }
+
+    /**
+     * The sketches of one dimension key and month. Each sketch is created on first use.
+     */
+    private class SketchSet {
+        private HyperLogLog recipients;
+        private CountMinSketch accesses;
+        private SpaceSavingTopK topContents;
+
+        private HyperLogLog recipients() {
+            if (recipients == null) {
+                recipients = new HyperLogLog(properties.getHllPrecision());
+            }
+            return recipients;
+        }
+
+        private CountMinSketch accesses() {
+            if (accesses == null) {
+                accesses = new CountMinSketch(properties.getCountMinWidth(), properties.getCountMinDepth());
+            }
+            return accesses;
+        }
+
+        private SpaceSavingTopK topContents() {
+            if (topContents == null) {
+                topContents = new SpaceSavingTopK(properties.getTopKCapacity());
+            }
+            return topContents;
+        }
+
+        private void merge(SketchSet other) {
+            if (other.recipients != null) {
+                mergeRecipients(other.recipients);
+            }
+            if (other.accesses != null) {
+                mergeAccesses(other.accesses);
+            }
+            if (other.topContents != null) {
+                mergeTopContents(other.topContents);
+            }
+        }
+
+        private void merge(String type, byte[] bytes) {
+            switch (type) {
+                case RECIPIENTS_HLL -> mergeRecipients(HyperLogLog.fromBytes(bytes));
+                case ACCESSES_CMS -> mergeAccesses(CountMinSketch.fromBytes(bytes));
+                case ACCESSES_TOPK -> mergeTopContents(SpaceSavingTopK.fromBytes(bytes));
+                default -> throw new IllegalArgumentException("Unknown sketch type: " + type);
+            }
+        }
+
+        // A stored sketch may have been built with other parameters; adopt it when this one is empty
+        private void mergeRecipients(HyperLogLog other) {
+            if (recipients == null) {
+                recipients = HyperLogLog.fromBytes(other.toBytes());
+            } else {
+                recipients.merge(other);
+            }
+        }
+
+        private void mergeAccesses(CountMinSketch other) {
+            if (accesses == null) {
+                accesses = CountMinSketch.fromBytes(other.toBytes());
+            } else {
+                accesses.merge(other);
+            }
+        }
+
+        private void mergeTopContents(SpaceSavingTopK other) {
+            if (topContents == null) {
+                topContents = SpaceSavingTopK.fromBytes(other.toBytes());
+            } else {
+                topContents.merge(other);
+            }
+        }
+
+        private Map<String, byte[]> serialize() {
+            Map<String, byte[]> serialized = new HashMap<>();
+            if (recipients != null) {
+                serialized.put(RECIPIENTS_HLL, recipients.toBytes());
+            }
+            if (accesses != null) {
+                serialized.put(ACCESSES_CMS, accesses.toBytes());
+            }
+            if (topContents != null) {
+                serialized.put(ACCESSES_TOPK, topContents.toBytes());
+            }
+            return serialized;
+        }
+    }
+}
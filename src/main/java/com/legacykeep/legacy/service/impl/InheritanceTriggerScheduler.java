@@ -0,0 +1,372 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceSchedulerProperties;
+import com.legacykeep.legacy.entity.InheritanceRule;
+import com.legacykeep.legacy.repository.InheritanceRuleRepository;
+import com.legacykeep.legacy.repository.InheritanceRuleScheduleProjection;
+import com.legacykeep.legacy.service.InheritanceService;
+import com.legacykeep.legacy.util.HierarchicalTimingWheel;
+import com.legacykeep.legacy.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires TIME_BASED inheritance rules when they fall due.
+ *
+ * Each rule's next due time is derived from its trigger metadata (see
+ * {@link TimeBasedTriggerSchedule}) and stored in {@code inheritance_rules.next_fire_at}.
+ * Only rules due within the next horizon window are loaded from the database and held
+ * in a {@link HierarchicalTimingWheel}; the window is extended periodically. Due rules
+ * are dispatched to the {@link InheritanceProcessingEngine} in batches, after which
+ * recurring rules are rescheduled and one-shot rules are completed.
+ *
+ * Because due times are persisted, a restart only reloads the current window; rules
+ * that fell due while the service was down fire as soon as the window is loaded.
+ * Every instance holds the same window, so a firing is claimed with a conditional
+ * update of {@code next_fire_at} and only the instance that wins the claim fires it.
+ */
+@Component
+@Slf4j
+public class InheritanceTriggerScheduler {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+
+    private final InheritanceRuleRepository inheritanceRuleRepository;
+    private final InheritanceProcessingEngine processingEngine;
+    private final InheritanceService inheritanceService;
+    private final InheritanceSchedulerProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter firedCounter;
+
+    private final Object wheelLock = new Object();
+    private final Map<UUID, HierarchicalTimingWheel.Handle<UUID>> handles = new HashMap<>();
+    private HierarchicalTimingWheel<UUID> wheel;
+    private LocalDateTime loadedUntil = EPOCH;
+    private ScheduledExecutorService executor;
+
+    public InheritanceTriggerScheduler(InheritanceRuleRepository inheritanceRuleRepository,
+                                       InheritanceProcessingEngine processingEngine,
+                                       @Lazy InheritanceService inheritanceService,
+                                       InheritanceSchedulerProperties properties,
+                                       ObjectMapper objectMapper,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.inheritanceRuleRepository = inheritanceRuleRepository;
+        this.processingEngine = processingEngine;
+        this.inheritanceService = inheritanceService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+
+        this.firedCounter = Counter.builder("legacy.inheritance.scheduler.fired")
+                .description("TIME_BASED inheritance rules fired")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("TIME_BASED inheritance trigger scheduler is disabled");
+            return;
+        }
+
+        synchronized (wheelLock) {
+            wheel = new HierarchicalTimingWheel<>(properties.getTickMillis(), properties.getWheelSize(),
+                    properties.getWheelLevels(), System.currentTimeMillis());
+        }
+        Gauge.builder("legacy.inheritance.scheduler.pending", this, InheritanceTriggerScheduler::pendingCount)
+                .description("TIME_BASED inheritance rules held in the timing wheel")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-trigger-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Tasks run in submission order on one thread: backfill, first window, then ticks
+        executor.execute(this::backfillUnscheduledRules);
+        executor.scheduleWithFixedDelay(this::loadWindow, 0, properties.getRefreshIntervalSeconds(), TimeUnit.SECONDS);
+        executor.scheduleWithFixedDelay(this::tick, properties.getTickMillis(), properties.getTickMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compute the next due time of a rule from its trigger metadata.
+     *
+     * @return The next due time, or null if the rule is not TIME_BASED or has no valid schedule
+     */
+    public LocalDateTime computeNextFireAt(InheritanceRule rule) {
+        if (!rule.isTimeBasedInheritance()) {
+            return null;
+        }
+
+        Optional<TimeBasedTriggerSchedule> schedule = parseSchedule(rule);
+        if (schedule.isEmpty()) {
+            log.warn("TIME_BASED inheritance rule {} has no valid schedule in its trigger metadata", rule.getId());
+            return null;
+        }
+        return schedule.get().firstFireAtOrAfter(LocalDateTime.now()).orElse(null);
+    }
+
+    /**
+     * Schedule or unschedule a saved rule once the current transaction commits.
+     */
+    public void onRuleSaved(InheritanceRule rule) {
+        UUID ruleId = rule.getId();
+        LocalDateTime nextFireAt = rule.isActive() && rule.isTimeBasedInheritance() ? rule.getNextFireAt() : null;
+        TransactionUtils.afterCommit(() -> {
+            if (nextFireAt != null) {
+                schedule(ruleId, nextFireAt);
+            } else {
+                cancel(ruleId);
+            }
+        });
+    }
+
+    /**
+     * Unschedule a deleted rule once the current transaction commits.
+     */
+    public void onRuleDeleted(UUID ruleId) {
+        TransactionUtils.afterCommit(() -> cancel(ruleId));
+    }
+
+    private void backfillUnscheduledRules() {
+        try {
+            UUID afterId = MIN_UUID;
+            int scheduled = 0;
+            while (true) {
+                List<InheritanceRule> page = inheritanceRuleRepository.findUnscheduledTimeBasedRules(
+                        afterId, PageRequest.of(0, properties.getLoadPageSize()));
+                if (page.isEmpty()) {
+                    break;
+                }
+
+                scheduled += transactionTemplate.execute(status -> {
+                    int count = 0;
+                    for (InheritanceRule rule : page) {
+                        LocalDateTime nextFireAt = computeNextFireAt(rule);
+                        if (nextFireAt != null) {
+                            inheritanceRuleRepository.updateNextFireAt(rule.getId(), nextFireAt);
+                            count++;
+                        }
+                    }
+                    return count;
+                });
+                afterId = page.get(page.size() - 1).getId();
+            }
+
+            if (scheduled > 0) {
+                log.info("Computed due times for {} TIME_BASED inheritance rules", scheduled);
+            }
+        } catch (Exception e) {
+            log.error("Error computing due times for unscheduled TIME_BASED inheritance rules", e);
+        }
+    }
+
+    private void loadWindow() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime from;
+            LocalDateTime to = now.plusMinutes(properties.getHorizonMinutes());
+            synchronized (wheelLock) {
+                LocalDateTime wheelHorizon = toLocalDateTime(wheel.horizonMillis());
+                if (to.isAfter(wheelHorizon)) {
+                    to = wheelHorizon;
+                }
+                from = loadedUntil;
+                // Advance first so rules saved while the window is read are scheduled directly
+                loadedUntil = to;
+            }
+
+            // Rules that are still overdue failed when they fired; retry them once per refresh
+            if (!from.equals(EPOCH)) {
+                int retried = loadRange(EPOCH, from.isBefore(now) ? from : now);
+                if (retried > 0) {
+                    log.warn("Retrying {} overdue TIME_BASED inheritance rules", retried);
+                }
+            }
+
+            int loaded = loadRange(from, to);
+            log.debug("Loaded {} TIME_BASED inheritance rules due until {}", loaded, to);
+        } catch (Exception e) {
+            log.error("Error loading TIME_BASED inheritance rules into the scheduler", e);
+        }
+    }
+
+    private int loadRange(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime afterFireAt = from;
+        UUID afterId = MIN_UUID;
+        int loaded = 0;
+        while (true) {
+            List<InheritanceRuleScheduleProjection> page = inheritanceRuleRepository.findDueTimeBasedRules(
+                    from, to, afterFireAt, afterId, PageRequest.of(0, properties.getLoadPageSize()));
+            if (page.isEmpty()) {
+                return loaded;
+            }
+
+            for (InheritanceRuleScheduleProjection rule : page) {
+                schedule(rule.getId(), rule.getNextFireAt());
+            }
+            loaded += page.size();
+
+            InheritanceRuleScheduleProjection last = page.get(page.size() - 1);
+            afterFireAt = last.getNextFireAt();
+            afterId = last.getId();
+        }
+    }
+
+    private void tick() {
+        List<UUID> due;
+        synchronized (wheelLock) {
+            due = wheel.advance(System.currentTimeMillis());
+            due.forEach(handles::remove);
+        }
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (int from = 0; from < due.size(); from += properties.getDispatchBatchSize()) {
+                List<UUID> batch = new ArrayList<>(due.subList(from, Math.min(from + properties.getDispatchBatchSize(), due.size())));
+                processingEngine.processRules("TIME_BASED", batch, this::fire);
+            }
+        } catch (Exception e) {
+            log.error("Error dispatching due TIME_BASED inheritance rules", e);
+        }
+    }
+
+    /**
+     * Fire a due rule. Runs in the processing engine's per-rule transaction.
+     */
+    private void fire(UUID ruleId) {
+        InheritanceRule rule = inheritanceRuleRepository.findById(ruleId).orElse(null);
+        LocalDateTime now = LocalDateTime.now();
+        if (rule == null || !rule.isActive() || !rule.isTimeBasedInheritance()
+                || rule.getNextFireAt() == null || rule.getNextFireAt().isAfter(now)) {
+            // Deleted, paused or rescheduled since it was loaded
+            return;
+        }
+
+        LocalDateTime firedAt = rule.getNextFireAt();
+
+        // Occurrences missed while the service was down are coalesced into this firing
+        Optional<LocalDateTime> next = parseSchedule(rule)
+                .flatMap(schedule -> schedule.nextFireAfter(firedAt)
+                        .flatMap(candidate -> candidate.isBefore(now) ? schedule.firstFireAtOrAfter(now) : Optional.of(candidate)));
+
+        // Every instance loads the same window; the conditional update lets exactly one of them
+        // fire this occurrence. The row stays locked until the firing commits or rolls back.
+        if (inheritanceRuleRepository.claimFiring(ruleId, firedAt, next.orElse(null)) != 1) {
+            log.debug("TIME_BASED inheritance rule {} due at {} was fired by another instance", ruleId, firedAt);
+            return;
+        }
+        rule.setNextFireAt(next.orElse(null));
+
+        inheritanceService.processInheritance(ruleId);
+        firedCounter.increment();
+
+        if (next.isPresent()) {
+            LocalDateTime nextFireAt = next.get();
+            TransactionUtils.afterCommit(() -> schedule(ruleId, nextFireAt));
+            log.debug("Fired TIME_BASED inheritance rule: {}, next firing at {}", ruleId, nextFireAt);
+        } else {
+            inheritanceService.completeInheritanceRule(ruleId, rule.getCreatorId());
+            log.debug("Fired TIME_BASED inheritance rule: {}, schedule exhausted", ruleId);
+        }
+    }
+
+    private void schedule(UUID ruleId, LocalDateTime fireAt) {
+        synchronized (wheelLock) {
+            if (wheel == null) {
+                return;
+            }
+
+            cancelHandle(ruleId);
+            if (fireAt.isAfter(loadedUntil)) {
+                // Picked up when its window is loaded
+                return;
+            }
+            handles.put(ruleId, wheel.schedule(toEpochMillis(fireAt), ruleId));
+        }
+    }
+
+    private void cancel(UUID ruleId) {
+        synchronized (wheelLock) {
+            if (wheel != null) {
+                cancelHandle(ruleId);
+            }
+        }
+    }
+
+    private void cancelHandle(UUID ruleId) {
+        HierarchicalTimingWheel.Handle<UUID> handle = handles.remove(ruleId);
+        if (handle != null) {
+            wheel.cancel(handle);
+        }
+    }
+
+    private int pendingCount() {
+        synchronized (wheelLock) {
+            return wheel != null ? wheel.size() : 0;
+        }
+    }
+
+    private Optional<TimeBasedTriggerSchedule> parseSchedule(InheritanceRule rule) {
+        if (rule.getTriggerMetadata() == null || rule.getTriggerMetadata().isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            Map<String, Object> metadata = objectMapper.readValue(rule.getTriggerMetadata(),
+                    new TypeReference<Map<String, Object>>() {});
+            return TimeBasedTriggerSchedule.parse(metadata);
+        } catch (Exception e) {
+            log.warn("Error parsing trigger metadata for inheritance rule: {}", rule.getId());
+            return Optional.empty();
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,424 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceWorkQueueProperties;
+import com.legacykeep.legacy.enums.InheritanceWorkBand;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Durable, priority-ordered queue of inheritance rules awaiting processing.
+ *
+ * Rules are queued with an urgency band; a rule already queued keeps one row, moved to
+ * the more urgent band. Workers claim batches with {@code FOR UPDATE SKIP LOCKED} in band,
+ * rule priority and age order, so triggered work overtakes bulk re-evaluation, and
+ * process them on the {@link InheritanceProcessingEngine}. Processed rows are deleted;
+ * failed rows are retried with exponential backoff and dead-lettered after
+ * {@code maxAttempts}. A claim expires if its worker dies, making the row available again.
+ *
+ * Rows queued by a processing run carry its ID; acknowledging or dead-lettering them adds
+ * to the run's succeeded or failed count.
+ *
+ * Queue latency (time from available to claimed) is recorded per band.
+ */
+@Component
+@Slf4j
+public class InheritanceWorkQueue {
+
+    private static final String ENQUEUE_SQL =
+            "INSERT INTO inheritance_work_queue AS q (rule_id, band, priority, reason, run_id, enqueued_at, available_at) " +
+            "SELECT u.rule_id, ?, COALESCE(u.priority, r.priority, 0), ?, ?, now(), now() " +
+            "FROM unnest(?::uuid[], ?::int[]) AS u(rule_id, priority) " +
+            "LEFT JOIN inheritance_rules r ON r.id = u.rule_id " +
+            // Rules passed without a priority must exist; new rules carry theirs and may not be flushed yet
+            "WHERE u.priority IS NOT NULL OR r.id IS NOT NULL " +
+            "ON CONFLICT (rule_id) DO UPDATE SET " +
+            "band = LEAST(q.band, EXCLUDED.band), " +
+            "priority = EXCLUDED.priority, " +
+            "reason = CASE WHEN EXCLUDED.band < q.band THEN EXCLUDED.reason ELSE q.reason END, " +
+            "available_at = LEAST(q.available_at, EXCLUDED.available_at), " +
+            // The latest run owns the rule; an earlier run no longer waits for it
+            "run_id = COALESCE(EXCLUDED.run_id, q.run_id), " +
+            "version = q.version + 1";
+
+    private static final String CLAIM_SQL =
+            "WITH claimable AS (" +
+            "SELECT id FROM inheritance_work_queue " +
+            "WHERE available_at <= now() AND (claimed_until IS NULL OR claimed_until < now()) " +
+            "ORDER BY band, priority DESC, enqueued_at, id " +
+            "LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "UPDATE inheritance_work_queue q SET claimed_by = ?, " +
+            "claimed_until = now() + (? * interval '1 millisecond'), attempts = q.attempts + 1 " +
+            "FROM claimable c WHERE q.id = c.id " +
+            "RETURNING q.id, q.rule_id, q.band, q.version, q.attempts, " +
+            "(EXTRACT(EPOCH FROM (now() - q.available_at)) * 1000)::bigint";
+
+    private static final String ACKNOWLEDGE_SQL =
+            "WITH acknowledged AS (" +
+            "DELETE FROM inheritance_work_queue q " +
+            "USING unnest(?::bigint[], ?::int[]) AS a(id, version) " +
+            "WHERE q.id = a.id AND q.version = a.version " +
+            "RETURNING q.run_id) " +
+            "UPDATE inheritance_processing_runs r SET succeeded = r.succeeded + c.processed, heartbeat_at = now() " +
+            "FROM (SELECT run_id, count(*) AS processed FROM acknowledged WHERE run_id IS NOT NULL GROUP BY run_id) c " +
+            "WHERE r.id = c.run_id";
+
+    // Rows still present after acknowledgement were queued again while claimed
+    private static final String RELEASE_REQUEUED_SQL =
+            "UPDATE inheritance_work_queue SET claimed_by = NULL, claimed_until = NULL, attempts = 0, last_error = NULL " +
+            "WHERE id = ANY(?::bigint[]) AND claimed_by = ?";
+
+    private static final String RETRY_SQL =
+            "UPDATE inheritance_work_queue q SET claimed_by = NULL, claimed_until = NULL, " +
+            "available_at = now() + (f.delay_millis * interval '1 millisecond'), last_error = f.error " +
+            "FROM unnest(?::bigint[], ?::bigint[], ?::text[]) AS f(id, delay_millis, error) " +
+            "WHERE q.id = f.id AND q.claimed_by = ?";
+
+    private static final String DEAD_LETTER_SQL =
+            "WITH dead AS (" +
+            "DELETE FROM inheritance_work_queue q " +
+            "USING unnest(?::bigint[], ?::text[]) AS f(id, error) " +
+            "WHERE q.id = f.id AND q.claimed_by = ? " +
+            "RETURNING q.id, q.rule_id, q.band, q.priority, q.reason, q.run_id, q.enqueued_at, q.attempts, f.error), " +
+            "letters AS (" +
+            "INSERT INTO inheritance_work_dead_letters " +
+            "(id, rule_id, band, priority, reason, run_id, enqueued_at, attempts, last_error, dead_lettered_at) " +
+            "SELECT id, rule_id, band, priority, reason, run_id, enqueued_at, attempts, error, now() FROM dead " +
+            "ON CONFLICT (id) DO NOTHING) " +
+            "UPDATE inheritance_processing_runs r SET failed = r.failed + c.processed, heartbeat_at = now() " +
+            "FROM (SELECT run_id, count(*) AS processed FROM dead WHERE run_id IS NOT NULL GROUP BY run_id) c " +
+            "WHERE r.id = c.run_id";
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InheritanceProcessingEngine processingEngine;
+    private final InheritanceWorkQueueProperties properties;
+    private final String workerId;
+    private final Map<InheritanceWorkBand, Timer> latencyTimers = new EnumMap<>(InheritanceWorkBand.class);
+    private final Counter succeededCounter;
+    private final Counter retriedCounter;
+    private final Counter deadLetteredCounter;
+
+    private volatile Consumer<UUID> ruleProcessor;
+    private volatile boolean running;
+    private ScheduledExecutorService workers;
+
+    public InheritanceWorkQueue(JdbcTemplate jdbcTemplate,
+                                InheritanceProcessingEngine processingEngine,
+                                InheritanceWorkQueueProperties properties,
+                                NodeIdentity nodeIdentity,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.processingEngine = processingEngine;
+        this.properties = properties;
+        this.workerId = nodeIdentity.getId();
+
+        for (InheritanceWorkBand band : InheritanceWorkBand.values()) {
+            latencyTimers.put(band, Timer.builder("legacy.inheritance.queue.latency")
+                    .tag("band", band.name().toLowerCase())
+                    .description("Time inheritance work waited in the queue before being claimed")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry));
+        }
+        this.succeededCounter = Counter.builder("legacy.inheritance.queue.items")
+                .tag("outcome", "succeeded")
+                .description("Inheritance work queue items processed")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("legacy.inheritance.queue.items")
+                .tag("outcome", "retried")
+                .description("Inheritance work queue items processed")
+                .register(meterRegistry);
+        this.deadLetteredCounter = Counter.builder("legacy.inheritance.queue.items")
+                .tag("outcome", "dead_lettered")
+                .description("Inheritance work queue items processed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!properties.isWorkersEnabled()) {
+            log.info("Inheritance work queue workers are disabled on this instance");
+            return;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        int workerCount = Math.max(1, properties.getWorkers());
+        workers = Executors.newScheduledThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "inheritance-queue-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+
+        for (int i = 0; i < workerCount; i++) {
+            workers.scheduleWithFixedDelay(this::drain, properties.getPollIntervalMillis(),
+                    properties.getPollIntervalMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (workers == null) {
+            return;
+        }
+
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Register the processing logic run for each claimed rule.
+     */
+    public void setRuleProcessor(Consumer<UUID> ruleProcessor) {
+        this.ruleProcessor = ruleProcessor;
+    }
+
+    /**
+     * Queue existing rules, using their stored priority. Unknown rule IDs are skipped.
+     * Runs in the caller's transaction, if any.
+     *
+     * @param ruleIds The rules to process
+     * @param band Urgency band
+     * @param reason Why the rules are queued, for diagnostics
+     * @return Number of rows inserted or updated
+     */
+    public int enqueue(Collection<UUID> ruleIds, InheritanceWorkBand band, String reason) {
+        return enqueue(ruleIds, band, reason, null);
+    }
+
+    /**
+     * Queue existing rules on behalf of a processing run, which is credited with their
+     * outcome. Unknown rule IDs are skipped. Runs in the caller's transaction, if any.
+     *
+     * @param ruleIds The rules to process
+     * @param band Urgency band
+     * @param reason Why the rules are queued, for diagnostics
+     * @param runId The processing run queueing the rules, or null
+     * @return Number of rows inserted or updated
+     */
+    public int enqueue(Collection<UUID> ruleIds, InheritanceWorkBand band, String reason, Long runId) {
+        Map<UUID, Integer> priorities = new LinkedHashMap<>();
+        ruleIds.forEach(ruleId -> priorities.put(ruleId, null));
+        return enqueue(priorities, band, reason, runId);
+    }
+
+    /**
+     * Queue rules with a known priority, e.g. rules saved in the current transaction.
+     * Runs in the caller's transaction, if any.
+     *
+     * @param priorities Rule priority by rule ID; a null priority is read from the rule
+     * @param band Urgency band
+     * @param reason Why the rules are queued, for diagnostics
+     * @return Number of rows inserted or updated
+     */
+    public int enqueue(Map<UUID, Integer> priorities, InheritanceWorkBand band, String reason) {
+        return enqueue(priorities, band, reason, null);
+    }
+
+    private int enqueue(Map<UUID, Integer> priorities, InheritanceWorkBand band, String reason, Long runId) {
+        if (priorities.isEmpty()) {
+            return 0;
+        }
+
+        Object[] ruleIds = priorities.keySet().toArray();
+        Object[] rulePriorities = priorities.values().toArray();
+        return jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ENQUEUE_SQL);
+            statement.setInt(1, band.getCode());
+            statement.setString(2, reason);
+            statement.setObject(3, runId, Types.BIGINT);
+            statement.setArray(4, connection.createArrayOf("uuid", ruleIds));
+            statement.setArray(5, connection.createArrayOf("int4", rulePriorities));
+            return statement;
+        });
+    }
+
+    /**
+     * Claim and process batches until the queue has no full batch available.
+     */
+    void drain() {
+        Consumer<UUID> processor = ruleProcessor;
+        if (processor == null) {
+            return;
+        }
+
+        try {
+            int claimed;
+            do {
+                claimed = processBatch(processor);
+            } while (running && claimed >= properties.getBatchSize());
+        } catch (Exception e) {
+            log.error("Error draining the inheritance work queue", e);
+        }
+    }
+
+    private int processBatch(Consumer<UUID> processor) {
+        List<WorkItem> batch = jdbcTemplate.query(CLAIM_SQL,
+                (rs, rowNum) -> new WorkItem(rs.getLong(1), rs.getObject(2, UUID.class),
+                        InheritanceWorkBand.fromCode(rs.getInt(3)), rs.getInt(4), rs.getInt(5), rs.getLong(6)),
+                properties.getBatchSize(), workerId, properties.getClaimTimeoutMillis());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        for (WorkItem item : batch) {
+            latencyTimers.get(item.getBand()).record(Duration.ofMillis(Math.max(0L, item.getWaitedMillis())));
+        }
+
+        Map<UUID, Exception> failures = processingEngine.processRulesReportingFailures("QUEUE",
+                batch.stream().map(WorkItem::getRuleId).collect(Collectors.toList()), processor);
+
+        List<WorkItem> succeeded = new ArrayList<>();
+        List<WorkItem> retried = new ArrayList<>();
+        List<WorkItem> dead = new ArrayList<>();
+        for (WorkItem item : batch) {
+            if (!failures.containsKey(item.getRuleId())) {
+                succeeded.add(item);
+            } else if (item.getAttempts() >= properties.getMaxAttempts()) {
+                dead.add(item);
+            } else {
+                retried.add(item);
+            }
+        }
+
+        acknowledge(succeeded);
+        retry(retried, failures);
+        deadLetter(dead, failures);
+
+        succeededCounter.increment(succeeded.size());
+        retriedCounter.increment(retried.size());
+        deadLetteredCounter.increment(dead.size());
+        if (!dead.isEmpty()) {
+            log.warn("Dead-lettered {} inheritance work items after {} attempts: {}", dead.size(),
+                    properties.getMaxAttempts(), dead.stream().map(WorkItem::getRuleId).collect(Collectors.toList()));
+        }
+        log.debug("Processed inheritance work batch of {}: {} succeeded, {} retried, {} dead-lettered",
+                batch.size(), succeeded.size(), retried.size(), dead.size());
+        return batch.size();
+    }
+
+    private void acknowledge(List<WorkItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Object[] ids = items.stream().map(WorkItem::getId).toArray();
+        Object[] versions = items.stream().map(WorkItem::getVersion).toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ACKNOWLEDGE_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("int4", versions));
+            return statement;
+        });
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RELEASE_REQUEUED_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setString(2, workerId);
+            return statement;
+        });
+    }
+
+    private void retry(List<WorkItem> items, Map<UUID, Exception> failures) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Object[] ids = items.stream().map(WorkItem::getId).toArray();
+        Object[] delays = items.stream().map(item -> backoffMillis(item.getAttempts())).toArray();
+        Object[] errors = items.stream().map(item -> describe(failures.get(item.getRuleId()))).toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(RETRY_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("bigint", delays));
+            statement.setArray(3, connection.createArrayOf("text", errors));
+            statement.setString(4, workerId);
+            return statement;
+        });
+    }
+
+    private void deadLetter(List<WorkItem> items, Map<UUID, Exception> failures) {
+        if (items.isEmpty()) {
+            return;
+        }
+
+        Object[] ids = items.stream().map(WorkItem::getId).toArray();
+        Object[] errors = items.stream().map(item -> describe(failures.get(item.getRuleId()))).toArray();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(DEAD_LETTER_SQL);
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("text", errors));
+            statement.setString(3, workerId);
+            return statement;
+        });
+    }
+
+    private long backoffMillis(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(properties.getBackoffInitialMillis() << exponent, properties.getBackoffMaxMillis());
+    }
+
+    private static String describe(Exception e) {
+        if (e == null) {
+            return null;
+        }
+        String message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static final class WorkItem {
+        private final long id;
+        private final UUID ruleId;
+        private final InheritanceWorkBand band;
+        private final int version;
+        private final int attempts;
+        private final long waitedMillis;
+
+        private WorkItem(long id, UUID ruleId, InheritanceWorkBand band, int version, int attempts, long waitedMillis) {
+            this.id = id;
+            this.ruleId = ruleId;
+            this.band = band;
+            this.version = version;
+            this.attempts = attempts;
+            this.waitedMillis = waitedMillis;
+        }
+
+        // Getters
+        public long getId() { return id; }
+        public UUID getRuleId() { return ruleId; }
+        public InheritanceWorkBand getBand() { return band; }
+        public int getVersion() { return version; }
+        public int getAttempts() { return attempts; }
+        public long getWaitedMillis() { return waitedMillis; }
+    }
+}
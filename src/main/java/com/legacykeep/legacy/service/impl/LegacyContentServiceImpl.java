@@ -39,6 +39,7 @@ public class LegacyContentServiceImpl implements LegacyContentService {
     private final LegacyMediaFileRepository mediaFileRepository;
     private final LegacyRecipientRepository recipientRepository;
     private final PermissionService permissionService;
+    private final ContentOwnerResolver contentOwnerResolver;
 
     @Override
     public Page<ContentResponse> getContentWithFilters(
@@ -157,6 +158,7 @@ public class LegacyContentServiceImpl implements LegacyContentService {
         existingContent.setSortOrder(request.getSortOrder());
         
         LegacyContent updatedContent = contentRepository.save(existingContent);
+        contentOwnerResolver.invalidate(id);
         return convertToResponse(updatedContent);
     }
 
@@ -170,6 +172,7 @@ public class LegacyContentServiceImpl implements LegacyContentService {
         // Soft delete - mark as DELETED instead of removing from database
         content.setStatus(LegacyContent.ContentStatus.DELETED);
         contentRepository.save(content);
+        contentOwnerResolver.invalidate(id);
         
         log.info("Content {} marked as deleted (soft delete)", id);
     }
@@ -0,0 +1,43 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.NodeProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.UUID;
+
+/**
+ * Identity of this instance among the instances sharing the database.
+ *
+ * Resolved once at startup, from {@code legacy.node.id} or else the host name plus a random
+ * suffix, so that processes sharing a host never share an identity.
+ */
+@Component
+@Slf4j
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(NodeProperties properties) {
+        this.id = properties.getId() != null && !properties.getId().isBlank()
+                ? properties.getId()
+                : defaultId();
+        log.info("Running as node: {}", id);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String defaultId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,511 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.RelationshipCacheProperties;
+import com.legacykeep.legacy.service.RelationshipServiceClient.RelationshipInfo;
+import com.legacykeep.legacy.service.RelationshipServiceClient.RelationshipTypeInfo;
+import com.legacykeep.legacy.util.BoundedLruCache;
+import com.legacykeep.legacy.util.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Two-tier cache of Relationship Service lookups: a bounded in-process near cache with a
+ * short TTL, backed by Redis with a longer one.
+ *
+ * A user's active relationships are invalidated when a relationship change event names
+ * the user. The event is consumed by one instance only, so the invalidation deletes the
+ * Redis entries and is broadcast on a Redis channel for every instance to evict its near
+ * cache; the near TTL bounds staleness if a broadcast is missed. Relationship types are
+ * reference data and expire by TTL only.
+ *
+ * Misses are coalesced per key with a {@link SingleFlight}: concurrent callers missing the
+ * same key share one Redis read and one Relationship Service call, and share its failure.
+ * A batch waits for the keys another caller is already loading and loads only the rest.
+ *
+ * Empty results are not cached, because the clients answer failed lookups with empty
+ * results. A load that overlaps an invalidation is returned but not cached. After a Redis
+ * error Redis is bypassed for {@code redis-retry-after-millis}, so an outage costs one
+ * timeout rather than one per lookup.
+ */
+@Component
+@Slf4j
+public class RelationshipCache {
+
+    private final RelationshipCacheProperties properties;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final ObjectMapper objectMapper;
+
+    private final Tier<UUID, List<RelationshipInfo>> activeRelationships;
+    private final Tier<String, RelationshipTypeInfo> relationshipTypes;
+    private final Tier<String, List<RelationshipTypeInfo>> relationshipTypesByCategory;
+    private final Counter redisErrors;
+
+    private final List<Consumer<Collection<UUID>>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    private volatile long redisBypassedUntil;
+    private RedisMessageListenerContainer invalidationListener;
+
+    public RelationshipCache(RelationshipCacheProperties properties,
+                             StringRedisTemplate redisTemplate,
+                             RedisConnectionFactory connectionFactory,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.objectMapper = objectMapper;
+
+        JavaType cachedRelationships = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, CachedRelationship.class);
+        JavaType relationshipTypeList = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, RelationshipTypeInfo.class);
+
+        this.activeRelationships = new Tier<>("active", UUID::toString,
+                relationships -> encode(relationships.stream().map(CachedRelationship::from).collect(Collectors.toList())),
+                json -> this.<List<CachedRelationship>>decode(json, cachedRelationships).stream()
+                        .map(CachedRelationship::toInfo)
+                        .collect(Collectors.toList()),
+                meterRegistry);
+        this.relationshipTypes = new Tier<>("type", Function.identity(),
+                this::encode,
+                json -> decode(json, objectMapper.getTypeFactory().constructType(RelationshipTypeInfo.class)),
+                meterRegistry);
+        this.relationshipTypesByCategory = new Tier<>("types", Function.identity(),
+                this::encode,
+                json -> decode(json, relationshipTypeList),
+                meterRegistry);
+
+        this.redisErrors = Counter.builder("legacy.relationship.cache.redis.errors")
+                .description("Redis operations of the relationship cache that failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled() || !properties.isRedisEnabled()) {
+            return;
+        }
+
+        try {
+            invalidationListener = new RedisMessageListenerContainer();
+            invalidationListener.setConnectionFactory(connectionFactory);
+            invalidationListener.addMessageListener((message, pattern) -> onInvalidation(message),
+                    new ChannelTopic(properties.getInvalidationChannel()));
+            invalidationListener.afterPropertiesSet();
+            invalidationListener.start();
+        } catch (Exception e) {
+            log.warn("Could not subscribe to relationship cache invalidations, relying on near cache TTL: {}",
+                    e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (invalidationListener != null) {
+            try {
+                invalidationListener.destroy();
+            } catch (Exception e) {
+                log.debug("Error stopping relationship cache invalidation listener: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get a user's active relationships, loading them on a miss.
+     */
+    public List<RelationshipInfo> getActiveRelationships(UUID userId, Function<UUID, List<RelationshipInfo>> loader) {
+        return activeRelationships.get(userId, loader);
+    }
+
+    /**
+     * Get many users' active relationships, loading all misses with one call.
+     */
+    public Map<UUID, List<RelationshipInfo>> getActiveRelationships(
+            Collection<UUID> userIds, Function<Collection<UUID>, Map<UUID, List<RelationshipInfo>>> loader) {
+        return activeRelationships.getAll(userIds, loader);
+    }
+
+    /**
+     * Get a relationship type by name, loading it on a miss.
+     */
+    public RelationshipTypeInfo getRelationshipType(String name, Function<String, RelationshipTypeInfo> loader) {
+        return relationshipTypes.get(name, loader);
+    }
+
+    /**
+     * Get the relationship types of a category, loading them on a miss.
+     */
+    public List<RelationshipTypeInfo> getRelationshipTypes(String category,
+                                                           Function<String, List<RelationshipTypeInfo>> loader) {
+        return relationshipTypesByCategory.get(category, loader);
+    }
+
+    /**
+     * Register a listener of the users invalidated in this instance, whether by
+     * {@link #invalidateUsers} or by a broadcast from another instance.
+     */
+    public void addInvalidationListener(Consumer<Collection<UUID>> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Invalidate users' cached relationships in this instance and in Redis, and broadcast
+     * the invalidation to the other instances.
+     */
+    public void invalidateUsers(Collection<UUID> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        Set<UUID> distinct = new LinkedHashSet<>(userIds);
+        notifyInvalidation(distinct);
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        activeRelationships.evictLocal(distinct);
+        if (!redisAvailable()) {
+            return;
+        }
+
+        try {
+            activeRelationships.evictRedis(distinct);
+            redisTemplate.convertAndSend(properties.getInvalidationChannel(),
+                    distinct.stream().map(UUID::toString).collect(Collectors.joining(",")));
+        } catch (Exception e) {
+            redisFailed("invalidation", e);
+        }
+        log.debug("Invalidated cached relationships of {} users", distinct.size());
+    }
+
+    private void onInvalidation(Message message) {
+        try {
+            String body = new String(message.getBody(), StandardCharsets.UTF_8);
+            List<UUID> userIds = new ArrayList<>();
+            for (String userId : body.split(",")) {
+                if (!userId.isBlank()) {
+                    userIds.add(UUID.fromString(userId.trim()));
+                }
+            }
+            activeRelationships.evictLocal(userIds);
+            notifyInvalidation(userIds);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable relationship cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void notifyInvalidation(Collection<UUID> userIds) {
+        for (Consumer<Collection<UUID>> listener : invalidationListeners) {
+            try {
+                listener.accept(userIds);
+            } catch (Exception e) {
+                log.warn("Relationship invalidation listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private boolean redisAvailable() {
+        return properties.isRedisEnabled() && System.currentTimeMillis() >= redisBypassedUntil;
+    }
+
+    private void redisFailed(String operation, Exception e) {
+        redisErrors.increment();
+        redisBypassedUntil = System.currentTimeMillis() + properties.getRedisRetryAfterMillis();
+        log.warn("Redis {} for relationship cache failed, bypassing Redis for {} ms: {}",
+                operation, properties.getRedisRetryAfterMillis(), e.getMessage());
+    }
+
+    private String encode(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize cached relationship data", e);
+        }
+    }
+
+    private <T> T decode(String json, JavaType type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize cached relationship data", e);
+        }
+    }
+
+    private static boolean isCacheable(Object value) {
+        return value != null && !(value instanceof Collection<?> collection && collection.isEmpty());
+    }
+
+    /**
+     * One cached lookup: a near cache and a Redis key space, with hit, miss and load metrics.
+     */
+    private final class Tier<K, V> {
+
+        private final String name;
+        private final Function<K, String> keyFormat;
+        private final Function<V, String> encoder;
+        private final Function<String, V> decoder;
+        private final BoundedLruCache<K, V> near;
+        private final SingleFlight<K, V> flights = new SingleFlight<>();
+        private final AtomicLong invalidations = new AtomicLong();
+        private final Counter nearHits;
+        private final Counter redisHits;
+        private final Counter misses;
+        private final Timer loadTimer;
+
+        private Tier(String name, Function<K, String> keyFormat, Function<V, String> encoder,
+                     Function<String, V> decoder, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.keyFormat = keyFormat;
+            this.encoder = encoder;
+            this.decoder = decoder;
+            this.near = new BoundedLruCache<>(properties.getNearMaxSize(), properties.getNearTtlSeconds() * 1000);
+
+            this.nearHits = requests(meterRegistry, "hit", "near");
+            this.redisHits = requests(meterRegistry, "hit", "redis");
+            this.misses = requests(meterRegistry, "miss", "none");
+            this.loadTimer = Timer.builder("legacy.relationship.cache.load")
+                    .description("Relationship Service calls made on relationship cache misses")
+                    .tag("cache", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            FunctionCounter.builder("legacy.relationship.cache.coalesced", flights, SingleFlight::getShared)
+                    .description("Relationship cache misses that waited for a load already in flight")
+                    .tag("cache", name)
+                    .register(meterRegistry);
+            Gauge.builder("legacy.relationship.cache.size", near, BoundedLruCache::size)
+                    .description("Entries held in the in-process relationship cache")
+                    .tag("cache", name)
+                    .register(meterRegistry);
+        }
+
+        private Counter requests(MeterRegistry meterRegistry, String result, String tier) {
+            return Counter.builder("legacy.relationship.cache.requests")
+                    .description("Relationship cache lookups")
+                    .tag("cache", name)
+                    .tag("result", result)
+                    .tag("tier", tier)
+                    .register(meterRegistry);
+        }
+
+        private V get(K key, Function<K, V> loader) {
+            V value = near.get(key);
+            if (value != null) {
+                nearHits.increment();
+                return value;
+            }
+            return flights.execute(key, () -> fetch(key, loader));
+        }
+
+        private Map<K, V> getAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+            Map<K, V> found = new LinkedHashMap<>();
+            List<K> missing = new ArrayList<>();
+            for (K key : new LinkedHashSet<>(keys)) {
+                V value = near.get(key);
+                if (value != null) {
+                    nearHits.increment();
+                    found.put(key, value);
+                } else {
+                    missing.add(key);
+                }
+            }
+            if (!missing.isEmpty()) {
+                found.putAll(flights.executeAll(missing, owned -> fetchAll(owned, loader)));
+            }
+
+            // Answer in the caller's order
+            Map<K, V> ordered = new LinkedHashMap<>();
+            for (K key : new LinkedHashSet<>(keys)) {
+                if (found.containsKey(key)) {
+                    ordered.put(key, found.get(key));
+                }
+            }
+            return ordered;
+        }
+
+        /**
+         * Read a near cache miss through Redis and the loader. Runs once per key at a time;
+         * the near cache is checked again because a load that just finished may have filled it.
+         */
+        private V fetch(K key, Function<K, V> loader) {
+            V value = near.get(key);
+            if (value != null) {
+                nearHits.increment();
+                return value;
+            }
+
+            long epoch = invalidations.get();
+            value = readRedis(List.of(key)).get(key);
+            if (value != null) {
+                redisHits.increment();
+                putNear(Map.of(key, value), epoch);
+                return value;
+            }
+
+            misses.increment();
+            value = loadTimer.record(() -> loader.apply(key));
+            if (isCacheable(value)) {
+                putNear(Map.of(key, value), epoch);
+                writeRedis(Map.of(key, value), epoch);
+            }
+            return value;
+        }
+
+        /**
+         * Read near cache misses through Redis and one loader call.
+         */
+        private Map<K, V> fetchAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+            Map<K, V> found = new LinkedHashMap<>();
+            List<K> missing = new ArrayList<>(keys);
+
+            long epoch = invalidations.get();
+            Map<K, V> fromRedis = readRedis(missing);
+            redisHits.increment(fromRedis.size());
+            putNear(fromRedis, epoch);
+            found.putAll(fromRedis);
+            missing.removeAll(fromRedis.keySet());
+
+            if (!missing.isEmpty()) {
+                misses.increment(missing.size());
+                Map<K, V> loaded = loadTimer.record(() -> loader.apply(missing));
+                Map<K, V> cacheable = new LinkedHashMap<>();
+                if (loaded != null) {
+                    loaded.forEach((key, value) -> {
+                        if (isCacheable(value)) {
+                            cacheable.put(key, value);
+                        }
+                    });
+                    found.putAll(loaded);
+                }
+                putNear(cacheable, epoch);
+                writeRedis(cacheable, epoch);
+            }
+            return found;
+        }
+
+        private void evictLocal(Collection<K> keys) {
+            invalidations.incrementAndGet();
+            keys.forEach(near::invalidate);
+        }
+
+        private void evictRedis(Collection<K> keys) {
+            redisTemplate.delete(keys.stream().map(this::redisKey).collect(Collectors.toList()));
+        }
+
+        private void putNear(Map<K, V> values, long epoch) {
+            if (invalidations.get() == epoch) {
+                values.forEach(near::put);
+            }
+        }
+
+        private Map<K, V> readRedis(List<K> keys) {
+            Map<K, V> values = new LinkedHashMap<>();
+            if (!redisAvailable()) {
+                return values;
+            }
+
+            try {
+                List<String> json = redisTemplate.opsForValue()
+                        .multiGet(keys.stream().map(this::redisKey).collect(Collectors.toList()));
+                if (json == null) {
+                    return values;
+                }
+                for (int i = 0; i < keys.size(); i++) {
+                    if (json.get(i) != null) {
+                        values.put(keys.get(i), decoder.apply(json.get(i)));
+                    }
+                }
+            } catch (Exception e) {
+                redisFailed("read", e);
+            }
+            return values;
+        }
+
+        private void writeRedis(Map<K, V> values, long epoch) {
+            if (values.isEmpty() || !redisAvailable() || invalidations.get() != epoch) {
+                return;
+            }
+
+            try {
+                Map<byte[], byte[]> entries = new LinkedHashMap<>();
+                values.forEach((key, value) -> entries.put(redisKey(key).getBytes(StandardCharsets.UTF_8),
+                        encoder.apply(value).getBytes(StandardCharsets.UTF_8)));
+                Expiration expiration = Expiration.seconds(properties.getRedisTtlSeconds());
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    entries.forEach((key, value) -> connection.stringCommands()
+                            .set(key, value, expiration, RedisStringCommands.SetOption.upsert()));
+                    return null;
+                });
+            } catch (Exception e) {
+                redisFailed("write", e);
+            }
+        }
+
+        private String redisKey(K key) {
+            return properties.getRedisKeyPrefix() + name + ":" + keyFormat.apply(key);
+        }
+    }
+
+    /**
+     * Redis form of a relationship; {@link RelationshipInfo} deserializes from the
+     * Relationship Service representation, which nests the relationship type.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    private static class CachedRelationship {
+        private UUID relationshipId;
+        private UUID user1Id;
+        private UUID user2Id;
+        private String relationshipTypeName;
+        private String relationshipCategory;
+        private String status;
+        private String metadata;
+
+        private static CachedRelationship from(RelationshipInfo info) {
+            return new CachedRelationship(info.getRelationshipId(), info.getUser1Id(), info.getUser2Id(),
+                    info.getRelationshipTypeName(), info.getRelationshipCategory(), info.getStatus(), info.getMetadata());
+        }
+
+        private RelationshipInfo toInfo() {
+            return new RelationshipInfo(relationshipId, user1Id, user2Id, relationshipTypeName,
+                    relationshipCategory, status, metadata);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.dto.event.RelationshipChangeEvent;
+import com.legacykeep.legacy.entity.InheritanceEvent;
+import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.TargetType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Applies relationship changes to inheritance statuses incrementally.
+ *
+ * Only the changed relationship is evaluated: the creator's active EVENT_BASED rules
+ * targeting the relationship's type or category are resolved from the
+ * {@link InheritanceRuleIndex}, and the related user's statuses for those rules are
+ * created (ADDED), revoked (REMOVED) or both (UPDATED, for the rules that stop or start
+ * matching).
+ *
+ * Event IDs are recorded in {@code processed_relationship_events} in the same transaction
+ * as the status changes, so replayed messages are ignored.
+ */
+@Component
+@Slf4j
+public class RelationshipChangeProcessor {
+
+    private static final String CLAIM_EVENTS_SQL =
+            "INSERT INTO processed_relationship_events (event_id, processed_at) " +
+            "SELECT e.event_id, now() FROM unnest(?::varchar[]) AS e(event_id) " +
+            "ON CONFLICT (event_id) DO NOTHING " +
+            "RETURNING event_id";
+
+    private final InheritanceRuleIndex ruleIndex;
+    private final InheritanceDeliveryWriter deliveryWriter;
+    private final InheritanceEventJournal eventJournal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter appliedCounter;
+    private final Counter duplicateCounter;
+
+    public RelationshipChangeProcessor(InheritanceRuleIndex ruleIndex,
+                                       InheritanceDeliveryWriter deliveryWriter,
+                                       InheritanceEventJournal eventJournal,
+                                       JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       MeterRegistry meterRegistry) {
+        this.ruleIndex = ruleIndex;
+        this.deliveryWriter = deliveryWriter;
+        this.eventJournal = eventJournal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.appliedCounter = Counter.builder("legacy.relationship.events")
+                .description("Relationship change events consumed")
+                .tag("result", "applied")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("legacy.relationship.events")
+                .description("Relationship change events consumed")
+                .tag("result", "duplicate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Apply relationship changes in a single transaction, in order.
+     *
+     * @param events The relationship changes
+     */
+    public void process(List<RelationshipChangeEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> unclaimed = claim(events);
+
+            for (RelationshipChangeEvent event : events) {
+                // Events without an ID cannot be deduplicated; applying them again is harmless
+                if (event.getEventId() != null && !unclaimed.remove(event.getEventId())) {
+                    duplicateCounter.increment();
+                    log.debug("Skipping already processed relationship event: {}", event.getEventId());
+                    continue;
+                }
+
+                apply(event);
+                appliedCounter.increment();
+            }
+        });
+    }
+
+    private void apply(RelationshipChangeEvent event) {
+        List<InheritanceRuleIndex.RuleEntry> creatorRules = ruleIndex.findActiveRulesByCreator(event.getUserId())
+                .stream()
+                .filter(rule -> rule.getInheritanceTrigger() == InheritanceTrigger.EVENT_BASED)
+                .collect(Collectors.toList());
+        if (creatorRules.isEmpty()) {
+            return;
+        }
+
+        List<InheritanceRuleIndex.RuleEntry> current = matching(creatorRules,
+                event.getRelationshipTypeName(), event.getRelationshipCategory());
+
+        switch (event.getChangeType()) {
+            case ADDED -> deliver(event, current, InheritanceEvent.EventType.RELATIONSHIP_ADDED);
+            case REMOVED -> revoke(event, current, InheritanceEvent.EventType.RELATIONSHIP_REMOVED);
+            case UPDATED -> {
+                List<InheritanceRuleIndex.RuleEntry> previous = matching(creatorRules,
+                        event.getPreviousRelationshipTypeName(), event.getPreviousRelationshipCategory());
+                Set<UUID> currentIds = current.stream().map(InheritanceRuleIndex.RuleEntry::getId).collect(Collectors.toSet());
+                Set<UUID> previousIds = previous.stream().map(InheritanceRuleIndex.RuleEntry::getId).collect(Collectors.toSet());
+
+                revoke(event, previous.stream().filter(rule -> !currentIds.contains(rule.getId())).collect(Collectors.toList()),
+                        InheritanceEvent.EventType.RELATIONSHIP_UPDATED);
+                deliver(event, current.stream().filter(rule -> !previousIds.contains(rule.getId())).collect(Collectors.toList()),
+                        InheritanceEvent.EventType.RELATIONSHIP_UPDATED);
+            }
+        }
+    }
+
+    private void deliver(RelationshipChangeEvent event, List<InheritanceRuleIndex.RuleEntry> rules,
+                         InheritanceEvent.EventType eventType) {
+        for (InheritanceRuleIndex.RuleEntry rule : rules) {
+            InheritanceDeliveryWriter.DeliveryResult result = deliveryWriter.deliver(
+                    rule.getId(), rule.getContentId(), List.of(event.getRelatedUserId()));
+            if (result.getCreated() > 0) {
+                eventJournal.append(rule.getId(), eventType, eventData(event, "DELIVERED"), null);
+            }
+        }
+    }
+
+    private void revoke(RelationshipChangeEvent event, List<InheritanceRuleIndex.RuleEntry> rules,
+                        InheritanceEvent.EventType eventType) {
+        List<UUID> revoked = deliveryWriter.revoke(
+                rules.stream().map(InheritanceRuleIndex.RuleEntry::getId).collect(Collectors.toList()),
+                event.getRelatedUserId());
+        for (UUID ruleId : revoked) {
+            eventJournal.append(ruleId, eventType, eventData(event, "REVOKED"), null);
+        }
+    }
+
+    private List<InheritanceRuleIndex.RuleEntry> matching(List<InheritanceRuleIndex.RuleEntry> rules,
+                                                          String relationshipTypeName, String relationshipCategory) {
+        return rules.stream()
+                .filter(rule -> (rule.getTargetType() == TargetType.RELATIONSHIP_TYPE
+                                && rule.getTargetValue().equalsIgnoreCase(Objects.toString(relationshipTypeName, "")))
+                        || (rule.getTargetType() == TargetType.RELATIONSHIP_CATEGORY
+                                && rule.getTargetValue().equalsIgnoreCase(Objects.toString(relationshipCategory, ""))))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Object> eventData(RelationshipChangeEvent event, String outcome) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("relationshipEventId", event.getEventId());
+        data.put("recipientId", event.getRelatedUserId());
+        data.put("relationshipTypeName", event.getRelationshipTypeName());
+        data.put("relationshipCategory", event.getRelationshipCategory());
+        data.put("outcome", outcome);
+        return data;
+    }
+
+    private Set<String> claim(List<RelationshipChangeEvent> events) {
+        List<String> eventIds = new ArrayList<>(events.stream()
+                .map(RelationshipChangeEvent::getEventId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        if (eventIds.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        return new HashSet<>(jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(CLAIM_EVENTS_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", eventIds.toArray()));
+            return statement;
+        }, (rs, rowNum) -> rs.getString(1)));
+    }
+}
@@ -0,0 +1,632 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipCacheProperties;
+import com.legacykeep.legacy.config.RelationshipGraphProperties;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import com.legacykeep.legacy.service.RelationshipServiceClient.RelationshipInfo;
+import com.legacykeep.legacy.util.graph.LabeledAdjacencyGraph;
+import com.legacykeep.legacy.util.graph.UuidInterner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongToIntFunction;
+
+/**
+ * In-process replica of the relationship graph, answering related-user lookups,
+ * relationship checks and descendant, ancestor, generation and connected-user queries
+ * without remote calls once the users involved are replicated.
+ *
+ * Users are interned to int IDs and each user's active relationships are held as one
+ * {@code long[]} of packed half-edges labelled with the interned (type, category) pair
+ * (see {@link LabeledAdjacencyGraph}). The replica is bootstrapped on demand: a query
+ * names the users it needs that are not replicated yet, they are loaded in one batch
+ * through the relationship cache, and the query is re-run; a traversal thus loads one
+ * batch per level until its part of the graph is replicated, after which it runs under a
+ * read lock without remote calls.
+ *
+ * A replicated user is reloaded on next use once a relationship change event names it:
+ * events invalidate the relationship cache, whose invalidations (local, and broadcast by
+ * the instance that consumed the event) this replica listens to. A load that overlaps an
+ * invalidation of the user is discarded. Users are also reloaded after
+ * {@code refresh-seconds}, which bounds staleness when a broadcast is missed. Users whose
+ * relationships load empty are not marked replicated, because failed lookups may answer
+ * empty.
+ *
+ * Memory: a half-edge costs 8 bytes and a user about 56 (16 for the UUID, 8 to 16 of
+ * intern table, 20 of adjacency array header and reference, 8 of load state), plus up to
+ * half again for array growth. 1M relationships among 500k users, both ends replicated,
+ * take 2M half-edges (16 MB) plus about 28 MB of per-user state: roughly 45 MB, against
+ * several hundred bytes per relationship end as decoded {@link RelationshipInfo}s. The
+ * live footprint is published as {@code legacy.relationship.graph.memory} and query
+ * latency as {@code legacy.relationship.graph.queries}.
+ */
+@Component
+@Slf4j
+public class RelationshipGraphReplica {
+
+    private static final int INITIAL_USERS = 1024;
+    private static final int NOT_FOLLOWED = Integer.MIN_VALUE;
+
+    private final RelationshipGraphProperties properties;
+    private final RelationshipCacheProperties cacheProperties;
+    private final RelationshipServiceClient loader;
+    private final RelationshipCache cache;
+    private final MeterRegistry meterRegistry;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final long startNanos = System.nanoTime();
+
+    // Guarded by lock
+    private UuidInterner users = new UuidInterner(INITIAL_USERS);
+    private LabeledAdjacencyGraph graph = new LabeledAdjacencyGraph(INITIAL_USERS);
+    private int[] loadedAt = new int[INITIAL_USERS];
+    private int[] versions = new int[INITIAL_USERS];
+    private long generation;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Map<String, Integer> labels = new HashMap<>();
+    private int[] labelType = new int[16];
+    private int[] labelCategory = new int[16];
+    private int[] labelKinship = new int[16];
+
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Counter loadedUsers;
+    private final Counter invalidatedUsers;
+    private final Counter resets;
+
+    public RelationshipGraphReplica(RelationshipGraphProperties properties,
+                                    RelationshipCacheProperties cacheProperties,
+                                    @Qualifier("relationshipLoader") RelationshipServiceClient loader,
+                                    RelationshipCache cache,
+                                    MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cacheProperties = cacheProperties;
+        this.loader = loader;
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("legacy.relationship.graph.users", this, RelationshipGraphReplica::userCount)
+                .description("Users held by the relationship graph replica")
+                .register(meterRegistry);
+        Gauge.builder("legacy.relationship.graph.half.edges", this, RelationshipGraphReplica::halfEdgeCount)
+                .description("Relationship ends held by the relationship graph replica")
+                .register(meterRegistry);
+        Gauge.builder("legacy.relationship.graph.memory", this, RelationshipGraphReplica::estimatedBytes)
+                .description("Estimated heap footprint of the relationship graph replica")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.loadedUsers = Counter.builder("legacy.relationship.graph.loads")
+                .description("Users whose relationships were loaded into the relationship graph replica")
+                .register(meterRegistry);
+        this.invalidatedUsers = Counter.builder("legacy.relationship.graph.invalidations")
+                .description("Users invalidated in the relationship graph replica")
+                .register(meterRegistry);
+        this.resets = Counter.builder("legacy.relationship.graph.resets")
+                .description("Times the relationship graph replica was cleared for exceeding its user limit")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        cache.addInvalidationListener(this::invalidateUsers);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Get the users who have a relationship of the given type with a user, in the order
+     * the Relationship Service lists them.
+     */
+    public List<UUID> getUsersByRelationshipType(UUID userId, String relationshipTypeName) {
+        return getUsersByRelationshipType(List.of(userId), relationshipTypeName).get(userId);
+    }
+
+    /**
+     * Get the users who have a relationship of the given type with each of the given users.
+     */
+    public Map<UUID, List<UUID>> getUsersByRelationshipType(Collection<UUID> userIds, String relationshipTypeName) {
+        return related("by_type", userIds, relationshipTypeName, false);
+    }
+
+    /**
+     * Get the users in a relationship of the given category with a user, in the order the
+     * Relationship Service lists them.
+     */
+    public List<UUID> getUsersByRelationshipCategory(UUID userId, String category) {
+        return getUsersByRelationshipCategory(List.of(userId), category).get(userId);
+    }
+
+    /**
+     * Get the users in a relationship of the given category with each of the given users.
+     */
+    public Map<UUID, List<UUID>> getUsersByRelationshipCategory(Collection<UUID> userIds, String category) {
+        return related("by_category", userIds, category, true);
+    }
+
+    /**
+     * Check whether the first user has an active relationship with the second.
+     */
+    public boolean activeRelationshipExists(UUID user1Id, UUID user2Id) {
+        return read("relationship_check", pass -> {
+            int user = pass.node(user1Id);
+            int other = users.idOf(user2Id);
+            if (user < 0 || other < 0) {
+                return false;
+            }
+            for (long edge : graph.edges(user)) {
+                if (LabeledAdjacencyGraph.target(edge) == other && LabeledAdjacencyGraph.isActive(edge)) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Get a user's descendants through child relationships, nearest generation first.
+     *
+     * @param maxDepth Number of generations to descend, capped at {@code max-depth}
+     */
+    public List<UUID> getDescendants(UUID userId, int maxDepth) {
+        return new ArrayList<>(traverse("descendants", userId, maxDepth,
+                edge -> kinshipStep(edge) == 1 ? 1 : NOT_FOLLOWED).keySet());
+    }
+
+    /**
+     * Get a user's ancestors through parent relationships, nearest generation first.
+     *
+     * @param maxDepth Number of generations to ascend, capped at {@code max-depth}
+     */
+    public List<UUID> getAncestors(UUID userId, int maxDepth) {
+        return new ArrayList<>(traverse("ancestors", userId, maxDepth,
+                edge -> kinshipStep(edge) == -1 ? -1 : NOT_FOLLOWED).keySet());
+    }
+
+    /**
+     * Get the generation of every user reachable from a user through parent and child
+     * relationships, relative to that user: negative for older generations, positive for
+     * younger ones. Each user gets the generation of the shortest path to it.
+     *
+     * @param maxDepth Maximum number of relationships between the user and the others
+     */
+    public Map<UUID, Integer> getGenerations(UUID userId, int maxDepth) {
+        return traverse("generations", userId, maxDepth, edge -> {
+            int step = kinshipStep(edge);
+            return step != 0 ? step : NOT_FOLLOWED;
+        });
+    }
+
+    /**
+     * Get the users connected to a user through active relationships of a category, or of
+     * any category when none is given, nearest first.
+     *
+     * @param maxDepth Maximum number of relationships between the user and the others
+     */
+    public List<UUID> getConnectedUsers(UUID userId, String category, int maxDepth) {
+        return new ArrayList<>(read("connected", pass -> {
+            Integer categoryId = category != null ? names.get(normalize(category)) : null;
+            if (category != null && categoryId == null) {
+                pass.node(userId);
+                return Collections.<UUID, Integer>emptyMap();
+            }
+            return pass.traverse(userId, maxDepth, edge -> LabeledAdjacencyGraph.isActive(edge)
+                    && (categoryId == null || labelCategory[LabeledAdjacencyGraph.label(edge)] == categoryId)
+                    ? 0 : NOT_FOLLOWED);
+        }).keySet());
+    }
+
+    /**
+     * Mark users to be reloaded on next use, and discard their loads in progress.
+     */
+    public void invalidateUsers(Collection<UUID> userIds) {
+        lock.writeLock().lock();
+        try {
+            for (UUID userId : userIds) {
+                int id = users.idOf(userId);
+                if (id >= 0) {
+                    versions[id]++;
+                    loadedAt[id] = 0;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        invalidatedUsers.increment(userIds.size());
+    }
+
+    private Map<UUID, List<UUID>> related(String query, Collection<UUID> userIds,
+                                          String name, boolean byCategory) {
+        Collection<UUID> distinct = new LinkedHashSet<>(userIds);
+        return read(query, pass -> {
+            Integer nameId = names.get(normalize(name));
+            int[] labelNames = byCategory ? labelCategory : labelType;
+            Map<UUID, List<UUID>> related = new LinkedHashMap<>();
+            for (UUID userId : distinct) {
+                int user = pass.node(userId);
+                List<UUID> matches = new ArrayList<>();
+                if (user >= 0 && nameId != null) {
+                    for (long edge : graph.edges(user)) {
+                        if (labelNames[LabeledAdjacencyGraph.label(edge)] == nameId) {
+                            matches.add(users.uuidOf(LabeledAdjacencyGraph.target(edge)));
+                        }
+                    }
+                }
+                related.put(userId, matches);
+            }
+            return related;
+        });
+    }
+
+    private Map<UUID, Integer> traverse(String query, UUID userId, int maxDepth, LongToIntFunction step) {
+        return read(query, pass -> pass.traverse(userId, maxDepth, step));
+    }
+
+    /**
+     * Run a read under the read lock, load the users it needed that were not replicated,
+     * and re-run it until it needs no user it has not already tried to load.
+     */
+    private <T> T read(String query, Function<Pass, T> read) {
+        return queryTimers.computeIfAbsent(query, name -> Timer.builder("legacy.relationship.graph.queries")
+                        .description("Latency of relationship graph replica queries, loads included")
+                        .tag("query", name)
+                        .register(meterRegistry))
+                .record(() -> {
+                    Pass pass = new Pass();
+                    while (true) {
+                        T result;
+                        lock.readLock().lock();
+                        try {
+                            pass.begin();
+                            result = read.apply(pass);
+                        } finally {
+                            lock.readLock().unlock();
+                        }
+                        if (pass.missing.isEmpty()) {
+                            return result;
+                        }
+                        List<UUID> missing = new ArrayList<>(pass.missing);
+                        load(missing);
+                        pass.loaded.addAll(missing);
+                    }
+                });
+    }
+
+    private void load(List<UUID> userIds) {
+        int[] ids = new int[userIds.size()];
+        int[] loadVersions = new int[userIds.size()];
+        long loadGeneration;
+        lock.writeLock().lock();
+        try {
+            if (users.size() >= properties.getMaxUsers()) {
+                reset();
+            }
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = intern(userIds.get(i));
+                loadVersions[i] = versions[ids[i]];
+            }
+            loadGeneration = generation;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<UUID, List<RelationshipInfo>> relationships = fetch(userIds);
+
+        lock.writeLock().lock();
+        try {
+            if (generation != loadGeneration) {
+                return;
+            }
+            long[] edges = new long[16];
+            int now = nowSeconds();
+            for (int i = 0; i < ids.length; i++) {
+                UUID userId = userIds.get(i);
+                if (versions[ids[i]] != loadVersions[i]) {
+                    continue;
+                }
+
+                List<RelationshipInfo> loaded = relationships.getOrDefault(userId, Collections.emptyList());
+                if (edges.length < loaded.size()) {
+                    edges = new long[loaded.size()];
+                }
+                int count = 0;
+                for (RelationshipInfo rel : loaded) {
+                    if (rel.getUser1Id() == null || rel.getUser2Id() == null) {
+                        continue;
+                    }
+                    boolean incoming = !userId.equals(rel.getUser1Id());
+                    edges[count++] = LabeledAdjacencyGraph.edge(intern(rel.getOtherUserId(userId)),
+                            label(rel.getRelationshipTypeName(), rel.getRelationshipCategory()),
+                            incoming, rel.isActive());
+                }
+                graph.setEdges(ids[i], edges, count);
+                loadedAt[ids[i]] = count > 0 ? now : 0;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loadedUsers.increment(ids.length);
+    }
+
+    private Map<UUID, List<RelationshipInfo>> fetch(Collection<UUID> userIds) {
+        if (cacheProperties.isEnabled() && cacheProperties.isActiveRelationships()) {
+            return cache.getActiveRelationships(userIds, missing -> loader.getActiveUserRelationships(missing));
+        }
+        return loader.getActiveUserRelationships(userIds);
+    }
+
+    private void reset() {
+        log.info("Relationship graph replica reached {} users, clearing it", users.size());
+        users = new UuidInterner(INITIAL_USERS);
+        graph = new LabeledAdjacencyGraph(INITIAL_USERS);
+        loadedAt = new int[INITIAL_USERS];
+        versions = new int[INITIAL_USERS];
+        generation++;
+        resets.increment();
+    }
+
+    private int intern(UUID userId) {
+        int id = users.intern(userId);
+        if (id >= loadedAt.length) {
+            int capacity = Math.max(id + 1, loadedAt.length + (loadedAt.length >> 1));
+            loadedAt = Arrays.copyOf(loadedAt, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+        }
+        return id;
+    }
+
+    private int label(String typeName, String category) {
+        String type = normalize(typeName);
+        String categoryName = normalize(category);
+        return labels.computeIfAbsent(type + '\u0000' + categoryName, key -> {
+            int label = labels.size();
+            if (label == labelType.length) {
+                labelType = Arrays.copyOf(labelType, label * 2);
+                labelCategory = Arrays.copyOf(labelCategory, label * 2);
+                labelKinship = Arrays.copyOf(labelKinship, label * 2);
+            }
+            labelType[label] = name(type);
+            labelCategory[label] = name(categoryName);
+            labelKinship[label] = kinship(type);
+            return label;
+        });
+    }
+
+    private int name(String name) {
+        return names.computeIfAbsent(name, key -> names.size());
+    }
+
+    private int kinship(String type) {
+        if (properties.getChildTypes().stream().anyMatch(child -> normalize(child).equals(type))) {
+            return 1;
+        }
+        if (properties.getParentTypes().stream().anyMatch(parent -> normalize(parent).equals(type))) {
+            return -1;
+        }
+        return 0;
+    }
+
+    /**
+     * Generation step along an active half-edge: 1 to a child, -1 to a parent, 0 otherwise.
+     * An outgoing "Son" leads to a child; an incoming "Son" (the user is the other's son)
+     * leads to a parent.
+     */
+    private int kinshipStep(long edge) {
+        if (!LabeledAdjacencyGraph.isActive(edge)) {
+            return 0;
+        }
+        int kinship = labelKinship[LabeledAdjacencyGraph.label(edge)];
+        return LabeledAdjacencyGraph.isIncoming(edge) ? -kinship : kinship;
+    }
+
+    private double userCount() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double halfEdgeCount() {
+        lock.readLock().lock();
+        try {
+            return graph.edgeCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            return users.estimatedBytes() + graph.estimatedBytes() + 2 * (16 + 4L * loadedAt.length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int nowSeconds() {
+        return (int) ((System.nanoTime() - startNanos) / 1_000_000_000L) + 1;
+    }
+
+    private static String normalize(String name) {
+        return name != null ? name.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * State of one query across its passes: the users it needed that were not replicated
+     * in the current pass, and the users it already tried to load, which later passes use
+     * as they are.
+     */
+    private final class Pass {
+
+        private final List<UUID> missing = new ArrayList<>();
+        private final List<UUID> loaded = new ArrayList<>();
+        private IntSet attempted = new IntSet();
+        private long passGeneration = -1;
+
+        private void begin() {
+            missing.clear();
+            if (passGeneration != generation) {
+                // IDs changed with a reset; what was loaded under the old ones is gone
+                attempted = new IntSet();
+                passGeneration = generation;
+            }
+            for (UUID userId : loaded) {
+                int id = users.idOf(userId);
+                if (id >= 0) {
+                    attempted.add(id);
+                }
+            }
+            loaded.clear();
+        }
+
+        /**
+         * Get a user's ID for reading its relationships, or -1 if it must be loaded first.
+         */
+        private int node(UUID userId) {
+            int id = users.idOf(userId);
+            if (id < 0) {
+                missing.add(userId);
+                return -1;
+            }
+            return isReadable(id) ? id : -1;
+        }
+
+        /**
+         * Whether a user's relationships can be read, reporting the user missing if not.
+         */
+        private boolean isReadable(int id) {
+            if ((loadedAt[id] != 0 && nowSeconds() - loadedAt[id] < properties.getRefreshSeconds())
+                    || attempted.contains(id)) {
+                return true;
+            }
+            missing.add(users.uuidOf(id));
+            return false;
+        }
+
+        /**
+         * Breadth-first traversal from a user, following the half-edges for which
+         * {@code step} does not answer {@link #NOT_FOLLOWED} and summing its answers along
+         * the path. Users that are not replicated are not expanded and are reported missing.
+         *
+         * @return Reached users, nearest first, with the summed steps of their path
+         */
+        private Map<UUID, Integer> traverse(UUID userId, int maxDepth, LongToIntFunction step) {
+            Map<UUID, Integer> reached = new LinkedHashMap<>();
+            int root = node(userId);
+            if (root < 0) {
+                return reached;
+            }
+
+            int depthLimit = Math.min(maxDepth, properties.getMaxDepth());
+            IntSet visited = new IntSet();
+            visited.add(root);
+            int[] queue = {root};
+            int[] values = {0};
+            int head = 0;
+            int tail = 1;
+            for (int depth = 0; depth < depthLimit && head < tail; depth++) {
+                int levelEnd = tail;
+                for (; head < levelEnd; head++) {
+                    int user = queue[head];
+                    if (user != root && !isReadable(user)) {
+                        continue;
+                    }
+                    for (long edge : graph.edges(user)) {
+                        int delta = step.applyAsInt(edge);
+                        int target = LabeledAdjacencyGraph.target(edge);
+                        if (delta == NOT_FOLLOWED || !visited.add(target)) {
+                            continue;
+                        }
+                        if (tail == queue.length) {
+                            queue = Arrays.copyOf(queue, tail * 2);
+                            values = Arrays.copyOf(values, tail * 2);
+                        }
+                        queue[tail] = target;
+                        values[tail++] = values[head] + delta;
+                    }
+                }
+            }
+            for (int i = 1; i < tail; i++) {
+                reached.put(users.uuidOf(queue[i]), values[i]);
+            }
+            return reached;
+        }
+    }
+
+    /**
+     * Open-addressing set of non-negative ints, for the visited users of a traversal.
+     */
+    private static final class IntSet {
+
+        private int[] slots = newSlots(32);
+        private int size;
+
+        private boolean contains(int value) {
+            int mask = slots.length - 1;
+            int slot = mix(value) & mask;
+            while (slots[slot] != -1) {
+                if (slots[slot] == value) {
+                    return true;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return false;
+        }
+
+        private boolean add(int value) {
+            int mask = slots.length - 1;
+            int slot = mix(value) & mask;
+            while (slots[slot] != -1) {
+                if (slots[slot] == value) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+            if (++size * 2 > slots.length) {
+                int[] previous = slots;
+                slots = newSlots(previous.length * 2);
+                size = 0;
+                for (int existing : previous) {
+                    if (existing != -1) {
+                        add(existing);
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static int[] newSlots(int capacity) {
+            int[] slots = new int[capacity];
+            Arrays.fill(slots, -1);
+            return slots;
+        }
+
+        private static int mix(int value) {
+            return value * 0x9e3779b9;
+        }
+    }
+}
@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.legacykeep.legacy.service.RelationshipServiceClient;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -18,9 +20,13 @@ import java.util.stream.Collectors;
 
 /**
  * Implementation of RelationshipServiceClient.
- * Communicates with the Relationship Service via REST API.
+ * Communicates with the Relationship Service via REST API, blocking one thread per call.
+ * Selected with {@code legacy.services.relationship.client=rest}; the default is
+ * {@link WebClientRelationshipServiceClient}.
  */
 @Service
+@ConditionalOnProperty(name = "legacy.services.relationship.client", havingValue = "rest")
+@Qualifier("relationshipTransport")
 @RequiredArgsConstructor
 @Slf4j
 public class RelationshipServiceClientImpl implements RelationshipServiceClient {
@@ -0,0 +1,272 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipResilienceProperties;
+import com.legacykeep.legacy.exception.RelationshipServiceUnavailableException;
+import com.legacykeep.legacy.util.CircuitBreaker;
+import com.legacykeep.legacy.util.LatencyWindow;
+import com.legacykeep.legacy.util.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.codec.CodecException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Resilience of calls to the Relationship Service.
+ *
+ * Every call passes, in order: the inbound request's deadline (calls are not started once
+ * it has passed and are cut off when it arrives), the endpoint's {@link CircuitBreaker}
+ * (calls are rejected while the endpoint keeps failing, so a failing service costs no
+ * waiting), and a bulkhead bounding the calls in flight to the service. Idempotent GETs
+ * are optionally hedged: when the first request has not answered within the endpoint's
+ * recent latency percentile, an identical second request is sent and the first answer
+ * wins, within a budget of hedges per call.
+ *
+ * Server errors, 429s, timeouts and I/O errors count as failures; other client errors and
+ * decoding errors count as successes for the circuit but still fail the call. Rejections
+ * and calls stopped by the caller's deadline fail with
+ * {@link RelationshipServiceUnavailableException} and do not count.
+ */
+@Component
+@Slf4j
+public class RelationshipServiceResilience {
+
+    private final RelationshipResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    public RelationshipServiceResilience(RelationshipResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(properties.getBulkheadMaxConcurrentCalls());
+
+        Gauge.builder("legacy.relationship.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Free slots of the Relationship Service bulkhead")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a call to an endpoint under the current thread's deadline, the endpoint's circuit
+     * breaker and the bulkhead. The deadline is read when this method is called; the call
+     * itself starts on subscription.
+     *
+     * @param endpoint Logical endpoint name, for the circuit breaker and metrics
+     * @param idempotent Whether the call may be hedged
+     * @param call Creates the call; invoked once per attempt
+     */
+    public <T> Mono<T> execute(String endpoint, boolean idempotent, Supplier<Mono<T>> call) {
+        Endpoint state = endpoint(endpoint);
+        long remainingMillis = RequestDeadline.remainingMillis();
+
+        return Mono.defer(() -> {
+            if (remainingMillis <= 0) {
+                state.deadlineExceeded.increment();
+                return Mono.error(new RelationshipServiceUnavailableException(endpoint, "request deadline exceeded"));
+            }
+            if (properties.isCircuitBreakerEnabled() && !state.breaker.tryAcquire()) {
+                state.rejectedByCircuit.increment();
+                return Mono.error(new RelationshipServiceUnavailableException(endpoint, "circuit open"));
+            }
+            if (!bulkhead.tryAcquire()) {
+                endCall(state, null);
+                state.rejectedByBulkhead.increment();
+                return Mono.error(new RelationshipServiceUnavailableException(endpoint, "bulkhead full"));
+            }
+
+            long startNanos = System.nanoTime();
+            Mono<T> attempt;
+            try {
+                attempt = idempotent && properties.isHedgingEnabled() ? hedged(state, call) : call.get();
+            } catch (RuntimeException e) {
+                bulkhead.release();
+                endCall(state, null);
+                throw e;
+            }
+            if (remainingMillis != Long.MAX_VALUE) {
+                attempt = attempt.timeout(Duration.ofMillis(remainingMillis), Mono.defer(() -> Mono.error(
+                        new RelationshipServiceUnavailableException(endpoint, "request deadline exceeded"))));
+            }
+            return attempt
+                    .doOnSuccess(value -> {
+                        long elapsedNanos = System.nanoTime() - startNanos;
+                        state.latencies.record(Duration.ofNanos(elapsedNanos).toMillis());
+                        state.latency.record(Duration.ofNanos(elapsedNanos));
+                        endCall(state, true);
+                        state.succeeded.increment();
+                    })
+                    .doOnError(e -> {
+                        if (e instanceof RelationshipServiceUnavailableException) {
+                            endCall(state, null);
+                            state.deadlineExceeded.increment();
+                        } else if (isFailure(e)) {
+                            endCall(state, false);
+                            state.failed.increment();
+                        } else {
+                            endCall(state, true);
+                            state.rejectedByService.increment();
+                        }
+                    })
+                    .doOnCancel(() -> endCall(state, null))
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * Decide what a failed lookup answers: with {@code failOnUnavailable} an unavailable
+     * service fails the lookup, otherwise (and for other errors) the lookup answers the
+     * given empty value.
+     */
+    public <T> T fallback(String endpoint, Throwable error, T empty) {
+        Throwable cause = Exceptions.unwrap(error);
+        if (failsLookup(cause)) {
+            if (cause instanceof RelationshipServiceUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new RelationshipServiceUnavailableException(endpoint, cause);
+        }
+        return empty;
+    }
+
+    /**
+     * Whether an error means the Relationship Service could not answer, as opposed to
+     * answering with a client error.
+     */
+    public boolean isUnavailable(Throwable error) {
+        Throwable cause = Exceptions.unwrap(error);
+        return cause instanceof RelationshipServiceUnavailableException || isFailure(cause);
+    }
+
+    /**
+     * Whether an error fails the lookup it occurred in, rather than being answered with an
+     * empty value.
+     */
+    public boolean failsLookup(Throwable error) {
+        return properties.isFailOnUnavailable() && isUnavailable(error);
+    }
+
+    public CircuitBreaker.State getCircuitState(String endpoint) {
+        return endpoint(endpoint).breaker.getState();
+    }
+
+    private <T> Mono<T> hedged(Endpoint state, Supplier<Mono<T>> call) {
+        long percentile = state.latencies.size() >= properties.getHedgeMinSamples()
+                ? state.latencies.percentile(properties.getHedgePercentile())
+                : -1;
+        if (percentile < 0) {
+            return call.get();
+        }
+
+        long delayMillis = Math.max(percentile, properties.getHedgeMinDelayMillis());
+        Mono<T> hedge = Mono.delay(Duration.ofMillis(delayMillis))
+                .then(Mono.defer(() -> {
+                    // Within budget and with a free bulkhead slot, or not at all
+                    if (state.hedges.sum() * 100.0 >= state.calls.sum() * properties.getHedgeBudgetPercent()
+                            || !bulkhead.tryAcquire()) {
+                        return Mono.<T>never();
+                    }
+                    state.hedges.increment();
+                    // A failed hedge leaves the answer to the first request
+                    return call.get()
+                            .onErrorResume(e -> Mono.never())
+                            .doFinally(signal -> bulkhead.release());
+                }));
+        state.calls.increment();
+        return Mono.firstWithSignal(call.get(), hedge);
+    }
+
+    private void endCall(Endpoint state, Boolean success) {
+        if (!properties.isCircuitBreakerEnabled()) {
+            return;
+        }
+        if (success == null) {
+            state.breaker.onIgnored();
+        } else if (success) {
+            state.breaker.onSuccess();
+        } else {
+            state.breaker.onFailure();
+        }
+    }
+
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status >= 500 || status == 429;
+        }
+        return !(error instanceof CodecException);
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    /**
+     * Circuit breaker, latency window and metrics of one endpoint.
+     */
+    private final class Endpoint {
+
+        private final CircuitBreaker breaker;
+        private final LatencyWindow latencies = new LatencyWindow(256);
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder hedges = new LongAdder();
+        private final Timer latency;
+        private final Counter succeeded;
+        private final Counter failed;
+        private final Counter rejectedByService;
+        private final Counter rejectedByCircuit;
+        private final Counter rejectedByBulkhead;
+        private final Counter deadlineExceeded;
+
+        private Endpoint(String name) {
+            this.breaker = new CircuitBreaker(properties.getCircuitWindowSize(), properties.getCircuitMinimumCalls(),
+                    properties.getCircuitFailureRateThreshold(), properties.getCircuitOpenMillis(),
+                    properties.getCircuitHalfOpenCalls());
+
+            this.latency = Timer.builder("legacy.relationship.calls.latency")
+                    .description("Latency of successful Relationship Service calls, hedges included")
+                    .tag("endpoint", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            this.succeeded = calls(name, "success");
+            this.failed = calls(name, "failure");
+            this.rejectedByService = calls(name, "client_error");
+            this.rejectedByCircuit = calls(name, "circuit_open");
+            this.rejectedByBulkhead = calls(name, "bulkhead_full");
+            this.deadlineExceeded = calls(name, "deadline_exceeded");
+
+            Gauge.builder("legacy.relationship.circuit.state", breaker, cb -> cb.getState().ordinal())
+                    .description("Circuit state of a Relationship Service endpoint: 0 closed, 1 half-open, 2 open")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("legacy.relationship.circuit.transitions", breaker, CircuitBreaker::getTransitions)
+                    .description("Circuit state transitions of a Relationship Service endpoint")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            FunctionCounter.builder("legacy.relationship.hedges", hedges, LongAdder::sum)
+                    .description("Hedged requests sent to a Relationship Service endpoint")
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+        }
+
+        private Counter calls(String name, String outcome) {
+            return Counter.builder("legacy.relationship.calls")
+                    .description("Relationship Service calls")
+                    .tag("endpoint", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
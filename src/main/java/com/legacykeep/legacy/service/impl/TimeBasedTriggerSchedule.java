@@ -0,0 +1,183 @@
+package com.legacykeep.legacy.service.impl;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Firing schedule of a TIME_BASED inheritance rule, parsed from its trigger metadata.
+ *
+ * Supported trigger metadata (first match wins):
+ * <ul>
+ *   <li>{@code {"fireAt": "2030-05-01T09:00:00"}} - fires once at a fixed date or date-time</li>
+ *   <li>{@code {"birthDate": "2010-03-01", "ageMilestone": 18}} - fires once when the age is reached</li>
+ *   <li>{@code {"anniversary": "1985-06-15"}} - fires every year on the anniversary;
+ *       with {@code "years": 50} it fires once on that anniversary only</li>
+ *   <li>{@code {"startAt": "2025-01-01", "recurrence": "P1M", "until": "2030-01-01"}} - fires every
+ *       ISO-8601 period from the start, optionally until a date</li>
+ * </ul>
+ * Date-only values fire at {@code "timeOfDay"} (ISO local time, default midnight).
+ *
+ * Occurrence {@code n} of a recurring schedule is computed from its anchor as
+ * {@code anchor + n * recurrence}, never from the previous firing, so month and year
+ * recurrences do not drift: a schedule starting on Jan 31 with {@code P1M} fires on the
+ * last day of February and then on Mar 31, and a Feb 29 anniversary fires on Feb 28 in
+ * common years and on Feb 29 again in leap years.
+ */
+public final class TimeBasedTriggerSchedule {
+
+    private static final double AVERAGE_DAYS_PER_MONTH = 365.2425 / 12;
+
+    private final LocalDateTime anchor;
+    private final int firstOccurrence;
+    private final Period recurrence;
+    private final LocalDateTime until;
+
+    private TimeBasedTriggerSchedule(LocalDateTime anchor, int firstOccurrence, Period recurrence, LocalDateTime until) {
+        this.anchor = anchor;
+        this.firstOccurrence = firstOccurrence;
+        this.recurrence = recurrence;
+        this.until = until;
+    }
+
+    private static TimeBasedTriggerSchedule once(LocalDateTime fireAt) {
+        return new TimeBasedTriggerSchedule(fireAt, 0, null, null);
+    }
+
+    /**
+     * Parse a schedule from trigger metadata.
+     *
+     * @param triggerMetadata The rule's trigger metadata (may be null)
+     * @return The schedule, or empty if the metadata does not describe one
+     */
+    public static Optional<TimeBasedTriggerSchedule> parse(Map<String, Object> triggerMetadata) {
+        if (triggerMetadata == null || triggerMetadata.isEmpty()) {
+            return Optional.empty();
+        }
+
+        try {
+            LocalTime timeOfDay = triggerMetadata.containsKey("timeOfDay")
+                    ? LocalTime.parse(String.valueOf(triggerMetadata.get("timeOfDay")))
+                    : LocalTime.MIDNIGHT;
+
+            if (triggerMetadata.containsKey("fireAt")) {
+                LocalDateTime fireAt = parseDateTime(triggerMetadata.get("fireAt"), timeOfDay);
+                return Optional.of(once(fireAt));
+            }
+
+            if (triggerMetadata.containsKey("birthDate") && triggerMetadata.containsKey("ageMilestone")) {
+                LocalDate birthDate = LocalDate.parse(String.valueOf(triggerMetadata.get("birthDate")));
+                int age = toInt(triggerMetadata.get("ageMilestone"));
+                return Optional.of(once(birthDate.plusYears(age).atTime(timeOfDay)));
+            }
+
+            if (triggerMetadata.containsKey("anniversary")) {
+                LocalDate anniversary = LocalDate.parse(String.valueOf(triggerMetadata.get("anniversary")));
+                if (triggerMetadata.containsKey("years")) {
+                    int years = toInt(triggerMetadata.get("years"));
+                    return Optional.of(once(anniversary.plusYears(years).atTime(timeOfDay)));
+                }
+                return Optional.of(new TimeBasedTriggerSchedule(anniversary.atTime(timeOfDay), 1, Period.ofYears(1), null));
+            }
+
+            if (triggerMetadata.containsKey("startAt") && triggerMetadata.containsKey("recurrence")) {
+                LocalDateTime startAt = parseDateTime(triggerMetadata.get("startAt"), timeOfDay);
+                Period recurrence = Period.parse(String.valueOf(triggerMetadata.get("recurrence")));
+                if (recurrence.isZero() || recurrence.isNegative()) {
+                    return Optional.empty();
+                }
+                LocalDateTime until = triggerMetadata.containsKey("until")
+                        ? parseDateTime(triggerMetadata.get("until"), timeOfDay)
+                        : null;
+                return Optional.of(new TimeBasedTriggerSchedule(startAt, 0, recurrence, until));
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return Optional.empty();
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * The first firing at or after the given time. One-shot schedules whose time has
+     * already passed return that time so that a missed firing still happens.
+     */
+    public Optional<LocalDateTime> firstFireAtOrAfter(LocalDateTime from) {
+        if (recurrence == null) {
+            return withinUntil(anchor);
+        }
+
+        return withinUntil(firstOccurrence(from, true));
+    }
+
+    /**
+     * The firing that follows one that happened at the given time, or empty if the
+     * schedule is exhausted.
+     */
+    public Optional<LocalDateTime> nextFireAfter(LocalDateTime firedAt) {
+        if (recurrence == null) {
+            return Optional.empty();
+        }
+
+        return withinUntil(firstOccurrence(firedAt, false));
+    }
+
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    /**
+     * The first occurrence at (if inclusive) or after the given time. Starts from an
+     * estimate of the occurrence number rather than counting from the anchor.
+     */
+    private LocalDateTime firstOccurrence(LocalDateTime from, boolean inclusive) {
+        int n = firstOccurrence;
+        long elapsedDays = ChronoUnit.DAYS.between(anchor, from);
+        if (elapsedDays > 0) {
+            double periodDays = recurrence.toTotalMonths() * AVERAGE_DAYS_PER_MONTH + recurrence.getDays();
+            n = (int) Math.max(n, Math.min(Integer.MAX_VALUE, elapsedDays / periodDays - 1));
+        }
+        while (n > firstOccurrence && isAtOrAfter(occurrence(n - 1), from, inclusive)) {
+            n--;
+        }
+        while (!isAtOrAfter(occurrence(n), from, inclusive)) {
+            n++;
+        }
+        return occurrence(n);
+    }
+
+    private static boolean isAtOrAfter(LocalDateTime time, LocalDateTime from, boolean inclusive) {
+        return inclusive ? !time.isBefore(from) : time.isAfter(from);
+    }
+
+    private LocalDateTime occurrence(int n) {
+        return anchor.plus(recurrence.multipliedBy(n));
+    }
+
+    private Optional<LocalDateTime> withinUntil(LocalDateTime fireAt) {
+        if (until != null && fireAt.isAfter(until)) {
+            return Optional.empty();
+        }
+        return Optional.of(fireAt);
+    }
+
+    private static LocalDateTime parseDateTime(Object value, LocalTime timeOfDay) {
+        String text = String.valueOf(value);
+        if (text.length() <= 10) {
+            return LocalDate.parse(text).atTime(timeOfDay);
+        }
+        return LocalDateTime.parse(text);
+    }
+
+    private static int toInt(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        return Integer.parseInt(String.valueOf(value));
+    }
+}
@@ -0,0 +1,388 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.legacykeep.legacy.config.RelationshipResilienceProperties;
+import com.legacykeep.legacy.config.RelationshipServiceProperties;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import com.legacykeep.legacy.util.RequestDeadline;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of RelationshipServiceClient on a pooled, non-blocking {@link WebClient}.
+ *
+ * Single lookups still return synchronously, but no thread is held by the connection
+ * while the response is awaited, and batch lookups run concurrently over the shared
+ * connection pool: in chunks through the Relationship Service's batch endpoints, or as
+ * concurrent single-user calls (up to {@code max-concurrent-lookups}) where those
+ * endpoints are absent. An absent endpoint is detected once and then skipped.
+ * Every call runs under {@link RelationshipServiceResilience}. When the service is
+ * unavailable, lookups fail with a 503 instead of answering with empty results, unless
+ * {@code legacy.services.relationship.resilience.fail-on-unavailable} is off. Client
+ * errors still resolve to the same empty results as {@link RelationshipServiceClientImpl}.
+ */
+@Service
+@ConditionalOnProperty(name = "legacy.services.relationship.client", havingValue = "webclient", matchIfMissing = true)
+@Qualifier("relationshipTransport")
+@Slf4j
+public class WebClientRelationshipServiceClient implements RelationshipServiceClient {
+
+    private static final ParameterizedTypeReference<ApiEnvelope<RelationshipPage>> RELATIONSHIP_PAGE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<Boolean>> BOOLEAN =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<RelationshipTypeInfo>> RELATIONSHIP_TYPE_INFO =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<List<RelationshipTypeInfo>>> RELATIONSHIP_TYPE_LIST =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<List<Map<String, Object>>>> MAP_LIST =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<Map<String, Object>>> MAP =
+            new ParameterizedTypeReference<>() {};
+
+    private static final ParameterizedTypeReference<ApiEnvelope<Map<UUID, List<RelationshipInfo>>>> RELATIONSHIPS_BY_USER =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiEnvelope<Map<UUID, Map<String, Object>>>> USERS_BY_ID =
+            new ParameterizedTypeReference<>() {};
+
+    private static final String ACTIVE_RELATIONSHIPS_BATCH_PATH = "/api/v1/relationships/users/active/batch";
+    private static final String USER_INFO_BATCH_PATH = "/api/v1/users/batch";
+
+    // Endpoint names of the circuit breakers and metrics
+    private static final String ACTIVE_RELATIONSHIPS = "active-relationships";
+    private static final String ACTIVE_RELATIONSHIPS_BATCH = "active-relationships-batch";
+    private static final String RELATIONSHIP_CHECK = "relationship-check";
+    private static final String ACTIVE_RELATIONSHIP_CHECK = "active-relationship-check";
+    private static final String RELATIONSHIP_TYPE = "relationship-type";
+    private static final String RELATIONSHIP_TYPES_BY_CATEGORY = "relationship-types";
+    private static final String FAMILY_MEMBERS = "family-members";
+    private static final String USER_INFO = "user-info";
+    private static final String USER_INFO_BATCH = "user-info-batch";
+
+    private final WebClient webClient;
+    private final RelationshipServiceProperties properties;
+    private final RelationshipServiceResilience resilience;
+    private final String deadlineHeader;
+    private final AtomicBoolean activeRelationshipsBatchEndpoint = new AtomicBoolean(true);
+    private final AtomicBoolean userInfoBatchEndpoint = new AtomicBoolean(true);
+
+    public WebClientRelationshipServiceClient(@Qualifier("relationshipWebClient") WebClient webClient,
+                                              RelationshipServiceProperties properties,
+                                              RelationshipServiceResilience resilience,
+                                              RelationshipResilienceProperties resilienceProperties) {
+        this.webClient = webClient;
+        this.properties = properties;
+        this.resilience = resilience;
+        this.deadlineHeader = resilienceProperties.getDeadlineHeader();
+    }
+
+    @Override
+    public List<RelationshipInfo> getActiveUserRelationships(UUID userId) {
+        log.debug("Fetching active relationships for user: {}", userId);
+        try {
+            return fetchActiveRelationships(userId).block();
+        } catch (Exception e) {
+            log.error("Error fetching active relationships for user {}: {}", userId, e.getMessage());
+            return resilience.fallback(ACTIVE_RELATIONSHIPS, e, Collections.emptyList());
+        }
+    }
+
+    @Override
+    public Map<UUID, List<RelationshipInfo>> getActiveUserRelationships(Collection<UUID> userIds) {
+        return batchLookup(userIds, "active relationships", ACTIVE_RELATIONSHIPS_BATCH, activeRelationshipsBatchEndpoint,
+                chunk -> post(ACTIVE_RELATIONSHIPS_BATCH, RELATIONSHIPS_BY_USER, ACTIVE_RELATIONSHIPS_BATCH_PATH,
+                        Map.of("userIds", chunk)),
+                this::fetchActiveRelationships,
+                Collections.emptyList());
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByType(UUID userId, String relationshipTypeName) {
+        log.debug("Fetching relationships by type '{}' for user: {}", relationshipTypeName, userId);
+        return getActiveUserRelationships(userId).stream()
+                .filter(rel -> relationshipTypeName.equalsIgnoreCase(rel.getRelationshipTypeName()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RelationshipInfo> getRelationshipsByCategory(UUID userId, String category) {
+        log.debug("Fetching relationships by category '{}' for user: {}", category, userId);
+        return getActiveUserRelationships(userId).stream()
+                .filter(rel -> category.equalsIgnoreCase(rel.getRelationshipCategory()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipType(UUID userId, String relationshipTypeName) {
+        return getRelationshipsByType(userId, relationshipTypeName).stream()
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<UUID> getUsersByRelationshipCategory(UUID userId, String category) {
+        return getRelationshipsByCategory(userId, category).stream()
+                .map(rel -> rel.getOtherUserId(userId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean relationshipExists(UUID user1Id, UUID user2Id) {
+        log.debug("Checking if relationship exists between users: {} and {}", user1Id, user2Id);
+        try {
+            return Boolean.TRUE.equals(get(RELATIONSHIP_CHECK, BOOLEAN, "/api/v1/relationships/check/{user1Id}/{user2Id}",
+                    user1Id, user2Id).block());
+        } catch (Exception e) {
+            log.error("Error checking relationship existence between users {} and {}: {}",
+                    user1Id, user2Id, e.getMessage());
+            return resilience.fallback(RELATIONSHIP_CHECK, e, false);
+        }
+    }
+
+    @Override
+    public boolean activeRelationshipExists(UUID user1Id, UUID user2Id) {
+        log.debug("Checking if active relationship exists between users: {} and {}", user1Id, user2Id);
+        try {
+            return Boolean.TRUE.equals(get(ACTIVE_RELATIONSHIP_CHECK, BOOLEAN,
+                    "/api/v1/relationships/check-active/{user1Id}/{user2Id}", user1Id, user2Id).block());
+        } catch (Exception e) {
+            log.error("Error checking active relationship existence between users {} and {}: {}",
+                    user1Id, user2Id, e.getMessage());
+            return resilience.fallback(ACTIVE_RELATIONSHIP_CHECK, e, false);
+        }
+    }
+
+    @Override
+    public RelationshipTypeInfo getRelationshipTypeByName(String relationshipTypeName) {
+        log.debug("Fetching relationship type by name: {}", relationshipTypeName);
+        try {
+            return get(RELATIONSHIP_TYPE, RELATIONSHIP_TYPE_INFO, "/api/v1/relationship-types/name/{name}",
+                    relationshipTypeName).block();
+        } catch (Exception e) {
+            log.error("Error fetching relationship type by name '{}': {}", relationshipTypeName, e.getMessage());
+            return resilience.fallback(RELATIONSHIP_TYPE, e, null);
+        }
+    }
+
+    @Override
+    public List<RelationshipTypeInfo> getRelationshipTypesByCategory(String category) {
+        log.debug("Fetching relationship types by category: {}", category);
+        try {
+            List<RelationshipTypeInfo> types = get(RELATIONSHIP_TYPES_BY_CATEGORY, RELATIONSHIP_TYPE_LIST,
+                    "/api/v1/relationship-types/category/{category}", category).block();
+            return types != null
+                    ? types.stream().filter(Objects::nonNull).collect(Collectors.toList())
+                    : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("Error fetching relationship types by category '{}': {}", category, e.getMessage());
+            return resilience.fallback(RELATIONSHIP_TYPES_BY_CATEGORY, e, Collections.emptyList());
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getFamilyMembers(UUID familyId) {
+        try {
+            List<Map<String, Object>> members = get(FAMILY_MEMBERS, MAP_LIST, "/api/v1/families/{familyId}/members",
+                    familyId).block();
+            return members != null ? members : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("Error fetching family members for family '{}': {}", familyId, e.getMessage());
+            return resilience.fallback(FAMILY_MEMBERS, e, Collections.emptyList());
+        }
+    }
+
+    @Override
+    public Map<String, Object> getUserInfo(UUID userId) {
+        try {
+            Map<String, Object> userInfo = get(USER_INFO, MAP, "/api/v1/users/{userId}", userId).block();
+            return userInfo != null ? userInfo : Collections.emptyMap();
+        } catch (Exception e) {
+            log.error("Error fetching user info for user '{}': {}", userId, e.getMessage());
+            return resilience.fallback(USER_INFO, e, Collections.emptyMap());
+        }
+    }
+
+    @Override
+    public Map<UUID, Map<String, Object>> getUserInfo(Collection<UUID> userIds) {
+        return batchLookup(userIds, "user info", USER_INFO_BATCH, userInfoBatchEndpoint,
+                chunk -> post(USER_INFO_BATCH, USERS_BY_ID, USER_INFO_BATCH_PATH, Map.of("userIds", chunk)),
+                userId -> get(USER_INFO, MAP, "/api/v1/users/{userId}", userId),
+                Collections.emptyMap());
+    }
+
+    /**
+     * Look many users up, in chunks of {@code max-batch-size} through a batch endpoint, or
+     * through concurrent single-user calls when the endpoint is absent or a chunk fails.
+     * The result has an entry for every distinct user, in order. When the service is
+     * unavailable for a user, or the batch deadline (the batch timeout, or the request's
+     * deadline if sooner) passes, the lookup fails; with {@code fail-on-unavailable} off,
+     * and for client errors, the user resolves to {@code missing} instead.
+     */
+    private <V> Map<UUID, V> batchLookup(Collection<UUID> userIds, String description, String endpoint,
+                                         AtomicBoolean batchEndpoint,
+                                         Function<List<UUID>, Mono<Map<UUID, V>>> batchCall,
+                                         Function<UUID, Mono<V>> singleCall, V missing) {
+        List<UUID> distinct = List.copyOf(new LinkedHashSet<>(userIds));
+        Map<UUID, V> results = new LinkedHashMap<>();
+        if (distinct.isEmpty()) {
+            return results;
+        }
+        log.debug("Fetching {} for {} users", description, distinct.size());
+
+        Map<UUID, V> fetched = new ConcurrentHashMap<>();
+        long deadlineMillis = Math.max(1, Math.min(properties.getBatchTimeout(), RequestDeadline.remainingMillis()));
+        try {
+            Flux.fromIterable(distinct)
+                    .buffer(properties.getMaxBatchSize())
+                    .flatMap(chunk -> {
+                        Flux<Tuple2<UUID, V>> singly = Flux.fromIterable(chunk)
+                                .flatMap(userId -> singleCall.apply(userId)
+                                                .onErrorResume(e -> {
+                                                    log.error("Error fetching {} for user {}: {}",
+                                                            description, userId, e.getMessage());
+                                                    return resilience.failsLookup(e) ? Mono.error(e) : Mono.empty();
+                                                })
+                                                .map(value -> Tuples.of(userId, value)),
+                                        properties.getMaxConcurrentLookups());
+                        if (!properties.isBatchEndpoints() || !batchEndpoint.get()) {
+                            return singly;
+                        }
+                        return batchCall.apply(chunk)
+                                .flatMapMany(values -> Flux.fromIterable(values.entrySet()))
+                                .filter(entry -> entry.getKey() != null && entry.getValue() != null)
+                                .map(entry -> Tuples.of(entry.getKey(), entry.getValue()))
+                                .onErrorResume(e -> {
+                                    if (isMissingEndpoint(e)) {
+                                        if (batchEndpoint.getAndSet(false)) {
+                                            log.warn("Relationship Service has no batch endpoint for {}, using single calls",
+                                                    description);
+                                        }
+                                    } else {
+                                        log.warn("Batch fetch of {} for {} users failed, using single calls: {}",
+                                                description, chunk.size(), e.getMessage());
+                                    }
+                                    return singly;
+                                });
+                    }, properties.getMaxConcurrentLookups())
+                    .doOnNext(tuple -> fetched.put(tuple.getT1(), tuple.getT2()))
+                    .then()
+                    .timeout(Duration.ofMillis(deadlineMillis))
+                    .block();
+        } catch (Exception e) {
+            log.error("Batch fetch of {} for {} users incomplete after at most {} ms: {} answered: {}",
+                    description, distinct.size(), deadlineMillis, fetched.size(), e.getMessage());
+            resilience.fallback(endpoint, e, null);
+        }
+
+        // Keep the caller's order; users not answered in time resolve to the missing value
+        for (UUID userId : distinct) {
+            results.put(userId, fetched.getOrDefault(userId, missing));
+        }
+        return results;
+    }
+
+    private static boolean isMissingEndpoint(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            int status = response.getStatusCode().value();
+            return status == 404 || status == 405 || status == 501;
+        }
+        return false;
+    }
+
+    private Mono<List<RelationshipInfo>> fetchActiveRelationships(UUID userId) {
+        return get(ACTIVE_RELATIONSHIPS, RELATIONSHIP_PAGE, "/api/v1/relationships/user/{userId}/active", userId)
+                .map(page -> page.getContent() != null
+                        ? page.getContent().stream().filter(Objects::nonNull).collect(Collectors.toList())
+                        : Collections.<RelationshipInfo>emptyList())
+                .defaultIfEmpty(Collections.emptyList());
+    }
+
+    /**
+     * POST to a Relationship Service batch endpoint under the endpoint's resilience policy
+     * and unwrap the {@code data} of its envelope. Batch POSTs are not hedged.
+     */
+    private <T> Mono<T> post(String endpoint, ParameterizedTypeReference<ApiEnvelope<T>> type, String path,
+                             Object body) {
+        Long deadline = RequestDeadline.current();
+        return resilience.execute(endpoint, false, () -> webClient.post()
+                .uri(path)
+                .headers(headers -> propagateDeadline(headers, deadline))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(type)
+                .mapNotNull(ApiEnvelope::getData)
+                .timeout(Duration.ofMillis(properties.getBatchTimeout())));
+    }
+
+    /**
+     * GET a Relationship Service resource under the endpoint's resilience policy and unwrap
+     * the {@code data} of its envelope. Completes empty when the envelope has no data.
+     */
+    private <T> Mono<T> get(String endpoint, ParameterizedTypeReference<ApiEnvelope<T>> type, String path,
+                            Object... uriVariables) {
+        Long deadline = RequestDeadline.current();
+        return resilience.execute(endpoint, true, () -> webClient.get()
+                .uri(path, uriVariables)
+                .headers(headers -> propagateDeadline(headers, deadline))
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
+                .bodyToMono(type)
+                .mapNotNull(ApiEnvelope::getData)
+                .timeout(Duration.ofMillis(properties.getTimeout())));
+    }
+
+    private void propagateDeadline(HttpHeaders headers, Long deadline) {
+        if (deadline != null) {
+            headers.set(deadlineHeader, Long.toString(deadline));
+        }
+    }
+
+    /**
+     * Response envelope of the Relationship Service API.
+     */
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class ApiEnvelope<T> {
+        private T data;
+    }
+
+    /**
+     * Page of relationships as returned by the Relationship Service.
+     */
+    @Data
+    @NoArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class RelationshipPage {
+        private List<RelationshipInfo> content;
+    }
+}
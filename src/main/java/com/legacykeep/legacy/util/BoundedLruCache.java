@@ -0,0 +1,119 @@
+package com.legacykeep.legacy.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Thread-safe, size-bounded LRU cache with an optional time-to-live.
+ *
+ * Entries are evicted least-recently-used once {@code maxSize} is exceeded, and are
+ * treated as absent once older than the TTL. Loader results of {@code null} are not
+ * cached.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * @param maxSize Maximum number of entries
+     * @param ttlMillis Time-to-live of an entry in milliseconds, or 0 for no expiry
+     */
+    public BoundedLruCache(int maxSize, long ttlMillis) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > BoundedLruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Get a cached value.
+     *
+     * @return The value, or null if absent or expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.isExpired(ttlMillis)) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Get a cached value, loading and caching it on a miss.
+     * The loader runs outside the cache lock; concurrent misses may load the same key.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long createdAtMillis;
+
+        private Entry(V value, long createdAtMillis) {
+            this.value = value;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        private boolean isExpired(long ttlMillis) {
+            return ttlMillis > 0 && System.currentTimeMillis() - createdAtMillis > ttlMillis;
+        }
+    }
+}
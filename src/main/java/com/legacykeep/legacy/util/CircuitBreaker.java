@@ -0,0 +1,151 @@
+package com.legacykeep.legacy.util;
+
+/**
+ * Thread-safe, count-based circuit breaker.
+ *
+ * While CLOSED the outcomes of the last {@code windowSize} calls are kept, and the circuit
+ * opens once at least {@code minimumCalls} were recorded and the failure rate reaches the
+ * threshold. An OPEN circuit rejects calls for {@code openMillis} and then turns HALF_OPEN,
+ * letting {@code halfOpenCalls} trial calls through: it closes when they all succeed and
+ * opens again on the first failure.
+ *
+ * Every permitted call must be ended with exactly one of {@link #onSuccess()},
+ * {@link #onFailure()} or {@link #onIgnored()}.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenCalls;
+    private final boolean[] outcomes;
+
+    private State state = State.CLOSED;
+    private int index;
+    private int recorded;
+    private int failures;
+    private long openedAtMillis;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    private long transitions;
+
+    /**
+     * @param windowSize Number of recent calls the failure rate is computed over
+     * @param minimumCalls Minimum calls in the window before the circuit can open
+     * @param failureRateThreshold Failure rate in percent at which the circuit opens
+     * @param openMillis How long the circuit stays open
+     * @param halfOpenCalls Number of trial calls of a half-open circuit
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMillis, int halfOpenCalls) {
+        if (windowSize <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Window size and half-open calls must be positive");
+        }
+
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(Math.max(minimumCalls, 1), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Ask permission for a call.
+     *
+     * @return False if the call must be rejected
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < openMillis) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                transition(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recorded >= minimumCalls && failures * 100.0 / recorded >= failureRateThreshold) {
+                transition(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * End a permitted call whose outcome says nothing about the service (cancelled, or
+     * stopped by the caller's own deadline).
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Number of state transitions so far.
+     */
+    public synchronized long getTransitions() {
+        return transitions;
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[index]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[index] = failure;
+        if (failure) {
+            failures++;
+        }
+        index = (index + 1) % outcomes.length;
+    }
+
+    private void transition(State newState) {
+        state = newState;
+        transitions++;
+        index = 0;
+        recorded = 0;
+        failures = 0;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAtMillis = System.currentTimeMillis();
+        }
+    }
+}
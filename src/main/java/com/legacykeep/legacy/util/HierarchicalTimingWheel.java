@@ -0,0 +1,208 @@
+package com.legacykeep.legacy.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel holding timers keyed by absolute deadline.
+ *
+ * Level 0 has {@code wheelSize} slots of one tick each; every higher level has
+ * {@code wheelSize} slots each covering a full rotation of the level below. A timer
+ * is placed in the lowest level whose range covers its delay and is cascaded down
+ * as the wheel turns. Scheduling and cancelling are O(1); advancing costs one slot
+ * visit per elapsed tick plus the cascades. The wheel holds timers up to
+ * {@code wheelSize ^ levels} ticks ahead.
+ *
+ * Not thread-safe; callers synchronize externally.
+ *
+ * @param <T> Timer payload type
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int wheelMask;
+    private final int levels;
+    private final Handle<T>[][] slots;
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Duration of one level-0 slot in milliseconds
+     * @param wheelSize Slots per level (rounded up to a power of two)
+     * @param levels Number of levels
+     * @param startMillis Current time in epoch milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel configuration");
+        }
+
+        this.tickMillis = tickMillis;
+        this.wheelBits = 32 - Integer.numberOfLeadingZeros(wheelSize - 1);
+        this.wheelMask = (1 << wheelBits) - 1;
+        this.levels = levels;
+        if ((long) wheelBits * levels >= 62) {
+            throw new IllegalArgumentException("Timing wheel horizon is too large");
+        }
+
+        this.slots = new Handle[levels][1 << wheelBits];
+        for (int level = 0; level < levels; level++) {
+            for (int slot = 0; slot <= wheelMask; slot++) {
+                slots[level][slot] = Handle.sentinel();
+            }
+        }
+
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Furthest deadline, in epoch milliseconds, that the wheel can currently hold.
+     */
+    public long horizonMillis() {
+        return (currentTick + (1L << (wheelBits * levels)) - 1) * tickMillis;
+    }
+
+    /**
+     * Schedule a timer. Deadlines in the past expire on the next advance.
+     *
+     * @param deadlineMillis Deadline in epoch milliseconds
+     * @param value Timer payload
+     * @return Handle used to cancel the timer
+     * @throws IllegalArgumentException if the deadline is beyond the wheel's horizon
+     */
+    public Handle<T> schedule(long deadlineMillis, T value) {
+        if (deadlineMillis > horizonMillis()) {
+            throw new IllegalArgumentException("Deadline is beyond the timing wheel horizon");
+        }
+
+        Handle<T> handle = new Handle<>(deadlineMillis, value);
+        place(handle);
+        size++;
+        return handle;
+    }
+
+    /**
+     * Cancel a timer.
+     *
+     * @return true if the timer was pending, false if it had already expired or been cancelled
+     */
+    public boolean cancel(Handle<T> handle) {
+        if (handle == null || !handle.isLinked()) {
+            return false;
+        }
+        handle.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time and return the payloads of expired timers.
+     *
+     * @param nowMillis Current time in epoch milliseconds
+     * @return Expired payloads in deadline-tick order
+     */
+    public List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+
+        while (currentTick <= targetTick) {
+            Handle<T> head = slots[0][(int) (currentTick & wheelMask)];
+            while (head.next != head) {
+                Handle<T> handle = head.next;
+                handle.unlink();
+                size--;
+                expired.add(handle.value);
+            }
+
+            currentTick++;
+            cascade();
+        }
+
+        return expired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < levels; level++) {
+            long levelMask = (1L << (wheelBits * level)) - 1;
+            if ((currentTick & levelMask) != 0) {
+                return;
+            }
+
+            Handle<T> head = slots[level][(int) ((currentTick >>> (wheelBits * level)) & wheelMask)];
+            Handle<T> handle = head.next;
+            head.next = head;
+            head.prev = head;
+            while (handle != head) {
+                Handle<T> next = handle.next;
+                handle.prev = null;
+                handle.next = null;
+                place(handle);
+                handle = next;
+            }
+        }
+    }
+
+    private void place(Handle<T> handle) {
+        long tick = Math.max(handle.deadlineMillis / tickMillis, currentTick);
+        long delta = tick - currentTick;
+
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+
+        int slot = (int) ((tick >>> (wheelBits * level)) & wheelMask);
+        handle.linkBefore(slots[level][slot]);
+    }
+
+    /**
+     * A scheduled timer. Doubles as the node of its slot's intrusive list.
+     */
+    public static final class Handle<T> {
+        private final long deadlineMillis;
+        private final T value;
+        private Handle<T> prev;
+        private Handle<T> next;
+
+        private Handle(long deadlineMillis, T value) {
+            this.deadlineMillis = deadlineMillis;
+            this.value = value;
+        }
+
+        private static <T> Handle<T> sentinel() {
+            Handle<T> sentinel = new Handle<>(0L, null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private boolean isLinked() {
+            return next != null;
+        }
+
+        private void linkBefore(Handle<T> head) {
+            prev = head.prev;
+            next = head;
+            head.prev.next = this;
+            head.prev = this;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        // Getters
+        public long getDeadlineMillis() { return deadlineMillis; }
+        public T getValue() { return value; }
+    }
+}
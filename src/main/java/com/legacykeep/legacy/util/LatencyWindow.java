@@ -0,0 +1,72 @@
+package com.legacykeep.legacy.util;
+
+import java.util.Arrays;
+
+/**
+ * Thread-safe window of the most recent latencies, for estimating a latency percentile.
+ *
+ * The percentile is recomputed at most once per {@code windowSize / 16} recordings, so
+ * reading it is usually a field read.
+ */
+public class LatencyWindow {
+
+    private final long[] samples;
+    private final int recomputeEvery;
+
+    private int index;
+    private int count;
+    private int sinceComputed;
+    private double computedPercentile = Double.NaN;
+    private long computedValue = -1;
+
+    /**
+     * @param windowSize Number of recent latencies kept
+     */
+    public LatencyWindow(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+
+        this.samples = new long[windowSize];
+        this.recomputeEvery = Math.max(1, windowSize / 16);
+    }
+
+    public synchronized void record(long millis) {
+        samples[index] = millis;
+        index = (index + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+        sinceComputed++;
+    }
+
+    /**
+     * Number of latencies held, at most the window size.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Get a latency percentile of the window.
+     *
+     * @param percentile Percentile between 0 and 1
+     * @return The latency in milliseconds, or -1 if the window is empty
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        if (percentile == computedPercentile && computedValue >= 0 && sinceComputed < recomputeEvery) {
+            return computedValue;
+        }
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * count) - 1;
+        computedValue = sorted[Math.max(0, Math.min(rank, count - 1))];
+        computedPercentile = percentile;
+        sinceComputed = 0;
+        return computedValue;
+    }
+}
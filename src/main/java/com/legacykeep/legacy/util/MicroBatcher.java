@@ -0,0 +1,176 @@
+package com.legacykeep.legacy.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects single-key loads from concurrent callers into batch loads.
+ *
+ * The first caller of a batch leads it: it waits for the batch window to close, or for
+ * the batch to fill up, and then loads all keys collected meanwhile with one call of the
+ * batch loader on its own thread. The other callers wait for their key's result. A key
+ * requested twice in one batch is loaded once, and a failed batch load fails every
+ * caller of the batch. No threads are needed beyond the callers'.
+ *
+ * The batch load runs under the latest {@link RequestDeadline} among the batch's callers,
+ * or under none if any caller has no deadline, so one caller's deadline does not cut the
+ * load short for the others. Each caller waits for its result no longer than its own
+ * deadline.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class MicroBatcher<K, V> {
+
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<Collection<K>, Map<K, V>> batchLoader;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+
+    private Batch<K, V> open;
+
+    /**
+     * @param windowMillis How long the leader of a batch waits for more keys
+     * @param maxBatchSize Maximum number of keys per batch load
+     * @param batchLoader Loads many keys at once; keys without a value resolve to null
+     */
+    public MicroBatcher(long windowMillis, int maxBatchSize, Function<Collection<K>, Map<K, V>> batchLoader) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.batchLoader = batchLoader;
+    }
+
+    /**
+     * Load a key as part of the current batch.
+     *
+     * @return The value, or null if the batch loader had none
+     * @throws CompletionException with a {@link TimeoutException} cause if the current
+     *         thread's request deadline passes before the value is loaded
+     */
+    public V load(K key) {
+        Batch<K, V> batch;
+        CompletableFuture<V> call;
+        boolean leader = false;
+        synchronized (this) {
+            if (open == null) {
+                open = new Batch<>();
+                leader = true;
+            }
+            batch = open;
+            call = batch.calls.computeIfAbsent(key, k -> new CompletableFuture<>());
+            batch.extendDeadline(RequestDeadline.current());
+            if (batch.calls.size() >= maxBatchSize) {
+                open = null;
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) {
+            dispatch(batch);
+        }
+        return await(call);
+    }
+
+    /**
+     * Number of batch loads made.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Number of distinct keys loaded across all batches.
+     */
+    public long getKeys() {
+        return keys.sum();
+    }
+
+    private void dispatch(Batch<K, V> batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (open == batch) {
+                open = null;
+            }
+        }
+
+        // The batch is closed: its calls are no longer modified
+        Map<K, CompletableFuture<V>> calls = batch.calls;
+        batches.increment();
+        keys.add(calls.size());
+
+        Long leaderDeadline = RequestDeadline.current();
+        setDeadline(batch.unbounded ? null : batch.deadline);
+        try {
+            Map<K, V> loaded = batchLoader.apply(List.copyOf(calls.keySet()));
+            calls.forEach((key, call) -> call.complete(loaded != null ? loaded.get(key) : null));
+        } catch (RuntimeException | Error e) {
+            calls.values().forEach(call -> call.completeExceptionally(e));
+        } finally {
+            setDeadline(leaderDeadline);
+        }
+    }
+
+    private static void setDeadline(Long deadline) {
+        if (deadline != null) {
+            RequestDeadline.set(deadline);
+        } else {
+            RequestDeadline.clear();
+        }
+    }
+
+    private V await(CompletableFuture<V> call) {
+        long remainingMillis = RequestDeadline.remainingMillis();
+        try {
+            if (remainingMillis == Long.MAX_VALUE) {
+                return call.join();
+            }
+            // Time out a copy: the call itself may be shared with callers of the same key
+            return call.copy().orTimeout(Math.max(0, remainingMillis), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Batch<K, V> {
+        private final Map<K, CompletableFuture<V>> calls = new LinkedHashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private Long deadline;
+        private boolean unbounded;
+
+        /**
+         * Widen the batch's deadline to cover a caller's. Guarded by the batcher's lock.
+         */
+        private void extendDeadline(Long callerDeadline) {
+            if (callerDeadline == null) {
+                unbounded = true;
+            } else if (deadline == null || callerDeadline > deadline) {
+                deadline = callerDeadline;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.legacykeep.legacy.util;
+
+/**
+ * Deadline of the inbound request being served by the current thread.
+ *
+ * Set by the request deadline filter for the duration of a request; threads not serving a
+ * request (jobs, schedulers, listeners) have no deadline.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Set the current thread's deadline.
+     *
+     * @param deadlineEpochMillis Deadline as epoch milliseconds
+     */
+    public static void set(long deadlineEpochMillis) {
+        DEADLINE.set(deadlineEpochMillis);
+    }
+
+    public static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * Get the current thread's deadline.
+     *
+     * @return Deadline as epoch milliseconds, or null if there is none
+     */
+    public static Long current() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * Get the time left until the current thread's deadline.
+     *
+     * @return Remaining milliseconds (zero or less once passed), or {@link Long#MAX_VALUE}
+     *         if there is no deadline
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline != null ? deadline - System.currentTimeMillis() : Long.MAX_VALUE;
+    }
+}
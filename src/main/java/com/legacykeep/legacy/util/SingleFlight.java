@@ -0,0 +1,133 @@
+package com.legacykeep.legacy.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key into one.
+ *
+ * The first caller for a key runs the loader; callers arriving while it runs wait for and
+ * share its result, or its exception. A key is in flight only while its load runs, so a
+ * caller arriving afterwards starts a new load. Loaders should not re-enter the same
+ * instance.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    /**
+     * Load a key, or wait for the load already in flight for it.
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            shared.increment();
+            return await(existing);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Load many keys: keys already in flight are waited for, the others are loaded with one
+     * call of the loader. The keys this caller loads are loaded before it waits for the
+     * others, so two overlapping batches cannot wait for each other.
+     *
+     * @return Values by key, in key order; keys the loader had no value for are absent
+     */
+    public Map<K, V> executeAll(Collection<K> keys, Function<Collection<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> joined = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+            if (existing != null) {
+                joined.put(key, existing);
+            } else {
+                owned.put(key, call);
+            }
+        }
+        shared.add(joined.size());
+
+        if (!owned.isEmpty()) {
+            loads.increment();
+            try {
+                Map<K, V> loaded = loader.apply(List.copyOf(owned.keySet()));
+                owned.forEach((key, call) -> call.complete(loaded != null ? loaded.get(key) : null));
+            } catch (RuntimeException | Error e) {
+                owned.values().forEach(call -> call.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(inFlight::remove);
+            }
+        }
+
+        Map<K, V> values = new LinkedHashMap<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            CompletableFuture<V> call = owned.containsKey(key) ? owned.get(key) : joined.get(key);
+            V value = await(call);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Number of loads started.
+     */
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    /**
+     * Number of callers (or batch keys) that shared a load already in flight.
+     */
+    public long getShared() {
+        return shared.sum();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
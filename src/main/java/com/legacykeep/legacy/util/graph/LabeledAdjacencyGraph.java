@@ -0,0 +1,137 @@
+package com.legacykeep.legacy.util.graph;
+
+import java.util.Arrays;
+
+/**
+ * Adjacency lists of a graph over dense int node IDs, with labelled, directed half-edges
+ * packed into primitive {@code long}s.
+ *
+ * A half-edge is stored at the node it belongs to and packs the other node's ID (low 32
+ * bits), whether it points inward (bit 32), whether it is active (bit 33), and an int
+ * label below {@code 2^30} (bits 34 to 63). A node's list is a {@code long[]} of exactly
+ * its degree, so a half-edge costs 8 bytes and a node 16 bytes of array header plus a
+ * 4-byte reference; nodes without edges share one empty array.
+ *
+ * Lists are replaced whole rather than edited, matching a replica that loads each node's
+ * adjacency from an authoritative source.
+ *
+ * Not thread-safe; callers synchronize externally.
+ */
+public class LabeledAdjacencyGraph {
+
+    public static final int MAX_LABEL = (1 << 30) - 1;
+
+    private static final long[] NO_EDGES = new long[0];
+    private static final long INCOMING = 1L << 32;
+    private static final long ACTIVE = 1L << 33;
+    private static final int LABEL_SHIFT = 34;
+
+    private long[][] adjacency;
+    private long edgeCount;
+    private long listBytes;
+
+    public LabeledAdjacencyGraph(int expectedNodes) {
+        this.adjacency = new long[Math.max(16, expectedNodes)][];
+        Arrays.fill(adjacency, NO_EDGES);
+    }
+
+    /**
+     * Pack a half-edge.
+     *
+     * @param target The other node
+     * @param label Edge label, between 0 and {@link #MAX_LABEL}
+     * @param incoming Whether the edge points from the other node to this one
+     * @param active Whether the edge is active
+     */
+    public static long edge(int target, int label, boolean incoming, boolean active) {
+        if (label < 0 || label > MAX_LABEL) {
+            throw new IllegalArgumentException("Edge label out of range: " + label);
+        }
+        return ((long) label << LABEL_SHIFT) | (active ? ACTIVE : 0) | (incoming ? INCOMING : 0)
+                | (target & 0xffffffffL);
+    }
+
+    public static int target(long edge) {
+        return (int) edge;
+    }
+
+    public static int label(long edge) {
+        return (int) (edge >>> LABEL_SHIFT);
+    }
+
+    public static boolean isIncoming(long edge) {
+        return (edge & INCOMING) != 0;
+    }
+
+    public static boolean isActive(long edge) {
+        return (edge & ACTIVE) != 0;
+    }
+
+    /**
+     * Replace a node's half-edges with the first {@code count} of the given ones.
+     */
+    public void setEdges(int node, long[] edges, int count) {
+        ensureCapacity(node);
+        release(adjacency[node]);
+        adjacency[node] = count == 0 ? NO_EDGES : Arrays.copyOf(edges, count);
+        edgeCount += count;
+        listBytes += listBytes(count);
+    }
+
+    public void clearEdges(int node) {
+        if (node < adjacency.length) {
+            release(adjacency[node]);
+            adjacency[node] = NO_EDGES;
+        }
+    }
+
+    /**
+     * Get a node's half-edges. The returned array is the graph's own and must not be
+     * modified; its length is the node's degree.
+     */
+    public long[] edges(int node) {
+        return node < adjacency.length ? adjacency[node] : NO_EDGES;
+    }
+
+    /**
+     * Remove every node's half-edges.
+     */
+    public void clear() {
+        Arrays.fill(adjacency, NO_EDGES);
+        edgeCount = 0;
+        listBytes = 0;
+    }
+
+    /**
+     * Number of half-edges held; an edge whose both ends are held counts twice.
+     */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Approximate heap footprint of the adjacency lists, in bytes, assuming compressed
+     * references: 16 + 4 per node slot, plus 16 + 8 per half-edge for every node with edges.
+     */
+    public long estimatedBytes() {
+        return 16 + 4L * adjacency.length + listBytes;
+    }
+
+    private void release(long[] edges) {
+        edgeCount -= edges.length;
+        listBytes -= listBytes(edges.length);
+    }
+
+    private static long listBytes(int degree) {
+        return degree == 0 ? 0 : 16 + 8L * degree;
+    }
+
+    private void ensureCapacity(int node) {
+        if (node < adjacency.length) {
+            return;
+        }
+        int previous = adjacency.length;
+        adjacency = Arrays.copyOf(adjacency, Math.max(node + 1, previous + (previous >> 1)));
+        Arrays.fill(adjacency, previous, adjacency.length, NO_EDGES);
+    }
+}
@@ -0,0 +1,125 @@
+package com.legacykeep.legacy.util.graph;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Interns UUIDs to dense int IDs, {@code 0..size()-1} in order of first appearance.
+ *
+ * The UUIDs are held as two parallel {@code long} arrays indexed by ID, and the lookup
+ * table is an open-addressing (linear probing) {@code int} table of IDs kept at most half
+ * full, so an interned UUID costs 16 bytes plus 8 to 16 bytes of table, with no object per
+ * entry.
+ *
+ * Not thread-safe; callers synchronize externally.
+ */
+public class UuidInterner {
+
+    private static final int EMPTY = -1;
+
+    private long[] mostSignificant;
+    private long[] leastSignificant;
+    private int[] table;
+    private int size;
+
+    public UuidInterner(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        this.mostSignificant = new long[capacity];
+        this.leastSignificant = new long[capacity];
+        this.table = newTable(Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1);
+    }
+
+    /**
+     * Get the ID of a UUID, assigning the next ID if it is not interned yet.
+     */
+    public int intern(UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        int slot = find(msb, lsb);
+        if (table[slot] != EMPTY) {
+            return table[slot];
+        }
+
+        if (size == mostSignificant.length) {
+            int capacity = size + (size >> 1);
+            mostSignificant = Arrays.copyOf(mostSignificant, capacity);
+            leastSignificant = Arrays.copyOf(leastSignificant, capacity);
+        }
+        int id = size++;
+        mostSignificant[id] = msb;
+        leastSignificant[id] = lsb;
+        if (size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else {
+            table[slot] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Get the ID of a UUID.
+     *
+     * @return The ID, or -1 if the UUID is not interned
+     */
+    public int idOf(UUID uuid) {
+        return table[find(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())];
+    }
+
+    public UUID uuidOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown interned ID " + id);
+        }
+        return new UUID(mostSignificant[id], leastSignificant[id]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Approximate heap footprint of the interned UUIDs and the lookup table, in bytes.
+     */
+    public long estimatedBytes() {
+        return 2 * (16 + 8L * mostSignificant.length) + 16 + 4L * table.length;
+    }
+
+    private int find(long msb, long lsb) {
+        int mask = table.length - 1;
+        int slot = hash(msb, lsb) & mask;
+        while (table[slot] != EMPTY) {
+            int id = table[slot];
+            if (mostSignificant[id] == msb && leastSignificant[id] == lsb) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        table = newTable(capacity);
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hash(mostSignificant[id], leastSignificant[id]) & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id;
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int hash(long msb, long lsb) {
+        // Random UUIDs are already well mixed; fold and spread for other versions
+        long h = msb ^ lsb;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+}
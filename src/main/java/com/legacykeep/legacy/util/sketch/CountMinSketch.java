@@ -0,0 +1,129 @@
+package com.legacykeep.legacy.util.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Count-min frequency sketch.
+ *
+ * Estimates never undercount. With {@code width} counters per row and {@code depth}
+ * rows, an estimate exceeds the true count by more than {@code e / width * total} with
+ * probability at most {@code e^-depth}. Merging adds counters, so sketches built on
+ * different nodes from disjoint events combine exactly.
+ *
+ * Not thread-safe; callers synchronize externally.
+ */
+public class CountMinSketch {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+    private long total;
+
+    /**
+     * @param width Counters per row
+     * @param depth Number of rows (independent hash functions)
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Count-min sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    private CountMinSketch(int width, int depth, long[] counters, long total) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = counters;
+        this.total = total;
+    }
+
+    /**
+     * Add occurrences of a hashed item.
+     */
+    public void add(long hash, long count) {
+        for (int row = 0; row < depth; row++) {
+            counters[row * width + column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    /**
+     * Estimated number of occurrences of a hashed item (never below the true count).
+     */
+    public long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Maximum overestimate of {@link #estimate(long)}, holding with probability
+     * {@link #confidence()}.
+     */
+    public long errorBound() {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    /**
+     * Probability that an estimate is within {@link #errorBound()}.
+     */
+    public double confidence() {
+        return 1 - Math.exp(-depth);
+    }
+
+    /**
+     * Merge another sketch of the same dimensions into this one.
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Cannot merge count-min sketches of different dimensions");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += other.counters[i];
+        }
+        total += other.total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 4 + 8 + 8 * counters.length)
+                .put(FORMAT_VERSION)
+                .putInt(width)
+                .putInt(depth)
+                .putLong(total);
+        for (long counter : counters) {
+            buffer.putLong(counter);
+        }
+        return buffer.array();
+    }
+
+    public static CountMinSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported count-min sketch format");
+        }
+        int width = buffer.getInt();
+        int depth = buffer.getInt();
+        long total = buffer.getLong();
+        long[] counters = new long[width * depth];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = buffer.getLong();
+        }
+        return new CountMinSketch(width, depth, counters, total);
+    }
+
+    private int column(long hash, int row) {
+        // Kirsch-Mitzenmacher: derive the row hashes from the two halves of one 64-bit hash
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
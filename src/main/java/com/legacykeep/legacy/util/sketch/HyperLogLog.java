@@ -0,0 +1,128 @@
+package com.legacykeep.legacy.util.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * HyperLogLog distinct counter.
+ *
+ * Uses {@code 2^precision} one-byte registers and 64-bit hashes, so no large-range
+ * correction is needed; small cardinalities fall back to linear counting. The relative
+ * standard error is {@code 1.04 / sqrt(2^precision)}. Merging takes the register-wise
+ * maximum, so it is commutative and idempotent.
+ *
+ * Not thread-safe; callers synchronize externally.
+ */
+public class HyperLogLog {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision Number of index bits (4-18)
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("HyperLogLog precision must be between 4 and 18");
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * Add a hashed value.
+     */
+    public void add(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // Guard bit keeps the rank bounded when the remaining bits are all zero
+        long remaining = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * Estimated number of distinct values added.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Relative standard error of {@link #estimate()}.
+     */
+    public double relativeStandardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * Merge another counter of the same precision into this one.
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge HyperLogLog counters of different precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(2 + registers.length)
+                .put(FORMAT_VERSION)
+                .put((byte) precision)
+                .put(registers)
+                .array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported HyperLogLog format");
+        }
+        int precision = buffer.get();
+        byte[] registers = new byte[1 << precision];
+        buffer.get(registers);
+        return new HyperLogLog(precision, registers);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.legacykeep.legacy.util.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 64-bit hashing for sketch inputs.
+ *
+ * Sketches need well-mixed bits across the whole word; UUIDs and Java string hash
+ * codes do not provide that on their own, so inputs are passed through the MurmurHash3
+ * 64-bit finalizer.
+ */
+public final class SketchHashing {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private SketchHashing() {
+    }
+
+    public static long hash(UUID value) {
+        return mix(value.getMostSignificantBits() ^ mix(value.getLeastSignificantBits()));
+    }
+
+    public static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 fmix64.
+     */
+    public static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
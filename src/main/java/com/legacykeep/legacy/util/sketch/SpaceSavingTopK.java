@@ -0,0 +1,182 @@
+package com.legacykeep.legacy.util.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Space-saving heavy-hitter summary.
+ *
+ * Tracks at most {@code capacity} items. An untracked item replaces the item with the
+ * smallest count and inherits that count as its error, so every reported count is an
+ * overestimate by at most its error, and any item occurring more than
+ * {@code total / capacity} times is guaranteed to be tracked.
+ *
+ * Merging follows Agarwal et al. (mergeable summaries): an item missing from a full
+ * summary is charged that summary's minimum count as both count and error.
+ *
+ * Not thread-safe; callers synchronize externally.
+ */
+public class SpaceSavingTopK {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSavingTopK(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Space-saving capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+    }
+
+    /**
+     * Add occurrences of an item.
+     */
+    public void add(String item, long count) {
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            counter.count += count;
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(item, new Counter(count, 0));
+            return;
+        }
+
+        Map.Entry<String, Counter> smallest = smallest();
+        counters.remove(smallest.getKey());
+        long floor = smallest.getValue().count;
+        counters.put(item, new Counter(floor + count, floor));
+    }
+
+    /**
+     * The most frequent items, by descending count.
+     */
+    public List<Item> top(int limit) {
+        return counters.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Counter> e) -> e.getValue().count).reversed())
+                .limit(limit)
+                .map(e -> new Item(e.getKey(), e.getValue().count, e.getValue().error))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Merge another summary into this one, keeping the {@code capacity} largest counts.
+     */
+    public void merge(SpaceSavingTopK other) {
+        long thisFloor = floor();
+        long otherFloor = other.floor();
+
+        Set<String> items = new HashSet<>(counters.keySet());
+        items.addAll(other.counters.keySet());
+
+        Map<String, Counter> merged = new HashMap<>();
+        for (String item : items) {
+            Counter mine = counters.get(item);
+            Counter theirs = other.counters.get(item);
+            long count = (mine != null ? mine.count : thisFloor) + (theirs != null ? theirs.count : otherFloor);
+            long error = (mine != null ? mine.error : thisFloor) + (theirs != null ? theirs.error : otherFloor);
+            merged.put(item, new Counter(count, error));
+        }
+
+        counters.clear();
+        merged.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Counter> e) -> e.getValue().count).reversed())
+                .limit(capacity)
+                .forEach(e -> counters.put(e.getKey(), e.getValue()));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(capacity);
+            out.writeInt(counters.size());
+            for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().count);
+                out.writeLong(entry.getValue().error);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SpaceSavingTopK fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported space-saving format");
+            }
+            SpaceSavingTopK summary = new SpaceSavingTopK(in.readInt());
+            int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                summary.counters.put(in.readUTF(), new Counter(in.readLong(), in.readLong()));
+            }
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Count charged to items this summary does not track: its minimum count once full.
+     */
+    private long floor() {
+        return counters.size() < capacity ? 0 : smallest().getValue().count;
+    }
+
+    private Map.Entry<String, Counter> smallest() {
+        return counters.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().count))
+                .orElseThrow();
+    }
+
+    private static final class Counter {
+        private long count;
+        private final long error;
+
+        private Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A reported heavy hitter. The true count lies in {@code [count - error, count]}.
+     */
+    public static final class Item {
+        private final String item;
+        private final long count;
+        private final long error;
+
+        public Item(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        // Getters
+        public String getItem() { return item; }
+        public long getCount() { return count; }
+        public long getError() { return error; }
+    }
+}
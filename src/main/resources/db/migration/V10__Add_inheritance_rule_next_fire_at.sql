@@ -0,0 +1,15 @@
+-- Add the due-time column used by the TIME_BASED trigger scheduler
+ALTER TABLE inheritance_rules ADD COLUMN next_fire_at TIMESTAMP;
+
+-- The scheduler loads the next horizon window of due rules; only active time-based rules are indexed
+CREATE INDEX idx_inheritance_rules_next_fire_at
+ON inheritance_rules (next_fire_at, id)
+WHERE status = 'ACTIVE' AND inheritance_trigger = 'TIME_BASED' AND next_fire_at IS NOT NULL;
+
+-- Active time-based rules without a computed due time (created before this migration)
+CREATE INDEX idx_inheritance_rules_unscheduled
+ON inheritance_rules (id)
+WHERE status = 'ACTIVE' AND inheritance_trigger = 'TIME_BASED' AND next_fire_at IS NULL;
+
+-- Add comments
+COMMENT ON COLUMN inheritance_rules.next_fire_at IS 'Next time a TIME_BASED rule fires, derived from trigger_metadata';
@@ -0,0 +1,12 @@
+-- Create processed_relationship_events table
+-- Records relationship change events already applied, so replayed Kafka messages are ignored
+CREATE TABLE processed_relationship_events (
+    event_id VARCHAR(255) PRIMARY KEY,
+    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_relationship_events_processed_at ON processed_relationship_events(processed_at);
+
+-- Add comments
+COMMENT ON TABLE processed_relationship_events IS 'Relationship change events already applied to inheritance statuses';
+COMMENT ON COLUMN processed_relationship_events.event_id IS 'Event ID assigned by the Relationship Service';
@@ -0,0 +1,118 @@
+-- Create inheritance_access table
+-- One row per (recipient, content) holding the effective status across all rules that
+-- deliver the content to the recipient. Maintained by triggers on inheritance_status.
+-- Precedence: ACCESSED > INHERITED > PENDING > DECLINED
+CREATE TABLE inheritance_access (
+    recipient_id UUID NOT NULL,
+    content_id UUID NOT NULL REFERENCES legacy_content(id) ON DELETE CASCADE,
+    effective_status VARCHAR(20) NOT NULL CHECK (effective_status IN ('PENDING', 'INHERITED', 'ACCESSED', 'DECLINED')),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (recipient_id, content_id)
+);
+
+CREATE INDEX idx_inheritance_access_content_id ON inheritance_access(content_id);
+
+-- Recompute the effective status of the given (recipient, content) pairs
+CREATE OR REPLACE FUNCTION refresh_inheritance_access(p_recipient_ids UUID[], p_content_ids UUID[])
+RETURNS void AS $$
+    WITH keys AS (
+        SELECT DISTINCT k.recipient_id, k.content_id
+        FROM unnest(p_recipient_ids, p_content_ids) AS k(recipient_id, content_id)
+    ),
+    upserted AS (
+        INSERT INTO inheritance_access (recipient_id, content_id, effective_status, updated_at)
+        SELECT s.recipient_id, s.content_id,
+               CASE MAX(CASE s.status WHEN 'ACCESSED' THEN 4 WHEN 'INHERITED' THEN 3 WHEN 'PENDING' THEN 2 ELSE 1 END)
+                   WHEN 4 THEN 'ACCESSED' WHEN 3 THEN 'INHERITED' WHEN 2 THEN 'PENDING' ELSE 'DECLINED' END,
+               now()
+        FROM inheritance_status s
+        JOIN keys k ON k.recipient_id = s.recipient_id AND k.content_id = s.content_id
+        GROUP BY s.recipient_id, s.content_id
+        ON CONFLICT (recipient_id, content_id)
+        DO UPDATE SET effective_status = EXCLUDED.effective_status, updated_at = EXCLUDED.updated_at
+        WHERE inheritance_access.effective_status IS DISTINCT FROM EXCLUDED.effective_status
+    )
+    DELETE FROM inheritance_access a
+    USING keys k
+    WHERE a.recipient_id = k.recipient_id AND a.content_id = k.content_id
+      AND NOT EXISTS (
+          SELECT 1 FROM inheritance_status s
+          WHERE s.recipient_id = k.recipient_id AND s.content_id = k.content_id
+      );
+$$ LANGUAGE sql;
+
+-- Statement-level trigger functions: one refresh per statement, using transition tables
+CREATE OR REPLACE FUNCTION inheritance_access_after_insert()
+RETURNS trigger AS $$
+DECLARE
+    v_recipient_ids UUID[];
+    v_content_ids UUID[];
+BEGIN
+    SELECT array_agg(recipient_id), array_agg(content_id) INTO v_recipient_ids, v_content_ids FROM new_rows;
+    IF v_recipient_ids IS NOT NULL THEN
+        PERFORM refresh_inheritance_access(v_recipient_ids, v_content_ids);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_access_after_update()
+RETURNS trigger AS $$
+DECLARE
+    v_recipient_ids UUID[];
+    v_content_ids UUID[];
+BEGIN
+    SELECT array_agg(recipient_id), array_agg(content_id) INTO v_recipient_ids, v_content_ids
+    FROM (
+        SELECT recipient_id, content_id FROM new_rows
+        UNION
+        SELECT recipient_id, content_id FROM old_rows
+    ) changed;
+    IF v_recipient_ids IS NOT NULL THEN
+        PERFORM refresh_inheritance_access(v_recipient_ids, v_content_ids);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_access_after_delete()
+RETURNS trigger AS $$
+DECLARE
+    v_recipient_ids UUID[];
+    v_content_ids UUID[];
+BEGIN
+    SELECT array_agg(recipient_id), array_agg(content_id) INTO v_recipient_ids, v_content_ids FROM old_rows;
+    IF v_recipient_ids IS NOT NULL THEN
+        PERFORM refresh_inheritance_access(v_recipient_ids, v_content_ids);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inheritance_access_insert
+AFTER INSERT ON inheritance_status
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_access_after_insert();
+
+CREATE TRIGGER trg_inheritance_access_update
+AFTER UPDATE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_access_after_update();
+
+CREATE TRIGGER trg_inheritance_access_delete
+AFTER DELETE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_access_after_delete();
+
+-- Backfill from existing statuses
+INSERT INTO inheritance_access (recipient_id, content_id, effective_status, updated_at)
+SELECT s.recipient_id, s.content_id,
+       CASE MAX(CASE s.status WHEN 'ACCESSED' THEN 4 WHEN 'INHERITED' THEN 3 WHEN 'PENDING' THEN 2 ELSE 1 END)
+           WHEN 4 THEN 'ACCESSED' WHEN 3 THEN 'INHERITED' WHEN 2 THEN 'PENDING' ELSE 'DECLINED' END,
+       now()
+FROM inheritance_status s
+GROUP BY s.recipient_id, s.content_id;
+
+-- Add comments
+COMMENT ON TABLE inheritance_access IS 'Effective inheritance status per recipient and content, maintained from inheritance_status';
+COMMENT ON COLUMN inheritance_access.effective_status IS 'Highest-precedence status across rules (ACCESSED > INHERITED > PENDING > DECLINED)';
@@ -0,0 +1,206 @@
+-- Create inheritance rollup tables
+-- Pre-aggregated counts behind the inheritance analytics and statistics endpoints.
+-- Maintained incrementally by statement-level triggers on inheritance_events and
+-- inheritance_status; readers never scan the base tables.
+--
+-- Dimensions: GLOBAL (key ''), CONTENT, CREATOR, RECIPIENT (status only), RELATIONSHIP_TYPE.
+-- Rows are striped by transaction (stripe = txid % 8) so concurrent writers rarely
+-- contend on the same hot row; readers sum across stripes.
+
+-- Daily event counts by event type
+CREATE TABLE inheritance_event_rollup (
+    dimension VARCHAR(30) NOT NULL,
+    dimension_key VARCHAR(255) NOT NULL,
+    bucket_date DATE NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    stripe SMALLINT NOT NULL,
+    event_count BIGINT NOT NULL,
+    PRIMARY KEY (dimension, dimension_key, bucket_date, event_type, stripe)
+);
+
+-- Daily status transitions (from NONE on creation, to REVOKED on deletion)
+CREATE TABLE inheritance_status_transition_rollup (
+    dimension VARCHAR(30) NOT NULL,
+    dimension_key VARCHAR(255) NOT NULL,
+    bucket_date DATE NOT NULL,
+    from_status VARCHAR(20) NOT NULL,
+    to_status VARCHAR(20) NOT NULL,
+    stripe SMALLINT NOT NULL,
+    transition_count BIGINT NOT NULL,
+    PRIMARY KEY (dimension, dimension_key, bucket_date, from_status, to_status, stripe)
+);
+
+-- Current number of status rows per status
+CREATE TABLE inheritance_status_totals (
+    dimension VARCHAR(30) NOT NULL,
+    dimension_key VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    stripe SMALLINT NOT NULL,
+    status_count BIGINT NOT NULL,
+    PRIMARY KEY (dimension, dimension_key, status, stripe)
+);
+
+-- Events: attribute each new event to its rule's content, creator and relationship type
+CREATE OR REPLACE FUNCTION inheritance_event_rollup_after_insert()
+RETURNS trigger AS $$
+BEGIN
+    INSERT INTO inheritance_event_rollup (dimension, dimension_key, bucket_date, event_type, stripe, event_count)
+    SELECT d.dimension, d.dimension_key, e.created_at::date, e.event_type, (txid_current() % 8)::smallint, COUNT(*)
+    FROM new_rows e
+    LEFT JOIN inheritance_rules r ON r.id = e.inheritance_rule_id
+    CROSS JOIN LATERAL (VALUES
+        (1, 'GLOBAL', ''),
+        (2, 'CONTENT', r.content_id::text),
+        (3, 'CREATOR', r.creator_id::text),
+        (4, 'RELATIONSHIP_TYPE', CASE WHEN r.target_type = 'RELATIONSHIP_TYPE' THEN lower(r.target_value) END)
+    ) AS d(ordinal, dimension, dimension_key)
+    WHERE d.dimension_key IS NOT NULL
+    GROUP BY d.ordinal, d.dimension, d.dimension_key, e.created_at::date, e.event_type
+    -- Upsert in a fixed order (GLOBAL first) so concurrent writers lock rows consistently
+    ORDER BY d.ordinal, d.dimension_key, e.created_at::date, e.event_type
+    ON CONFLICT (dimension, dimension_key, bucket_date, event_type, stripe)
+    DO UPDATE SET event_count = inheritance_event_rollup.event_count + EXCLUDED.event_count;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inheritance_event_rollup_insert
+AFTER INSERT ON inheritance_events
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_event_rollup_after_insert();
+
+-- Statuses: record a batch of transitions into the transition rollup and the totals
+CREATE OR REPLACE FUNCTION record_inheritance_status_transitions(
+    p_content_ids UUID[], p_recipient_ids UUID[], p_rule_ids UUID[],
+    p_from_statuses VARCHAR[], p_to_statuses VARCHAR[])
+RETURNS void AS $$
+    WITH transitions AS (
+        SELECT t.content_id, t.recipient_id, t.from_status, t.to_status, r.creator_id,
+               CASE WHEN r.target_type = 'RELATIONSHIP_TYPE' THEN lower(r.target_value) END AS relationship_type
+        FROM unnest(p_content_ids, p_recipient_ids, p_rule_ids, p_from_statuses, p_to_statuses)
+             AS t(content_id, recipient_id, rule_id, from_status, to_status)
+        LEFT JOIN inheritance_rules r ON r.id = t.rule_id
+    ),
+    keyed AS (
+        SELECT d.ordinal, d.dimension, d.dimension_key, t.from_status, t.to_status
+        FROM transitions t
+        CROSS JOIN LATERAL (VALUES
+            (1, 'GLOBAL', ''),
+            (2, 'CONTENT', t.content_id::text),
+            (3, 'CREATOR', t.creator_id::text),
+            (4, 'RECIPIENT', t.recipient_id::text),
+            (5, 'RELATIONSHIP_TYPE', t.relationship_type)
+        ) AS d(ordinal, dimension, dimension_key)
+        WHERE d.dimension_key IS NOT NULL
+    ),
+    transition_counts AS (
+        INSERT INTO inheritance_status_transition_rollup
+            (dimension, dimension_key, bucket_date, from_status, to_status, stripe, transition_count)
+        SELECT dimension, dimension_key, current_date, from_status, to_status, (txid_current() % 8)::smallint, COUNT(*)
+        FROM keyed
+        GROUP BY ordinal, dimension, dimension_key, from_status, to_status
+        ORDER BY ordinal, dimension_key, from_status, to_status
+        ON CONFLICT (dimension, dimension_key, bucket_date, from_status, to_status, stripe)
+        DO UPDATE SET transition_count = inheritance_status_transition_rollup.transition_count + EXCLUDED.transition_count
+    )
+    INSERT INTO inheritance_status_totals (dimension, dimension_key, status, stripe, status_count)
+    SELECT delta.dimension, delta.dimension_key, delta.status, (txid_current() % 8)::smallint, SUM(delta.change)
+    FROM (
+        SELECT ordinal, dimension, dimension_key, to_status AS status, 1 AS change FROM keyed WHERE to_status <> 'REVOKED'
+        UNION ALL
+        SELECT ordinal, dimension, dimension_key, from_status AS status, -1 AS change FROM keyed WHERE from_status <> 'NONE'
+    ) delta
+    GROUP BY delta.ordinal, delta.dimension, delta.dimension_key, delta.status
+    HAVING SUM(delta.change) <> 0
+    ORDER BY delta.ordinal, delta.dimension_key, delta.status
+    ON CONFLICT (dimension, dimension_key, status, stripe)
+    DO UPDATE SET status_count = inheritance_status_totals.status_count + EXCLUDED.status_count;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION inheritance_status_rollup_after_insert()
+RETURNS trigger AS $$
+BEGIN
+    PERFORM record_inheritance_status_transitions(
+        array_agg(content_id), array_agg(recipient_id), array_agg(inheritance_rule_id),
+        array_agg('NONE'::varchar), array_agg(status))
+    FROM new_rows
+    HAVING COUNT(*) > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_status_rollup_after_update()
+RETURNS trigger AS $$
+BEGIN
+    PERFORM record_inheritance_status_transitions(
+        array_agg(n.content_id), array_agg(n.recipient_id), array_agg(n.inheritance_rule_id),
+        array_agg(o.status), array_agg(n.status))
+    FROM old_rows o
+    JOIN new_rows n ON n.id = o.id
+    WHERE o.status IS DISTINCT FROM n.status
+    HAVING COUNT(*) > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_status_rollup_after_delete()
+RETURNS trigger AS $$
+BEGIN
+    PERFORM record_inheritance_status_transitions(
+        array_agg(content_id), array_agg(recipient_id), array_agg(inheritance_rule_id),
+        array_agg(status), array_agg('REVOKED'::varchar))
+    FROM old_rows
+    HAVING COUNT(*) > 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inheritance_status_rollup_insert
+AFTER INSERT ON inheritance_status
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_status_rollup_after_insert();
+
+CREATE TRIGGER trg_inheritance_status_rollup_update
+AFTER UPDATE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_status_rollup_after_update();
+
+CREATE TRIGGER trg_inheritance_status_rollup_delete
+AFTER DELETE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_status_rollup_after_delete();
+
+-- Backfill from existing data (stripe 0)
+INSERT INTO inheritance_event_rollup (dimension, dimension_key, bucket_date, event_type, stripe, event_count)
+SELECT d.dimension, d.dimension_key, e.created_at::date, e.event_type, 0, COUNT(*)
+FROM inheritance_events e
+LEFT JOIN inheritance_rules r ON r.id = e.inheritance_rule_id
+CROSS JOIN LATERAL (VALUES
+    ('GLOBAL', ''),
+    ('CONTENT', r.content_id::text),
+    ('CREATOR', r.creator_id::text),
+    ('RELATIONSHIP_TYPE', CASE WHEN r.target_type = 'RELATIONSHIP_TYPE' THEN lower(r.target_value) END)
+) AS d(dimension, dimension_key)
+WHERE d.dimension_key IS NOT NULL
+GROUP BY d.dimension, d.dimension_key, e.created_at::date, e.event_type;
+
+INSERT INTO inheritance_status_totals (dimension, dimension_key, status, stripe, status_count)
+SELECT d.dimension, d.dimension_key, s.status, 0, COUNT(*)
+FROM inheritance_status s
+LEFT JOIN inheritance_rules r ON r.id = s.inheritance_rule_id
+CROSS JOIN LATERAL (VALUES
+    ('GLOBAL', ''),
+    ('CONTENT', s.content_id::text),
+    ('CREATOR', r.creator_id::text),
+    ('RECIPIENT', s.recipient_id::text),
+    ('RELATIONSHIP_TYPE', CASE WHEN r.target_type = 'RELATIONSHIP_TYPE' THEN lower(r.target_value) END)
+) AS d(dimension, dimension_key)
+WHERE d.dimension_key IS NOT NULL
+GROUP BY d.dimension, d.dimension_key, s.status;
+
+-- Add comments
+COMMENT ON TABLE inheritance_event_rollup IS 'Daily inheritance event counts per dimension, maintained from inheritance_events';
+COMMENT ON TABLE inheritance_status_transition_rollup IS 'Daily inheritance status transitions per dimension, maintained from inheritance_status';
+COMMENT ON TABLE inheritance_status_totals IS 'Current inheritance status counts per dimension, maintained from inheritance_status';
+COMMENT ON COLUMN inheritance_event_rollup.stripe IS 'Write stripe (transaction ID modulo 8); sum across stripes when reading';
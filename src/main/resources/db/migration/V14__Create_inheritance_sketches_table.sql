@@ -0,0 +1,18 @@
+-- Create inheritance_sketches table
+-- Serialized approximate-statistics sketches (HyperLogLog, count-min, space-saving) per
+-- dimension key and month. Each node writes only its own rows; readers merge all nodes.
+CREATE TABLE inheritance_sketches (
+    dimension VARCHAR(30) NOT NULL,
+    dimension_key VARCHAR(255) NOT NULL,
+    sketch_type VARCHAR(30) NOT NULL CHECK (sketch_type IN ('RECIPIENTS_HLL', 'ACCESSES_CMS', 'ACCESSES_TOPK')),
+    bucket_month DATE NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    sketch BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (dimension, dimension_key, sketch_type, bucket_month, node_id)
+);
+
+-- Add comments
+COMMENT ON TABLE inheritance_sketches IS 'Mergeable inheritance statistics sketches per dimension key, month and node';
+COMMENT ON COLUMN inheritance_sketches.sketch IS 'Versioned binary encoding of the sketch';
+COMMENT ON COLUMN inheritance_sketches.node_id IS 'Instance that owns and writes the row';
@@ -0,0 +1,108 @@
+-- Partition inheritance_events by month
+-- The table is recreated as a range-partitioned table on created_at. The primary key must
+-- include the partition key, so it becomes (id, created_at). Existing rows are copied into
+-- monthly partitions; a default partition catches rows outside every monthly range.
+
+ALTER TABLE inheritance_events RENAME TO inheritance_events_unpartitioned;
+DROP TRIGGER trg_inheritance_event_rollup_insert ON inheritance_events_unpartitioned;
+ALTER TABLE inheritance_events_unpartitioned RENAME CONSTRAINT inheritance_events_pkey TO inheritance_events_unpartitioned_pkey;
+DROP INDEX idx_inheritance_events_rule_id;
+DROP INDEX idx_inheritance_events_event_type;
+DROP INDEX idx_inheritance_events_created_at;
+DROP INDEX idx_inheritance_events_created_by;
+DROP INDEX idx_inheritance_events_rule_type;
+DROP INDEX idx_inheritance_events_type_date;
+
+CREATE TABLE inheritance_events (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    inheritance_rule_id UUID NOT NULL REFERENCES inheritance_rules(id) ON DELETE CASCADE,
+    event_type VARCHAR(50) NOT NULL CHECK (event_type IN (
+        'RULE_CREATED', 'RULE_UPDATED', 'RULE_DELETED', 'RULE_ACTIVATED', 'RULE_PAUSED',
+        'RELATIONSHIP_ADDED', 'RELATIONSHIP_REMOVED', 'RELATIONSHIP_UPDATED',
+        'INHERITANCE_TRIGGERED', 'INHERITANCE_COMPLETED', 'INHERITANCE_FAILED',
+        'CONTENT_ACCESSED', 'CONTENT_DECLINED', 'CONTENT_SHARED'
+    )),
+    event_data JSONB NOT NULL,
+
+    -- Audit Fields
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by UUID,
+
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Create the monthly partition containing a date, if it does not exist yet
+CREATE OR REPLACE FUNCTION create_inheritance_events_partition(p_month DATE)
+RETURNS TEXT AS $$
+DECLARE
+    v_start DATE := date_trunc('month', p_month)::date;
+    v_end DATE := (date_trunc('month', p_month) + INTERVAL '1 month')::date;
+    v_name TEXT := 'inheritance_events_' || to_char(p_month, 'YYYY_MM');
+BEGIN
+    IF to_regclass(v_name) IS NULL THEN
+        EXECUTE format('CREATE TABLE %I PARTITION OF inheritance_events FOR VALUES FROM (%L) TO (%L)',
+                       v_name, v_start, v_end);
+    END IF;
+    RETURN v_name;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions from the oldest existing event up to three months ahead
+DO $$
+DECLARE
+    v_month DATE;
+BEGIN
+    FOR v_month IN
+        SELECT generate_series(
+            date_trunc('month', COALESCE((SELECT MIN(created_at) FROM inheritance_events_unpartitioned), now())),
+            date_trunc('month', now()) + INTERVAL '3 months',
+            INTERVAL '1 month')::date
+    LOOP
+        PERFORM create_inheritance_events_partition(v_month);
+    END LOOP;
+END;
+$$;
+
+CREATE TABLE inheritance_events_default PARTITION OF inheritance_events DEFAULT;
+
+INSERT INTO inheritance_events (id, inheritance_rule_id, event_type, event_data, created_at, created_by)
+SELECT id, inheritance_rule_id, event_type, event_data, created_at, created_by
+FROM inheritance_events_unpartitioned;
+
+DROP TABLE inheritance_events_unpartitioned;
+
+-- Create indexes for inheritance_events (created on every partition)
+CREATE INDEX idx_inheritance_events_rule_id ON inheritance_events(inheritance_rule_id);
+CREATE INDEX idx_inheritance_events_event_type ON inheritance_events(event_type);
+CREATE INDEX idx_inheritance_events_created_at ON inheritance_events(created_at);
+CREATE INDEX idx_inheritance_events_created_by ON inheritance_events(created_by);
+
+-- Composite indexes for common queries
+CREATE INDEX idx_inheritance_events_rule_type ON inheritance_events(inheritance_rule_id, event_type);
+CREATE INDEX idx_inheritance_events_type_date ON inheritance_events(event_type, created_at);
+
+-- Rollup trigger from V13; recreated after the copy so existing events are not counted twice
+CREATE TRIGGER trg_inheritance_event_rollup_insert
+AFTER INSERT ON inheritance_events
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_event_rollup_after_insert();
+
+-- Archived partitions
+CREATE TABLE inheritance_event_archives (
+    partition_name VARCHAR(63) PRIMARY KEY,
+    range_start DATE NOT NULL,
+    file_path VARCHAR(1024) NOT NULL,
+    row_count BIGINT NOT NULL,
+    file_size BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Add comments
+COMMENT ON TABLE inheritance_events IS 'Audit trail for all inheritance-related events, partitioned by month';
+COMMENT ON COLUMN inheritance_events.inheritance_rule_id IS 'Reference to the inheritance rule that generated this event';
+COMMENT ON COLUMN inheritance_events.event_type IS 'Type of event that occurred';
+COMMENT ON COLUMN inheritance_events.event_data IS 'Event-specific data in JSON format';
+COMMENT ON COLUMN inheritance_events.created_at IS 'Timestamp when the event occurred (partition key)';
+COMMENT ON COLUMN inheritance_events.created_by IS 'User who triggered the event (if applicable)';
+COMMENT ON TABLE inheritance_event_archives IS 'Monthly inheritance_events partitions detached by retention and exported to compressed archives';
@@ -0,0 +1,107 @@
+-- Create inheritance_outbox table
+-- Transactional outbox for inheritance events published to Kafka. Rows are written by
+-- triggers on inheritance_status, so they commit or roll back with the status change
+-- that produced them, whichever code path made it. The relay publishes unpublished rows
+-- in id order and marks them published; published rows are purged after a retention period.
+CREATE TABLE inheritance_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_id UUID NOT NULL DEFAULT gen_random_uuid(),
+    event_type VARCHAR(50) NOT NULL CHECK (event_type IN (
+        'INHERITANCE_DELIVERED', 'INHERITANCE_STATUS_CHANGED', 'INHERITANCE_REVOKED'
+    )),
+    message_key VARCHAR(64) NOT NULL,
+    key_hash INTEGER NOT NULL,
+    payload JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    published_at TIMESTAMP
+);
+
+-- Relays scan only unpublished rows, in id order
+CREATE INDEX idx_inheritance_outbox_unpublished ON inheritance_outbox(id) WHERE published_at IS NULL;
+CREATE INDEX idx_inheritance_outbox_published_at ON inheritance_outbox(published_at) WHERE published_at IS NOT NULL;
+
+-- Append outbox rows for a set of status changes. Messages are keyed by recipient so a
+-- recipient's events share a Kafka partition and a relay partition (key_hash).
+CREATE OR REPLACE FUNCTION append_inheritance_outbox(p_event_type VARCHAR, p_rows JSONB)
+RETURNS void AS $$
+    INSERT INTO inheritance_outbox (event_type, message_key, key_hash, payload)
+    SELECT p_event_type,
+           r->>'recipientId',
+           hashtext(r->>'recipientId') & 2147483647,
+           r || jsonb_build_object('eventType', p_event_type, 'occurredAt', now())
+    FROM jsonb_array_elements(p_rows) AS r;
+$$ LANGUAGE sql;
+
+CREATE OR REPLACE FUNCTION inheritance_outbox_after_insert()
+RETURNS trigger AS $$
+DECLARE
+    v_rows JSONB;
+BEGIN
+    SELECT jsonb_agg(jsonb_build_object(
+               'statusId', id, 'ruleId', inheritance_rule_id, 'contentId', content_id,
+               'recipientId', recipient_id, 'status', status))
+    INTO v_rows
+    FROM new_rows;
+    IF v_rows IS NOT NULL THEN
+        PERFORM append_inheritance_outbox('INHERITANCE_DELIVERED', v_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_outbox_after_update()
+RETURNS trigger AS $$
+DECLARE
+    v_rows JSONB;
+BEGIN
+    SELECT jsonb_agg(jsonb_build_object(
+               'statusId', n.id, 'ruleId', n.inheritance_rule_id, 'contentId', n.content_id,
+               'recipientId', n.recipient_id, 'status', n.status, 'previousStatus', o.status))
+    INTO v_rows
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE n.status IS DISTINCT FROM o.status;
+    IF v_rows IS NOT NULL THEN
+        PERFORM append_inheritance_outbox('INHERITANCE_STATUS_CHANGED', v_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION inheritance_outbox_after_delete()
+RETURNS trigger AS $$
+DECLARE
+    v_rows JSONB;
+BEGIN
+    SELECT jsonb_agg(jsonb_build_object(
+               'statusId', id, 'ruleId', inheritance_rule_id, 'contentId', content_id,
+               'recipientId', recipient_id, 'previousStatus', status))
+    INTO v_rows
+    FROM old_rows;
+    IF v_rows IS NOT NULL THEN
+        PERFORM append_inheritance_outbox('INHERITANCE_REVOKED', v_rows);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_inheritance_outbox_insert
+AFTER INSERT ON inheritance_status
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_outbox_after_insert();
+
+CREATE TRIGGER trg_inheritance_outbox_update
+AFTER UPDATE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_outbox_after_update();
+
+CREATE TRIGGER trg_inheritance_outbox_delete
+AFTER DELETE ON inheritance_status
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION inheritance_outbox_after_delete();
+
+-- Add comments
+COMMENT ON TABLE inheritance_outbox IS 'Transactional outbox of inheritance events awaiting publication to Kafka';
+COMMENT ON COLUMN inheritance_outbox.message_key IS 'Kafka message key (recipient ID)';
+COMMENT ON COLUMN inheritance_outbox.key_hash IS 'Non-negative hash of the message key; relay partition is key_hash modulo the relay partition count';
+COMMENT ON COLUMN inheritance_outbox.published_at IS 'When the relay published the row, or NULL while pending';
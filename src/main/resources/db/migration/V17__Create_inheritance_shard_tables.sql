@@ -0,0 +1,50 @@
+-- Create inheritance sharding tables
+-- The active rule space is split into hash shards by content_id. Each node holds leases on
+-- a fair share of the shards, renewed by heartbeat, and only processes rules of its own
+-- shards. Sweeps are recorded as requests so every node processes its shards once per sweep.
+
+-- Live nodes, used to compute each node's fair share of shards
+CREATE TABLE inheritance_shard_nodes (
+    node_id VARCHAR(100) PRIMARY KEY,
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- One row per shard; rows are created by the application for the configured shard count
+CREATE TABLE inheritance_shard_leases (
+    shard_id INTEGER PRIMARY KEY,
+    owner_id VARCHAR(100),
+    lease_expires_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_inheritance_shard_leases_owner ON inheritance_shard_leases(owner_id);
+
+-- Cluster-wide sweep requests; target columns are NULL for a sweep of every active rule
+CREATE TABLE inheritance_sweep_requests (
+    id BIGSERIAL PRIMARY KEY,
+    run_type VARCHAR(50) NOT NULL,
+    target_type VARCHAR(50),
+    target_value VARCHAR(255),
+    requested_by VARCHAR(100) NOT NULL,
+    requested_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_inheritance_sweep_requests_requested_at ON inheritance_sweep_requests(requested_at);
+
+-- Completion of a sweep request for one shard
+CREATE TABLE inheritance_shard_sweeps (
+    sweep_id BIGINT NOT NULL REFERENCES inheritance_sweep_requests(id) ON DELETE CASCADE,
+    shard_id INTEGER NOT NULL,
+    node_id VARCHAR(100) NOT NULL,
+    succeeded BIGINT NOT NULL DEFAULT 0,
+    failed BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (sweep_id, shard_id)
+);
+
+-- Add comments
+COMMENT ON TABLE inheritance_shard_nodes IS 'Service instances taking part in sharded inheritance processing';
+COMMENT ON TABLE inheritance_shard_leases IS 'Lease on a hash shard of the active inheritance rules by content_id';
+COMMENT ON TABLE inheritance_sweep_requests IS 'Inheritance processing sweeps requested across the cluster';
+COMMENT ON TABLE inheritance_shard_sweeps IS 'Shards that have completed a sweep request';
@@ -0,0 +1,49 @@
+-- Create inheritance work queue tables
+-- Durable queue of rules awaiting processing. Workers claim the most urgent available rows
+-- with FOR UPDATE SKIP LOCKED, ordered by band (0 = urgent, 1 = normal, 2 = bulk), then rule
+-- priority (highest first), then age. Failed rows are retried with backoff and moved to the
+-- dead-letter table once out of attempts.
+CREATE TABLE inheritance_work_queue (
+    id BIGSERIAL PRIMARY KEY,
+    -- Deferred so rules saved through JPA can be queued before the session is flushed
+    rule_id UUID NOT NULL UNIQUE REFERENCES inheritance_rules(id) ON DELETE CASCADE DEFERRABLE INITIALLY DEFERRED,
+    band SMALLINT NOT NULL CHECK (band BETWEEN 0 AND 2),
+    priority INTEGER NOT NULL DEFAULT 0,
+    reason VARCHAR(50) NOT NULL,
+    enqueued_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    -- Incremented on every enqueue, so a rule queued again while claimed is not acknowledged away
+    version INTEGER NOT NULL DEFAULT 0,
+    claimed_by VARCHAR(100),
+    claimed_until TIMESTAMP,
+    last_error TEXT
+);
+
+CREATE INDEX idx_inheritance_work_queue_claim
+ON inheritance_work_queue (band, priority DESC, enqueued_at, id);
+
+-- Rules that exhausted their attempts; kept for inspection and manual requeue
+CREATE TABLE inheritance_work_dead_letters (
+    id BIGINT PRIMARY KEY,
+    rule_id UUID NOT NULL,
+    band SMALLINT NOT NULL,
+    priority INTEGER NOT NULL,
+    reason VARCHAR(50) NOT NULL,
+    enqueued_at TIMESTAMP NOT NULL,
+    attempts INTEGER NOT NULL,
+    last_error TEXT,
+    dead_lettered_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_inheritance_work_dead_letters_rule_id ON inheritance_work_dead_letters(rule_id);
+
+-- Shard sweeps now queue their rules instead of processing them inline
+ALTER TABLE inheritance_shard_sweeps RENAME COLUMN succeeded TO queued;
+ALTER TABLE inheritance_shard_sweeps DROP COLUMN failed;
+
+-- Add comments
+COMMENT ON TABLE inheritance_work_queue IS 'Inheritance rules awaiting processing, claimed by band, priority and age';
+COMMENT ON COLUMN inheritance_work_queue.band IS 'Urgency band: 0 = urgent (triggered), 1 = normal, 2 = bulk re-evaluation';
+COMMENT ON COLUMN inheritance_work_queue.claimed_until IS 'Claim expiry; an expired claim makes the row available again';
+COMMENT ON TABLE inheritance_work_dead_letters IS 'Inheritance work items that failed processing too many times';
@@ -0,0 +1,58 @@
+-- Turn inheritance sweep requests into resumable processing runs
+-- A run records its progress: per-shard keyset cursors checkpointed while rules are queued,
+-- and counts of rules queued, succeeded and failed. A shard whose sweeper dies is resumed
+-- from its last checkpoint, and queue workers attribute processed rules back to their run.
+
+ALTER TABLE inheritance_sweep_requests RENAME TO inheritance_processing_runs;
+ALTER INDEX idx_inheritance_sweep_requests_requested_at RENAME TO idx_inheritance_processing_runs_requested_at;
+
+ALTER TABLE inheritance_processing_runs
+    ADD COLUMN shard_count INTEGER NOT NULL DEFAULT 1,
+    ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    ADD COLUMN queued BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN succeeded BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN failed BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN completed_at TIMESTAMP,
+    ADD CONSTRAINT chk_inheritance_processing_runs_status CHECK (status IN ('RUNNING', 'COMPLETED', 'ABANDONED'));
+
+-- Existing requests were split across the shards currently leased out
+UPDATE inheritance_processing_runs
+SET shard_count = GREATEST(1, (SELECT count(*) FROM inheritance_shard_leases)),
+    heartbeat_at = requested_at;
+
+ALTER TABLE inheritance_processing_runs ALTER COLUMN shard_count DROP DEFAULT;
+
+CREATE INDEX idx_inheritance_processing_runs_status ON inheritance_processing_runs(status);
+
+-- Shard progress rows now exist while a shard is being swept, not only once it completes
+ALTER TABLE inheritance_shard_sweeps RENAME TO inheritance_run_shards;
+ALTER TABLE inheritance_run_shards RENAME CONSTRAINT inheritance_shard_sweeps_pkey TO inheritance_run_shards_pkey;
+ALTER TABLE inheritance_run_shards RENAME COLUMN sweep_id TO run_id;
+
+ALTER TABLE inheritance_run_shards
+    ADD COLUMN cursor_rule_id UUID,
+    ADD COLUMN started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD COLUMN checkpointed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ALTER COLUMN completed_at DROP NOT NULL,
+    ALTER COLUMN completed_at DROP DEFAULT;
+
+UPDATE inheritance_run_shards SET started_at = completed_at, checkpointed_at = completed_at;
+
+-- Queued work remembers the run that queued it
+ALTER TABLE inheritance_work_queue
+    ADD COLUMN run_id BIGINT REFERENCES inheritance_processing_runs(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_inheritance_work_queue_run_id ON inheritance_work_queue(run_id) WHERE run_id IS NOT NULL;
+
+ALTER TABLE inheritance_work_dead_letters ADD COLUMN run_id BIGINT;
+
+-- Add comments
+COMMENT ON TABLE inheritance_processing_runs IS 'Inheritance processing runs (sweeps) and their progress across the cluster';
+COMMENT ON COLUMN inheritance_processing_runs.shard_count IS 'Number of shards the run is split into; 1 when sharding is disabled';
+COMMENT ON COLUMN inheritance_processing_runs.queued IS 'Rules queued by checkpointed shard progress';
+COMMENT ON COLUMN inheritance_processing_runs.succeeded IS 'Queued rules of this run processed successfully';
+COMMENT ON COLUMN inheritance_processing_runs.failed IS 'Queued rules of this run dead-lettered';
+COMMENT ON TABLE inheritance_run_shards IS 'Progress of one shard of a processing run';
+COMMENT ON COLUMN inheritance_run_shards.cursor_rule_id IS 'Last rule ID queued as of the latest checkpoint; the shard resumes after it';
+COMMENT ON COLUMN inheritance_work_queue.run_id IS 'Processing run that queued the rule, if any';
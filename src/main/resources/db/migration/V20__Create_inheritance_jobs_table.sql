@@ -0,0 +1,35 @@
+-- Create inheritance jobs table
+-- Long-running inheritance operations are submitted as jobs and run on a dedicated executor.
+-- The row holds status, progress counts and the result, so a job can be polled, streamed or
+-- cancelled through any instance. The running instance heartbeats its jobs and picks up
+-- cancellation requests; jobs whose instance stops heartbeating are marked failed.
+CREATE TABLE inheritance_jobs (
+    id UUID PRIMARY KEY,
+    job_type VARCHAR(50) NOT NULL,
+    status VARCHAR(20) NOT NULL CHECK (status IN ('QUEUED', 'RUNNING', 'SUCCEEDED', 'FAILED', 'CANCELLED')),
+    creator_id UUID NOT NULL,
+    parameters JSONB NOT NULL DEFAULT '{}',
+    node_id VARCHAR(100) NOT NULL,
+    total BIGINT NOT NULL DEFAULT 0,
+    processed BIGINT NOT NULL DEFAULT 0,
+    delivered BIGINT NOT NULL DEFAULT 0,
+    result JSONB,
+    error TEXT,
+    cancel_requested BOOLEAN NOT NULL DEFAULT FALSE,
+    submitted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    heartbeat_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    completed_at TIMESTAMP
+);
+
+-- Active jobs per creator, for the concurrency limit, and unfinished jobs for stale detection
+CREATE INDEX idx_inheritance_jobs_creator_active ON inheritance_jobs(creator_id) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX idx_inheritance_jobs_active_heartbeat ON inheritance_jobs(heartbeat_at) WHERE status IN ('QUEUED', 'RUNNING');
+CREATE INDEX idx_inheritance_jobs_completed_at ON inheritance_jobs(completed_at) WHERE completed_at IS NOT NULL;
+
+-- Add comments
+COMMENT ON TABLE inheritance_jobs IS 'Asynchronous inheritance operations with their progress and result';
+COMMENT ON COLUMN inheritance_jobs.total IS 'Items the job has discovered so far, e.g. recipients to deliver to';
+COMMENT ON COLUMN inheritance_jobs.processed IS 'Items handled so far: recipients delivered to, or rules queued by a sweep';
+COMMENT ON COLUMN inheritance_jobs.delivered IS 'New inheritance deliveries created';
+COMMENT ON COLUMN inheritance_jobs.cancel_requested IS 'Set when cancellation is requested; the running instance stops at its next check';
@@ -0,0 +1,155 @@
+package com.legacykeep.legacy.controller;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Stand-in for the Relationship Service, for fault-injection tests of the relationship
+ * client.
+ *
+ * Only active with the {@code relationship-stub} profile. It answers the Relationship
+ * Service endpoints the client calls, under {@code /stub/relationship}, with empty
+ * results, after the configured latency and with the configured error rate. Faults are
+ * changed through {@link #setFaults(Faults)} or {@code PUT /stub/relationship/faults}.
+ */
+@RestController
+@RequestMapping("/stub/relationship")
+@Profile("relationship-stub")
+@Slf4j
+public class RelationshipServiceStubController {
+
+    private volatile Faults faults = new Faults();
+
+    @GetMapping("/faults")
+    public ResponseEntity<Faults> getFaults() {
+        return ResponseEntity.ok(faults);
+    }
+
+    @PutMapping("/faults")
+    public ResponseEntity<Faults> setFaults(@RequestBody Faults faults) {
+        log.info("Relationship Service stub faults set to {}", faults);
+        this.faults = faults;
+        return ResponseEntity.ok(faults);
+    }
+
+    @GetMapping("/api/v1/relationships/user/{userId}/active")
+    public ResponseEntity<Map<String, Object>> getActiveRelationships(@PathVariable UUID userId) {
+        return respond(Map.of("content", Collections.emptyList()));
+    }
+
+    @PostMapping("/api/v1/relationships/users/active/batch")
+    public ResponseEntity<Map<String, Object>> getActiveRelationships(@RequestBody Map<String, List<UUID>> request) {
+        Map<UUID, Object> relationships = new LinkedHashMap<>();
+        request.getOrDefault("userIds", Collections.emptyList())
+                .forEach(userId -> relationships.put(userId, Collections.emptyList()));
+        return respond(relationships);
+    }
+
+    @GetMapping({"/api/v1/relationships/check/{user1Id}/{user2Id}",
+                 "/api/v1/relationships/check-active/{user1Id}/{user2Id}"})
+    public ResponseEntity<Map<String, Object>> checkRelationship(@PathVariable UUID user1Id,
+                                                                 @PathVariable UUID user2Id) {
+        return respond(false);
+    }
+
+    @GetMapping("/api/v1/relationship-types/name/{name}")
+    public ResponseEntity<Map<String, Object>> getRelationshipType(@PathVariable String name) {
+        return respond(null);
+    }
+
+    @GetMapping("/api/v1/relationship-types/category/{category}")
+    public ResponseEntity<Map<String, Object>> getRelationshipTypes(@PathVariable String category) {
+        return respond(Collections.emptyList());
+    }
+
+    @GetMapping("/api/v1/families/{familyId}/members")
+    public ResponseEntity<Map<String, Object>> getFamilyMembers(@PathVariable String familyId) {
+        return respond(Collections.emptyList());
+    }
+
+    @GetMapping("/api/v1/users/{userId}")
+    public ResponseEntity<Map<String, Object>> getUserInfo(@PathVariable UUID userId) {
+        return respond(Map.of("id", userId));
+    }
+
+    @PostMapping("/api/v1/users/batch")
+    public ResponseEntity<Map<String, Object>> getUserInfo(@RequestBody Map<String, List<UUID>> request) {
+        Map<UUID, Object> users = new LinkedHashMap<>();
+        request.getOrDefault("userIds", Collections.emptyList())
+                .forEach(userId -> users.put(userId, Map.of("id", userId)));
+        return respond(users);
+    }
+
+    /**
+     * Apply the configured faults, then answer with the data in the Relationship Service's
+     * envelope.
+     */
+    private ResponseEntity<Map<String, Object>> respond(Object data) {
+        Faults current = faults;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long delayMillis = current.getLatencyMillis()
+                + (current.getJitterMillis() > 0 ? random.nextLong(current.getJitterMillis() + 1) : 0);
+        if (delayMillis > 0) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (current.getErrorRatePercent() > 0 && random.nextDouble(100) < current.getErrorRatePercent()) {
+            return ResponseEntity.status(HttpStatus.valueOf(current.getErrorStatus()))
+                    .body(Map.of("success", false, "message", "Injected fault"));
+        }
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("success", true);
+        body.put("data", data);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Faults injected into every stub response.
+     */
+    @Data
+    public static class Faults {
+
+        /**
+         * Fixed delay before answering, in milliseconds.
+         */
+        private long latencyMillis = 0;
+
+        /**
+         * Random extra delay of up to this many milliseconds.
+         */
+        private long jitterMillis = 0;
+
+        /**
+         * Percentage of calls answered with an error.
+         */
+        private double errorRatePercent = 0;
+
+        /**
+         * HTTP status of injected errors.
+         */
+        private int errorStatus = 503;
+    }
+}
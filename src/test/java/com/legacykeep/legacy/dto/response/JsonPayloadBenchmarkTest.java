@@ -0,0 +1,111 @@
+package com.legacykeep.legacy.dto.response;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.legacykeep.legacy.entity.InheritanceEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Allocation and throughput of rendering an event listing with metadata parsed into maps
+ * (the former {@code convertFromJson} path) against raw {@link JsonPayload} passthrough.
+ *
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class JsonPayloadBenchmarkTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 20;
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final UUID ruleId = UUID.randomUUID();
+    private final LocalDateTime createdAt = LocalDateTime.now();
+
+    @Test
+    void eventListingWithParsedMapsAndRawPayloads() throws Exception {
+        List<String> eventData = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            // JSONB text form, as read from the column
+            eventData.add("{\"outcome\": \"DELIVERED\", \"contentId\": \"" + UUID.randomUUID()
+                    + "\", \"recipientId\": \"" + UUID.randomUUID() + "\", \"triggeredAt\": \"2026-01-01T10:00:00\", "
+                    + "\"relationshipTypeName\": \"Granddaughter\", \"relationshipCategory\": \"FAMILY\", "
+                    + "\"relationshipEventId\": \"evt-" + i + "\"}");
+        }
+
+        Function<String, Object> parsed = json -> {
+            try {
+                return objectMapper.readValue(json, MAP_TYPE);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Function<String, Object> raw = JsonPayload::ofObject;
+
+        assertThat(objectMapper.readTree(render(eventData, raw)))
+                .isEqualTo(objectMapper.readTree(render(eventData, parsed)));
+
+        Result map = measure(eventData, parsed);
+        Result passthrough = measure(eventData, raw);
+        System.out.printf("event listing of %d: parsed maps %,d bytes/event %.1f ms/listing; "
+                        + "raw payloads %,d bytes/event %.1f ms/listing%n",
+                EVENTS, map.bytesPerEvent, map.millisPerListing, passthrough.bytesPerEvent, passthrough.millisPerListing);
+
+        assertThat(passthrough.bytesPerEvent).isLessThan(map.bytesPerEvent);
+    }
+
+    private Result measure(List<String> eventData, Function<String, Object> metadata) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            render(eventData, metadata);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            render(eventData, metadata);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        return new Result(allocated / ((long) MEASURED_ROUNDS * EVENTS), elapsedNanos / 1e6 / MEASURED_ROUNDS);
+    }
+
+    /**
+     * Build the responses from the column text and serialize the listing, as the events
+     * endpoint does.
+     */
+    private byte[] render(List<String> eventData, Function<String, Object> metadata) throws Exception {
+        List<Map<String, Object>> listing = new ArrayList<>(eventData.size());
+        for (String json : eventData) {
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("id", ruleId);
+            response.put("inheritanceRuleId", ruleId);
+            response.put("eventType", InheritanceEvent.EventType.INHERITANCE_TRIGGERED);
+            response.put("eventData", metadata.apply(json));
+            response.put("createdAt", createdAt);
+            listing.add(response);
+        }
+        return objectMapper.writeValueAsBytes(listing);
+    }
+
+    private record Result(long bytesPerEvent, double millisPerListing) {
+    }
+}
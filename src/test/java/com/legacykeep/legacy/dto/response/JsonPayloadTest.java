@@ -0,0 +1,52 @@
+package com.legacykeep.legacy.dto.response;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonPayloadTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesTheColumnTextUnchanged() throws Exception {
+        String json = "{\"recipientId\": \"a1\", \"nested\": {\"count\": 3}}";
+        InheritanceEventResponse response = InheritanceEventResponse.builder()
+                .eventData(JsonPayload.ofObject(json))
+                .build();
+
+        String written = objectMapper.writeValueAsString(response);
+
+        assertThat(written).contains("\"eventData\":" + json);
+    }
+
+    @Test
+    void rendersMissingAndNonObjectValuesAsAnEmptyObject() {
+        assertThat(JsonPayload.ofObject(null).toJson()).isEqualTo("{}");
+        assertThat(JsonPayload.ofObject("  ").toJson()).isEqualTo("{}");
+        assertThat(JsonPayload.ofObject("[1, 2]").toJson()).isEqualTo("{}");
+        assertThat(JsonPayload.ofObject("\"text\"").isEmpty()).isTrue();
+    }
+
+    @Test
+    void parsesFieldsOnDemand() {
+        JsonPayload payload = JsonPayload.ofObject(" {\"outcome\": \"DELIVERED\", \"count\": 2}");
+
+        assertThat(payload.get("outcome")).isEqualTo("DELIVERED");
+        assertThat(payload.asMap()).isEqualTo(Map.of("outcome", "DELIVERED", "count", 2));
+        assertThat(payload.asMap()).isSameAs(payload.asMap());
+    }
+
+    @Test
+    void readsAnyJsonValueBackAsAPayload() throws Exception {
+        InheritanceEventResponse response = objectMapper.readValue(
+                "{\"eventData\": {\"outcome\": \"REVOKED\"}}", InheritanceEventResponse.class);
+
+        assertThat(response.getEventData().get("outcome")).isEqualTo("REVOKED");
+        assertThat(objectMapper.readValue("{\"eventData\": null}", InheritanceEventResponse.class)
+                .getEventData().isEmpty()).isTrue();
+    }
+}
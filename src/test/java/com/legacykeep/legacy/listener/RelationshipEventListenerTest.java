@@ -0,0 +1,157 @@
+package com.legacykeep.legacy.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.KafkaConsumerConfig;
+import com.legacykeep.legacy.dto.event.RelationshipChangeEvent;
+import com.legacykeep.legacy.service.impl.RelationshipCache;
+import com.legacykeep.legacy.service.impl.RelationshipChangeProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Drives {@link RelationshipEventListener} through an embedded Kafka broker.
+ */
+@SpringBootTest(
+        classes = {KafkaConsumerConfig.class, RelationshipEventListener.class},
+        properties = {
+                "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+                "spring.kafka.producer.value-serializer=org.apache.kafka.common.serialization.StringSerializer",
+                "legacy.kafka.relationship-events.concurrency=1",
+                "logging.level.kafka=WARN",
+                "logging.level.org.apache.kafka=WARN",
+                "logging.level.org.apache.zookeeper=WARN"
+        })
+@ImportAutoConfiguration({KafkaAutoConfiguration.class, JacksonAutoConfiguration.class})
+@EnableKafka
+@EmbeddedKafka(partitions = 1, topics = "relationship-events")
+@DirtiesContext
+class RelationshipEventListenerTest {
+
+    private static final String TOPIC = "relationship-events";
+
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private RelationshipChangeProcessor relationshipChangeProcessor;
+
+    @MockBean
+    private RelationshipCache relationshipCache;
+
+    private final Set<String> applied = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void recordAppliedEvents() {
+        reset(relationshipChangeProcessor, relationshipCache);
+        applied.clear();
+        doAnswer(invocation -> {
+            List<RelationshipChangeEvent> events = invocation.getArgument(0);
+            events.forEach(event -> applied.add(event.getEventId()));
+            return null;
+        }).when(relationshipChangeProcessor).process(anyList());
+    }
+
+    @Test
+    void appliesEventsAndInvalidatesTheChangedUsers() throws Exception {
+        UUID creatorId = UUID.randomUUID();
+        UUID relatedUserId = UUID.randomUUID();
+        RelationshipChangeEvent event = event("added-1", creatorId, relatedUserId);
+
+        kafkaTemplate.send(TOPIC, creatorId.toString(), objectMapper.writeValueAsString(event)).get(10, TimeUnit.SECONDS);
+
+        verify(relationshipChangeProcessor, timeout(10_000)).process(List.of(event));
+        verify(relationshipCache).invalidateUsers(Set.of(creatorId, relatedUserId));
+    }
+
+    @Test
+    void skipsUnreadableAndIncompleteRecords() throws Exception {
+        UUID creatorId = UUID.randomUUID();
+        RelationshipChangeEvent incomplete = event("incomplete-1", creatorId, null);
+        RelationshipChangeEvent valid = event("valid-1", creatorId, UUID.randomUUID());
+
+        kafkaTemplate.send(TOPIC, creatorId.toString(), "{not json");
+        kafkaTemplate.send(TOPIC, creatorId.toString(), objectMapper.writeValueAsString(incomplete));
+        kafkaTemplate.send(TOPIC, creatorId.toString(), objectMapper.writeValueAsString(valid)).get(10, TimeUnit.SECONDS);
+
+        verify(relationshipChangeProcessor, timeout(10_000)).process(List.of(valid));
+        awaitApplied(List.of("valid-1"));
+        assertThat(applied).containsExactly("valid-1");
+    }
+
+    @Test
+    void appliesEventsIndividuallyWhenTheBatchFails() throws Exception {
+        UUID creatorId = UUID.randomUUID();
+        List<String> eventIds = new ArrayList<>();
+        doAnswer(invocation -> {
+            List<RelationshipChangeEvent> events = invocation.getArgument(0);
+            if (events.size() > 1) {
+                throw new IllegalStateException("batch rejected");
+            }
+            events.forEach(event -> applied.add(event.getEventId()));
+            return null;
+        }).when(relationshipChangeProcessor).process(anyList());
+
+        for (int i = 0; i < 5; i++) {
+            String eventId = "batch-" + i;
+            eventIds.add(eventId);
+            kafkaTemplate.send(TOPIC, creatorId.toString(),
+                    objectMapper.writeValueAsString(event(eventId, creatorId, UUID.randomUUID())));
+        }
+        kafkaTemplate.flush();
+
+        awaitApplied(eventIds);
+        assertThat(applied).containsAll(eventIds);
+        verify(relationshipCache, timeout(10_000).atLeastOnce()).invalidateUsers(any(Collection.class));
+    }
+
+    /**
+     * Wait for the processor's answer to record the events; Mockito records the invocation
+     * before the answer runs, so a verified call may not have been applied yet.
+     */
+    private void awaitApplied(Collection<String> eventIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!applied.containsAll(eventIds) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static RelationshipChangeEvent event(String eventId, UUID userId, UUID relatedUserId) {
+        return RelationshipChangeEvent.builder()
+                .eventId(eventId)
+                .changeType(RelationshipChangeEvent.ChangeType.ADDED)
+                .userId(userId)
+                .relatedUserId(relatedUserId)
+                .relationshipTypeName("Son")
+                .relationshipCategory("FAMILY")
+                .build();
+    }
+}
@@ -0,0 +1,191 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipResilienceProperties;
+import com.legacykeep.legacy.config.RelationshipServiceProperties;
+import com.legacykeep.legacy.exception.RelationshipServiceUnavailableException;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import com.legacykeep.legacy.service.RelationshipServiceClient.RelationshipInfo;
+import com.legacykeep.legacy.util.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Upstream calls of {@link BatchingRelationshipServiceClient} over a stub transport that
+ * records every batch call: concurrent single-user lookups, such as those of the members
+ * of one family tree, are answered by a handful of batch calls.
+ */
+class BatchingRelationshipServiceClientTest {
+
+    private static final int MEMBERS = 200;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final long BATCH_WINDOW_MILLIS = 200;
+
+    private final RelationshipServiceClient transport = mock(RelationshipServiceClient.class);
+    private final List<Collection<UUID>> batchCalls = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(MEMBERS);
+
+    private BatchingRelationshipServiceClient client;
+
+    @BeforeEach
+    void setUp() {
+        when(transport.getActiveUserRelationships(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> userIds = invocation.getArgument(0);
+            batchCalls.add(userIds);
+            Map<UUID, List<RelationshipInfo>> relationships = new LinkedHashMap<>();
+            userIds.forEach(userId -> relationships.put(userId, List.of(relationship(userId))));
+            return relationships;
+        });
+
+        RelationshipServiceProperties properties = new RelationshipServiceProperties();
+        properties.setBatchWindowMillis(BATCH_WINDOW_MILLIS);
+        properties.setMaxBatchSize(MAX_BATCH_SIZE);
+        client = new BatchingRelationshipServiceClient(transport,
+                new RelationshipServiceResilience(new RelationshipResilienceProperties(), meterRegistry),
+                properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void lookupsOfTwoHundredMembersCostAHandfulOfBatchCalls() throws Exception {
+        List<UUID> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(UUID.randomUUID());
+        }
+
+        List<Future<List<RelationshipInfo>>> results = submitAll(members.stream()
+                .<Callable<List<RelationshipInfo>>>map(member -> () -> client.getActiveUserRelationships(member))
+                .toList());
+
+        for (int i = 0; i < MEMBERS; i++) {
+            assertThat(results.get(i).get(5, TimeUnit.SECONDS))
+                    .extracting(RelationshipInfo::getUser1Id)
+                    .containsExactly(members.get(i));
+        }
+        // Two full batches when every lookup arrives within one window
+        assertThat(batchCalls).hasSizeBetween(MEMBERS / MAX_BATCH_SIZE, MEMBERS / MAX_BATCH_SIZE + 2);
+        assertThat(batchCalls).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(MAX_BATCH_SIZE));
+        assertThat(meterRegistry.get("legacy.relationship.batch.keys").tag("lookup", "active-relationships")
+                .functionCounter().count()).isEqualTo(MEMBERS);
+        verify(transport, never()).getActiveUserRelationships(any(UUID.class));
+    }
+
+    @Test
+    void aMemberLookedUpRepeatedlyInOneBatchIsSentOnce() throws Exception {
+        UUID member = UUID.randomUUID();
+
+        List<Future<List<RelationshipInfo>>> results = submitAll(
+                Collections.nCopies(32, () -> client.getActiveUserRelationships(member)));
+
+        for (Future<List<RelationshipInfo>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(batchCalls).isNotEmpty().allSatisfy(batch -> assertThat(batch).containsExactly(member));
+        assertThat(batchCalls).hasSizeLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void aFailedBatchCallFailsEveryLookupOfTheBatch() throws Exception {
+        IllegalStateException failure = new IllegalStateException("relationship service down");
+        doAnswer(invocation -> {
+            batchCalls.add(invocation.getArgument(0));
+            throw failure;
+        }).when(transport).getActiveUserRelationships(anyCollection());
+
+        List<Callable<List<RelationshipInfo>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            UUID member = UUID.randomUUID();
+            lookups.add(() -> client.getActiveUserRelationships(member));
+        }
+        List<Future<List<RelationshipInfo>>> results = submitAll(lookups);
+
+        for (Future<List<RelationshipInfo>> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        }
+        assertThat(batchCalls).hasSizeBetween(1, 2);
+    }
+
+    @Test
+    void aLookupPastItsDeadlineIsAnsweredWithoutCuttingTheBatchShort() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Collection<UUID> userIds = invocation.getArgument(0);
+            batchCalls.add(userIds);
+            assertThat(release.await(5, TimeUnit.SECONDS)).isTrue();
+            Map<UUID, List<RelationshipInfo>> relationships = new LinkedHashMap<>();
+            userIds.forEach(userId -> relationships.put(userId, List.of(relationship(userId))));
+            return relationships;
+        }).when(transport).getActiveUserRelationships(anyCollection());
+        UUID leader = UUID.randomUUID();
+        UUID impatient = UUID.randomUUID();
+
+        // The leader has no deadline and holds the batch window open
+        Future<List<RelationshipInfo>> leaderResult = callers.submit(() -> client.getActiveUserRelationships(leader));
+        Thread.sleep(BATCH_WINDOW_MILLIS / 4);
+        Future<List<RelationshipInfo>> impatientResult = callers.submit(() -> {
+            RequestDeadline.set(System.currentTimeMillis() + 50);
+            try {
+                return client.getActiveUserRelationships(impatient);
+            } finally {
+                RequestDeadline.clear();
+            }
+        });
+
+        assertThatThrownBy(() -> impatientResult.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(RelationshipServiceUnavailableException.class);
+        release.countDown();
+
+        assertThat(leaderResult.get(5, TimeUnit.SECONDS)).hasSize(1);
+        assertThat(batchCalls).containsExactly(List.of(leader, impatient));
+    }
+
+    private <T> List<Future<T>> submitAll(List<Callable<T>> calls) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        for (Callable<T> call : calls) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private static RelationshipInfo relationship(UUID userId) {
+        return new RelationshipInfo(UUID.randomUUID(), userId, UUID.randomUUID(), "Son", "FAMILY", "ACTIVE", null);
+    }
+}
@@ -0,0 +1,140 @@
+package com.legacykeep.legacy.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latency of {@link InheritanceAccessCache#hasAccess} under concurrent readers, with a
+ * writer invalidating recipients meanwhile. Loads from {@code inheritance_access} are
+ * simulated with a fixed round trip.
+ *
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class InheritanceAccessCacheBenchmarkTest {
+
+    private static final int RECIPIENTS = 2_000;
+    private static final int CONTENT_PER_RECIPIENT = 50;
+    private static final int READERS = 8;
+    private static final int CHECKS_PER_READER = 250_000;
+    private static final long LOAD_ROUND_TRIP_MICROS = 1_000;
+    private static final long INVALIDATION_INTERVAL_MICROS = 500;
+
+    @Test
+    void accessChecksUnderConcurrentReaders() throws Exception {
+        UUID[] recipients = new UUID[RECIPIENTS];
+        UUID[][] content = new UUID[RECIPIENTS][CONTENT_PER_RECIPIENT];
+        Map<UUID, List<UUID>> accessible = new HashMap<>();
+        for (int r = 0; r < RECIPIENTS; r++) {
+            recipients[r] = UUID.randomUUID();
+            for (int c = 0; c < CONTENT_PER_RECIPIENT; c++) {
+                content[r][c] = UUID.randomUUID();
+            }
+            accessible.put(recipients[r], Arrays.asList(content[r]));
+        }
+
+        AtomicLong loads = new AtomicLong();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), any(Object[].class))).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            TimeUnit.MICROSECONDS.sleep(LOAD_ROUND_TRIP_MICROS);
+            return accessible.get((UUID) invocation.getArgument(2));
+        });
+        InheritanceAccessCache cache = new InheritanceAccessCache(jdbcTemplate, mock(StringRedisTemplate.class),
+                mock(RedisConnectionFactory.class), RECIPIENTS, 300, "invalidations", new SimpleMeterRegistry());
+
+        ExecutorService pool = Executors.newFixedThreadPool(READERS + 1);
+        AtomicBoolean reading = new AtomicBoolean(true);
+        AtomicLong invalidations = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> writer = pool.submit(() -> {
+            start.await();
+            while (reading.get()) {
+                cache.invalidate(recipients[ThreadLocalRandom.current().nextInt(RECIPIENTS)]);
+                invalidations.incrementAndGet();
+                TimeUnit.MICROSECONDS.sleep(INVALIDATION_INTERVAL_MICROS);
+            }
+            return null;
+        });
+
+        List<Future<long[]>> readers = new ArrayList<>();
+        for (int t = 0; t < READERS; t++) {
+            readers.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] latencies = new long[CHECKS_PER_READER];
+                start.await();
+                for (int i = 0; i < CHECKS_PER_READER; i++) {
+                    int r = random.nextInt(RECIPIENTS);
+                    // Every other check asks about another recipient's content
+                    boolean own = (i & 1) == 0;
+                    UUID contentId = content[own ? r : (r + 1) % RECIPIENTS][random.nextInt(CONTENT_PER_RECIPIENT)];
+
+                    long startNanos = System.nanoTime();
+                    boolean access = cache.hasAccess(recipients[r], contentId);
+                    latencies[i] = System.nanoTime() - startNanos;
+
+                    if (access != own) {
+                        throw new AssertionError("Wrong access answer for recipient " + r);
+                    }
+                }
+                return latencies;
+            }));
+        }
+
+        long startNanos = System.nanoTime();
+        start.countDown();
+        long[] all = new long[READERS * CHECKS_PER_READER];
+        for (int t = 0; t < READERS; t++) {
+            System.arraycopy(readers.get(t).get(), 0, all, t * CHECKS_PER_READER, CHECKS_PER_READER);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        reading.set(false);
+        writer.get();
+        pool.shutdown();
+
+        Arrays.sort(all);
+        System.out.printf("access checks: %d readers, %d checks in %d ms (%.0f checks/s), "
+                        + "p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f ms; %d loads, %d invalidations%n",
+                READERS, all.length, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                all.length / (elapsedNanos / 1e9),
+                percentile(all, 0.50) / 1e3, percentile(all, 0.99) / 1e3, percentile(all, 0.999) / 1e3,
+                all[all.length - 1] / 1e6, loads.get(), invalidations.get());
+
+        // Loads follow first accesses and invalidations (concurrent misses of one recipient
+        // may each load), so nearly every check is answered from the cache
+        assertThat(loads.get()).isLessThan(all.length / 100);
+        // Warm checks are hash lookups; only reloads after invalidation pay the round trip
+        assertThat(percentile(all, 0.50)).isLessThan(TimeUnit.MICROSECONDS.toNanos(LOAD_ROUND_TRIP_MICROS));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+}
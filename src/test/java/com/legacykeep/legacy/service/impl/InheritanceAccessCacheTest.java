@@ -0,0 +1,139 @@
+package com.legacykeep.legacy.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two {@link InheritanceAccessCache} instances over one simulated {@code inheritance_access}
+ * table, with the Redis invalidation channel simulated by delivering every published
+ * message to both.
+ */
+class InheritanceAccessCacheTest {
+
+    private static final String CHANNEL = "legacy:inheritance:access:invalidations";
+
+    private final Map<UUID, Set<UUID>> accessTable = new ConcurrentHashMap<>();
+    private final List<String> published = new ArrayList<>();
+    private final List<InheritanceAccessCache> nodes = new ArrayList<>();
+
+    private final UUID recipientId = UUID.randomUUID();
+    private final UUID contentId = UUID.randomUUID();
+
+    private InheritanceAccessCache nodeA;
+    private InheritanceAccessCache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), any(Object[].class)))
+                .thenAnswer(invocation -> new ArrayList<>(
+                        accessTable.getOrDefault((UUID) invocation.getArgument(2), Set.of())));
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            String body = invocation.getArgument(1);
+            published.add(body);
+            DefaultMessage message = new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                    body.getBytes(StandardCharsets.UTF_8));
+            nodes.forEach(node -> node.onInvalidation(message));
+            return 1L;
+        }).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        nodeA = node(jdbcTemplate, redisTemplate);
+        nodeB = node(jdbcTemplate, redisTemplate);
+        accessTable.put(recipientId, Set.of(contentId));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void revocationOnOneNodeDeniesAccessOnAnother() {
+        assertThat(nodeA.hasAccess(recipientId, contentId)).isTrue();
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isTrue();
+
+        accessTable.put(recipientId, Set.of());
+        nodeA.invalidate(recipientId);
+
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isFalse();
+        assertThat(nodeA.hasAccess(recipientId, contentId)).isFalse();
+        assertThat(published).containsExactly(recipientId.toString());
+    }
+
+    @Test
+    void invalidationIsBroadcastOnlyAfterCommit() {
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isTrue();
+
+        TransactionSynchronizationManager.initSynchronization();
+        accessTable.put(recipientId, Set.of());
+        nodeA.invalidate(recipientId);
+
+        assertThat(published).isEmpty();
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isTrue();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(published).containsExactly(recipientId.toString());
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isFalse();
+    }
+
+    @Test
+    void broadcastNamesEveryInvalidatedRecipientOnce() {
+        UUID otherRecipientId = UUID.randomUUID();
+        accessTable.put(otherRecipientId, Set.of(contentId));
+        assertThat(nodeB.hasAccess(otherRecipientId, contentId)).isTrue();
+
+        accessTable.put(otherRecipientId, Set.of());
+        nodeA.invalidate(List.of(recipientId, otherRecipientId, recipientId));
+
+        assertThat(published).containsExactly(recipientId + "," + otherRecipientId);
+        assertThat(nodeB.hasAccess(otherRecipientId, contentId)).isFalse();
+    }
+
+    @Test
+    void unreadableBroadcastIsIgnored() {
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isTrue();
+
+        nodeB.onInvalidation(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "not-a-uuid".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(nodeB.hasAccess(recipientId, contentId)).isTrue();
+    }
+
+    private InheritanceAccessCache node(JdbcTemplate jdbcTemplate, StringRedisTemplate redisTemplate) {
+        InheritanceAccessCache node = new InheritanceAccessCache(jdbcTemplate, redisTemplate,
+                mock(RedisConnectionFactory.class), 1000, 300, CHANNEL, new SimpleMeterRegistry());
+        nodes.add(node);
+        return node;
+    }
+}
@@ -0,0 +1,176 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.TargetType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statement counts of {@link InheritanceDeliveryPlanner}: a content costs one lookup plus
+ * one insert per delivery batch of (rule, recipient) pairs, not statements per pair.
+ *
+ * The JDBC layer is replaced by a recorder that runs each statement creator against a
+ * mock connection, so every statement the planner and the writer prepare is counted.
+ */
+class InheritanceDeliveryPlannerTest {
+
+    private static final String TARGET = "Son";
+
+    private final UUID contentId = UUID.randomUUID();
+    private final UUID creatorId = UUID.randomUUID();
+    private final List<String> statements = new ArrayList<>();
+    private final Set<List<Object>> existingPairs = new HashSet<>();
+
+    private InheritanceRuleIndex ruleIndex;
+    private InheritanceProcessingProperties properties;
+    private InheritanceDeliveryPlanner planner;
+    private List<UUID> recipients;
+
+    @BeforeEach
+    void setUp() {
+        ruleIndex = mock(InheritanceRuleIndex.class);
+        properties = new InheritanceProcessingProperties();
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> execute(invocation.getArgument(0), invocation.getArgument(1)));
+
+        InheritanceDeliveryWriter writer = new InheritanceDeliveryWriter(jdbcTemplate, properties,
+                mock(InheritanceAccessCache.class), mock(InheritanceSketchStore.class));
+        planner = new InheritanceDeliveryPlanner(ruleIndex, writer, jdbcTemplate);
+    }
+
+    @ParameterizedTest(name = "{0} rules x {1} recipients")
+    @CsvSource({"1, 1", "1, 100", "10, 100", "50, 200"})
+    void issuesOneLookupAndOneInsertPerDeliveryBatch(int ruleCount, int recipientCount) {
+        givenRules(ruleCount, recipientCount);
+        int pairs = ruleCount * recipientCount;
+        int batchSize = properties.getDeliveryBatchSize();
+
+        int created = planner.deliver(contentId, TargetType.RELATIONSHIP_TYPE, TARGET, this::resolveRecipients);
+
+        // One lookup of existing pairs and one combined status/event insert per batch of
+        // pairs, instead of one rule query per recipient plus a status lookup and two
+        // inserts per pair
+        assertThat(created).isEqualTo(pairs);
+        assertThat(statements).hasSize(1 + (pairs + batchSize - 1) / batchSize);
+    }
+
+    @Test
+    void chunksLargePlansByTheDeliveryBatchSize() {
+        properties.setDeliveryBatchSize(500);
+        givenRules(10, 200);
+
+        int created = planner.deliver(contentId, TargetType.RELATIONSHIP_TYPE, TARGET, this::resolveRecipients);
+
+        assertThat(created).isEqualTo(2000);
+        assertThat(statements).hasSize(1 + 4);
+    }
+
+    @Test
+    void skipsPairsThatAlreadyHaveAStatus() {
+        properties.setDeliveryBatchSize(1000);
+        List<InheritanceRuleIndex.RuleEntry> rules = givenRules(2, 3);
+        existingPairs.add(List.of(rules.get(0).getId(), recipients.get(0)));
+        existingPairs.add(List.of(rules.get(1).getId(), recipients.get(2)));
+
+        int created = planner.deliver(contentId, TargetType.RELATIONSHIP_TYPE, TARGET, this::resolveRecipients);
+
+        assertThat(created).isEqualTo(4);
+        assertThat(statements).hasSize(2);
+    }
+
+    private List<InheritanceRuleIndex.RuleEntry> givenRules(int ruleCount, int recipientCount) {
+        recipients = generate(recipientCount, i -> UUID.randomUUID());
+        List<InheritanceRuleIndex.RuleEntry> rules = generate(ruleCount, i -> new InheritanceRuleIndex.RuleEntry(
+                UUID.randomUUID(), contentId, creatorId, TargetType.RELATIONSHIP_TYPE, TARGET,
+                InheritanceTrigger.EVENT_BASED, 0));
+        when(ruleIndex.findActiveRulesByContent(contentId)).thenReturn(rules);
+        return rules;
+    }
+
+    private Map<UUID, List<UUID>> resolveRecipients(Collection<UUID> creatorIds) {
+        return creatorIds.stream().collect(Collectors.toMap(Function.identity(), id -> recipients));
+    }
+
+    /**
+     * Record a statement and answer it through its row mapper: the existing pairs for the
+     * lookup, and every pair as created for the insert.
+     */
+    private List<Object> execute(PreparedStatementCreator creator, RowMapper<?> rowMapper) throws Exception {
+        Connection connection = mock(Connection.class);
+        List<Object[]> arrays = new ArrayList<>();
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            statements.add(invocation.getArgument(0));
+            return mock(PreparedStatement.class);
+        });
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+            arrays.add(invocation.getArgument(1));
+            return mock(Array.class);
+        });
+        creator.createPreparedStatement(connection);
+
+        boolean lookup = statements.get(statements.size() - 1).startsWith("SELECT");
+        Object[] ruleIds = arrays.get(0);
+        Object[] recipientIds = arrays.get(1);
+        List<List<Object>> rows = new ArrayList<>();
+        if (lookup) {
+            for (Object ruleId : ruleIds) {
+                for (Object recipientId : recipientIds) {
+                    if (existingPairs.contains(List.of(ruleId, recipientId))) {
+                        rows.add(List.of(ruleId, recipientId));
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < ruleIds.length; i++) {
+                rows.add(List.of(ruleIds[i], recipientIds[i]));
+            }
+        }
+
+        List<Object> row = new ArrayList<>(List.of(UUID.randomUUID(), UUID.randomUUID()));
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getObject(eq(1), eq(UUID.class))).thenAnswer(invocation -> row.get(0));
+        when(rs.getObject(eq(2), eq(UUID.class))).thenAnswer(invocation -> row.get(1));
+
+        List<Object> mapped = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            row.set(0, rows.get(i).get(0));
+            row.set(1, rows.get(i).get(1));
+            mapped.add(rowMapper.mapRow(rs, i));
+        }
+        return mapped;
+    }
+
+    private static <T> List<T> generate(int count, Function<Integer, T> generator) {
+        return IntStream.range(0, count).boxed().map(generator).collect(Collectors.toList());
+    }
+}
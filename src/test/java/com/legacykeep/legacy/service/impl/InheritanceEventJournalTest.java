@@ -0,0 +1,116 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.legacykeep.legacy.config.InheritanceJournalProperties;
+import com.legacykeep.legacy.entity.InheritanceEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Durability of {@link InheritanceEventJournal}: an appended event is in the spill file
+ * when {@code append} returns, long before the flusher writes it to the database.
+ */
+class InheritanceEventJournalTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendedEventIsInTheSpillFileBeforeItIsFlushed() throws IOException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        InheritanceEventJournal journal = journal(jdbcTemplate, new SimpleMeterRegistry());
+        UUID ruleId = UUID.randomUUID();
+
+        journal.append(ruleId, InheritanceEvent.EventType.RULE_CREATED, Map.of("priority", 1), null);
+
+        assertThat(spilledLines()).singleElement().asString().contains(ruleId.toString());
+        verify(jdbcTemplate, never()).update(any(PreparedStatementCreator.class));
+    }
+
+    @Test
+    void eventsAppendedBeforeACrashAreWrittenOnRestart() throws IOException {
+        journal(mock(JdbcTemplate.class), new SimpleMeterRegistry())
+                .append(UUID.randomUUID(), InheritanceEvent.EventType.RULE_CREATED, null, null);
+        // No stop(): the process dies with the event only in the spill file
+
+        JdbcTemplate restartedJdbcTemplate = mock(JdbcTemplate.class);
+        SimpleMeterRegistry restartedRegistry = new SimpleMeterRegistry();
+        journal(restartedJdbcTemplate, restartedRegistry);
+
+        verify(restartedJdbcTemplate, times(1)).update(any(PreparedStatementCreator.class));
+        assertThat(restartedRegistry.get("legacy.inheritance.journal.flushed").counter().count()).isEqualTo(1.0);
+        assertThat(spilledLines()).isEmpty();
+    }
+
+    @Test
+    void concurrentAppendsAreAllDurableWithoutASyncEach() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InheritanceEventJournal journal = journal(mock(JdbcTemplate.class), meterRegistry);
+        int threads = 8;
+        int appendsPerThread = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                producers.add(executor.submit(() -> {
+                    for (int j = 0; j < appendsPerThread; j++) {
+                        journal.append(UUID.randomUUID(), InheritanceEvent.EventType.RULE_UPDATED, null, null);
+                    }
+                }));
+            }
+            for (Future<?> producer : producers) {
+                producer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(spilledLines()).hasSize(threads * appendsPerThread);
+        assertThat(meterRegistry.get("legacy.inheritance.journal.spill.syncs").counter().count())
+                .isPositive()
+                .isLessThanOrEqualTo(threads * appendsPerThread);
+    }
+
+    private InheritanceEventJournal journal(JdbcTemplate jdbcTemplate, SimpleMeterRegistry meterRegistry)
+            throws IOException {
+        InheritanceJournalProperties properties = new InheritanceJournalProperties();
+        properties.setSpillPath(directory.resolve("inheritance-events.journal").toString());
+        // Keep the flusher out of the way; the tests only look at the spill file
+        properties.setFlushIntervalMillis(3_600_000);
+
+        InheritanceEventJournal journal = new InheritanceEventJournal(jdbcTemplate, objectMapper, properties,
+                mock(InheritanceSketchStore.class), meterRegistry);
+        journal.start();
+        return journal;
+    }
+
+    private List<String> spilledLines() throws IOException {
+        return Files.readAllLines(directory.resolve("inheritance-events.journal"), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,409 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceJobProperties;
+import com.legacykeep.legacy.config.NodeProperties;
+import com.legacykeep.legacy.controller.InheritanceController;
+import com.legacykeep.legacy.dto.response.InheritanceJobResponse;
+import com.legacykeep.legacy.enums.InheritanceJobStatus;
+import com.legacykeep.legacy.enums.InheritanceJobType;
+import com.legacykeep.legacy.exception.GlobalExceptionHandler;
+import com.legacykeep.legacy.exception.InheritanceJobLimitExceededException;
+import com.legacykeep.legacy.service.InheritanceService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link InheritanceJobServiceImpl} instances over one simulated {@code inheritance_jobs}
+ * table whose advisory locks are held until the transaction taking them ends, so the
+ * per-creator limit, a full executor, and cancellation of queued and running jobs,
+ * locally and through another instance, are exercised as the database would see them.
+ */
+class InheritanceJobServiceImplTest {
+
+    private static final UUID CREATOR_ID = UUID.fromString("123e4567-e89b-12d3-a456-426614174001");
+
+    private final JobsTable jobsTable = new JobsTable();
+    private final InheritanceService inheritanceService = mock(InheritanceService.class);
+    private final List<InheritanceJobServiceImpl> nodes = new ArrayList<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = jobsTable.jdbcTemplate();
+        transactionManager = jobsTable.transactionManager();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        nodes.forEach(InheritanceJobServiceImpl::stop);
+    }
+
+    @Test
+    void concurrentSubmissionsNeverExceedTheCreatorLimit() throws Exception {
+        InheritanceJobServiceImpl node = node("node-a", properties(8, 100, 3), new SimpleMeterRegistry());
+        when(inheritanceService.processAllActiveInheritance()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+
+        List<Future<InheritanceJobResponse>> submissions = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < 8; i++) {
+            submissions.add(callers.submit(() -> {
+                start.await();
+                return node.submitProcessAllActiveInheritance(CREATOR_ID);
+            }));
+        }
+        start.countDown();
+
+        int accepted = 0;
+        int rejected = 0;
+        for (Future<InheritanceJobResponse> submission : submissions) {
+            try {
+                submission.get(5, TimeUnit.SECONDS);
+                accepted++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(InheritanceJobLimitExceededException.class);
+                rejected++;
+            }
+        }
+
+        assertThat(accepted).isEqualTo(3);
+        assertThat(rejected).isEqualTo(5);
+        assertThat(jobsTable.active(CREATOR_ID)).isEqualTo(3);
+
+        // The limit is per creator
+        assertThat(node.submitProcessAllActiveInheritance(UUID.randomUUID()).getStatus())
+                .isIn(InheritanceJobStatus.QUEUED, InheritanceJobStatus.RUNNING);
+    }
+
+    @Test
+    void submissionToAFullExecutorIsAnsweredWithTooManyRequests() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InheritanceJobServiceImpl node = node("node-a", properties(1, 1, 10), meterRegistry);
+        when(inheritanceService.processAllActiveInheritance()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        MockMvc mockMvc = MockMvcBuilders
+                .standaloneSetup(new InheritanceController(mock(InheritanceService.class), node, new ObjectMapper()))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        // One job runs and one waits in the executor queue
+        mockMvc.perform(post("/inheritance/process/all")).andExpect(status().isAccepted());
+        mockMvc.perform(post("/inheritance/process/all")).andExpect(status().isAccepted());
+
+        mockMvc.perform(post("/inheritance/process/all"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.error").value("INHERITANCE_JOB_LIMIT_EXCEEDED"));
+
+        assertThat(jobsTable.rows.values())
+                .filteredOn(row -> row.status == InheritanceJobStatus.FAILED)
+                .singleElement()
+                .satisfies(row -> assertThat(row.error).isEqualTo("Rejected: the job executor is full"));
+        assertThat(meterRegistry.get("legacy.inheritance.jobs").tag("outcome", "rejected").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("legacy.inheritance.jobs.active").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void cancelledQueuedJobNeverRuns() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        InheritanceJobServiceImpl node = node("node-a", properties(1, 10, 10), meterRegistry);
+        when(inheritanceService.processAllActiveInheritance()).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        });
+        UUID ruleId = UUID.randomUUID();
+
+        InheritanceJobResponse running = node.submitProcessAllActiveInheritance(CREATOR_ID);
+        InheritanceJobResponse queued = node.submitProcessInheritance(ruleId, CREATOR_ID);
+        awaitStatus(running.getJobId(), InheritanceJobStatus.RUNNING);
+
+        InheritanceJobResponse cancelled = node.cancelJob(queued.getJobId(), CREATOR_ID);
+        assertThat(cancelled.getStatus()).isEqualTo(InheritanceJobStatus.CANCELLED);
+
+        release.countDown();
+        awaitStatus(running.getJobId(), InheritanceJobStatus.SUCCEEDED);
+        // The queued job is dropped by the executor once the running one is done
+        await(() -> meterRegistry.get("legacy.inheritance.jobs.active").gauge().value() == 0);
+
+        assertThat(jobsTable.rows.get(queued.getJobId()).status).isEqualTo(InheritanceJobStatus.CANCELLED);
+        verify(inheritanceService, never()).processInheritance(ruleId);
+    }
+
+    @Test
+    void cancelledRunningJobStopsAtItsNextCancellationCheck() throws Exception {
+        InheritanceJobServiceImpl node = node("node-a", properties(1, 10, 10), new SimpleMeterRegistry());
+        when(inheritanceService.processAllActiveInheritance()).thenAnswer(invocation -> processUntilCancelled());
+
+        InheritanceJobResponse job = node.submitProcessAllActiveInheritance(CREATOR_ID);
+        awaitStatus(job.getJobId(), InheritanceJobStatus.RUNNING);
+
+        InheritanceJobResponse cancelling = node.cancelJob(job.getJobId(), CREATOR_ID);
+        assertThat(cancelling.isCancelRequested()).isTrue();
+
+        awaitStatus(job.getJobId(), InheritanceJobStatus.CANCELLED);
+        assertThat(jobsTable.rows.get(job.getJobId()).processed).isPositive();
+    }
+
+    @Test
+    void jobRunningOnAnotherInstanceIsCancelledThroughItsHeartbeat() throws Exception {
+        InheritanceJobServiceImpl nodeA = node("node-a", properties(1, 10, 10), new SimpleMeterRegistry());
+        InheritanceJobServiceImpl nodeB = node("node-b", properties(1, 10, 10), new SimpleMeterRegistry());
+        when(inheritanceService.processAllActiveInheritance()).thenAnswer(invocation -> processUntilCancelled());
+
+        InheritanceJobResponse job = nodeA.submitProcessAllActiveInheritance(CREATOR_ID);
+        awaitStatus(job.getJobId(), InheritanceJobStatus.RUNNING);
+
+        InheritanceJobResponse cancelling = nodeB.cancelJob(job.getJobId(), CREATOR_ID);
+        assertThat(cancelling.getStatus()).isEqualTo(InheritanceJobStatus.RUNNING);
+        assertThat(cancelling.isCancelRequested()).isTrue();
+
+        awaitStatus(job.getJobId(), InheritanceJobStatus.CANCELLED);
+        assertThat(jobsTable.rows.get(job.getJobId()).nodeId).isEqualTo("node-a");
+    }
+
+    private InheritanceJobServiceImpl node(String nodeId, InheritanceJobProperties properties,
+                                           MeterRegistry meterRegistry) {
+        NodeProperties nodeProperties = new NodeProperties();
+        nodeProperties.setId(nodeId);
+        InheritanceJobServiceImpl node = new InheritanceJobServiceImpl(inheritanceService, jdbcTemplate,
+                transactionManager, new ObjectMapper(), properties, new NodeIdentity(nodeProperties), meterRegistry);
+        node.start();
+        nodes.add(node);
+        return node;
+    }
+
+    private static InheritanceJobProperties properties(int threads, int queueCapacity, int maxActivePerCreator) {
+        InheritanceJobProperties properties = new InheritanceJobProperties();
+        properties.setThreads(threads);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setMaxActivePerCreator(maxActivePerCreator);
+        properties.setHeartbeatIntervalMillis(20);
+        return properties;
+    }
+
+    private static long processUntilCancelled() throws InterruptedException {
+        InheritanceJobProgress progress = InheritanceJobProgress.current();
+        for (int chunk = 0; chunk < 1000; chunk++) {
+            progress.checkCancelled();
+            progress.recordProcessed(1, 1);
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Job was not cancelled");
+    }
+
+    private void awaitStatus(UUID jobId, InheritanceJobStatus status) throws InterruptedException {
+        await(() -> jobsTable.rows.get(jobId).status == status);
+        assertThat(jobsTable.rows.get(jobId).status).isEqualTo(status);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * The rows of {@code inheritance_jobs} behind a mock {@link JdbcTemplate}, answering
+     * the statements of {@link InheritanceJobServiceImpl} by their prefix.
+     */
+    private static final class JobsTable {
+
+        private final Map<UUID, Row> rows = new ConcurrentHashMap<>();
+        private final Map<String, ReentrantLock> advisoryLocks = new ConcurrentHashMap<>();
+        private final ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+
+        @SuppressWarnings("unchecked")
+        JdbcTemplate jdbcTemplate() {
+            JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+            when(jdbcTemplate.queryForList(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                ReentrantLock lock = advisoryLocks.computeIfAbsent(invocation.getArgument(1), key -> new ReentrantLock());
+                lock.lock();
+                heldLocks.get().add(lock);
+                return List.of();
+            });
+            when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class)))
+                    .thenAnswer(invocation -> active(invocation.getArgument(2)));
+            when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                Object[] arguments = invocation.getArguments();
+                return update(invocation.getArgument(0), Arrays.copyOfRange(arguments, 1, arguments.length));
+            });
+            when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+                Row row = rows.get((UUID) invocation.getArgument(2));
+                return row != null && row.creatorId.equals(invocation.getArgument(3)) ? List.of(row.toResponse()) : List.of();
+            });
+            doAnswer(invocation -> {
+                heartbeat(invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+            return jdbcTemplate;
+        }
+
+        /**
+         * Transactions end by releasing the advisory locks taken in them.
+         */
+        PlatformTransactionManager transactionManager() {
+            PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+            doAnswer(invocation -> releaseLocks()).when(transactionManager).commit(any());
+            doAnswer(invocation -> releaseLocks()).when(transactionManager).rollback(any());
+            return transactionManager;
+        }
+
+        long active(UUID creatorId) {
+            return rows.values().stream()
+                    .filter(row -> row.creatorId.equals(creatorId) && !row.status.isTerminal())
+                    .count();
+        }
+
+        private Object releaseLocks() {
+            heldLocks.get().forEach(ReentrantLock::unlock);
+            heldLocks.get().clear();
+            return null;
+        }
+
+        private synchronized int update(String sql, Object[] arguments) {
+            if (sql.startsWith("INSERT INTO inheritance_jobs")) {
+                Row row = new Row();
+                row.id = (UUID) arguments[0];
+                row.jobType = InheritanceJobType.valueOf((String) arguments[1]);
+                row.creatorId = (UUID) arguments[2];
+                row.nodeId = (String) arguments[4];
+                row.status = InheritanceJobStatus.QUEUED;
+                rows.put(row.id, row);
+                return 1;
+            }
+            if (sql.startsWith("UPDATE inheritance_jobs SET status = 'RUNNING'")) {
+                Row row = rows.get((UUID) arguments[0]);
+                if (row.status != InheritanceJobStatus.QUEUED || row.cancelRequested) {
+                    return 0;
+                }
+                row.status = InheritanceJobStatus.RUNNING;
+                return 1;
+            }
+            if (sql.startsWith("UPDATE inheritance_jobs SET status = ?")) {
+                Row row = rows.get((UUID) arguments[6]);
+                if (row.status.isTerminal()) {
+                    return 0;
+                }
+                row.status = InheritanceJobStatus.valueOf((String) arguments[0]);
+                row.processed = (Long) arguments[2];
+                row.error = (String) arguments[5];
+                return 1;
+            }
+            if (sql.startsWith("UPDATE inheritance_jobs SET cancel_requested")) {
+                Row row = rows.get((UUID) arguments[0]);
+                if (row == null || !row.creatorId.equals(arguments[1]) || row.status.isTerminal()) {
+                    return 0;
+                }
+                row.cancelRequested = true;
+                if (row.status == InheritanceJobStatus.QUEUED) {
+                    row.status = InheritanceJobStatus.CANCELLED;
+                }
+                return 1;
+            }
+            // Abandoned and expired jobs
+            return 0;
+        }
+
+        private void heartbeat(PreparedStatementCreator statementCreator, RowCallbackHandler handler) throws Exception {
+            List<Object[]> arrays = new ArrayList<>();
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+            when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                arrays.add(invocation.getArgument(1));
+                return mock(Array.class);
+            });
+            statementCreator.createPreparedStatement(connection);
+
+            for (Object jobId : arrays.get(0)) {
+                Row row;
+                synchronized (this) {
+                    row = rows.get((UUID) jobId);
+                    if (row == null || row.status.isTerminal()) {
+                        continue;
+                    }
+                }
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getObject(1, UUID.class)).thenReturn(row.id);
+                when(resultSet.getBoolean(2)).thenReturn(row.cancelRequested);
+                handler.processRow(resultSet);
+            }
+        }
+    }
+
+    private static final class Row {
+        private UUID id;
+        private InheritanceJobType jobType;
+        private UUID creatorId;
+        private String nodeId;
+        private volatile InheritanceJobStatus status;
+        private volatile boolean cancelRequested;
+        private volatile long processed;
+        private volatile String error;
+
+        private InheritanceJobResponse toResponse() {
+            return InheritanceJobResponse.builder()
+                    .jobId(id)
+                    .jobType(jobType)
+                    .status(status)
+                    .creatorId(creatorId)
+                    .processed(processed)
+                    .cancelRequested(cancelRequested)
+                    .error(error)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.InheritanceOutboxProperties;
+import com.legacykeep.legacy.config.KafkaProducerConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Relays an in-memory stand-in of {@code inheritance_outbox} to an embedded Kafka broker.
+ */
+@EmbeddedKafka(partitions = 4, topics = InheritanceOutboxRelayTest.TOPIC)
+class InheritanceOutboxRelayTest {
+
+    static final String TOPIC = "inheritance-events";
+
+    // The broker is shared by the tests; keys carry a per-test prefix to tell their records apart
+    private final String run = UUID.randomUUID().toString().substring(0, 8) + "/";
+    private final List<OutboxRow> outbox = new CopyOnWriteArrayList<>();
+    private final Set<Long> published = ConcurrentHashMap.newKeySet();
+
+    private InheritanceOutboxProperties properties;
+    private JdbcTemplate jdbcTemplate;
+    private KafkaTemplate<String, String> kafkaTemplate;
+    private Consumer<String, String> consumer;
+
+    @BeforeEach
+    void setUp(EmbeddedKafkaBroker broker) throws Exception {
+        properties = new InheritanceOutboxProperties();
+        properties.setRelayPartitions(2);
+        properties.setBatchSize(50);
+        properties.setSendTimeoutMillis(10_000);
+
+        KafkaProperties kafkaProperties = new KafkaProperties();
+        kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+        kafkaTemplate = new KafkaProducerConfig().inheritanceEventKafkaTemplate(kafkaProperties, "lz4", 5, 65536);
+
+        Map<String, Object> consumerProperties = KafkaTestUtils.consumerProps(
+                "outbox-test-" + UUID.randomUUID(), "false", broker);
+        consumer = new DefaultKafkaConsumerFactory<>(consumerProperties,
+                new StringDeserializer(), new StringDeserializer()).createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+
+        jdbcTemplate = outboxStandIn();
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+        kafkaTemplate.destroy();
+    }
+
+    @Test
+    void publishesEveryPartitionInOutboxOrderKeyedByRecipient() {
+        List<String> recipients = List.of(run + "r-1", run + "r-2", run + "r-3", run + "r-4", run + "r-5");
+        for (int i = 0; i < 120; i++) {
+            addRow(recipients.get(i % recipients.size()), i);
+        }
+        InheritanceOutboxRelay relay = relay(kafkaTemplate);
+
+        int batches = relayAll(relay);
+
+        assertThat(batches).isGreaterThan(properties.getRelayPartitions());
+
+        assertThat(published).hasSize(120);
+        List<ConsumerRecord<String, String>> received = poll(120);
+        assertThat(received).hasSize(120);
+
+        Map<String, List<ConsumerRecord<String, String>>> byKey = received.stream()
+                .collect(Collectors.groupingBy(ConsumerRecord::key));
+        assertThat(byKey.keySet()).containsExactlyInAnyOrderElementsOf(recipients);
+        byKey.forEach((key, records) -> {
+            // One Kafka partition per recipient, in the order the rows were written
+            assertThat(records.stream().map(ConsumerRecord::partition).distinct()).hasSize(1);
+            List<Integer> sequence = records.stream()
+                    .map(record -> Integer.parseInt(header(record, "eventId").substring(4)))
+                    .collect(Collectors.toList());
+            assertThat(sequence).isSorted();
+        });
+        assertThat(header(received.get(0), "eventType")).isEqualTo("INHERITANCE_TRIGGERED");
+    }
+
+    @Test
+    void leavesTheBatchUnpublishedWhenASendFails() {
+        for (int i = 0; i < 10; i++) {
+            addRow(run + "r-1", i);
+        }
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, String> failing = mock(KafkaTemplate.class);
+        when(failing.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        for (int partition = 0; partition < properties.getRelayPartitions(); partition++) {
+            relay(failing).drain(partition);
+        }
+        assertThat(published).isEmpty();
+
+        // The next relay pass retries the same rows
+        relayAll(relay(kafkaTemplate));
+        assertThat(published).hasSize(10);
+        assertThat(poll(10)).hasSize(10);
+    }
+
+    private InheritanceOutboxRelay relay(KafkaTemplate<String, String> template) {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        return new InheritanceOutboxRelay(jdbcTemplate, template, properties, TOPIC, transactionManager,
+                new SimpleMeterRegistry());
+    }
+
+    /**
+     * Relay every partition until it is idle.
+     *
+     * @return Number of non-empty batches
+     */
+    private int relayAll(InheritanceOutboxRelay relay) {
+        int batches = 0;
+        for (int partition = 0; partition < properties.getRelayPartitions(); partition++) {
+            while (relay.relayBatch(partition) > 0) {
+                batches++;
+            }
+        }
+        return batches;
+    }
+
+    private void addRow(String recipient, int sequence) {
+        outbox.add(new OutboxRow(outbox.size() + 1, "evt-" + sequence, recipient,
+                "{\"recipientId\": \"" + recipient + "\", \"sequence\": " + sequence + "}"));
+    }
+
+    /**
+     * Answers the relay's statements from {@link #outbox}: the partition lock always
+     * succeeds, a fetch returns the next unpublished rows of a partition in id order, and
+     * marking records the published ids.
+     */
+    @SuppressWarnings("unchecked")
+    private JdbcTemplate outboxStandIn() throws Exception {
+        JdbcTemplate template = mock(JdbcTemplate.class);
+        when(template.queryForObject(anyString(), eq(Boolean.class), any(Object[].class))).thenReturn(true);
+
+        when(template.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            int partitions = invocation.getArgument(2);
+            int partition = invocation.getArgument(3);
+            int limit = invocation.getArgument(4);
+
+            List<Object> rows = new ArrayList<>();
+            for (OutboxRow row : outbox) {
+                if (rows.size() < limit && !published.contains(row.id)
+                        && Math.abs(row.messageKey.hashCode()) % partitions == partition) {
+                    rows.add(mapper.mapRow(row.toResultSet(), rows.size()));
+                }
+            }
+            return rows;
+        });
+
+        when(template.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            PreparedStatementCreator creator = invocation.getArgument(0);
+            Connection connection = mock(Connection.class);
+            List<Object> ids = new ArrayList<>();
+            when(connection.prepareStatement(anyString())).thenReturn(mock(java.sql.PreparedStatement.class));
+            when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(create -> {
+                ids.addAll(List.of((Object[]) create.getArgument(1)));
+                return mock(Array.class);
+            });
+            creator.createPreparedStatement(connection);
+            ids.forEach(id -> published.add((Long) id));
+            return ids.size();
+        });
+        return template;
+    }
+
+    private List<ConsumerRecord<String, String>> poll(int expected) {
+        List<ConsumerRecord<String, String>> received = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (received.size() < expected && System.currentTimeMillis() < deadline) {
+            ConsumerRecords<String, String> records = consumer.poll(Duration.ofMillis(200));
+            records.forEach(record -> {
+                if (record.key().startsWith(run)) {
+                    received.add(record);
+                }
+            });
+        }
+        return received;
+    }
+
+    private static String header(ConsumerRecord<String, String> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static final class OutboxRow {
+        private final long id;
+        private final String eventId;
+        private final String messageKey;
+        private final String payload;
+
+        private OutboxRow(long id, String eventId, String messageKey, String payload) {
+            this.id = id;
+            this.eventId = eventId;
+            this.messageKey = messageKey;
+            this.payload = payload;
+        }
+
+        private ResultSet toResultSet() throws Exception {
+            ResultSet rs = mock(ResultSet.class);
+            when(rs.getLong(1)).thenReturn(id);
+            when(rs.getString(2)).thenReturn(eventId);
+            when(rs.getString(3)).thenReturn("INHERITANCE_TRIGGERED");
+            when(rs.getString(4)).thenReturn(messageKey);
+            when(rs.getString(5)).thenReturn(payload);
+            return rs;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Throughput of {@link InheritanceRuleBulkImporter} streaming a JSON array of rule
+ * requests, with the database reduced to a stub so the figure covers parsing, validation,
+ * chunking and statement preparation. One content query and one insert per chunk are
+ * asserted alongside.
+ *
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class InheritanceRuleBulkImporterBenchmarkTest {
+
+    private static final int RULES = 100_000;
+    private static final int CONTENTS = 1_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final InheritanceProcessingProperties properties = new InheritanceProcessingProperties();
+    private final AtomicInteger queries = new AtomicInteger();
+    private final AtomicInteger inserts = new AtomicInteger();
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void throughputOfStreamedBulkCreation() throws IOException {
+        List<UUID> contentIds = new ArrayList<>(CONTENTS);
+        for (int i = 0; i < CONTENTS; i++) {
+            contentIds.add(UUID.randomUUID());
+        }
+        byte[] body = body(contentIds);
+
+        // Stub-only, so the mock does not retain every statement as an invocation
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class, withSettings().stubOnly());
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class))).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            return contentIds;
+        });
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            inserts.incrementAndGet();
+            return 1;
+        });
+        InheritanceRuleBulkImporter importer = new InheritanceRuleBulkImporter(jdbcTemplate, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                mock(InheritanceRuleIndex.class, withSettings().stubOnly()),
+                mock(InheritanceTriggerScheduler.class, withSettings().stubOnly()),
+                mock(InheritanceWorkQueue.class, withSettings().stubOnly()), properties,
+                mock(PlatformTransactionManager.class, withSettings().stubOnly()), new SimpleMeterRegistry());
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            importRules(importer, body);
+        }
+        queries.set(0);
+        inserts.set(0);
+
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            BulkInheritanceRuleResponse response = importRules(importer, body);
+            assertThat(response.getCreated()).isEqualTo(RULES);
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        int chunks = (RULES + properties.getBulkChunkSize() - 1) / properties.getBulkChunkSize();
+        System.out.printf("%,d rules in chunks of %d (%,d bytes): %,.0f rules/s%n",
+                RULES, properties.getBulkChunkSize(), body.length, RULES * MEASURED_ROUNDS / seconds);
+
+        assertThat(queries).hasValue(chunks * MEASURED_ROUNDS);
+        assertThat(inserts).hasValue(chunks * MEASURED_ROUNDS);
+    }
+
+    private BulkInheritanceRuleResponse importRules(InheritanceRuleBulkImporter importer, byte[] body)
+            throws IOException {
+        try (MappingIterator<CreateInheritanceRuleRequest> requests = objectMapper
+                .readerFor(CreateInheritanceRuleRequest.class)
+                .readValues(body)) {
+            return importer.importRules(requests, UUID.randomUUID());
+        }
+    }
+
+    private byte[] body(List<UUID> contentIds) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < RULES; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            Map<String, Object> rule = new LinkedHashMap<>();
+            rule.put("contentId", contentIds.get(i % CONTENTS));
+            rule.put("targetType", "RELATIONSHIP_TYPE");
+            rule.put("targetValue", i % 2 == 0 ? "Son" : "Daughter");
+            rule.put("inheritanceTrigger", i % 10 == 0 ? "IMMEDIATE" : "EVENT_BASED");
+            rule.put("priority", i % 5);
+            out.write(objectMapper.writeValueAsBytes(rule));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,213 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.legacykeep.legacy.config.InheritanceProcessingProperties;
+import com.legacykeep.legacy.controller.InheritanceController;
+import com.legacykeep.legacy.dto.request.CreateInheritanceRuleRequest;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse;
+import com.legacykeep.legacy.dto.response.BulkInheritanceRuleResponse.ItemResult;
+import com.legacykeep.legacy.enums.InheritanceWorkBand;
+import com.legacykeep.legacy.service.InheritanceJobService;
+import com.legacykeep.legacy.service.InheritanceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link InheritanceRuleBulkImporter} and {@code POST /inheritance/rules/bulk} over a
+ * simulated {@code legacy_content} table: per-item results, chunk failures, response
+ * status and malformed request streams.
+ */
+class InheritanceRuleBulkImporterTest {
+
+    private static final UUID CREATOR_ID = UUID.randomUUID();
+    private static final int CHUNK_SIZE = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Set<UUID> contentTable = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inserts = new AtomicInteger();
+    private final Set<Integer> failingInserts = ConcurrentHashMap.newKeySet();
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final InheritanceRuleIndex ruleIndex = mock(InheritanceRuleIndex.class);
+    private final InheritanceWorkQueue workQueue = mock(InheritanceWorkQueue.class);
+
+    private InheritanceRuleBulkImporter importer;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(jdbcTemplate.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> new ArrayList<>(contentTable));
+        when(jdbcTemplate.update(any(PreparedStatementCreator.class))).thenAnswer(invocation -> {
+            if (failingInserts.contains(inserts.incrementAndGet())) {
+                throw new IllegalStateException("insert failed");
+            }
+            return 1;
+        });
+
+        InheritanceProcessingProperties properties = new InheritanceProcessingProperties();
+        properties.setBulkChunkSize(CHUNK_SIZE);
+        importer = new InheritanceRuleBulkImporter(jdbcTemplate, objectMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(), ruleIndex,
+                mock(InheritanceTriggerScheduler.class), workQueue, properties,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+
+        InheritanceService inheritanceService = mock(InheritanceService.class);
+        when(inheritanceService.createInheritanceRules(any(), any())).thenAnswer(invocation ->
+                importer.importRules(invocation.getArgument(0), invocation.getArgument(1)));
+        mockMvc = MockMvcBuilders.standaloneSetup(new InheritanceController(inheritanceService,
+                mock(InheritanceJobService.class), objectMapper)).build();
+    }
+
+    @Test
+    void everyItemIsReportedInRequestOrder() throws IOException {
+        UUID contentId = content();
+        UUID missingContentId = UUID.randomUUID();
+
+        BulkInheritanceRuleResponse response = importJson("["
+                + rule(contentId, "IMMEDIATE") + ","
+                + "{\"contentId\":\"" + contentId + "\",\"targetType\":\"RELATIONSHIP_TYPE\","
+                + "\"inheritanceTrigger\":\"IMMEDIATE\"},"
+                + rule(missingContentId, "IMMEDIATE") + ","
+                + "null,"
+                + "{\"contentId\":\"" + contentId + "\",\"targetType\":\"NOT_A_TARGET\"},"
+                + rule(contentId, "EVENT_BASED")
+                + "]");
+
+        assertThat(response.getReceived()).isEqualTo(6);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(ItemResult::getIndex).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(response.getResults()).extracting(ItemResult::getStatus).containsExactly(
+                ItemResult.Status.CREATED, ItemResult.Status.REJECTED, ItemResult.Status.REJECTED,
+                ItemResult.Status.REJECTED, ItemResult.Status.REJECTED, ItemResult.Status.CREATED);
+        assertThat(response.getResults().get(0).getRuleId()).isNotNull();
+        assertThat(response.getResults().get(1).getErrors()).containsExactly("Target value is required");
+        assertThat(response.getResults().get(2).getErrors()).containsExactly("Content not found: " + missingContentId);
+        // A null element does not bind to a request
+        assertThat(response.getResults().get(3).getErrors()).singleElement().asString().startsWith("Invalid request");
+        assertThat(response.getResults().get(4).getErrors()).singleElement().asString().startsWith("Invalid request");
+
+        // Only the chunks with accepted rules are written, and only IMMEDIATE rules are queued
+        assertThat(inserts).hasValue(2);
+        verify(workQueue, times(2)).enqueue(anyMap(), eq(InheritanceWorkBand.NORMAL), eq("BULK_IMMEDIATE"));
+        verify(ruleIndex, times(2)).onRulesSaved(anyCollection());
+    }
+
+    @Test
+    void aFailingChunkRejectsOnlyItsOwnItems() throws IOException {
+        UUID contentId = content();
+        failingInserts.add(2);
+
+        BulkInheritanceRuleResponse response = importJson("[" + String.join(",", List.of(
+                rule(contentId, "EVENT_BASED"), rule(contentId, "EVENT_BASED"), rule(contentId, "EVENT_BASED"),
+                rule(contentId, "EVENT_BASED"), rule(contentId, "EVENT_BASED"))) + "]");
+
+        assertThat(response.getCreated()).isEqualTo(3);
+        assertThat(response.getResults()).extracting(ItemResult::getStatus).containsExactly(
+                ItemResult.Status.CREATED, ItemResult.Status.CREATED, ItemResult.Status.REJECTED,
+                ItemResult.Status.REJECTED, ItemResult.Status.CREATED);
+        assertThat(response.getResults().get(2).getErrors()).containsExactly("Rule could not be saved");
+        assertThat(inserts).hasValue(3);
+        verify(ruleIndex, times(2)).onRulesSaved(anyCollection());
+    }
+
+    @Test
+    void endpointAnswersCreatedWhenEveryRuleIsCreated() throws Exception {
+        UUID contentId = content();
+
+        mockMvc.perform(post("/inheritance/rules/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + rule(contentId, "IMMEDIATE") + "," + rule(contentId, "EVENT_BASED") + "]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.created").value(2))
+                .andExpect(jsonPath("$.data.rejected").value(0))
+                .andExpect(jsonPath("$.data.results[1].status").value("CREATED"));
+    }
+
+    @Test
+    void endpointAnswersMultiStatusWhenSomeRulesAreRejected() throws Exception {
+        UUID contentId = content();
+
+        mockMvc.perform(post("/inheritance/rules/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + rule(contentId, "IMMEDIATE") + "," + rule(UUID.randomUUID(), "IMMEDIATE") + "]"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.results[1].status").value("REJECTED"));
+    }
+
+    @Test
+    void malformedStreamKeepsTheItemsReadBeforeIt() throws Exception {
+        UUID contentId = content();
+
+        mockMvc.perform(post("/inheritance/rules/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + rule(contentId, "IMMEDIATE") + ",{\"contentId\": ,"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.data.received").value(2))
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.data.results[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$.data.results[1].errors[0]").value(
+                        startsWith("Malformed request")));
+        assertThat(inserts).hasValue(1);
+    }
+
+    private BulkInheritanceRuleResponse importJson(String json) throws IOException {
+        try (MappingIterator<CreateInheritanceRuleRequest> requests = objectMapper
+                .readerFor(CreateInheritanceRuleRequest.class)
+                .readValues(json)) {
+            return importer.importRules(requests, CREATOR_ID);
+        }
+    }
+
+    private UUID content() {
+        UUID contentId = UUID.randomUUID();
+        contentTable.add(contentId);
+        return contentId;
+    }
+
+    private String rule(UUID contentId, String trigger) throws IOException {
+        return objectMapper.writeValueAsString(Map.of(
+                "contentId", contentId,
+                "targetType", "RELATIONSHIP_TYPE",
+                "targetValue", "Son",
+                "inheritanceTrigger", trigger,
+                "priority", 1));
+    }
+}
@@ -0,0 +1,193 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.NodeProperties;
+import com.legacykeep.legacy.entity.InheritanceRule;
+import com.legacykeep.legacy.enums.InheritanceStatus;
+import com.legacykeep.legacy.enums.InheritanceTrigger;
+import com.legacykeep.legacy.enums.TargetType;
+import com.legacykeep.legacy.repository.InheritanceRuleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two {@link InheritanceRuleIndex} instances over one simulated {@code inheritance_rules}
+ * table, with the Redis change channel simulated by delivering every published message to
+ * both.
+ */
+class InheritanceRuleIndexTest {
+
+    private static final String CHANNEL = "legacy:inheritance:rule-index:changes";
+    private static final String TARGET = "Son";
+
+    private final Map<UUID, InheritanceRule> rulesTable = new ConcurrentHashMap<>();
+    private final List<InheritanceRuleIndex> nodes = new ArrayList<>();
+    private final AtomicInteger reads = new AtomicInteger();
+
+    private InheritanceRuleIndex nodeA;
+    private InheritanceRuleIndex nodeB;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        InheritanceRuleRepository repository = mock(InheritanceRuleRepository.class);
+        when(repository.findActiveIndexEntries(any(Pageable.class))).thenReturn(List.of());
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            reads.incrementAndGet();
+            List<InheritanceRule> found = new ArrayList<>();
+            ((Iterable<UUID>) invocation.getArgument(0)).forEach(id -> found.add(rulesTable.get(id)));
+            found.removeIf(Objects::isNull);
+            return found;
+        });
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        doAnswer(invocation -> {
+            byte[] body = ((String) invocation.getArgument(1)).getBytes(StandardCharsets.UTF_8);
+            DefaultMessage message = new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body);
+            nodes.forEach(node -> node.onChange(message));
+            return 1L;
+        }).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+
+        nodeA = node("node-a", repository, redisTemplate);
+        nodeB = node("node-b", repository, redisTemplate);
+    }
+
+    @Test
+    void ruleCreatedOnOneNodeIsIndexedOnAnother() {
+        InheritanceRule rule = save(rule(InheritanceStatus.ACTIVE));
+        nodeA.onRuleSaved(rule);
+
+        assertThat(ids(nodeB.findActiveRules(TargetType.RELATIONSHIP_TYPE, TARGET))).containsExactly(rule.getId());
+        assertThat(ids(nodeB.findActiveRulesByContent(rule.getContentId()))).containsExactly(rule.getId());
+        assertThat(ids(nodeB.findActiveRulesByCreator(rule.getCreatorId()))).containsExactly(rule.getId());
+    }
+
+    @Test
+    void rulePausedOnOneNodeIsRemovedOnAnother() {
+        InheritanceRule rule = save(rule(InheritanceStatus.ACTIVE));
+        nodeA.onRuleSaved(rule);
+        assertThat(nodeB.get(rule.getId())).isPresent();
+
+        rule.setStatus(InheritanceStatus.PAUSED);
+        nodeA.onRuleSaved(save(rule));
+
+        assertThat(nodeB.get(rule.getId())).isEmpty();
+        assertThat(nodeB.findActiveRules(TargetType.RELATIONSHIP_TYPE, TARGET)).isEmpty();
+    }
+
+    @Test
+    void ruleDeletedOnOneNodeIsRemovedOnAnother() {
+        InheritanceRule rule = save(rule(InheritanceStatus.ACTIVE));
+        nodeA.onRuleSaved(rule);
+        reads.set(0);
+
+        rulesTable.remove(rule.getId());
+        nodeA.onRuleDeleted(rule.getId());
+
+        assertThat(nodeB.get(rule.getId())).isEmpty();
+        assertThat(nodeA.get(rule.getId())).isEmpty();
+        assertThat(reads).hasValue(0);
+    }
+
+    @Test
+    void otherNodesApplyTheCommittedStateWhateverTheMessageOrder() {
+        InheritanceRule rule = save(rule(InheritanceStatus.ACTIVE));
+        rule.setStatus(InheritanceStatus.PAUSED);
+        save(rule);
+
+        // The message of the earlier, active save arrives after the rule was paused
+        nodeB.onChange(message("node-a|SAVED|" + rule.getId()));
+
+        assertThat(nodeB.get(rule.getId())).isEmpty();
+    }
+
+    @Test
+    void bulkSavesArePublishedAsOneChange() {
+        List<InheritanceRule> rules = List.of(save(rule(InheritanceStatus.ACTIVE)), save(rule(InheritanceStatus.ACTIVE)),
+                save(rule(InheritanceStatus.ACTIVE)));
+        nodeA.onRulesSaved(rules);
+
+        assertThat(reads).hasValue(1);
+        assertThat(nodeB.size()).isEqualTo(3);
+    }
+
+    @Test
+    void ownAndUnreadableChangesAreIgnored() {
+        InheritanceRule rule = save(rule(InheritanceStatus.ACTIVE));
+        nodeA.onChange(message("node-a|SAVED|" + rule.getId()));
+        nodeA.onChange(message("garbage"));
+        nodeA.onChange(message("node-b|SAVED|not-a-uuid"));
+
+        assertThat(reads).hasValue(0);
+        assertThat(nodeA.size()).isZero();
+    }
+
+    private InheritanceRuleIndex node(String nodeId, InheritanceRuleRepository repository,
+                                      StringRedisTemplate redisTemplate) {
+        NodeProperties properties = new NodeProperties();
+        properties.setId(nodeId);
+        InheritanceRuleIndex index = new InheritanceRuleIndex(repository, redisTemplate,
+                mock(RedisConnectionFactory.class), new NodeIdentity(properties), CHANNEL, new SimpleMeterRegistry());
+        index.load();
+        nodes.add(index);
+        return index;
+    }
+
+    private InheritanceRule save(InheritanceRule rule) {
+        rulesTable.put(rule.getId(), InheritanceRule.builder()
+                .id(rule.getId())
+                .contentId(rule.getContentId())
+                .creatorId(rule.getCreatorId())
+                .targetType(rule.getTargetType())
+                .targetValue(rule.getTargetValue())
+                .inheritanceTrigger(rule.getInheritanceTrigger())
+                .status(rule.getStatus())
+                .priority(rule.getPriority())
+                .build());
+        return rule;
+    }
+
+    private static InheritanceRule rule(InheritanceStatus status) {
+        return InheritanceRule.builder()
+                .id(UUID.randomUUID())
+                .contentId(UUID.randomUUID())
+                .creatorId(UUID.randomUUID())
+                .targetType(TargetType.RELATIONSHIP_TYPE)
+                .targetValue(TARGET)
+                .inheritanceTrigger(InheritanceTrigger.EVENT_BASED)
+                .status(status)
+                .priority(0)
+                .build();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<UUID> ids(Collection<InheritanceRuleIndex.RuleEntry> entries) {
+        return entries.stream().map(InheritanceRuleIndex.RuleEntry::getId).toList();
+    }
+}
@@ -0,0 +1,195 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipCacheProperties;
+import com.legacykeep.legacy.config.RelationshipGraphProperties;
+import com.legacykeep.legacy.service.RelationshipServiceClient;
+import com.legacykeep.legacy.service.RelationshipServiceClient.RelationshipInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Retained heap and query latency of {@link RelationshipGraphReplica} over a generated
+ * family forest, against the decoded {@link RelationshipInfo} lists the lookups held
+ * before the replica.
+ *
+ * Every user has a "Son" relationship with its parent (user {@code (i - 1) / 2}) and the
+ * first half of the users a "Friend" relationship with one user of the second half, so
+ * {@value #USERS} users share 1.5 relationships each. Retained sizes are heap deltas after
+ * full collections; run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class RelationshipGraphReplicaBenchmarkTest {
+
+    private static final int USERS = 200_000;
+    private static final int LOAD_BATCH = 1_000;
+    private static final int WARMUP_QUERIES = 20_000;
+    private static final int MEASURED_QUERIES = 50_000;
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    @Test
+    void retainedHeapAndQueryLatencyOfTheReplica() {
+        long relationships = USERS - 1 + USERS / 2;
+
+        long decodedBytes = retainedBytes(() -> {
+            Map<UUID, List<RelationshipInfo>> decoded = new HashMap<>();
+            for (int user = 0; user < USERS; user++) {
+                decoded.put(userId(user), relationshipsOf(user));
+            }
+            return decoded;
+        });
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RelationshipGraphReplica[] holder = new RelationshipGraphReplica[1];
+        long replicaBytes = retainedBytes(() -> {
+            holder[0] = replica(meterRegistry);
+            List<UUID> batch = new ArrayList<>(LOAD_BATCH);
+            for (int user = 0; user < USERS; user++) {
+                batch.add(userId(user));
+                if (batch.size() == LOAD_BATCH || user == USERS - 1) {
+                    holder[0].getUsersByRelationshipType(batch, "Son");
+                    batch.clear();
+                }
+            }
+            return holder[0];
+        });
+        RelationshipGraphReplica replica = holder[0];
+        double estimatedBytes = meterRegistry.get("legacy.relationship.graph.memory").gauge().value();
+
+        System.out.printf("%,d users, %,d relationships: decoded lists %,d bytes (%,.0f per relationship, "
+                        + "%,.0f MB per 1M); replica %,d bytes (%,.0f per relationship, %,.0f MB per 1M), "
+                        + "estimated %,.0f bytes%n",
+                USERS, relationships, decodedBytes, (double) decodedBytes / relationships,
+                decodedBytes * 1e6 / relationships / (1 << 20), replicaBytes, (double) replicaBytes / relationships,
+                replicaBytes * 1e6 / relationships / (1 << 20), estimatedBytes);
+
+        assertThat(meterRegistry.get("legacy.relationship.graph.half.edges").gauge().value())
+                .isEqualTo(2.0 * relationships);
+        assertThat(replicaBytes).isLessThan(decodedBytes / 4);
+        assertThat((double) replicaBytes).isLessThan(estimatedBytes * 1.5);
+
+        double loadsBefore = meterRegistry.get("legacy.relationship.graph.loads").counter().count();
+        Map<String, long[]> latencies = new LinkedHashMap<>();
+        latencies.put("descendants(3)", measure(() -> replica.getDescendants(randomUser(), 3)));
+        latencies.put("ancestors(16)", measure(() -> replica.getAncestors(randomUser(), 16)));
+        latencies.put("generations(4)", measure(() -> replica.getGenerations(randomUser(), 4)));
+        latencies.put("relationship_check", measure(() -> {
+            int user = 1 + ThreadLocalRandom.current().nextInt(USERS - 1);
+            return replica.activeRelationshipExists(userId(user), userId((user - 1) / 2));
+        }));
+        latencies.forEach((query, nanos) -> System.out.printf("%s: p50 %.1f us, p99 %.1f us%n",
+                query, percentile(nanos, 0.50) / 1e3, percentile(nanos, 0.99) / 1e3));
+
+        // Warm queries are answered from the replica alone
+        assertThat(meterRegistry.get("legacy.relationship.graph.loads").counter().count()).isEqualTo(loadsBefore);
+    }
+
+    private RelationshipGraphReplica replica(MeterRegistry meterRegistry) {
+        RelationshipCacheProperties cacheProperties = new RelationshipCacheProperties();
+        cacheProperties.setEnabled(false);
+
+        // Stub-only, so the mock does not retain the loaded batches as invocations
+        RelationshipServiceClient loader = mock(RelationshipServiceClient.class, withSettings().stubOnly());
+        when(loader.getActiveUserRelationships(anyCollection())).thenAnswer(invocation -> {
+            Collection<UUID> userIds = invocation.getArgument(0);
+            Map<UUID, List<RelationshipInfo>> relationships = new LinkedHashMap<>();
+            userIds.forEach(userId -> relationships.put(userId,
+                    relationshipsOf((int) userId.getLeastSignificantBits())));
+            return relationships;
+        });
+
+        return new RelationshipGraphReplica(new RelationshipGraphProperties(), cacheProperties, loader,
+                mock(RelationshipCache.class, withSettings().stubOnly()), meterRegistry);
+    }
+
+    /**
+     * A user's relationships as the Relationship Service answers them, with every value
+     * decoded into its own objects.
+     */
+    private static List<RelationshipInfo> relationshipsOf(int user) {
+        List<RelationshipInfo> relationships = new ArrayList<>(4);
+        if (user > 0) {
+            relationships.add(relationship(user, (user - 1) / 2, user, "Son", "FAMILY"));
+        }
+        for (int child = 2 * user + 1; child <= 2 * user + 2 && child < USERS; child++) {
+            relationships.add(relationship(child, user, child, "Son", "FAMILY"));
+        }
+        int half = USERS / 2;
+        if (user < half) {
+            relationships.add(relationship(USERS + user, user, user + half, "Friend", "FRIEND"));
+        } else {
+            relationships.add(relationship(USERS + user - half, user - half, user, "Friend", "FRIEND"));
+        }
+        return relationships;
+    }
+
+    private static RelationshipInfo relationship(int id, int user1, int user2, String type, String category) {
+        return new RelationshipInfo(new UUID(0x2000, id), userId(user1), userId(user2),
+                new String(type), new String(category), new String("ACTIVE"), null);
+    }
+
+    private static UUID userId(int user) {
+        return new UUID(0x1000, user);
+    }
+
+    private static UUID randomUser() {
+        return userId(ThreadLocalRandom.current().nextInt(USERS));
+    }
+
+    /**
+     * Heap retained by what the supplier builds, measured after full collections.
+     */
+    private long retainedBytes(Supplier<Object> build) {
+        long before = usedHeapAfterGc();
+        Object retained = build.get();
+        long after = usedHeapAfterGc();
+        assertThat(retained).isNotNull();
+        return after - before;
+    }
+
+    private long usedHeapAfterGc() {
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long[] measure(Supplier<Object> query) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.get();
+        }
+        long[] nanos = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long startNanos = System.nanoTime();
+            query.get();
+            nanos[i] = System.nanoTime() - startNanos;
+        }
+        Arrays.sort(nanos);
+        return nanos;
+    }
+
+    private static long percentile(long[] sortedNanos, double percentile) {
+        return sortedNanos[(int) Math.min(sortedNanos.length - 1, Math.ceil(percentile * sortedNanos.length) - 1)];
+    }
+}
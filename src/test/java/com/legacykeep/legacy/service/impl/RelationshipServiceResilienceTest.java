@@ -0,0 +1,277 @@
+package com.legacykeep.legacy.service.impl;
+
+import com.legacykeep.legacy.config.RelationshipResilienceProperties;
+import com.legacykeep.legacy.controller.RelationshipServiceStubController;
+import com.legacykeep.legacy.exception.RelationshipServiceUnavailableException;
+import com.legacykeep.legacy.util.CircuitBreaker;
+import com.legacykeep.legacy.util.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Drives {@link RelationshipServiceResilience} against {@link RelationshipServiceStubController}
+ * with injected faults, and its hedging against calls of controlled latency.
+ */
+@SpringBootTest(
+        classes = RelationshipServiceStubController.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ImportAutoConfiguration({
+        ServletWebServerFactoryAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class})
+@ActiveProfiles("relationship-stub")
+class RelationshipServiceResilienceTest {
+
+    private static final String ENDPOINT = "checkRelationship";
+
+    @Autowired
+    private RelationshipServiceStubController stub;
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${server.servlet.context-path:}")
+    private String contextPath;
+
+    private final RelationshipResilienceProperties properties = new RelationshipResilienceProperties();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() {
+        stub.setFaults(new RelationshipServiceStubController.Faults());
+        webClient = WebClient.create("http://localhost:" + port + contextPath + "/stub/relationship");
+
+        properties.setCircuitWindowSize(10);
+        properties.setCircuitMinimumCalls(4);
+        properties.setCircuitFailureRateThreshold(50);
+        properties.setCircuitOpenMillis(60000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void serverErrorsOpenTheCircuitAndLaterCallsAreRejectedWithoutReachingTheService() {
+        RelationshipServiceResilience resilience = resilience();
+        injectErrors(503);
+
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> checkRelationship(resilience))
+                    .isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+        }
+
+        assertThat(resilience.getCircuitState(ENDPOINT)).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> checkRelationship(resilience))
+                .isInstanceOf(RelationshipServiceUnavailableException.class)
+                .hasMessageContaining("circuit open");
+        assertThat(attempts).hasValue(4);
+        assertThat(calls("failure")).isEqualTo(4);
+        assertThat(calls("circuit_open")).isEqualTo(1);
+    }
+
+    @Test
+    void clientErrorsFailTheCallButKeepTheCircuitClosed() {
+        RelationshipServiceResilience resilience = resilience();
+        injectErrors(404);
+
+        for (int i = 0; i < 6; i++) {
+            assertThatThrownBy(() -> checkRelationship(resilience))
+                    .isInstanceOf(WebClientResponseException.NotFound.class);
+        }
+
+        assertThat(resilience.getCircuitState(ENDPOINT)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(calls("client_error")).isEqualTo(6);
+    }
+
+    @Test
+    void slowServiceIsCutOffAtTheRequestDeadlineWithoutCountingAgainstTheCircuit() {
+        RelationshipServiceResilience resilience = resilience();
+        RelationshipServiceStubController.Faults faults = new RelationshipServiceStubController.Faults();
+        faults.setLatencyMillis(1000);
+        stub.setFaults(faults);
+
+        for (int i = 0; i < 4; i++) {
+            RequestDeadline.set(System.currentTimeMillis() + 100);
+            long startNanos = System.nanoTime();
+            assertThatThrownBy(() -> checkRelationship(resilience))
+                    .isInstanceOf(RelationshipServiceUnavailableException.class)
+                    .hasMessageContaining("request deadline exceeded");
+            assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofMillis(800));
+        }
+
+        assertThat(resilience.getCircuitState(ENDPOINT)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(calls("deadline_exceeded")).isEqualTo(4);
+    }
+
+    @Test
+    void passedDeadlineFailsWithoutCallingTheService() {
+        RelationshipServiceResilience resilience = resilience();
+        RequestDeadline.set(System.currentTimeMillis() - 1);
+
+        assertThatThrownBy(() -> checkRelationship(resilience))
+                .isInstanceOf(RelationshipServiceUnavailableException.class)
+                .hasMessageContaining("request deadline exceeded");
+        assertThat(attempts).hasValue(0);
+    }
+
+    @Test
+    void fullBulkheadRejectsCallsUntilASlotIsReleased() {
+        properties.setBulkheadMaxConcurrentCalls(1);
+        RelationshipServiceResilience resilience = resilience();
+
+        Disposable pending = resilience.execute(ENDPOINT, false, Mono::never).subscribe();
+        assertThatThrownBy(() -> checkRelationship(resilience))
+                .isInstanceOf(RelationshipServiceUnavailableException.class)
+                .hasMessageContaining("bulkhead full");
+
+        pending.dispose();
+        assertThat(checkRelationship(resilience)).containsEntry("data", false);
+        assertThat(calls("bulkhead_full")).isEqualTo(1);
+    }
+
+    @Test
+    void slowFirstRequestIsHedgedAndTheHedgeAnswers() {
+        enableHedging(100);
+        RelationshipServiceResilience resilience = resilience();
+        warmUp(resilience);
+
+        long startNanos = System.nanoTime();
+        String answer = resilience.execute(ENDPOINT, true, () -> attempts.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofSeconds(2)).thenReturn("first")
+                        : Mono.just("hedge"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(answer).isEqualTo("hedge");
+        assertThat(attempts).hasValue(2);
+        assertThat(Duration.ofNanos(System.nanoTime() - startNanos)).isLessThan(Duration.ofSeconds(1));
+        assertThat(meterRegistry.get("legacy.relationship.hedges").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void fastFirstRequestIsNotHedged() throws InterruptedException {
+        enableHedging(100);
+        RelationshipServiceResilience resilience = resilience();
+        warmUp(resilience);
+
+        String answer = resilience.execute(ENDPOINT, true, () -> {
+                    attempts.incrementAndGet();
+                    return Mono.just("first");
+                })
+                .block(Duration.ofSeconds(5));
+        Thread.sleep(100);
+
+        assertThat(answer).isEqualTo("first");
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void hedgesAreNotSentBeyondTheBudget() {
+        enableHedging(0);
+        RelationshipServiceResilience resilience = resilience();
+        warmUp(resilience);
+
+        String answer = resilience.execute(ENDPOINT, true, () -> attempts.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofMillis(200)).thenReturn("first")
+                        : Mono.just("hedge"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(answer).isEqualTo("first");
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void nonIdempotentCallsAreNeverHedged() {
+        enableHedging(100);
+        RelationshipServiceResilience resilience = resilience();
+        warmUp(resilience);
+
+        String answer = resilience.execute(ENDPOINT, false, () -> attempts.incrementAndGet() == 1
+                        ? Mono.delay(Duration.ofMillis(200)).thenReturn("first")
+                        : Mono.just("hedge"))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(answer).isEqualTo("first");
+        assertThat(attempts).hasValue(1);
+    }
+
+    private RelationshipServiceResilience resilience() {
+        return new RelationshipServiceResilience(properties, meterRegistry);
+    }
+
+    private void injectErrors(int status) {
+        RelationshipServiceStubController.Faults faults = new RelationshipServiceStubController.Faults();
+        faults.setErrorRatePercent(100);
+        faults.setErrorStatus(status);
+        stub.setFaults(faults);
+    }
+
+    private void enableHedging(double budgetPercent) {
+        properties.setHedgingEnabled(true);
+        properties.setHedgeMinSamples(5);
+        properties.setHedgeMinDelayMillis(20);
+        properties.setHedgeBudgetPercent(budgetPercent);
+    }
+
+    /**
+     * Record enough fast calls against the stub for the hedge delay to be known.
+     */
+    private void warmUp(RelationshipServiceResilience resilience) {
+        for (int i = 0; i < properties.getHedgeMinSamples(); i++) {
+            checkRelationship(resilience);
+        }
+        attempts.set(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> checkRelationship(RelationshipServiceResilience resilience) {
+        return resilience.execute(ENDPOINT, false, () -> {
+                    attempts.incrementAndGet();
+                    return webClient.get()
+                            .uri("/api/v1/relationships/check/{user1Id}/{user2Id}", UUID.randomUUID(), UUID.randomUUID())
+                            .retrieve()
+                            .bodyToMono(Map.class)
+                            .map(body -> (Map<String, Object>) body);
+                })
+                .block(Duration.ofSeconds(5));
+    }
+
+    private double calls(String outcome) {
+        return meterRegistry.get("legacy.relationship.calls")
+                .tag("endpoint", ENDPOINT)
+                .tag("outcome", outcome)
+                .counter()
+                .count();
+    }
+}
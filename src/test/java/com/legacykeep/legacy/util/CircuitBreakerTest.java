@@ -0,0 +1,124 @@
+package com.legacykeep.legacy.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 50;
+
+    private final CircuitBreaker breaker = new CircuitBreaker(10, 4, 50, OPEN_MILLIS, 2);
+
+    @Test
+    void staysClosedUntilMinimumCallsAreRecorded() {
+        fail(3);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void opensAtFailureRateThresholdAndRejectsCalls() {
+        succeed(2);
+        fail(1);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        fail(1);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getTransitions()).isEqualTo(1);
+    }
+
+    @Test
+    void failureRateIsComputedOverTheLastWindowOfCalls() {
+        CircuitBreaker sliding = new CircuitBreaker(4, 4, 75, OPEN_MILLIS, 1);
+        for (int i = 0; i < 2; i++) {
+            sliding.tryAcquire();
+            sliding.onFailure();
+        }
+        for (int i = 0; i < 4; i++) {
+            sliding.tryAcquire();
+            sliding.onSuccess();
+        }
+        // The two old failures slid out of the window of four
+        for (int i = 0; i < 2; i++) {
+            sliding.tryAcquire();
+            sliding.onFailure();
+        }
+        assertThat(sliding.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        sliding.tryAcquire();
+        sliding.onFailure();
+        assertThat(sliding.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void halfOpenLetsTrialCallsThroughAndClosesWhenTheyAllSucceed() throws InterruptedException {
+        fail(4);
+        Thread.sleep(OPEN_MILLIS + 10);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onSuccess();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        breaker.onSuccess();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void halfOpenReopensOnFirstFailure() throws InterruptedException {
+        fail(4);
+        Thread.sleep(OPEN_MILLIS + 10);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onFailure();
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void ignoredCallsReturnTheirHalfOpenPermit() throws InterruptedException {
+        fail(4);
+        Thread.sleep(OPEN_MILLIS + 10);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onIgnored();
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    }
+
+    @Test
+    void ignoredCallsDoNotCountWhileClosed() {
+        for (int i = 0; i < 10; i++) {
+            breaker.tryAcquire();
+            breaker.onIgnored();
+        }
+        fail(3);
+
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private void succeed(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onSuccess();
+        }
+    }
+
+    private void fail(int calls) {
+        for (int i = 0; i < calls; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onFailure();
+        }
+    }
+}
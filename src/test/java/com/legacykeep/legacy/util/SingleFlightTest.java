@@ -0,0 +1,150 @@
+package com.legacykeep.legacy.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 32;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersForOneKeyShareOneLoad() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = submitAll(() -> singleFlight.execute("creator-1", () -> {
+            upstreamCalls.incrementAndGet();
+            await(release);
+            return "relationships";
+        }));
+        awaitShared(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("relationships");
+        }
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(singleFlight.getLoads()).isEqualTo(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void aFailedLoadFailsEveryWaitingCaller() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("relationship service down");
+
+        List<Future<String>> results = submitAll(() -> singleFlight.execute("creator-1", () -> {
+            upstreamCalls.incrementAndGet();
+            await(release);
+            throw failure;
+        }));
+        awaitShared(CALLERS - 1);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS)).hasCause(failure);
+        }
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(singleFlight.inFlight()).isZero();
+    }
+
+    @Test
+    void aCallerArrivingAfterTheLoadStartsANewOne() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        singleFlight.execute("creator-1", () -> "v" + upstreamCalls.incrementAndGet());
+        String second = singleFlight.execute("creator-1", () -> "v" + upstreamCalls.incrementAndGet());
+
+        assertThat(second).isEqualTo("v2");
+        assertThat(singleFlight.getShared()).isZero();
+    }
+
+    @Test
+    void batchLoadsShareKeysAlreadyInFlight() throws Exception {
+        List<Collection<String>> batches = new ArrayList<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> single = callers.submit(() -> singleFlight.execute("b", () -> {
+            await(release);
+            return "value-b";
+        }));
+        awaitInFlight(1);
+
+        Future<Map<String, String>> batch = callers.submit(() -> singleFlight.executeAll(List.of("a", "b", "c"), keys -> {
+            batches.add(keys);
+            Map<String, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, "value-" + key));
+            return values;
+        }));
+        awaitShared(1);
+        release.countDown();
+
+        assertThat(single.get(5, TimeUnit.SECONDS)).isEqualTo("value-b");
+        assertThat(batch.get(5, TimeUnit.SECONDS))
+                .containsExactly(Map.entry("a", "value-a"), Map.entry("b", "value-b"), Map.entry("c", "value-c"));
+        assertThat(batches).containsExactly(List.of("a", "c"));
+    }
+
+    private List<Future<String>> submitAll(Callable<String> call) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> {
+                start.await();
+                return call.call();
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private void awaitShared(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.getShared() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(singleFlight.getShared()).isEqualTo(expected);
+    }
+
+    private void awaitInFlight(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (singleFlight.inFlight() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(singleFlight.inFlight()).isEqualTo(expected);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}